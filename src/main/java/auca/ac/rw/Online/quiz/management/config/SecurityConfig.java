@@ -1,6 +1,11 @@
 package auca.ac.rw.Online.quiz.management.config;
 
+import auca.ac.rw.Online.quiz.management.security.BoundedPasswordEncoder;
 import auca.ac.rw.Online.quiz.management.security.JwtAuthenticationFilter;
+import auca.ac.rw.Online.quiz.management.security.LoginRateLimitFilter;
+import auca.ac.rw.Online.quiz.management.security.ThrottlingAuthenticationEntryPoint;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -10,7 +15,6 @@ import org.springframework.security.config.annotation.method.configuration.Enabl
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
@@ -18,6 +22,7 @@ import org.springframework.security.web.authentication.Http403ForbiddenEntryPoin
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
+import jakarta.servlet.DispatcherType;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import java.util.Arrays;
@@ -28,11 +33,28 @@ import java.util.Arrays;
 public class SecurityConfig {
 
     private final JwtAuthenticationFilter jwtFilter;
+    private final LoginRateLimitFilter loginRateLimitFilter;
     private final UserDetailsServiceImpl userDetailsService;
+    private final MeterRegistry meterRegistry;
 
-    public SecurityConfig(JwtAuthenticationFilter jwtFilter, UserDetailsServiceImpl userDetailsService) {
+    @Value("${app.security.bcrypt.strength:10}")
+    private int bcryptStrength;
+
+    @Value("${app.security.bcrypt.threads:0}")
+    private int bcryptThreads;
+
+    @Value("${app.security.bcrypt.queue-capacity:64}")
+    private int bcryptQueueCapacity;
+
+    @Value("${app.security.bcrypt.retry-after-seconds:2}")
+    private long bcryptRetryAfterSeconds;
+
+    public SecurityConfig(JwtAuthenticationFilter jwtFilter, LoginRateLimitFilter loginRateLimitFilter,
+            UserDetailsServiceImpl userDetailsService, MeterRegistry meterRegistry) {
         this.jwtFilter = jwtFilter;
+        this.loginRateLimitFilter = loginRateLimitFilter;
         this.userDetailsService = userDetailsService;
+        this.meterRegistry = meterRegistry;
     }
 
     @Bean
@@ -42,6 +64,8 @@ public class SecurityConfig {
                 .csrf(csrf -> csrf.disable())
                 .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
                 .authorizeHttpRequests(auth -> auth
+                        // Completion dispatch of streamed responses; the original request was already authorized
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
                         .requestMatchers("/api/auth/**").permitAll()
                         .requestMatchers("/api/system/**").permitAll()
                         .requestMatchers("/api/test/**").permitAll()
@@ -58,7 +82,7 @@ public class SecurityConfig {
                         .requestMatchers("/api/notifications/**").authenticated()
                         .anyRequest().authenticated())
                 .exceptionHandling(exceptions -> exceptions
-                        .authenticationEntryPoint(new Http403ForbiddenEntryPoint())
+                        .authenticationEntryPoint(new ThrottlingAuthenticationEntryPoint(new Http403ForbiddenEntryPoint()))
                         .accessDeniedHandler((HttpServletRequest request, HttpServletResponse response, 
                                 org.springframework.security.access.AccessDeniedException accessDeniedException) -> {
                             System.err.println("[Security] Access denied for: " + request.getRequestURI());
@@ -69,6 +93,8 @@ public class SecurityConfig {
                             response.getWriter().write("{\"error\":\"Access Denied\",\"message\":\"You do not have permission to access this resource\"}");
                         }))
                 .authenticationProvider(daoAuthenticationProvider())
+                // Throttle login/OTP/reset before any BCrypt or SMTP work happens
+                .addFilterBefore(loginRateLimitFilter, UsernamePasswordAuthenticationFilter.class)
                 .addFilterBefore(jwtFilter, UsernamePasswordAuthenticationFilter.class);
         return http.build();
     }
@@ -89,7 +115,9 @@ public class SecurityConfig {
 
     @Bean
     public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+        // BCrypt runs on a bounded pool off the request threads; see BoundedPasswordEncoder
+        return new BoundedPasswordEncoder(bcryptStrength, bcryptThreads, bcryptQueueCapacity,
+                bcryptRetryAfterSeconds, meterRegistry);
     }
 
     @Bean
@@ -99,6 +127,8 @@ public class SecurityConfig {
         DaoAuthenticationProvider provider = new DaoAuthenticationProvider();
         provider.setUserDetailsService(userDetailsService);
         provider.setPasswordEncoder(passwordEncoder());
+        // Rehash stored passwords on successful login when the configured BCrypt cost changes
+        provider.setUserDetailsPasswordService(userDetailsService);
         return provider;
     }
 
@@ -3,6 +3,7 @@ package auca.ac.rw.Online.quiz.management.controller;
 import auca.ac.rw.Online.quiz.management.model.EUserRole;
 import auca.ac.rw.Online.quiz.management.model.User;
 import auca.ac.rw.Online.quiz.management.repository.UserRepository;
+import auca.ac.rw.Online.quiz.management.service.CascadeDeleteService;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -12,9 +13,11 @@ import java.util.List;
 @RequestMapping("/api/admin")
 public class AdminController {
     private final UserRepository userRepository;
+    private final CascadeDeleteService cascadeDeleteService;
 
-    public AdminController(UserRepository userRepository) {
+    public AdminController(UserRepository userRepository, CascadeDeleteService cascadeDeleteService) {
         this.userRepository = userRepository;
+        this.cascadeDeleteService = cascadeDeleteService;
     }
 
     @GetMapping("/users")
@@ -34,10 +37,9 @@ public class AdminController {
 
     @DeleteMapping("/users/{id}")
     public ResponseEntity<Void> deleteUser(@PathVariable Long id) {
-        if (!userRepository.existsById(id)) {
-            return ResponseEntity.notFound().build();
-        }
-        userRepository.deleteById(id);
-        return ResponseEntity.noContent().build();
+        // Attempts, answers and notifications go too; quizzes the user created are kept
+        return cascadeDeleteService.deleteUser(id).isPresent()
+                ? ResponseEntity.noContent().build()
+                : ResponseEntity.notFound().build();
     }
 }
@@ -1,8 +1,10 @@
 package auca.ac.rw.Online.quiz.management.controller;
 
+import auca.ac.rw.Online.quiz.management.exception.TooManyRequestsException;
 import auca.ac.rw.Online.quiz.management.service.AuthService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.BadCredentialsException;
@@ -57,6 +59,11 @@ public class AuthController {
             log.warn("Login failed for {}: {}", request.usernameOrEmail(), ex.getMessage());
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
                     .body(new ErrorResponse(ex.getMessage()));
+        } catch (TooManyRequestsException ex) {
+            log.warn("Login throttled for {}: {}", request.usernameOrEmail(), ex.getMessage());
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+                    .body(new ErrorResponse(ex.getMessage()));
         } catch (Exception ex) {
             log.error("Unexpected error during login for {}: {}", request.usernameOrEmail(), ex.getMessage(), ex);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -119,6 +126,11 @@ public class AuthController {
             log.warn("Password reset failed for {}: {}", request.email(), ex.getMessage());
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
                     .body(new ErrorResponse(ex.getMessage()));
+        } catch (TooManyRequestsException ex) {
+            log.warn("Password reset throttled for {}: {}", request.email(), ex.getMessage());
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+                    .body(new ErrorResponse(ex.getMessage()));
         } catch (Exception ex) {
             log.error("Unexpected error during password reset for {}: {}", request.email(), ex.getMessage(), ex);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
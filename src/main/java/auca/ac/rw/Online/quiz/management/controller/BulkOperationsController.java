@@ -1,38 +1,68 @@
 package auca.ac.rw.Online.quiz.management.controller;
 
-import auca.ac.rw.Online.quiz.management.model.Question;
-import auca.ac.rw.Online.quiz.management.service.QuestionService;
+import auca.ac.rw.Online.quiz.management.model.EQuestionType;
+import auca.ac.rw.Online.quiz.management.service.QuestionExportService;
+import auca.ac.rw.Online.quiz.management.service.QuestionImportService;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.WebAsyncTask;
 import org.springframework.web.multipart.MultipartFile;
-import java.util.List;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.LinkedHashMap;
+import java.util.Locale;
 import java.util.Map;
+import java.util.zip.GZIPOutputStream;
 
 @RestController
 @RequestMapping("/api/bulk")
 public class BulkOperationsController {
-    private final QuestionService questionService;
+    private final QuestionImportService questionImportService;
+    private final QuestionExportService questionExportService;
+    private final long exportTimeoutMs;
 
-    public BulkOperationsController(QuestionService questionService) {
-        this.questionService = questionService;
+    public BulkOperationsController(QuestionImportService questionImportService,
+                                    QuestionExportService questionExportService,
+                                    @Value("${app.bulk.export.timeout-ms:600000}") long exportTimeoutMs) {
+        this.questionImportService = questionImportService;
+        this.questionExportService = questionExportService;
+        this.exportTimeoutMs = exportTimeoutMs;
     }
 
+    /**
+     * Imports questions from a CSV (header row with quizId, text and optional type, points,
+     * category, options, correct) or NDJSON file. The upload is streamed row by row; invalid
+     * rows are skipped and listed in the response with their line numbers.
+     */
     @PostMapping("/questions/import")
-    public ResponseEntity<Map<String, Object>> importQuestions(@RequestParam("file") MultipartFile file) {
-        try {
-            // Simple CSV import simulation
-            int imported = 0;
-            String filename = file.getOriginalFilename();
-            if (filename != null && filename.endsWith(".csv")) {
-                imported = 5; // Placeholder
-            }
-            
-            return ResponseEntity.ok(Map.of(
-                "success", true,
-                "imported", imported,
-                "message", "Questions imported successfully"
+    public ResponseEntity<Map<String, Object>> importQuestions(@RequestParam("file") MultipartFile file,
+                                                               @RequestParam(required = false) String format) {
+        QuestionImportService.Format detected = QuestionImportService.Format.detect(format, file.getOriginalFilename());
+        if (detected == null) {
+            return ResponseEntity.badRequest().body(Map.of(
+                "success", false,
+                "message", "Unsupported file format; upload a .csv or .ndjson file or pass format=csv|ndjson"
             ));
-        } catch (Exception e) {
+        }
+        try (InputStream in = file.getInputStream()) {
+            QuestionImportService.ImportReport report = questionImportService.importQuestions(in, detected);
+            Map<String, Object> body = new LinkedHashMap<>();
+            body.put("success", report.failed() == 0 && !report.aborted());
+            body.put("rows", report.rows());
+            body.put("imported", report.imported());
+            body.put("failed", report.failed());
+            body.put("errors", report.errors());
+            body.put("errorsTruncated", report.errorsTruncated());
+            body.put("message", report.aborted()
+                ? "Import stopped early; " + report.imported() + " questions imported"
+                : report.imported() + " questions imported, " + report.failed() + " rows rejected");
+            return ResponseEntity.ok(body);
+        } catch (IllegalArgumentException | IOException e) {
             return ResponseEntity.badRequest().body(Map.of(
                 "success", false,
                 "message", "Import failed: " + e.getMessage()
@@ -40,24 +70,51 @@ public class BulkOperationsController {
         }
     }
 
+    /**
+     * Streams questions with their options as NDJSON (default) or CSV, optionally gzipped and
+     * filtered by quiz, category and type. The file has the same shape the import endpoint reads.
+     *
+     * The download runs as an async task with its own {@code app.bulk.export.timeout-ms}, since
+     * a large bank can stream for longer than other async requests should be allowed to run.
+     */
     @GetMapping("/questions/export")
-    public ResponseEntity<Map<String, Object>> exportQuestions(@RequestParam(required = false) Long quizId) {
+    public Object exportQuestions(@RequestParam(required = false) Long quizId,
+                                  @RequestParam(required = false) String category,
+                                  @RequestParam(required = false) String type,
+                                  @RequestParam(required = false) String format,
+                                  @RequestParam(defaultValue = "false") boolean gzip,
+                                  HttpServletResponse response) {
+        QuestionExportService.Format exportFormat;
+        EQuestionType questionType = null;
         try {
-            List<Question> questions = quizId != null ? 
-                questionService.findByQuizId(quizId) : 
-                questionService.findAll();
-                
-            return ResponseEntity.ok(Map.of(
-                "success", true,
-                "count", questions.size(),
-                "data", questions,
-                "message", "Questions exported successfully"
-            ));
-        } catch (Exception e) {
+            exportFormat = QuestionExportService.Format.parse(format);
+            if (type != null && !type.isBlank()) {
+                questionType = EQuestionType.valueOf(type.trim().toUpperCase(Locale.ROOT));
+            }
+        } catch (IllegalArgumentException e) {
             return ResponseEntity.badRequest().body(Map.of(
                 "success", false,
                 "message", "Export failed: " + e.getMessage()
             ));
         }
+        QuestionExportService.Filter filter = new QuestionExportService.Filter(
+            quizId, category == null || category.isBlank() ? null : category, questionType);
+
+        String filename = "questions." + exportFormat.extension() + (gzip ? ".gz" : "");
+        response.setContentType(gzip ? "application/gzip" : exportFormat.contentType());
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+            ContentDisposition.attachment().filename(filename).build().toString());
+        return new WebAsyncTask<Void>(exportTimeoutMs, () -> {
+            OutputStream out = response.getOutputStream();
+            if (gzip) {
+                GZIPOutputStream compressed = new GZIPOutputStream(out, 64 * 1024);
+                questionExportService.export(filter, exportFormat, compressed);
+                compressed.finish();
+            } else {
+                questionExportService.export(filter, exportFormat, out);
+            }
+            out.flush();
+            return null;
+        });
     }
-}
\ No newline at end of file
+}
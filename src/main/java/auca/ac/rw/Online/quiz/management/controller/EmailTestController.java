@@ -30,7 +30,7 @@ public class EmailTestController {
             return ResponseEntity.ok(new java.util.HashMap<String, String>() {
                 {
                     put("status", "success");
-                    put("message", "Test email sent successfully to " + request.email());
+                    put("message", "Test email queued for delivery to " + request.email());
                 }
             });
         } catch (Exception ex) {
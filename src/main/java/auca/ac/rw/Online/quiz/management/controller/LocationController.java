@@ -2,16 +2,20 @@ package auca.ac.rw.Online.quiz.management.controller;
 
 import auca.ac.rw.Online.quiz.management.controller.dto.LocationWithUserDTO;
 import auca.ac.rw.Online.quiz.management.model.Location;
+import auca.ac.rw.Online.quiz.management.model.LocationType;
 import auca.ac.rw.Online.quiz.management.model.User;
 import auca.ac.rw.Online.quiz.management.service.LocationService;
+import auca.ac.rw.Online.quiz.management.service.LocationTreeService;
+import auca.ac.rw.Online.quiz.management.repository.LocationClosureRepository;
 import auca.ac.rw.Online.quiz.management.repository.LocationRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
 import java.util.List;
 import java.util.Map;
-import java.util.ArrayList;
 import java.net.URI;
 
 @RestController
@@ -21,6 +25,10 @@ public class LocationController {
     private LocationService locationService;
     @Autowired
     private LocationRepository locationRepository;
+    @Autowired
+    private LocationTreeService locationTreeService;
+    @Autowired
+    private LocationClosureRepository locationClosureRepository;
 
     @GetMapping
     @Transactional(readOnly = true)
@@ -59,78 +67,9 @@ public class LocationController {
             @RequestParam(defaultValue = "") String q,
             @RequestParam(defaultValue = "false") boolean userLocationsOnly) {
         org.springframework.data.domain.Pageable pageable = org.springframework.data.domain.PageRequest.of(page, size);
-        org.springframework.data.domain.Page<Location> result;
-        
-        // If userLocationsOnly is true, only return locations associated with users
-        if (userLocationsOnly) {
-            result = locationService.getUserLocationsPage(q, pageable);
-        } else {
-            result = locationService.search(q, pageable);
-        }
-        
-        // Flatten locations with users into DTOs (one row per location-user pair)
-        List<LocationWithUserDTO> dtoList = new ArrayList<>();
-        long totalElements = result != null ? result.getTotalElements() : 0;
-        
-        if (result != null && result.getContent() != null && !result.getContent().isEmpty()) {
-            List<Long> locationIds = result.getContent().stream()
-                .map(Location::getId)
-                .filter(id -> id != null)
-                .collect(java.util.stream.Collectors.toList());
-            
-            if (!locationIds.isEmpty()) {
-                try {
-                    List<Location> locationsWithUser = locationRepository.findAllWithUserByIds(locationIds);
-                    final java.util.Map<Long, Location> locationMap;
-                    if (locationsWithUser != null) {
-                        locationMap = locationsWithUser.stream()
-                            .filter(loc -> loc != null && loc.getId() != null)
-                            .collect(java.util.stream.Collectors.toMap(Location::getId, loc -> loc, (existing, replacement) -> existing));
-                    } else {
-                        locationMap = new java.util.HashMap<>();
-                    }
-                    
-                    // Flatten: create one DTO per location-user pair
-                    for (Location loc : result.getContent()) {
-                        if (loc != null) {
-                            Location locationWithUser = locationMap.get(loc.getId());
-                            if (locationWithUser != null && locationWithUser.getUsers() != null && !locationWithUser.getUsers().isEmpty()) {
-                                // Create a DTO for each user at this location
-                                for (User user : locationWithUser.getUsers()) {
-                                    dtoList.add(new LocationWithUserDTO(locationWithUser, user));
-                                }
-                            } else {
-                                // Location with no users - still include it with null user info
-                                dtoList.add(new LocationWithUserDTO(loc, null));
-                            }
-                        }
-                    }
-                    
-                    // For totalElements, we approximate by using the location count
-                    // In a production system, you'd want to count all location-user pairs
-                    // For now, this provides a reasonable approximation
-                    totalElements = dtoList.isEmpty() ? 0 : (long) (result.getTotalElements() * 1.0);
-                } catch (Exception e) {
-                    System.err.println("[LocationController] Error eagerly loading user data: " + e.getMessage());
-                    e.printStackTrace();
-                    // Fallback: create DTOs without user data
-                    for (Location loc : result.getContent()) {
-                        if (loc != null) {
-                            dtoList.add(new LocationWithUserDTO(loc, null));
-                        }
-                    }
-                    totalElements = result.getTotalElements();
-                }
-            }
-        }
-        
-        // Apply pagination to the flattened list
-        // Since we've already flattened, we need to slice the list to match the requested page size
-        int start = (int) (pageable.getOffset());
-        int end = Math.min(start + pageable.getPageSize(), dtoList.size());
-        List<LocationWithUserDTO> pagedList = dtoList.isEmpty() ? dtoList : dtoList.subList(Math.min(start, dtoList.size()), end);
-        
-        return new org.springframework.data.domain.PageImpl<>(pagedList, pageable, totalElements);
+        // One row per location-user pair, projected straight into DTOs: a single SELECT plus the COUNT,
+        // and totalElements counts pairs, matching what is paged
+        return locationService.getLocationUserRows(q, userLocationsOnly, pageable);
     }
 
     @GetMapping("/{id}")
@@ -138,8 +77,45 @@ public class LocationController {
         return locationService.getLocationById(id).map(ResponseEntity::ok).orElse(ResponseEntity.notFound().build());
     }
 
+    // Subtree queries, answered from the location_closure table
+
+    @GetMapping("/{id}/ancestors")
+    public List<Location> getAncestors(@PathVariable Long id) {
+        return locationClosureRepository.findAncestorPath(id);
+    }
+
+    @GetMapping("/{id}/descendants")
+    public List<Location> getDescendants(@PathVariable Long id, @RequestParam LocationType type) {
+        return locationClosureRepository.findDescendantsOfType(id, type);
+    }
+
+    @GetMapping("/{id}/users")
+    public org.springframework.data.domain.Page<User> getUsersWithin(
+            @PathVariable Long id,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size) {
+        return locationClosureRepository.findUsersWithin(id, org.springframework.data.domain.PageRequest.of(page, size));
+    }
+
+    @GetMapping("/{id}/summary")
+    public ResponseEntity<Map<String, Object>> getSubtreeSummary(@PathVariable Long id) {
+        if (!locationRepository.existsById(id)) {
+            return ResponseEntity.notFound().build();
+        }
+        Map<String, Object> descendants = new java.util.LinkedHashMap<>();
+        for (Object[] row : locationClosureRepository.countDescendantsByType(id)) {
+            descendants.put(row[0].toString(), row[1]);
+        }
+        Map<String, Object> result = new java.util.LinkedHashMap<>();
+        result.put("descendants", descendants);
+        result.put("users", locationClosureRepository.countUsersWithin(id));
+        return ResponseEntity.ok(result);
+    }
+
     @PostMapping
     public ResponseEntity<Location> create(@RequestBody Location location) {
+        // Only RwandaLocationSeeder adds to the reference hierarchy
+        location.setSeeded(false);
         Location saved = locationService.saveLocation(location);
         return ResponseEntity.created(URI.create("/api/locations/" + saved.getId())).body(saved);
     }
@@ -195,79 +171,51 @@ public class LocationController {
         return locationRepository.findUsersByProvinceId(provinceId);
     }
 
-    // Cascading dropdown endpoints
+    // Cascading dropdown endpoints, answered from the in-memory tree with precomputed JSON.
+    // The ETag lets browsers revalidate with If-None-Match and get a 304 instead of the body.
     @GetMapping("/provinces")
-    public ResponseEntity<List<Map<String, Object>>> getProvinces() {
-        List<Object[]> results = locationRepository.findDistinctProvinces();
-        List<Map<String, Object>> provinces = new java.util.ArrayList<>();
-        for (Object[] row : results) {
-            Map<String, Object> province = new java.util.HashMap<>();
-            province.put("id", row[0]);
-            province.put("name", row[1]);
-            provinces.add(province);
-        }
-        return ResponseEntity.ok(provinces);
+    public ResponseEntity<byte[]> getProvinces() {
+        return dropdown(locationTreeService.find());
     }
 
     @GetMapping("/districts")
-    public ResponseEntity<List<Map<String, Object>>> getDistricts(@RequestParam Long provinceId) {
-        List<Object[]> results = locationRepository.findDistinctDistrictsByProvinceId(provinceId);
-        List<Map<String, Object>> districts = new java.util.ArrayList<>();
-        for (Object[] row : results) {
-            Map<String, Object> district = new java.util.HashMap<>();
-            district.put("id", row[0]);
-            district.put("name", row[1]);
-            districts.add(district);
-        }
-        return ResponseEntity.ok(districts);
+    public ResponseEntity<byte[]> getDistricts(@RequestParam Long provinceId) {
+        return dropdown(locationTreeService.find(provinceId));
     }
 
     @GetMapping("/sectors")
-    public ResponseEntity<List<Map<String, Object>>> getSectors(
+    public ResponseEntity<byte[]> getSectors(
             @RequestParam Long provinceId,
             @RequestParam Long districtId) {
-        List<Object[]> results = locationRepository.findDistinctSectorsByProvinceAndDistrict(provinceId, districtId);
-        List<Map<String, Object>> sectors = new java.util.ArrayList<>();
-        for (Object[] row : results) {
-            Map<String, Object> sector = new java.util.HashMap<>();
-            sector.put("id", row[0]);
-            sector.put("name", row[1]);
-            sectors.add(sector);
-        }
-        return ResponseEntity.ok(sectors);
+        return dropdown(locationTreeService.find(provinceId, districtId));
     }
 
     @GetMapping("/cells")
-    public ResponseEntity<List<Map<String, Object>>> getCells(
+    public ResponseEntity<byte[]> getCells(
             @RequestParam Long provinceId,
             @RequestParam Long districtId,
             @RequestParam Long sectorId) {
-        List<Object[]> results = locationRepository.findDistinctCellsByProvinceDistrictAndSector(provinceId, districtId, sectorId);
-        List<Map<String, Object>> cells = new java.util.ArrayList<>();
-        for (Object[] row : results) {
-            Map<String, Object> cell = new java.util.HashMap<>();
-            cell.put("id", row[0]);
-            cell.put("name", row[1]);
-            cells.add(cell);
-        }
-        return ResponseEntity.ok(cells);
+        return dropdown(locationTreeService.find(provinceId, districtId, sectorId));
     }
 
     @GetMapping("/villages")
-    public ResponseEntity<List<Map<String, Object>>> getVillages(
+    public ResponseEntity<byte[]> getVillages(
             @RequestParam Long provinceId,
             @RequestParam Long districtId,
             @RequestParam Long sectorId,
             @RequestParam Long cellId) {
-        List<Object[]> results = locationRepository.findDistinctVillagesByLocation(provinceId, districtId, sectorId, cellId);
-        List<Map<String, Object>> villages = new java.util.ArrayList<>();
-        for (Object[] row : results) {
-            Map<String, Object> village = new java.util.HashMap<>();
-            village.put("id", row[0]);
-            village.put("name", row[1]);
-            villages.add(village);
-        }
-        return ResponseEntity.ok(villages);
+        return dropdown(locationTreeService.find(provinceId, districtId, sectorId, cellId));
+    }
+
+    private ResponseEntity<byte[]> dropdown(LocationTreeService.Node parent) {
+        // Unknown parent: empty list, as the old DISTINCT queries returned
+        byte[] body = parent != null ? parent.childrenJson() : locationTreeService.emptyJson();
+        String etag = parent != null ? parent.childrenEtag() : locationTreeService.emptyEtag();
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .cacheControl(CacheControl.noCache())
+                .eTag(etag)
+                .body(body);
     }
     
     @GetMapping("/check-provinces")
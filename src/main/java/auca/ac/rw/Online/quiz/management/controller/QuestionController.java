@@ -1,8 +1,14 @@
 package auca.ac.rw.Online.quiz.management.controller;
 
+import auca.ac.rw.Online.quiz.management.exception.OptionInUseException;
 import auca.ac.rw.Online.quiz.management.model.Question;
 import auca.ac.rw.Online.quiz.management.model.Quiz;
 import auca.ac.rw.Online.quiz.management.model.Option;
+import auca.ac.rw.Online.quiz.management.model.EQuestionType;
+import auca.ac.rw.Online.quiz.management.service.CascadeDeleteService;
+import auca.ac.rw.Online.quiz.management.service.QuestionBankSearchService;
+import auca.ac.rw.Online.quiz.management.service.QuestionBatchInserter;
+import auca.ac.rw.Online.quiz.management.service.OptionReconciler;
 import auca.ac.rw.Online.quiz.management.service.QuestionService;
 import auca.ac.rw.Online.quiz.management.repository.QuizRepository;
 import auca.ac.rw.Online.quiz.management.repository.OptionRepository;
@@ -13,24 +19,44 @@ import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
 
 import java.net.URI;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/api/questions")
 public class QuestionController {
 
+    // Deepest result a bank search may page to; ranking cost grows with page * size
+    private static final int MAX_BANK_RESULTS = 1000;
+    private static final int MAX_BANK_PAGE_SIZE = 100;
+    private static final int MAX_BULK_QUESTIONS = 1000;
+
     private final QuestionService questionService;
     private final QuizRepository quizRepository;
     private final OptionRepository optionRepository;
+    private final QuestionBankSearchService questionBankSearchService;
+    private final QuestionBatchInserter questionBatchInserter;
+    private final OptionReconciler optionReconciler;
+    private final CascadeDeleteService cascadeDeleteService;
     
     @PersistenceContext
     private EntityManager entityManager;
 
-    public QuestionController(QuestionService questionService, QuizRepository quizRepository, OptionRepository optionRepository) {
+    public QuestionController(QuestionService questionService, QuizRepository quizRepository, OptionRepository optionRepository,
+                              QuestionBankSearchService questionBankSearchService, QuestionBatchInserter questionBatchInserter,
+                              OptionReconciler optionReconciler, CascadeDeleteService cascadeDeleteService) {
         this.questionService = questionService;
         this.quizRepository = quizRepository;
         this.optionRepository = optionRepository;
+        this.questionBankSearchService = questionBankSearchService;
+        this.questionBatchInserter = questionBatchInserter;
+        this.optionReconciler = optionReconciler;
+        this.cascadeDeleteService = cascadeDeleteService;
     }
 
     @GetMapping
@@ -45,6 +71,80 @@ public class QuestionController {
         return questionService.search(q, pageable);
     }
 
+    /**
+     * Full-text question bank search: stemmed matches on question text, category and option
+     * text, best first. {@code q} may be blank to browse by filters alone.
+     *
+     * While the index is still being built after startup ({@code "indexing": true} in the
+     * response), results come from the database instead: {@code q} as a plain substring of the
+     * question, category or option text, in id order, without scores.
+     */
+    @GetMapping("/bank/search")
+    public ResponseEntity<?> bankSearch(
+            @RequestParam(defaultValue = "") String q,
+            @RequestParam(required = false) String type,
+            @RequestParam(required = false) Long quizId,
+            @RequestParam(required = false) String category,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size) {
+        EQuestionType questionType = null;
+        if (type != null && !type.isBlank()) {
+            try {
+                questionType = EQuestionType.valueOf(type.trim().toUpperCase());
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.badRequest().body("Invalid question type: " + type);
+            }
+        }
+        int pageSize = Math.max(1, Math.min(size, MAX_BANK_PAGE_SIZE));
+        int pageNumber = Math.max(0, page);
+        if ((long) (pageNumber + 1) * pageSize > MAX_BANK_RESULTS) {
+            return ResponseEntity.badRequest().body("Only the first " + MAX_BANK_RESULTS + " results can be paged; narrow the search");
+        }
+
+        if (!questionBankSearchService.isReady()) {
+            org.springframework.data.domain.Page<Question> fallback = questionService.searchBank(q, questionType, quizId,
+                    category, org.springframework.data.domain.PageRequest.of(pageNumber, pageSize));
+            List<Map<String, Object>> results = new ArrayList<>();
+            for (Question question : fallback.getContent()) {
+                Map<String, Object> result = new LinkedHashMap<>();
+                result.put("score", null);
+                result.put("question", question);
+                results.add(result);
+            }
+            return ResponseEntity.ok(bankPage(fallback.getTotalElements(), pageNumber, pageSize, results, true));
+        }
+
+        QuestionBankSearchService.Page hits = questionBankSearchService.search(q, questionType, quizId, category, pageNumber, pageSize);
+        List<Long> ids = hits.hits().stream().map(QuestionBankSearchService.Hit::questionId).toList();
+        Map<Long, Question> byId = questionService.findAllById(ids).stream()
+                .collect(Collectors.toMap(Question::getId, Function.identity()));
+
+        List<Map<String, Object>> results = new ArrayList<>();
+        for (QuestionBankSearchService.Hit hit : hits.hits()) {
+            Question question = byId.get(hit.questionId());
+            if (question == null) {
+                continue; // Deleted since the index last refreshed
+            }
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("score", hit.score());
+            result.put("question", question);
+            results.add(result);
+        }
+
+        return ResponseEntity.ok(bankPage(hits.total(), pageNumber, pageSize, results, false));
+    }
+
+    private static Map<String, Object> bankPage(long total, int page, int size, List<Map<String, Object>> results,
+            boolean indexing) {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("total", total);
+        body.put("page", page);
+        body.put("size", size);
+        body.put("indexing", indexing);
+        body.put("results", results);
+        return body;
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<Question> get(@PathVariable Long id) {
         return questionService.findById(id)
@@ -243,10 +343,96 @@ public class QuestionController {
         }
     }
 
+    /**
+     * Creates many questions with their options for one quiz in a single transaction:
+     * {@code {"quizId":1,"questions":[{"text":"..","type":"SINGLE_CHOICE","points":1,
+     * "options":[{"text":"..","isCorrect":true}]}]}}. Nothing is saved unless every question is
+     * valid; the created ids come back in request order.
+     */
+    @PostMapping("/bulk")
+    public ResponseEntity<?> createBulk(@RequestBody Map<String, Object> payload) {
+        Object quizIdObj = payload.get("quizId");
+        if (quizIdObj == null) {
+            return ResponseEntity.badRequest().body("quizId is required");
+        }
+        String quizId = quizIdObj.toString().trim();
+        if (!(payload.get("questions") instanceof List<?> items) || items.isEmpty()) {
+            return ResponseEntity.badRequest().body("questions must be a non-empty list");
+        }
+        if (items.size() > MAX_BULK_QUESTIONS) {
+            return ResponseEntity.badRequest().body("At most " + MAX_BULK_QUESTIONS + " questions can be created per request");
+        }
+
+        List<QuestionBatchInserter.NewQuestion> questions = new ArrayList<>(items.size());
+        List<Map<String, Object>> errors = new ArrayList<>();
+        for (int i = 0; i < items.size(); i++) {
+            try {
+                if (!(items.get(i) instanceof Map<?, ?> item)) {
+                    throw new IllegalArgumentException("Question must be an object");
+                }
+                questions.add(QuestionBatchInserter.validate(quizId, bulkValue(item.get("text")),
+                        bulkValue(item.get("type")), bulkValue(item.get("points")), bulkValue(item.get("category")),
+                        bulkOptions(item.get("options"))));
+            } catch (IllegalArgumentException e) {
+                Map<String, Object> error = new LinkedHashMap<>();
+                error.put("index", i);
+                error.put("message", e.getMessage());
+                errors.add(error);
+            }
+        }
+        if (!errors.isEmpty()) {
+            Map<String, Object> body = new LinkedHashMap<>();
+            body.put("message", errors.size() + " of " + items.size() + " questions are invalid; nothing was saved");
+            body.put("errors", errors);
+            return ResponseEntity.badRequest().body(body);
+        }
+        long quiz = questions.get(0).quizId();
+        if (!quizRepository.existsById(quiz)) {
+            return ResponseEntity.status(org.springframework.http.HttpStatus.NOT_FOUND).body("Quiz not found with ID: " + quiz);
+        }
+
+        List<Long> ids = questionBatchInserter.insert(questions);
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("quizId", quiz);
+        body.put("created", ids.size());
+        body.put("ids", ids);
+        return ResponseEntity.created(URI.create("/api/quizzes/" + quiz)).body(body);
+    }
+
+    private static String bulkValue(Object value) {
+        if (value == null) {
+            return null;
+        }
+        String text = value.toString().trim();
+        return text.isEmpty() ? null : text;
+    }
+
+    private static List<QuestionBatchInserter.NewOption> bulkOptions(Object value) {
+        if (value == null) {
+            return List.of();
+        }
+        if (!(value instanceof List<?> list)) {
+            throw new IllegalArgumentException("options must be a list");
+        }
+        List<QuestionBatchInserter.NewOption> options = new ArrayList<>(list.size());
+        for (Object entry : list) {
+            if (!(entry instanceof Map<?, ?> option)) {
+                throw new IllegalArgumentException("Option must be an object");
+            }
+            Object text = option.get("text");
+            Object isCorrect = option.get("isCorrect");
+            options.add(new QuestionBatchInserter.NewOption(text == null ? "" : text.toString().trim(),
+                    isCorrect instanceof Boolean b ? b : Boolean.parseBoolean(String.valueOf(isCorrect))));
+        }
+        return options;
+    }
+
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> delete(@PathVariable Long id) {
-        questionService.deleteById(id);
-        return ResponseEntity.noContent().build();
+        // Also removes the options and every answer given to the question
+        return cascadeDeleteService.deleteQuestion(id).isPresent()
+                ? ResponseEntity.noContent().build()
+                : ResponseEntity.notFound().build();
     }
 
     @PutMapping("/{id}")
@@ -258,18 +444,24 @@ public class QuestionController {
             Question existing = questionService.findById(id)
                 .orElseThrow(() -> new RuntimeException("Question not found with ID: " + id));
             
-            // Update question fields
+            // Update question fields; the version only moves when something actually changed
+            boolean changed = false;
             if (payload.containsKey("text")) {
-                existing.setText((String) payload.get("text"));
+                String text = (String) payload.get("text");
+                changed |= !Objects.equals(existing.getText(), text);
+                existing.setText(text);
             }
             if (payload.containsKey("type")) {
-                existing.setType(auca.ac.rw.Online.quiz.management.model.EQuestionType.valueOf(
-                    payload.get("type").toString()));
+                EQuestionType type = EQuestionType.valueOf(payload.get("type").toString());
+                changed |= existing.getType() != type;
+                existing.setType(type);
             }
             if (payload.containsKey("points")) {
                 Object pointsObj = payload.get("points");
-                existing.setPoints(pointsObj instanceof Number ? 
-                    ((Number) pointsObj).intValue() : Integer.parseInt(pointsObj.toString()));
+                Integer points = pointsObj instanceof Number ? 
+                    ((Number) pointsObj).intValue() : Integer.parseInt(pointsObj.toString());
+                changed |= !Objects.equals(existing.getPoints(), points);
+                existing.setPoints(points);
             }
             
             // Handle quiz update if quizId is provided
@@ -278,46 +470,54 @@ public class QuestionController {
                 Long quizId = quizIdObj instanceof Number ? 
                     ((Number) quizIdObj).longValue() : Long.parseLong(quizIdObj.toString());
                 
-                Quiz quiz = entityManager.find(Quiz.class, quizId);
-                if (quiz == null) {
-                    quiz = quizRepository.findById(quizId)
-                        .orElseThrow(() -> new RuntimeException("Quiz not found with ID: " + quizId));
-                    quiz = entityManager.merge(quiz);
+                if (existing.getQuiz() == null || !quizId.equals(existing.getQuiz().getId())) {
+                    Quiz quiz = entityManager.find(Quiz.class, quizId);
+                    if (quiz == null) {
+                        quiz = quizRepository.findById(quizId)
+                            .orElseThrow(() -> new RuntimeException("Quiz not found with ID: " + quizId));
+                        quiz = entityManager.merge(quiz);
+                    }
+                    existing.setQuiz(quiz);
+                    changed = true;
                 }
-                existing.setQuiz(quiz);
             }
             
             // Save the question
                     Question saved = questionService.save(existing);
             
-            // Handle options update if provided
+            // Reconcile options by id so surviving options keep the ids graded answers refer to
             if (payload.containsKey("options")) {
-                // Delete existing options
-                optionRepository.deleteByQuestionId(id);
-                
-                // Add new options
                 @SuppressWarnings("unchecked")
                 List<Map<String, Object>> optionsList = (List<Map<String, Object>>) payload.get("options");
                 
+                List<OptionReconciler.SubmittedOption> submitted = new ArrayList<>();
                 for (Map<String, Object> optionData : optionsList) {
                     String optionText = (String) optionData.get("text");
                     if (optionText != null && !optionText.trim().isEmpty()) {
-                        Option option = new Option();
-                        option.setText(optionText.trim());
+                        Object optionIdObj = optionData.get("id");
+                        Long optionId = optionIdObj instanceof Number ? ((Number) optionIdObj).longValue() : null;
                         
                         Object isCorrectObj = optionData.get("isCorrect");
                         boolean isCorrect = isCorrectObj instanceof Boolean ? 
                             (Boolean) isCorrectObj : 
                             Boolean.parseBoolean(String.valueOf(isCorrectObj));
-                        option.setCorrect(isCorrect);
                         
-                        option.setQuestion(saved);
-                        optionRepository.save(option);
+                        submitted.add(new OptionReconciler.SubmittedOption(optionId, optionText.trim(), isCorrect));
                     }
                 }
+                
+                OptionReconciler.Changes changes = optionReconciler.reconcile(id, submitted);
+                changed |= changes.any();
+            }
+            
+            if (changed) {
+                saved.setVersion(saved.getVersion() + 1);
             }
             
                     return ResponseEntity.ok(saved);
+        } catch (OptionInUseException e) {
+            // Leaves the method so the transaction rolls back; answered with 409 by GlobalExceptionHandler
+            throw e;
         } catch (Exception e) {
             System.err.println("[QuestionController] Error updating question: " + e.getMessage());
             e.printStackTrace();
@@ -1,8 +1,13 @@
 package auca.ac.rw.Online.quiz.management.controller;
 
 import auca.ac.rw.Online.quiz.management.model.Quiz;
+import auca.ac.rw.Online.quiz.management.model.EAttemptStatus;
 import auca.ac.rw.Online.quiz.management.model.QuizAttempt;
+import auca.ac.rw.Online.quiz.management.model.QuizSamplingRule;
+import auca.ac.rw.Online.quiz.management.model.User;
 import auca.ac.rw.Online.quiz.management.repository.UserRepository;
+import auca.ac.rw.Online.quiz.management.service.CascadeDeleteService;
+import auca.ac.rw.Online.quiz.management.service.QuizCloneService;
 import auca.ac.rw.Online.quiz.management.service.QuizService;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
@@ -22,10 +27,15 @@ public class QuizController {
 
     private final QuizService quizService;
     private final UserRepository userRepository;
+    private final QuizCloneService quizCloneService;
+    private final CascadeDeleteService cascadeDeleteService;
 
-    public QuizController(QuizService quizService, UserRepository userRepository) {
+    public QuizController(QuizService quizService, UserRepository userRepository, QuizCloneService quizCloneService,
+            CascadeDeleteService cascadeDeleteService) {
         this.quizService = quizService;
         this.userRepository = userRepository;
+        this.quizCloneService = quizCloneService;
+        this.cascadeDeleteService = cascadeDeleteService;
     }
 
     @GetMapping
@@ -47,12 +57,14 @@ public class QuizController {
     public ResponseEntity<?> getQuizQuestions(@PathVariable Long id) {
         // Check if user has already attempted this quiz
         Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        String username = null;
         if (auth != null && auth.isAuthenticated()) {
-            String username = auth.getName();
+            username = auth.getName();
             if (username != null && !username.trim().isEmpty()) {
                 try {
                     java.util.Optional<QuizAttempt> existingAttempt = quizService.checkExistingAttempt(id, username);
-                    if (existingAttempt.isPresent()) {
+                    // An IN_PROGRESS attempt holds a sampled paper the student is still answering
+                    if (existingAttempt.isPresent() && existingAttempt.get().getStatus() != EAttemptStatus.IN_PROGRESS) {
                         return ResponseEntity.status(org.springframework.http.HttpStatus.FORBIDDEN)
                             .body("You have already attempted this quiz. Each quiz can only be taken once.");
                     }
@@ -62,9 +74,69 @@ public class QuizController {
                 }
             }
         }
-        return ResponseEntity.ok(quizService.getQuizQuestions(id));
+        try {
+            return ResponseEntity.ok(quizService.getQuizQuestions(id, username));
+        } catch (IllegalStateException e) {
+            // A sampled category no longer has enough questions
+            return ResponseEntity.status(org.springframework.http.HttpStatus.CONFLICT).body(e.getMessage());
+        }
+    }
+
+    /** The quiz's per-category sampling rules, with how many questions each category has now. */
+    @GetMapping("/{id}/sampling")
+    public ResponseEntity<?> getSampling(@PathVariable Long id) {
+        if (quizService.findById(id).isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(samplingView(quizService.getSamplingRules(id)));
+    }
+
+    /**
+     * Replaces the quiz's sampling rules, e.g. {@code {"rules":[{"category":"algebra","questionCount":10}]}}.
+     * An empty list makes the quiz deliver its own questions again.
+     */
+    @PutMapping("/{id}/sampling")
+    public ResponseEntity<?> updateSampling(@PathVariable Long id, @RequestBody Map<String, List<QuizSamplingRule>> body) {
+        if (quizService.findById(id).isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        List<QuizSamplingRule> rules = body.get("rules");
+        try {
+            return ResponseEntity.ok(samplingView(quizService.replaceSamplingRules(id, rules == null ? List.of() : rules)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    private List<Map<String, Object>> samplingView(List<QuizSamplingRule> rules) {
+        List<Map<String, Object>> view = new java.util.ArrayList<>();
+        for (QuizSamplingRule rule : rules) {
+            Map<String, Object> item = new java.util.LinkedHashMap<>();
+            item.put("category", rule.getCategory());
+            item.put("questionCount", rule.getQuestionCount());
+            item.put("available", quizService.samplingBankSize(rule.getCategory()));
+            view.add(item);
+        }
+        return view;
     }
     
+    /**
+     * Deep-copies the quiz with its questions, options and sampling rules as a new DRAFT owned by
+     * the caller. Optional body {@code {"title":"..."}}. Returns the new quiz id and the
+     * old-to-new id mapping of every copied question and option.
+     */
+    @PostMapping("/{id}/clone")
+    public ResponseEntity<?> cloneQuiz(@PathVariable Long id, @RequestBody(required = false) Map<String, String> body) {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        User owner = auth == null ? null : userRepository.findByUsernameIgnoreCase(auth.getName()).orElse(null);
+        String title = body == null ? null : body.get("title");
+        return quizCloneService.cloneQuiz(id, title, owner)
+                .<ResponseEntity<?>>map(result -> ResponseEntity
+                        .created(URI.create("/api/quizzes/" + result.quizId()))
+                        .body(result))
+                .orElse(ResponseEntity.notFound().build());
+    }
+
     @PostMapping("/{id}/submit")
     public ResponseEntity<?> submitQuiz(@PathVariable Long id, @RequestBody Map<String, Object> submission) {
         try {
@@ -136,10 +208,29 @@ public class QuizController {
         return ResponseEntity.created(URI.create("/api/quizzes/" + saved.getId())).body(saved);
     }
 
+    /**
+     * Deletes the quiz with its questions, options, attempts and answers. With {@code async=true}
+     * the delete runs in the background: 202 with a job to poll at {@code /api/quizzes/delete-jobs/{jobId}}.
+     */
     @DeleteMapping("/{id}")
-    public ResponseEntity<Void> delete(@PathVariable Long id) {
-        quizService.deleteById(id);
-        return ResponseEntity.noContent().build();
+    public ResponseEntity<?> delete(@PathVariable Long id, @RequestParam(defaultValue = "false") boolean async) {
+        if (async) {
+            return cascadeDeleteService.startQuizDelete(id)
+                    .<ResponseEntity<?>>map(job -> ResponseEntity.accepted()
+                            .location(URI.create("/api/quizzes/delete-jobs/" + job.jobId()))
+                            .body(job))
+                    .orElse(ResponseEntity.notFound().build());
+        }
+        return cascadeDeleteService.deleteQuiz(id).isPresent()
+                ? ResponseEntity.noContent().build()
+                : ResponseEntity.notFound().build();
+    }
+
+    @GetMapping("/delete-jobs/{jobId}")
+    public ResponseEntity<?> deleteJob(@PathVariable String jobId) {
+        return cascadeDeleteService.job(jobId)
+                .<ResponseEntity<?>>map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
     }
 
     @PutMapping("/{id}")
@@ -9,14 +9,37 @@ import auca.ac.rw.Online.quiz.management.repository.QuizAttemptRepository;
 import auca.ac.rw.Online.quiz.management.repository.QuizRepository;
 import auca.ac.rw.Online.quiz.management.repository.QuestionRepository;
 import auca.ac.rw.Online.quiz.management.repository.UserRepository;
+import auca.ac.rw.Online.quiz.management.service.SearchIndexService;
+import auca.ac.rw.Online.quiz.management.service.SearchResultCache;
+import auca.ac.rw.Online.quiz.management.service.SearchResultCache.CategoryResult;
+import auca.ac.rw.Online.quiz.management.service.SearchResultCache.Item;
+import auca.ac.rw.Online.quiz.management.util.TrigramIndex;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import jakarta.annotation.PreDestroy;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Pageable;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
@@ -26,49 +49,135 @@ import org.springframework.web.bind.annotation.RestController;
 @RequestMapping("/api/search")
 public class SearchController {
 
+    private static final Logger log = LoggerFactory.getLogger(SearchController.class);
+    private static final int RESULT_LIMIT = 10;
+    private static final int ATTEMPT_MATCH_LIMIT = 200;
+    private static final String ADMIN_AUTHORITY = "ROLE_" + EUserRole.ADMIN.name();
+
     private final UserRepository userRepository;
     private final QuizRepository quizRepository;
     private final QuestionRepository questionRepository;
     private final QuizAttemptRepository quizAttemptRepository;
+    private final SearchIndexService searchIndexService;
+    private final SearchResultCache searchResultCache;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate readOnlyTransaction;
+    private final ExecutorService searchExecutor = Executors.newVirtualThreadPerTaskExecutor();
+
+    @Value("${app.search.category-timeout-ms:500}")
+    private long categoryTimeoutMs;
 
     public SearchController(
             UserRepository userRepository,
             QuizRepository quizRepository,
             QuestionRepository questionRepository,
-            QuizAttemptRepository quizAttemptRepository) {
+            QuizAttemptRepository quizAttemptRepository,
+            SearchIndexService searchIndexService,
+            SearchResultCache searchResultCache,
+            ObjectMapper objectMapper,
+            PlatformTransactionManager transactionManager) {
         this.userRepository = userRepository;
         this.quizRepository = quizRepository;
         this.questionRepository = questionRepository;
         this.quizAttemptRepository = quizAttemptRepository;
+        this.searchIndexService = searchIndexService;
+        this.searchResultCache = searchResultCache;
+        this.objectMapper = objectMapper;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        searchExecutor.shutdownNow();
     }
 
     @GetMapping("/global")
     public ResponseEntity<Map<String, Object>> global(@RequestParam("q") String query) {
         String q = query == null ? "" : query.trim();
         
-        // Get the current authenticated user
+        // Admin status comes from the authorities the JWT filter already loaded - no user lookup
         Authentication auth = SecurityContextHolder.getContext().getAuthentication();
-        boolean isAdmin = false;
+        boolean isAdmin = auth != null && auth.isAuthenticated() && auth.getAuthorities().stream()
+                .anyMatch(authority -> ADMIN_AUTHORITY.equals(authority.getAuthority()));
+        boolean useIndex = !q.isEmpty() && searchIndexService.isReady();
+        
+        // Read the generation before searching: a write that lands meanwhile makes this result stale
+        String cacheKey = TrigramIndex.normalize(q);
+        long generation = searchIndexService.generation();
+        Map<String, CategoryResult> results = useIndex ? searchResultCache.get(cacheKey, isAdmin, generation) : null;
+        List<String> incomplete = new ArrayList<>();
         
-        if (auth != null && auth.isAuthenticated()) {
-            try {
-                String usernameOrEmail = auth.getName();
-                // Try to find user by username first, then by email (same as UserDetailsServiceImpl)
-                User currentUser = userRepository.findByUsernameIgnoreCase(usernameOrEmail)
-                    .orElse(userRepository.findByEmailIgnoreCase(usernameOrEmail).orElse(null));
-                
-                if (currentUser != null && currentUser.getRole() == EUserRole.ADMIN) {
-                    isAdmin = true;
-                }
-            } catch (Exception e) {
-                // If we can't determine the user, default to non-admin (more secure)
-                isAdmin = false;
+        if (results == null) {
+            // Run the four categories concurrently, each on its own virtual thread and transaction
+            Map<String, Future<CategoryResult>> tasks = new LinkedHashMap<>();
+            tasks.put("users", submit(() -> {
+                List<User> users = useIndex
+                    ? findInOrder(searchIndexService.searchUsers(q, RESULT_LIMIT, isAdmin),
+                            userRepository::findAllById, User::getId)
+                    : searchUsersInDatabase(q, isAdmin);
+                // Remove sensitive data
+                users.forEach(u -> u.setPassword(null));
+                return Loaded.page(users);
+            }, User::getId, (User user) -> TrigramIndex.normalizeFields(user.getUsername(), user.getEmail()), useIndex));
+            tasks.put("quizzes", submit(() -> Loaded.page(useIndex
+                ? findInOrder(searchIndexService.searchQuizzes(q, RESULT_LIMIT), quizRepository::findAllById, Quiz::getId)
+                : q.isEmpty()
+                    ? quizRepository.findAll(Pageable.ofSize(RESULT_LIMIT)).getContent()
+                    : quizRepository.findByTitleContainingIgnoreCase(q, Pageable.ofSize(RESULT_LIMIT)).getContent()),
+                Quiz::getId, (Quiz quiz) -> TrigramIndex.normalizeFields(quiz.getTitle()), useIndex));
+            tasks.put("questions", submit(() -> Loaded.page(useIndex
+                ? findInOrder(searchIndexService.searchQuestions(q, RESULT_LIMIT),
+                        questionRepository::findAllById, Question::getId)
+                : q.isEmpty()
+                    ? questionRepository.findAll(Pageable.ofSize(RESULT_LIMIT)).getContent()
+                    : questionRepository.findByTextContainingIgnoreCase(q, Pageable.ofSize(RESULT_LIMIT)).getContent()),
+                Question::getId, (Question question) -> TrigramIndex.normalizeFields(question.getText()), useIndex));
+            tasks.put("attempts", submit(() -> useIndex
+                ? searchAttemptsByIndex(q)
+                : Loaded.page(q.isEmpty()
+                    ? quizAttemptRepository.findAll(Pageable.ofSize(RESULT_LIMIT)).getContent()
+                    : quizAttemptRepository.searchAttempts(q, Pageable.ofSize(RESULT_LIMIT)).getContent()),
+                QuizAttempt::getId, (QuizAttempt attempt) -> TrigramIndex.normalizeFields(attempt.getUser().getUsername(),
+                        attempt.getUser().getEmail(), attempt.getQuiz().getTitle()), false));
+
+            // All categories share one deadline, so the slowest one bounds the response time
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(categoryTimeoutMs);
+            results = new LinkedHashMap<>();
+            for (Map.Entry<String, Future<CategoryResult>> task : tasks.entrySet()) {
+                results.put(task.getKey(), await(task.getKey(), task.getValue(), deadline, incomplete));
+            }
+            if (useIndex && incomplete.isEmpty()) {
+                searchResultCache.put(cacheKey, isAdmin, generation, results);
             }
         }
+
+        Map<String, Object> payload = new HashMap<>();
+        int total = 0;
+        for (Map.Entry<String, CategoryResult> category : results.entrySet()) {
+            ArrayNode json = objectMapper.createArrayNode();
+            category.getValue().items().forEach(item -> json.add(item.json()));
+            payload.put(category.getKey(), json);
+            total += json.size();
+        }
+        payload.put("total", total);
+        payload.put("partial", !incomplete.isEmpty());
+        if (!incomplete.isEmpty()) {
+            payload.put("incompleteCategories", incomplete);
+        }
         
-        // Limit results for each category (top 5-10 results)
-        Pageable limit = Pageable.ofSize(10);
-        
+        return ResponseEntity.ok(payload);
+    }
+
+    /** Entities for one category, and whether they are every match rather than the first page. */
+    private record Loaded<T>(List<T> entities, boolean complete) {
+        static <T> Loaded<T> page(List<T> entities) {
+            return new Loaded<>(entities, entities.size() < RESULT_LIMIT);
+        }
+    }
+
+    private List<User> searchUsersInDatabase(String q, boolean isAdmin) {
+        Pageable limit = Pageable.ofSize(RESULT_LIMIT);
         List<User> users = q.isEmpty() 
             ? userRepository.findAll(limit).getContent()
             : userRepository.findByUsernameIgnoreCaseContaining(q, limit).getContent();
@@ -79,30 +188,89 @@ public class SearchController {
                 .filter(user -> user.getRole() != EUserRole.ADMIN)
                 .collect(Collectors.toList());
         }
-        
-        List<Quiz> quizzes = q.isEmpty()
-            ? quizRepository.findAll(limit).getContent()
-            : quizRepository.findByTitleContainingIgnoreCase(q, limit).getContent();
-        
-        List<Question> questions = q.isEmpty()
-            ? questionRepository.findAll(limit).getContent()
-            : questionRepository.findByTextContainingIgnoreCase(q, limit).getContent();
-        
-        List<QuizAttempt> attempts = q.isEmpty()
-            ? quizAttemptRepository.findAll(limit).getContent()
-            : quizAttemptRepository.searchAttempts(q, limit).getContent();
+        return users;
+    }
 
-        // Remove sensitive data
-        users.forEach(u -> u.setPassword(null));
+    private Loaded<QuizAttempt> searchAttemptsByIndex(String q) {
+        // Attempts match on the attempt's username or quiz title, same as searchAttempts
+        List<Long> userIds = toIds(searchIndexService.searchUsers(q, ATTEMPT_MATCH_LIMIT, true));
+        List<Long> quizIds = toIds(searchIndexService.searchQuizzes(q, ATTEMPT_MATCH_LIMIT));
+        if (userIds.isEmpty() && quizIds.isEmpty()) {
+            return new Loaded<>(List.of(), true);
+        }
+        List<QuizAttempt> attempts = quizAttemptRepository.findByUserIdInOrQuizIdIn(orNone(userIds),
+                orNone(quizIds), Pageable.ofSize(RESULT_LIMIT)).getContent();
+        boolean complete = attempts.size() < RESULT_LIMIT
+                && userIds.size() < ATTEMPT_MATCH_LIMIT && quizIds.size() < ATTEMPT_MATCH_LIMIT;
+        return new Loaded<>(attempts, complete);
+    }
 
-        Map<String, Object> payload = new HashMap<>();
-        payload.put("users", users);
-        payload.put("quizzes", quizzes);
-        payload.put("questions", questions);
-        payload.put("attempts", attempts);
-        payload.put("total", users.size() + quizzes.size() + questions.size() + attempts.size());
-        
-        return ResponseEntity.ok(payload);
+    /**
+     * Loads a category and renders it to JSON inside one read-only transaction, so lazy
+     * associations are still reachable even though this runs off the request thread.
+     *
+     * @param ranked whether the loader returns the entities in the search index's rank order
+     */
+    private <T> Future<CategoryResult> submit(Supplier<Loaded<T>> loader, Function<T, Long> idOf,
+            Function<T, String> matchText, boolean ranked) {
+        return searchExecutor.submit(() -> readOnlyTransaction.execute(status -> {
+            Loaded<T> loaded = loader.get();
+            List<Item> items = new ArrayList<>(loaded.entities().size());
+            for (T entity : loaded.entities()) {
+                items.add(new Item(idOf.apply(entity), objectMapper.valueToTree(entity), matchText.apply(entity)));
+            }
+            return new CategoryResult(items, loaded.complete(), ranked);
+        }));
+    }
+
+    private CategoryResult await(String category, Future<CategoryResult> future, long deadline,
+            List<String> incomplete) {
+        try {
+            long remaining = Math.max(0, deadline - System.nanoTime());
+            return future.get(remaining, TimeUnit.NANOSECONDS);
+        } catch (TimeoutException ex) {
+            future.cancel(true);
+            log.warn("Global search: '{}' lookup exceeded {} ms, returning partial results", category, categoryTimeoutMs);
+        } catch (InterruptedException ex) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException ex) {
+            log.error("Global search: '{}' lookup failed: {}", category, ex.getCause().getMessage(), ex.getCause());
+        }
+        incomplete.add(category);
+        return new CategoryResult(List.of(), false, false);
+    }
+
+    /** Loads entities by id and returns them in the index's ranking order. */
+    private static <T> List<T> findInOrder(int[] ids, Function<List<Long>, List<T>> finder, Function<T, Long> idOf) {
+        if (ids.length == 0) {
+            return new ArrayList<>();
+        }
+        Map<Long, T> byId = new HashMap<>();
+        for (T entity : finder.apply(toIds(ids))) {
+            byId.put(idOf.apply(entity), entity);
+        }
+        List<T> ordered = new ArrayList<>(ids.length);
+        for (int id : ids) {
+            T entity = byId.get((long) id);
+            if (entity != null) { // Deleted since it was indexed
+                ordered.add(entity);
+            }
+        }
+        return ordered;
+    }
+
+    private static List<Long> toIds(int[] ids) {
+        List<Long> result = new ArrayList<>(ids.length);
+        for (int id : ids) {
+            result.add((long) id);
+        }
+        return result;
+    }
+
+    // An empty IN () list is not valid SQL on every database
+    private static List<Long> orNone(List<Long> ids) {
+        return ids.isEmpty() ? List.of(-1L) : ids;
     }
 }
 
@@ -5,12 +5,15 @@ import auca.ac.rw.Online.quiz.management.model.Location;
 import auca.ac.rw.Online.quiz.management.model.LocationType;
 import auca.ac.rw.Online.quiz.management.model.User;
 import auca.ac.rw.Online.quiz.management.repository.UserRepository;
+import auca.ac.rw.Online.quiz.management.service.CascadeDeleteService;
 import auca.ac.rw.Online.quiz.management.service.LocationService;
+import auca.ac.rw.Online.quiz.management.service.SearchIndexService;
 import auca.ac.rw.Online.quiz.management.util.EmailValidator;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
@@ -20,21 +23,34 @@ import org.springframework.web.bind.annotation.*;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 
 @RestController
 @RequestMapping("/api/users")
 public class UserController {
 
+    private static final int MAX_SUGGESTIONS = 50;
+    // The user table's search box pages through at most this many prefix matches
+    private static final int MAX_FILTER_MATCHES = 1000;
+
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
     private final LocationService locationService;
+    private final SearchIndexService searchIndexService;
+    private final CascadeDeleteService cascadeDeleteService;
 
-    public UserController(UserRepository userRepository, PasswordEncoder passwordEncoder, LocationService locationService) {
+    public UserController(UserRepository userRepository, PasswordEncoder passwordEncoder, LocationService locationService,
+            SearchIndexService searchIndexService, CascadeDeleteService cascadeDeleteService) {
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
         this.locationService = locationService;
+        this.searchIndexService = searchIndexService;
+        this.cascadeDeleteService = cascadeDeleteService;
     }
 
     @GetMapping
@@ -54,90 +70,44 @@ public class UserController {
         }
     }
 
+    /**
+     * The admin user table. {@code q} matches users whose id, username, email or role contains
+     * it, ignoring case, and is answered by the database. With {@code match=prefix} only
+     * usernames and emails starting with {@code q} match; those come from the in-memory prefix
+     * trie in alphabetical key order (at most 1000 matches) unless a {@code sort} is given, in
+     * which case the database answers. {@code sort} (e.g. {@code sort=username,desc}) applies to
+     * every database query.
+     */
     @GetMapping("/page")
     @Transactional(readOnly = true)
     public ResponseEntity<?> page(@RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size,
-            @RequestParam(defaultValue = "") String q) {
+            @RequestParam(defaultValue = "") String q,
+            @RequestParam(defaultValue = "contains") String match,
+            Sort sort) {
         try {
-            Pageable pageable = PageRequest.of(page, size);
+            Pageable pageable = PageRequest.of(page, size, sort == null ? Sort.unsorted() : sort);
             Page<User> userPage;
             
-            // Fetch users (location will be loaded lazily, but we'll handle it)
+            // Users and their locations in one SELECT (entity graph), plus the COUNT when needed
             if (q == null || q.isBlank()) {
-                userPage = userRepository.findAll(pageable);
+                userPage = userRepository.findPageWithLocation(pageable);
+            } else if (!"prefix".equalsIgnoreCase(match)) {
+                // Substring matches can't come from the prefix trie
+                userPage = userRepository.searchWithLocation(q.trim().toLowerCase(), pageable);
+            } else if (searchIndexService.isReady() && pageable.getSort().isUnsorted()) {
+                // Username/email prefix matches from the trie; only the requested page is loaded
+                int[] ids = searchIndexService.completeUsers(q, MAX_FILTER_MATCHES, true);
+                int from = (int) Math.min(pageable.getOffset(), ids.length);
+                int to = Math.min(from + pageable.getPageSize(), ids.length);
+                userPage = new PageImpl<>(findInOrder(Arrays.copyOfRange(ids, from, to)), pageable, ids.length);
             } else {
-                userPage = userRepository.findByUsernameIgnoreCaseContaining(q, pageable);
+                // Sorted, or the index is still building at startup
+                userPage = userRepository.findWithLocationByPrefix(q.trim().toLowerCase(), pageable);
             }
             
-            // Eagerly load locations for all users in the page to avoid LazyInitializationException
-            List<User> users = userPage.getContent();
-            if (users != null && !users.isEmpty()) {
-                try {
-                    // Get all user IDs from the page
-                    List<Long> userIds = new java.util.ArrayList<>();
-                    for (User user : users) {
-                        if (user != null && user.getId() != null) {
-                            userIds.add(user.getId());
-                        }
-                    }
-                    
-                    // Only fetch if we have IDs
-                    if (!userIds.isEmpty()) {
-                        // Fetch users with locations using JOIN FETCH
-                        List<User> usersWithLocation = userRepository.findAllWithLocationByIds(userIds);
-                        
-                        // Create a map for quick lookup
-                        Map<Long, User> userMap = new java.util.HashMap<>();
-                        if (usersWithLocation != null) {
-                            for (User u : usersWithLocation) {
-                                if (u != null && u.getId() != null) {
-                                    userMap.put(u.getId(), u);
-                                }
-                            }
-                        }
-                        
-                        // Create a new list with users that have locations loaded
-                        List<User> updatedUsers = new java.util.ArrayList<>();
-                        for (User user : users) {
-                            if (user != null) {
-                                User userWithLocation = userMap.get(user.getId());
-                                if (userWithLocation != null) {
-                                    updatedUsers.add(userWithLocation);
-                                } else {
-                                    updatedUsers.add(user);
-                                }
-                            }
-                        }
-                        
-                        // Create a new Page with updated users
-                        userPage = new PageImpl<>(
-                            updatedUsers,
-                            userPage.getPageable(),
-                            userPage.getTotalElements()
-                        );
-                    }
-                } catch (Exception e) {
-                    System.err.println("[UserController] Error loading locations: " + e.getMessage());
-                    e.printStackTrace();
-                    // Continue with original users if location loading fails
-                }
-            }
-            
-            // Set password to null and handle location serialization for all users before returning
-            userPage.getContent().forEach(user -> {
-                user.setPassword(null);
-                // If location is a proxy and can't be serialized, set to null
-                if (user.getLocation() != null) {
-                    try {
-                        // Try to access location to see if it's loaded
-                        user.getLocation().getId();
-                    } catch (Exception e) {
-                        // If location can't be accessed, set to null to avoid serialization error
-                        user.setLocation(null);
-                    }
-                }
-            });
+            // Read-only transaction: clearing the password here is never flushed
+            userPage.getContent().forEach(user -> user.setPassword(null));
             
             return ResponseEntity.ok(userPage);
         } catch (Exception e) {
@@ -148,6 +118,49 @@ public class UserController {
         }
     }
 
+    /**
+     * Typeahead for user pickers: users whose username or email starts with {@code prefix},
+     * answered from the in-memory prefix trie. Admin accounts are only suggested to admins.
+     */
+    @GetMapping("/suggest")
+    @Transactional(readOnly = true)
+    public ResponseEntity<List<User>> suggest(@RequestParam("prefix") String prefix,
+            @RequestParam(defaultValue = "10") int limit) {
+        int cappedLimit = Math.max(1, Math.min(limit, MAX_SUGGESTIONS));
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        boolean isAdmin = auth != null && auth.getAuthorities().stream()
+                .anyMatch(authority -> ("ROLE_" + EUserRole.ADMIN.name()).equals(authority.getAuthority()));
+        
+        List<User> users;
+        if (prefix == null || prefix.isBlank()) {
+            users = List.of();
+        } else if (searchIndexService.isReady()) {
+            users = findInOrder(searchIndexService.completeUsers(prefix, cappedLimit, isAdmin));
+        } else {
+            // Index still building at startup
+            users = userRepository.findByUsernameStartingWithIgnoreCase(prefix.trim(),
+                    PageRequest.of(0, cappedLimit)).getContent().stream()
+                    .filter(u -> isAdmin || u.getRole() != EUserRole.ADMIN)
+                    .toList();
+        }
+        users.forEach(u -> u.setPassword(null));
+        return ResponseEntity.ok(users);
+    }
+
+    /** Users with their locations in one SELECT, in the order of {@code ids} (the trie's key order). */
+    private List<User> findInOrder(int[] ids) {
+        if (ids.length == 0) {
+            return List.of();
+        }
+        List<Long> userIds = new ArrayList<>(ids.length);
+        for (int id : ids) {
+            userIds.add((long) id);
+        }
+        Map<Long, User> byId = new HashMap<>();
+        userRepository.findAllWithLocationByIds(userIds).forEach(u -> byId.put(u.getId(), u));
+        return userIds.stream().map(byId::get).filter(Objects::nonNull).toList();
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<User> get(@PathVariable Long id) {
         return userRepository.findById(id)
@@ -220,6 +233,10 @@ public class UserController {
                 location.setLocationType(LocationType.PROVINCE);
             }
             
+            // Always a new row of the user's own, never a seeded reference location
+            location.setId(null);
+            location.setSeeded(false);
+
             // Save location first (before user to ensure location has an ID)
             Location savedLocation = locationService.saveLocation(location);
             user.setLocation(savedLocation);
@@ -300,7 +317,7 @@ public class UserController {
                                     return ResponseEntity.badRequest().body("Province ID and Province Name are required for location");
                                 }
                                 
-                                Location locationToSave;
+                                Location locationToSave = null;
                                 
                                 // If user already has a location, update it; otherwise create new
                                 if (existing.getLocation() != null && existing.getLocation().getId() != null) {
@@ -309,8 +326,9 @@ public class UserController {
                                     locationToSave = locationService.getLocationById(existingLocationId)
                                         .orElseThrow(() -> new RuntimeException("Existing location not found: " + existingLocationId));
                                     System.out.println("[UserController] Updating existing location ID: " + locationToSave.getId());
-                                } else {
-                                    // Create new location
+                                }
+                                if (locationToSave == null || locationToSave.isSeeded()) {
+                                    // Seeded locations are shared reference data: give the user a row of their own
                                     locationToSave = new Location();
                                     System.out.println("[UserController] Creating new location");
                                 }
@@ -502,7 +520,8 @@ public class UserController {
                         
                         // If user already has a location, update it; otherwise create new
                         Location locationToSave = existing.getLocation();
-                        if (locationToSave == null) {
+                        if (locationToSave == null || locationToSave.isSeeded()) {
+                            // Seeded locations are shared reference data: give the user a row of their own
                             locationToSave = new Location();
                         }
                         
@@ -569,10 +588,9 @@ public class UserController {
 
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> delete(@PathVariable Long id) {
-        if (!userRepository.existsById(id)) {
-            return ResponseEntity.notFound().build();
-        }
-        userRepository.deleteById(id);
-        return ResponseEntity.noContent().build();
+        // Attempts, answers and notifications go too; quizzes the user created are kept
+        return cascadeDeleteService.deleteUser(id).isPresent()
+                ? ResponseEntity.noContent().build()
+                : ResponseEntity.notFound().build();
     }
 }
@@ -1,6 +1,8 @@
 package auca.ac.rw.Online.quiz.management.controller.dto;
 
+import auca.ac.rw.Online.quiz.management.model.EUserRole;
 import auca.ac.rw.Online.quiz.management.model.Location;
+import auca.ac.rw.Online.quiz.management.model.LocationType;
 import auca.ac.rw.Online.quiz.management.model.User;
 
 public class LocationWithUserDTO {
@@ -38,6 +40,27 @@ public class LocationWithUserDTO {
         this.locationType = location.getLocationType() != null ? location.getLocationType().name() : null;
     }
 
+    // JPQL constructor expression: one row per location-user pair, straight from the query
+    public LocationWithUserDTO(Long id, String username, EUserRole role,
+                               Long provinceId, String provinceName, Long districtId, String districtName,
+                               Long sectorId, String sectorName, Long cellId, String cellName,
+                               Long villageId, String villageName, LocationType locationType) {
+        this.id = id;
+        this.username = username;
+        this.role = role != null ? role.name() : null;
+        this.provinceId = provinceId;
+        this.provinceName = provinceName;
+        this.districtId = districtId;
+        this.districtName = districtName;
+        this.sectorId = sectorId;
+        this.sectorName = sectorName;
+        this.cellId = cellId;
+        this.cellName = cellName;
+        this.villageId = villageId;
+        this.villageName = villageName;
+        this.locationType = locationType != null ? locationType.name() : null;
+    }
+
     // Getters and setters
     public Long getId() { return id; }
     public void setId(Long id) { this.id = id; }
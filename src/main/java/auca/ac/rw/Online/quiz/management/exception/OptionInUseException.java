@@ -0,0 +1,21 @@
+package auca.ac.rw.Online.quiz.management.exception;
+
+import java.util.List;
+
+/**
+ * Thrown when a question edit would remove options that submitted answers still point at.
+ * Mapped to HTTP 409; the edit is rolled back as a whole.
+ */
+public class OptionInUseException extends RuntimeException {
+
+    private final List<Long> optionIds;
+
+    public OptionInUseException(String message, List<Long> optionIds) {
+        super(message);
+        this.optionIds = List.copyOf(optionIds);
+    }
+
+    public List<Long> getOptionIds() {
+        return optionIds;
+    }
+}
@@ -0,0 +1,36 @@
+package auca.ac.rw.Online.quiz.management.exception;
+
+/**
+ * Thrown when a request is refused because a bounded resource (password hashing pool,
+ * login rate limit, ...) is saturated. Mapped to HTTP 429 with a Retry-After header.
+ */
+public class TooManyRequestsException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public TooManyRequestsException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+
+    /**
+     * Finds a TooManyRequestsException in {@code failure}'s cause chain, or null. Spring Security
+     * wraps exceptions thrown while loading a user (including the password encoder's timing-attack
+     * hash for unknown users) in an InternalAuthenticationServiceException.
+     */
+    public static TooManyRequestsException findIn(Throwable failure) {
+        for (Throwable t = failure; t != null; t = t.getCause()) {
+            if (t instanceof TooManyRequestsException tooManyRequests) {
+                return tooManyRequests;
+            }
+            if (t.getCause() == t) {
+                break;
+            }
+        }
+        return null;
+    }
+}
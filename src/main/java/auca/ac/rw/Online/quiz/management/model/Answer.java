@@ -6,12 +6,17 @@ import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.Table;
 
 @Entity
-@Table(name = "answers")
+@Table(name = "answers", indexes = {
+        @Index(name = "idx_answers_attempt", columnList = "attempt_id"),
+        @Index(name = "idx_answers_question", columnList = "question_id"),
+        @Index(name = "idx_answers_option", columnList = "option_id")
+})
 public class Answer {
 
     @Id
@@ -0,0 +1,50 @@
+package auca.ac.rw.Online.quiz.management.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import java.time.LocalDateTime;
+
+/**
+ * Records which version of a seeded reference dataset (e.g. Rwanda locations) is loaded, so
+ * seeders can skip loading and verification when the database already has it.
+ */
+@Entity
+@Table(name = "dataset_versions")
+public class DatasetVersion {
+
+    @Id
+    @Column(length = 64)
+    private String name;
+
+    @Column(nullable = false, length = 64)
+    private String version;
+
+    @Column(name = "row_count", nullable = false)
+    private int rowCount;
+
+    @Column(name = "applied_at", nullable = false)
+    private LocalDateTime appliedAt;
+
+    public DatasetVersion() {}
+
+    public DatasetVersion(String name, String version, int rowCount, LocalDateTime appliedAt) {
+        this.name = name;
+        this.version = version;
+        this.rowCount = rowCount;
+        this.appliedAt = appliedAt;
+    }
+
+    public String getName() { return name; }
+    public void setName(String name) { this.name = name; }
+
+    public String getVersion() { return version; }
+    public void setVersion(String version) { this.version = version; }
+
+    public int getRowCount() { return rowCount; }
+    public void setRowCount(int rowCount) { this.rowCount = rowCount; }
+
+    public LocalDateTime getAppliedAt() { return appliedAt; }
+    public void setAppliedAt(LocalDateTime appliedAt) { this.appliedAt = appliedAt; }
+}
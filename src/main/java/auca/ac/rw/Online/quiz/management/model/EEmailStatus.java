@@ -0,0 +1,8 @@
+package auca.ac.rw.Online.quiz.management.model;
+
+public enum EEmailStatus {
+    PENDING,
+    SENDING,
+    SENT,
+    FAILED
+}
@@ -1,7 +1,9 @@
 package auca.ac.rw.Online.quiz.management.model;
 
+import auca.ac.rw.Online.quiz.management.service.LocationTreeListener;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
 import jakarta.persistence.EnumType;
 import jakarta.persistence.Enumerated;
 import jakarta.persistence.GeneratedValue;
@@ -15,6 +17,7 @@ import java.util.List;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 
 @Entity
+@EntityListeners(LocationTreeListener.class)
 @Table(
     name = "locations",
     indexes = {
@@ -22,7 +25,9 @@ import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
         @Index(name = "idx_location_district", columnList = "district_id, district_name"),
         @Index(name = "idx_location_sector", columnList = "sector_id, sector_name"),
         @Index(name = "idx_location_cell", columnList = "cell_id, cell_name"),
-        @Index(name = "idx_location_village", columnList = "village_id, village_name")
+        @Index(name = "idx_location_village", columnList = "village_id, village_name"),
+        // Whole id path, for the closure joins that match a path prefix
+        @Index(name = "idx_location_path", columnList = "province_id, district_id, sector_id, cell_id, village_id")
     }
 )
 @JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
@@ -71,6 +76,11 @@ public class Location {
     @Column(name = "location_type", nullable = false)
     private LocationType locationType;
 
+    // True for the reference hierarchy loaded by RwandaLocationSeeder; users' own copies leave it
+    // unset. Nullable so ddl-auto can add the column to an existing table.
+    @Column(name = "seeded")
+    private Boolean seeded;
+
     @OneToMany(mappedBy = "location")
     @com.fasterxml.jackson.annotation.JsonIgnore
     private List<User> users = new ArrayList<>();
@@ -127,6 +137,9 @@ public class Location {
 
     public LocationType getLocationType() { return locationType; }
     public void setLocationType(LocationType locationType) { this.locationType = locationType; }
+
+    public boolean isSeeded() { return Boolean.TRUE.equals(seeded); }
+    public void setSeeded(Boolean seeded) { this.seeded = seeded; }
     public List<User> getUsers() { return users; }
     public void setUsers(List<User> users) { this.users = users; }
 }
@@ -0,0 +1,67 @@
+package auca.ac.rw.Online.quiz.management.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.IdClass;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import java.io.Serializable;
+import java.util.Objects;
+
+/**
+ * Closure table over {@link Location}: one row for every (ancestor, descendant) pair in the
+ * province / district / sector / cell / village hierarchy, including each location paired
+ * with itself at depth 0. Subtree and ancestor lookups become a single indexed join.
+ *
+ * Rows are derived from the locations' id paths by {@code LocationHierarchyService}; they are
+ * never written through JPA.
+ */
+@Entity
+@IdClass(LocationClosure.Key.class)
+@Table(name = "location_closure", indexes = {
+        @Index(name = "idx_location_closure_descendant", columnList = "descendant_id,depth")
+})
+public class LocationClosure {
+
+    @Id
+    @Column(name = "ancestor_id")
+    private Long ancestorId;
+
+    @Id
+    @Column(name = "descendant_id")
+    private Long descendantId;
+
+    @Column(nullable = false)
+    private int depth;
+
+    public LocationClosure() {}
+
+    public Long getAncestorId() { return ancestorId; }
+    public Long getDescendantId() { return descendantId; }
+    public int getDepth() { return depth; }
+
+    public static class Key implements Serializable {
+        private Long ancestorId;
+        private Long descendantId;
+
+        public Key() {}
+
+        public Key(Long ancestorId, Long descendantId) {
+            this.ancestorId = ancestorId;
+            this.descendantId = descendantId;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key key)) return false;
+            return Objects.equals(ancestorId, key.ancestorId) && Objects.equals(descendantId, key.descendantId);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(ancestorId, descendantId);
+        }
+    }
+}
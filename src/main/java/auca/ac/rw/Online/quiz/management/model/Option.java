@@ -1,17 +1,23 @@
 package auca.ac.rw.Online.quiz.management.model;
 
+import auca.ac.rw.Online.quiz.management.service.SearchIndexListener;
 import com.fasterxml.jackson.annotation.JsonBackReference;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.Table;
 
 @Entity
-@Table(name = "options")
+@EntityListeners(SearchIndexListener.class)
+@Table(name = "options", indexes = {
+        @Index(name = "idx_options_question", columnList = "question_id")
+})
 public class Option {
 
     @Id
@@ -1,14 +1,25 @@
 package auca.ac.rw.Online.quiz.management.model;
 
+import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.EnumType;
 import jakarta.persistence.Enumerated;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
 import java.time.LocalDateTime;
 
 @Entity
+@Table(
+    name = "otp_token",
+    indexes = {
+        @Index(name = "idx_otp_email_type_used_expires", columnList = "email, type, used, expires_at"),
+        @Index(name = "idx_otp_user_email_code_type", columnList = "user_email, code, type"),
+        @Index(name = "idx_otp_expires_at", columnList = "expires_at")
+    }
+)
 public class OtpToken {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -24,6 +35,10 @@ public class OtpToken {
 
     private boolean used = false;
 
+    // Wrong codes tried against this row; the default fills rows inserted with plain SQL
+    @Column(name = "failed_attempts", nullable = false, columnDefinition = "integer default 0")
+    private int failedAttempts;
+
     public Long getId() {
         return id;
     }
@@ -79,5 +94,12 @@ public class OtpToken {
     public void setUsed(boolean used) {
         this.used = used;
     }
-}
 
+    public int getFailedAttempts() {
+        return failedAttempts;
+    }
+
+    public void setFailedAttempts(int failedAttempts) {
+        this.failedAttempts = failedAttempts;
+    }
+}
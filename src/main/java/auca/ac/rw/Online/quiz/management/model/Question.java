@@ -1,14 +1,18 @@
 package auca.ac.rw.Online.quiz.management.model;
 
+import auca.ac.rw.Online.quiz.management.service.QuestionSamplingListener;
+import auca.ac.rw.Online.quiz.management.service.SearchIndexListener;
 import com.fasterxml.jackson.annotation.JsonBackReference;
 import com.fasterxml.jackson.annotation.JsonManagedReference;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
 import jakarta.persistence.EnumType;
 import jakarta.persistence.Enumerated;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.OneToMany;
@@ -17,7 +21,10 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "questions")
+@EntityListeners({SearchIndexListener.class, QuestionSamplingListener.class})
+@Table(name = "questions", indexes = {
+        @Index(name = "idx_questions_quiz", columnList = "quiz_id")
+})
 public class Question {
 
     @Id
@@ -46,6 +53,10 @@ public class Question {
     @Column(name = "points")
     private Integer points = 1;
 
+    // Bumped on every edit of the question or its options; rows inserted over JDBC start at 0
+    @Column(name = "version", nullable = false, columnDefinition = "bigint default 0")
+    private long version;
+
     public Question() {}
 
     public Long getId() { return id; }
@@ -68,6 +79,9 @@ public class Question {
 
     public Integer getPoints() { return points; }
     public void setPoints(Integer points) { this.points = points; }
+
+    public long getVersion() { return version; }
+    public void setVersion(long version) { this.version = version; }
 }
 
 
@@ -1,9 +1,12 @@
 package auca.ac.rw.Online.quiz.management.model;
 
+import auca.ac.rw.Online.quiz.management.service.QuizScheduleListener;
+import auca.ac.rw.Online.quiz.management.service.SearchIndexListener;
 import com.fasterxml.jackson.annotation.JsonBackReference;
 import com.fasterxml.jackson.annotation.JsonManagedReference;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
 import jakarta.persistence.EnumType;
 import jakarta.persistence.Enumerated;
 import jakarta.persistence.GeneratedValue;
@@ -21,6 +24,7 @@ import java.util.List;
 import java.util.Set;
 
 @Entity
+@EntityListeners({SearchIndexListener.class, QuizScheduleListener.class})
 @Table(name = "quizzes")
 public class Quiz {
 
@@ -1,24 +1,36 @@
 package auca.ac.rw.Online.quiz.management.model;
 
+import auca.ac.rw.Online.quiz.management.service.SearchIndexListener;
 import com.fasterxml.jackson.annotation.JsonBackReference;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
 import jakarta.persistence.EnumType;
 import jakarta.persistence.Enumerated;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.OneToMany;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.PreUpdate;
 import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
 import java.time.OffsetDateTime;
 import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "quiz_attempts")
+@EntityListeners(SearchIndexListener.class)
+@Table(name = "quiz_attempts", indexes = {
+        @Index(name = "idx_quiz_attempts_user", columnList = "user_id"),
+        @Index(name = "idx_quiz_attempts_quiz", columnList = "quiz_id")
+}, uniqueConstraints = {
+        @UniqueConstraint(name = "uk_quiz_attempts_in_progress", columnNames = "in_progress_key")
+})
 public class QuizAttempt {
 
     @Id
@@ -49,6 +61,16 @@ public class QuizAttempt {
     @com.fasterxml.jackson.annotation.JsonIgnore
     private List<Answer> answers = new ArrayList<>();
 
+    // Paper of a sampled quiz, as comma-separated question ids in delivery order; null otherwise
+    @Column(name = "sampled_question_ids", columnDefinition = "TEXT")
+    @com.fasterxml.jackson.annotation.JsonIgnore
+    private String sampledQuestionIds;
+
+    // "quizId:userId" while IN_PROGRESS, null otherwise: a student has at most one open attempt per quiz
+    @Column(name = "in_progress_key", length = 64)
+    @com.fasterxml.jackson.annotation.JsonIgnore
+    private String inProgressKey;
+
     public QuizAttempt() {
     }
 
@@ -116,6 +138,22 @@ public class QuizAttempt {
         this.answers = answers;
     }
 
+    public String getSampledQuestionIds() {
+        return sampledQuestionIds;
+    }
+
+    public void setSampledQuestionIds(String sampledQuestionIds) {
+        this.sampledQuestionIds = sampledQuestionIds;
+    }
+
+    @PrePersist
+    @PreUpdate
+    void updateInProgressKey() {
+        inProgressKey = status == EAttemptStatus.IN_PROGRESS && quiz != null && user != null
+                ? quiz.getId() + ":" + user.getId()
+                : null;
+    }
+
     @JsonProperty("quizId")
     public Long getQuizId() {
         return quiz != null ? quiz.getId() : null;
@@ -0,0 +1,60 @@
+package auca.ac.rw.Online.quiz.management.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.ManyToOne;
+import jakarta.persistence.Table;
+
+/**
+ * One line of a sampled exam: draw {@code questionCount} random questions from the question bank
+ * category {@code category} (matched case-insensitively across all quizzes). A quiz with
+ * sampling rules delivers a different paper to each student instead of its own questions.
+ */
+@Entity
+@Table(name = "quiz_sampling_rules", indexes = {
+        @Index(name = "idx_quiz_sampling_rules_quiz", columnList = "quiz_id")
+})
+public class QuizSamplingRule {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "quiz_id")
+    @JsonIgnore
+    private Quiz quiz;
+
+    @Column(nullable = false, length = 255)
+    private String category;
+
+    @Column(name = "question_count", nullable = false)
+    private int questionCount;
+
+    public QuizSamplingRule() {}
+
+    public QuizSamplingRule(Quiz quiz, String category, int questionCount) {
+        this.quiz = quiz;
+        this.category = category;
+        this.questionCount = questionCount;
+    }
+
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public Quiz getQuiz() { return quiz; }
+    public void setQuiz(Quiz quiz) { this.quiz = quiz; }
+
+    public String getCategory() { return category; }
+    public void setCategory(String category) { this.category = category; }
+
+    public int getQuestionCount() { return questionCount; }
+    public void setQuestionCount(int questionCount) { this.questionCount = questionCount; }
+}
@@ -6,13 +6,18 @@ import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.Table;
 import java.time.OffsetDateTime;
 
 @Entity
-@Table(name = "reports")
+@Table(name = "reports", indexes = {
+        @Index(name = "idx_reports_quiz", columnList = "quiz_id"),
+        @Index(name = "idx_reports_attempt", columnList = "attempt_id"),
+        @Index(name = "idx_reports_generated_by", columnList = "generated_by")
+})
 public class Report {
 
     @Id
@@ -4,7 +4,10 @@ import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.persistence.*;
 
 @Entity
-@Table(name = "user_answers")
+@Table(name = "user_answers", indexes = {
+        @Index(name = "idx_user_answers_attempt", columnList = "attempt_id"),
+        @Index(name = "idx_user_answers_question", columnList = "question_id")
+})
 public class UserAnswer {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
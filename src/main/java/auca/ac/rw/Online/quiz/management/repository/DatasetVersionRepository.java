@@ -0,0 +1,9 @@
+package auca.ac.rw.Online.quiz.management.repository;
+
+import auca.ac.rw.Online.quiz.management.model.DatasetVersion;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface DatasetVersionRepository extends JpaRepository<DatasetVersion, String> {
+}
@@ -0,0 +1,50 @@
+package auca.ac.rw.Online.quiz.management.repository;
+
+import auca.ac.rw.Online.quiz.management.model.Location;
+import auca.ac.rw.Online.quiz.management.model.LocationClosure;
+import auca.ac.rw.Online.quiz.management.model.LocationType;
+import auca.ac.rw.Online.quiz.management.model.User;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import java.util.List;
+
+/**
+ * Subtree queries over the location hierarchy. Each method is one query driven by the
+ * closure table's primary key (ancestor_id, descendant_id) or idx_location_closure_descendant.
+ */
+@Repository
+public interface LocationClosureRepository extends JpaRepository<LocationClosure, LocationClosure.Key> {
+
+    // Root first: province, district, ... down to the location itself
+    @Query("SELECT l FROM LocationClosure c JOIN Location l ON l.id = c.ancestorId " +
+           "WHERE c.descendantId = :locationId ORDER BY c.depth DESC")
+    List<Location> findAncestorPath(@Param("locationId") Long locationId);
+
+    @Query("SELECT l FROM LocationClosure c JOIN Location l ON l.id = c.descendantId " +
+           "WHERE c.ancestorId = :locationId AND c.depth > 0 AND l.seeded = true AND l.locationType = :type ORDER BY l.id")
+    List<Location> findDescendantsOfType(@Param("locationId") Long locationId, @Param("type") LocationType type);
+
+    @Query("SELECT COUNT(c) > 0 FROM LocationClosure c WHERE c.ancestorId = :ancestorId AND c.descendantId = :descendantId")
+    boolean isWithin(@Param("descendantId") Long descendantId, @Param("ancestorId") Long ancestorId);
+
+    // Number of descendant places per level, e.g. [[SECTOR, 15], [CELL, 90], [VILLAGE, 540]];
+    // users' own location rows are counted by countUsersWithin instead
+    @Query("SELECT l.locationType, COUNT(c) FROM LocationClosure c JOIN Location l ON l.id = c.descendantId " +
+           "WHERE c.ancestorId = :locationId AND c.depth > 0 AND l.seeded = true GROUP BY l.locationType")
+    List<Object[]> countDescendantsByType(@Param("locationId") Long locationId);
+
+    // Users whose location is the given one or anywhere below it
+    @Query(value = "SELECT u FROM LocationClosure c JOIN User u ON u.location.id = c.descendantId " +
+                   "WHERE c.ancestorId = :locationId",
+           countQuery = "SELECT COUNT(u) FROM LocationClosure c JOIN User u ON u.location.id = c.descendantId " +
+                        "WHERE c.ancestorId = :locationId")
+    Page<User> findUsersWithin(@Param("locationId") Long locationId, Pageable pageable);
+
+    @Query("SELECT COUNT(u) FROM LocationClosure c JOIN User u ON u.location.id = c.descendantId " +
+           "WHERE c.ancestorId = :locationId")
+    long countUsersWithin(@Param("locationId") Long locationId);
+}
@@ -1,16 +1,21 @@
 package auca.ac.rw.Online.quiz.management.repository;
 
+import auca.ac.rw.Online.quiz.management.controller.dto.LocationWithUserDTO;
 import auca.ac.rw.Online.quiz.management.model.Location;
+import auca.ac.rw.Online.quiz.management.model.LocationType;
 import auca.ac.rw.Online.quiz.management.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface LocationRepository extends JpaRepository<Location, Long> {
     List<Location> findByProvinceId(Long provinceId);
+    boolean existsBySeededTrue();
+    Optional<Location> findFirstBySeededTrueAndProvinceIdAndLocationType(Long provinceId, LocationType locationType);
     List<Location> findByProvinceName(String provinceName);
     List<Location> findByProvinceIdAndDistrictId(Long provinceId, Long districtId);
     List<Location> findByProvinceIdAndDistrictIdAndSectorId(Long provinceId, Long districtId, Long sectorId);
@@ -57,6 +62,21 @@ public interface LocationRepository extends JpaRepository<Location, Long> {
            "LOWER(l.districtName) LIKE LOWER(CONCAT('%', :q, '%')) OR " +
            "LOWER(l.sectorName) LIKE LOWER(CONCAT('%', :q, '%')))")
     org.springframework.data.domain.Page<Location> findUserLocationsWithSearch(@Param("q") String q, org.springframework.data.domain.Pageable pageable);
-}
 
+    // Location-user rows for the locations page, one query plus a count. Locations without users
+    // get one row with null user columns.
+    String LOCATION_USER_ROW = "SELECT new auca.ac.rw.Online.quiz.management.controller.dto.LocationWithUserDTO(" +
+            "l.id, u.username, u.role, l.provinceId, l.provinceName, l.districtId, l.districtName, " +
+            "l.sectorId, l.sectorName, l.cellId, l.cellName, l.villageId, l.villageName, l.locationType) ";
+    String LOCATION_NAME_FILTER = "(:q = '' OR LOWER(l.provinceName) LIKE LOWER(CONCAT('%', :q, '%')) OR " +
+            "LOWER(l.districtName) LIKE LOWER(CONCAT('%', :q, '%')) OR " +
+            "LOWER(l.sectorName) LIKE LOWER(CONCAT('%', :q, '%')))";
+
+    @Query(value = LOCATION_USER_ROW + "FROM Location l LEFT JOIN l.users u WHERE " + LOCATION_NAME_FILTER + " ORDER BY l.id, u.id",
+           countQuery = "SELECT COUNT(l) FROM Location l LEFT JOIN l.users u WHERE " + LOCATION_NAME_FILTER)
+    org.springframework.data.domain.Page<LocationWithUserDTO> findLocationUserRows(@Param("q") String q, org.springframework.data.domain.Pageable pageable);
 
+    @Query(value = LOCATION_USER_ROW + "FROM Location l JOIN l.users u WHERE " + LOCATION_NAME_FILTER + " ORDER BY l.id, u.id",
+           countQuery = "SELECT COUNT(u) FROM Location l JOIN l.users u WHERE " + LOCATION_NAME_FILTER)
+    org.springframework.data.domain.Page<LocationWithUserDTO> findUserLocationRows(@Param("q") String q, org.springframework.data.domain.Pageable pageable);
+}
@@ -3,13 +3,56 @@ package auca.ac.rw.Online.quiz.management.repository;
 import auca.ac.rw.Online.quiz.management.model.OtpToken;
 import auca.ac.rw.Online.quiz.management.model.OtpType;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.Optional;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 @Repository
 public interface OtpTokenRepository extends JpaRepository<OtpToken, Long> {
     Optional<OtpToken> findFirstByEmailAndTypeAndUsedFalseAndExpiresAtAfterOrderByExpiresAtDesc(
             String email, OtpType type, LocalDateTime now);
-}
 
+    // Uses idx_otp_email_type_used_expires
+    @Modifying
+    @Query("UPDATE OtpToken t SET t.used = true WHERE t.email = :email AND t.type = :type " +
+           "AND t.used = false AND t.expiresAt > :now")
+    int markActiveAsUsed(@Param("email") String email, @Param("type") OtpType type,
+            @Param("now") LocalDateTime now);
+
+    // Same as markActiveAsUsed for a whole recipient list in one statement
+    @Modifying
+    @Query("UPDATE OtpToken t SET t.used = true WHERE t.email IN :emails AND t.type = :type " +
+           "AND t.used = false AND t.expiresAt > :now")
+    int markActiveAsUsedForEmails(@Param("emails") Collection<String> emails, @Param("type") OtpType type,
+            @Param("now") LocalDateTime now);
+
+    // Uses idx_otp_user_email_code_type; marks every copy of a code sent to several addresses
+    @Modifying
+    @Query("UPDATE OtpToken t SET t.used = true WHERE t.userEmail = :userEmail AND t.code = :code " +
+           "AND t.type = :type AND t.used = false AND t.expiresAt > :now")
+    int markActiveAsUsedByUserEmailAndCode(@Param("userEmail") String userEmail, @Param("code") String code,
+            @Param("type") OtpType type, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("UPDATE OtpToken t SET t.used = true WHERE t.id = :id AND t.used = false")
+    int markAsUsed(@Param("id") Long id);
+
+    // Counts a wrong code, burning the row once maxAttempts is reached
+    @Modifying
+    @Query("UPDATE OtpToken t SET t.failedAttempts = t.failedAttempts + 1, " +
+           "t.used = CASE WHEN t.failedAttempts + 1 >= :maxAttempts THEN true ELSE false END " +
+           "WHERE t.id = :id AND t.used = false")
+    int recordFailedAttempt(@Param("id") Long id, @Param("maxAttempts") int maxAttempts);
+
+    // Batched purge used by JpaOtpStore; each call is its own short transaction
+    @Transactional
+    @Modifying
+    @Query(value = "DELETE FROM otp_token WHERE id IN " +
+                   "(SELECT id FROM otp_token WHERE expires_at < :cutoff LIMIT :batchSize)", nativeQuery = true)
+    int deleteExpiredBatch(@Param("cutoff") LocalDateTime cutoff, @Param("batchSize") int batchSize);
+}
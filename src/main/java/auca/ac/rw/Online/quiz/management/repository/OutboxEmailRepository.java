@@ -0,0 +1,58 @@
+package auca.ac.rw.Online.quiz.management.repository;
+
+import auca.ac.rw.Online.quiz.management.model.EEmailStatus;
+import auca.ac.rw.Online.quiz.management.model.OutboxEmail;
+import java.time.LocalDateTime;
+import java.util.List;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+@Repository
+public interface OutboxEmailRepository extends JpaRepository<OutboxEmail, Long> {
+
+    // Pending rows that are due, plus SENDING rows whose lease ran out (worker or node died mid-send).
+    // Uses idx_email_outbox_status_next_attempt
+    @Query("SELECT e FROM OutboxEmail e WHERE e.status IN :statuses AND e.nextAttemptAt <= :now " +
+           "ORDER BY e.nextAttemptAt")
+    List<OutboxEmail> findDue(@Param("statuses") List<EEmailStatus> statuses, @Param("now") LocalDateTime now,
+            Pageable pageable);
+
+    // Conditional claim: only the node whose UPDATE matches the row it read gets to send it
+    @Transactional
+    @Modifying
+    @Query("UPDATE OutboxEmail e SET e.status = :sending, e.nextAttemptAt = :leaseUntil " +
+           "WHERE e.id = :id AND e.status = :status AND e.nextAttemptAt = :expectedNextAttemptAt")
+    int claim(@Param("id") Long id, @Param("status") EEmailStatus status,
+            @Param("expectedNextAttemptAt") LocalDateTime expectedNextAttemptAt,
+            @Param("sending") EEmailStatus sending, @Param("leaseUntil") LocalDateTime leaseUntil);
+
+    // The outcome updates only match while the row is still under the lease this worker claimed it with;
+    // 0 rows means the lease was lost (it ran out and the row was re-claimed, or already recorded)
+    @Transactional
+    @Modifying
+    @Query("UPDATE OutboxEmail e SET e.status = :status, e.attempts = e.attempts + 1, e.sentAt = :sentAt, " +
+           "e.body = null, e.lastError = null " +
+           "WHERE e.id = :id AND e.status = :sending AND e.nextAttemptAt = :leaseUntil")
+    int markSent(@Param("id") Long id, @Param("sending") EEmailStatus sending,
+            @Param("leaseUntil") LocalDateTime leaseUntil, @Param("status") EEmailStatus status,
+            @Param("sentAt") LocalDateTime sentAt);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE OutboxEmail e SET e.status = :status, e.attempts = e.attempts + 1, " +
+           "e.nextAttemptAt = :nextAttemptAt, e.lastError = :error " +
+           "WHERE e.id = :id AND e.status = :sending AND e.nextAttemptAt = :leaseUntil")
+    int markAttemptFailed(@Param("id") Long id, @Param("sending") EEmailStatus sending,
+            @Param("leaseUntil") LocalDateTime leaseUntil, @Param("status") EEmailStatus status,
+            @Param("nextAttemptAt") LocalDateTime nextAttemptAt, @Param("error") String error);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM OutboxEmail e WHERE e.status = :status AND e.sentAt < :cutoff")
+    int deleteSentBefore(@Param("status") EEmailStatus status, @Param("cutoff") LocalDateTime cutoff);
+}
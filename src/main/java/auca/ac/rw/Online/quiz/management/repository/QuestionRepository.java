@@ -2,13 +2,56 @@ package auca.ac.rw.Online.quiz.management.repository;
 
 import auca.ac.rw.Online.quiz.management.model.Question;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 
 @Repository
 public interface QuestionRepository extends JpaRepository<Question, Long> {
     org.springframework.data.domain.Page<Question> findByTextContainingIgnoreCase(String text, org.springframework.data.domain.Pageable pageable);
-    java.util.List<Question> findByQuizId(Long quizId);
-}
 
+    /**
+     * Question bank search without the full-text index: {@code text} (lower-cased, may be null)
+     * as a substring of the question, its category or one of its options; null filters are ignored.
+     */
+    @Query("SELECT q FROM Question q WHERE (:text IS NULL OR LOWER(q.text) LIKE CONCAT('%', :text, '%') "
+            + "OR LOWER(q.category) LIKE CONCAT('%', :text, '%') "
+            + "OR EXISTS (SELECT 1 FROM Option o WHERE o.question = q AND LOWER(o.text) LIKE CONCAT('%', :text, '%'))) "
+            + "AND (:type IS NULL OR q.type = :type) AND (:quizId IS NULL OR q.quiz.id = :quizId) "
+            + "AND (:category IS NULL OR LOWER(TRIM(q.category)) = :category) ORDER BY q.id")
+    org.springframework.data.domain.Page<Question> searchBank(@Param("text") String text,
+            @Param("type") auca.ac.rw.Online.quiz.management.model.EQuestionType type, @Param("quizId") Long quizId,
+            @Param("category") String category, org.springframework.data.domain.Pageable pageable);
+
+    /**
+     * A quiz's questions with their options, the quiz and its creator in one SELECT, so
+     * iterating or serializing the options does not run a query per question.
+     */
+    @Query("SELECT q FROM Question q JOIN FETCH q.quiz z LEFT JOIN FETCH z.createdBy "
+            + "LEFT JOIN FETCH q.options o WHERE z.id = :quizId ORDER BY q.id, o.id")
+    java.util.List<Question> findByQuizIdWithOptions(@Param("quizId") Long quizId);
 
+    @Query("SELECT q FROM Question q JOIN FETCH q.quiz z LEFT JOIN FETCH z.createdBy "
+            + "LEFT JOIN FETCH q.options o WHERE q.id IN :ids ORDER BY q.id, o.id")
+    java.util.List<Question> findByIdInWithOptions(@Param("ids") java.util.Collection<Long> ids);
+
+    /** The questions of a sampled paper with their options, in paper order; deleted ones are skipped. */
+    default java.util.List<Question> findPaper(java.util.List<Long> ids) {
+        if (ids.isEmpty()) {
+            return new java.util.ArrayList<>();
+        }
+        java.util.Map<Long, Question> byId = new java.util.HashMap<>();
+        for (Question question : findByIdInWithOptions(ids)) {
+            byId.put(question.getId(), question);
+        }
+        java.util.List<Question> paper = new java.util.ArrayList<>(ids.size());
+        for (Long id : ids) {
+            Question question = byId.get(id);
+            if (question != null) {
+                paper.add(question);
+            }
+        }
+        return paper;
+    }
+}
@@ -25,6 +25,11 @@ public interface QuizAttemptRepository extends JpaRepository<QuizAttempt, Long>
            "LOWER(a.quiz.title) LIKE LOWER(CONCAT('%', :query, '%'))")
     org.springframework.data.domain.Page<QuizAttempt> searchAttempts(@Param("query") String query, org.springframework.data.domain.Pageable pageable);
     
+    // Global search: attempts by users or on quizzes the search index matched. A fixed order, so
+    // narrowing a cached result in SearchResultCache gives the same list as searching again
+    @Query("SELECT a FROM QuizAttempt a WHERE a.user.id IN :userIds OR a.quiz.id IN :quizIds ORDER BY a.id")
+    org.springframework.data.domain.Page<QuizAttempt> findByUserIdInOrQuizIdIn(@Param("userIds") List<Long> userIds, @Param("quizIds") List<Long> quizIds, org.springframework.data.domain.Pageable pageable);
+    
     @Query("SELECT a FROM QuizAttempt a JOIN FETCH a.user WHERE a.quiz.id = :quizId AND LOWER(a.user.username) = LOWER(:username)")
     java.util.Optional<QuizAttempt> findByQuizIdAndUsername(@Param("quizId") Long quizId, @Param("username") String username);
     
@@ -2,18 +2,20 @@ package auca.ac.rw.Online.quiz.management.repository;
 
 import auca.ac.rw.Online.quiz.management.model.Quiz;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Repository;
+import java.time.OffsetDateTime;
+import java.util.Collection;
 import java.util.List;
 
 
 @Repository
 public interface QuizRepository extends JpaRepository<Quiz, Long> {
     Page<Quiz> findByTitleContainingIgnoreCase(String title, Pageable pageable);
-    List<Quiz> findByStatusAndStartTimeBefore(auca.ac.rw.Online.quiz.management.model.EQuizStatus status, java.time.OffsetDateTime time);
-    List<Quiz> findByStatusAndEndTimeBefore(auca.ac.rw.Online.quiz.management.model.EQuizStatus status, java.time.OffsetDateTime time);
     List<Quiz> findByStatus(auca.ac.rw.Online.quiz.management.model.EQuizStatus status);
     
     @Query("SELECT DISTINCT q FROM Quiz q LEFT JOIN FETCH q.createdBy")
@@ -21,6 +23,32 @@ public interface QuizRepository extends JpaRepository<Quiz, Long> {
     
     @Query("SELECT DISTINCT q FROM Quiz q LEFT JOIN FETCH q.createdBy WHERE q.status = :status")
     List<Quiz> findByStatusWithCreatedBy(auca.ac.rw.Online.quiz.management.model.EQuizStatus status);
-}
 
+    /** Id, status, start and end of every quiz that still has a status transition ahead of it. */
+    @Query("SELECT q.id, q.status, q.startTime, q.endTime FROM Quiz q WHERE "
+            + "(q.status = auca.ac.rw.Online.quiz.management.model.EQuizStatus.DRAFT AND (q.startTime IS NOT NULL OR q.endTime IS NOT NULL)) "
+            + "OR (q.status = auca.ac.rw.Online.quiz.management.model.EQuizStatus.PUBLISHED AND q.endTime IS NOT NULL)")
+    List<Object[]> findScheduled();
+
+    /** Ids of DRAFT quizzes past their start and PUBLISHED quizzes past their end. */
+    @Query("SELECT q.id FROM Quiz q WHERE "
+            + "(q.status = auca.ac.rw.Online.quiz.management.model.EQuizStatus.DRAFT AND q.startTime <= :now) "
+            + "OR (q.status = auca.ac.rw.Online.quiz.management.model.EQuizStatus.PUBLISHED AND q.endTime <= :now)")
+    List<Long> findOverdueIds(@Param("now") OffsetDateTime now);
+
+    /** Id and title of those of {@code ids} that are in {@code status} and past their start time. */
+    @Query("SELECT q.id, q.title FROM Quiz q WHERE q.id IN :ids AND q.status = :status AND q.startTime <= :now")
+    List<Object[]> findStarted(@Param("ids") Collection<Long> ids,
+            @Param("status") auca.ac.rw.Online.quiz.management.model.EQuizStatus status, @Param("now") OffsetDateTime now);
 
+    /** Id and title of those of {@code ids} that are in {@code status} and past their end time. */
+    @Query("SELECT q.id, q.title FROM Quiz q WHERE q.id IN :ids AND q.status = :status AND q.endTime <= :now")
+    List<Object[]> findEnded(@Param("ids") Collection<Long> ids,
+            @Param("status") auca.ac.rw.Online.quiz.management.model.EQuizStatus status, @Param("now") OffsetDateTime now);
+
+    @Modifying
+    @Query("UPDATE Quiz q SET q.status = :to WHERE q.id IN :ids AND q.status = :from")
+    int updateStatus(@Param("ids") Collection<Long> ids,
+            @Param("from") auca.ac.rw.Online.quiz.management.model.EQuizStatus from,
+            @Param("to") auca.ac.rw.Online.quiz.management.model.EQuizStatus to);
+}
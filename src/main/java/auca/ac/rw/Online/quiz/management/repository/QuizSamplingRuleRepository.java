@@ -0,0 +1,20 @@
+package auca.ac.rw.Online.quiz.management.repository;
+
+import auca.ac.rw.Online.quiz.management.model.QuizSamplingRule;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface QuizSamplingRuleRepository extends JpaRepository<QuizSamplingRule, Long> {
+    @Query("SELECT r FROM QuizSamplingRule r WHERE r.quiz.id = :quizId ORDER BY r.id")
+    List<QuizSamplingRule> findByQuizId(@Param("quizId") Long quizId);
+
+    @Modifying
+    @Query("DELETE FROM QuizSamplingRule r WHERE r.quiz.id = :quizId")
+    void deleteByQuizId(@Param("quizId") Long quizId);
+}
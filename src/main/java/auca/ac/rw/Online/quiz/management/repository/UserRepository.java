@@ -1,6 +1,7 @@
 package auca.ac.rw.Online.quiz.management.repository;
 
 import auca.ac.rw.Online.quiz.management.model.User;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -14,22 +15,44 @@ public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByEmailIgnoreCase(String email);
     boolean existsByEmailIgnoreCase(String email);
     boolean existsByUsernameIgnoreCase(String username);
-    java.util.List<User> findByUsernameIgnoreCaseContaining(String username);
+
+    // Account id for a lower-cased username or email, without loading the user
+    @Query("SELECT u.id FROM User u WHERE LOWER(u.username) = :name OR LOWER(u.email) = :name ORDER BY u.id")
+    java.util.List<Long> findIdsByUsernameOrEmail(@Param("name") String name);
+
     org.springframework.data.domain.Page<User> findByUsernameIgnoreCaseContaining(String username, org.springframework.data.domain.Pageable pageable);
+    org.springframework.data.domain.Page<User> findByUsernameStartingWithIgnoreCase(String prefix, org.springframework.data.domain.Pageable pageable);
+    
+    // Paged with the location fetched in the same SELECT (many-to-one, so paging stays in SQL)
+    @EntityGraph(attributePaths = "location")
+    @Query(value = "SELECT u FROM User u", countQuery = "SELECT COUNT(u) FROM User u")
+    org.springframework.data.domain.Page<User> findPageWithLocation(org.springframework.data.domain.Pageable pageable);
+
+    // Admin search: id, username, email or role containing the lower-cased term
+    @EntityGraph(attributePaths = "location")
+    @Query(value = "SELECT u FROM User u WHERE " +
+           "CAST(u.id AS string) LIKE CONCAT('%', :term, '%') OR " +
+           "LOWER(u.username) LIKE CONCAT('%', :term, '%') OR " +
+           "LOWER(u.email) LIKE CONCAT('%', :term, '%') OR " +
+           "LOWER(CAST(u.role AS string)) LIKE CONCAT('%', :term, '%')",
+           countQuery = "SELECT COUNT(u) FROM User u WHERE " +
+           "CAST(u.id AS string) LIKE CONCAT('%', :term, '%') OR " +
+           "LOWER(u.username) LIKE CONCAT('%', :term, '%') OR " +
+           "LOWER(u.email) LIKE CONCAT('%', :term, '%') OR " +
+           "LOWER(CAST(u.role AS string)) LIKE CONCAT('%', :term, '%')")
+    org.springframework.data.domain.Page<User> searchWithLocation(@Param("term") String term, org.springframework.data.domain.Pageable pageable);
+
+    // Username or email starting with the lower-cased prefix, like the prefix trie
+    @EntityGraph(attributePaths = "location")
+    @Query(value = "SELECT u FROM User u WHERE LOWER(u.username) LIKE CONCAT(:prefix, '%') OR LOWER(u.email) LIKE CONCAT(:prefix, '%')",
+           countQuery = "SELECT COUNT(u) FROM User u WHERE LOWER(u.username) LIKE CONCAT(:prefix, '%') OR LOWER(u.email) LIKE CONCAT(:prefix, '%')")
+    org.springframework.data.domain.Page<User> findWithLocationByPrefix(@Param("prefix") String prefix, org.springframework.data.domain.Pageable pageable);
     
     @Query("SELECT DISTINCT u FROM User u LEFT JOIN FETCH u.location")
     java.util.List<User> findAllWithLocation();
     
     @Query("SELECT DISTINCT u FROM User u LEFT JOIN FETCH u.location WHERE u.id IN :ids")
     java.util.List<User> findAllWithLocationByIds(java.util.List<Long> ids);
-    
-    // Search across multiple fields: ID, username, email, and role
-    @Query("SELECT DISTINCT u FROM User u LEFT JOIN FETCH u.location WHERE " +
-           "CAST(u.id AS string) LIKE %:searchTerm% OR " +
-           "LOWER(u.username) LIKE LOWER(CONCAT('%', :searchTerm, '%')) OR " +
-           "LOWER(u.email) LIKE LOWER(CONCAT('%', :searchTerm, '%')) OR " +
-           "LOWER(CAST(u.role AS string)) LIKE LOWER(CONCAT('%', :searchTerm, '%'))")
-    org.springframework.data.domain.Page<User> searchUsers(@Param("searchTerm") String searchTerm, org.springframework.data.domain.Pageable pageable);
 }
 
 
@@ -0,0 +1,201 @@
+package auca.ac.rw.Online.quiz.management.security;
+
+import auca.ac.rw.Online.quiz.management.repository.UserRepository;
+import auca.ac.rw.Online.quiz.management.util.EmailValidator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+/**
+ * Throttles the unauthenticated auth endpoints before they reach {@code AuthController}.
+ *
+ * Every request to a limited endpoint takes a token from a per-IP bucket and, when the body
+ * names an account, from a per-account bucket. Either bucket running dry answers 429 with a
+ * Retry-After header, before any BCrypt work or OTP email is triggered.
+ *
+ * The per-IP key is {@code getRemoteAddr()}, which is the client's address behind the load
+ * balancer because {@code server.forward-headers-strategy=native} makes Tomcat take it from
+ * X-Forwarded-For when the hop is a trusted proxy ({@code server.tomcat.remoteip.internal-proxies}).
+ * The per-account key is the user id when the name resolves, so a username and the same
+ * account's email share one bucket.
+ */
+@Component
+public class LoginRateLimitFilter extends OncePerRequestFilter {
+
+    private static final Logger log = LoggerFactory.getLogger(LoginRateLimitFilter.class);
+    private static final int MAX_BODY_BYTES = 8 * 1024;
+
+    /** Endpoint name used in bucket keys and metrics, plus the JSON field naming the account. */
+    private record Endpoint(String name, String accountField, RateLimiter.Rule perIp, RateLimiter.Rule perAccount) {
+    }
+
+    private final RateLimiter rateLimiter;
+    private final UserRepository userRepository;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Endpoint> endpoints;
+
+    public LoginRateLimitFilter(RateLimiter rateLimiter, UserRepository userRepository, ObjectMapper objectMapper,
+            MeterRegistry meterRegistry,
+            @Value("${app.security.rate-limit.login.per-ip:20/60}") String loginPerIp,
+            @Value("${app.security.rate-limit.login.per-account:5/60}") String loginPerAccount,
+            @Value("${app.security.rate-limit.verify-otp.per-ip:30/60}") String verifyPerIp,
+            @Value("${app.security.rate-limit.verify-otp.per-account:10/300}") String verifyPerAccount,
+            @Value("${app.security.rate-limit.reset-request.per-ip:10/300}") String resetPerIp,
+            @Value("${app.security.rate-limit.reset-request.per-account:3/300}") String resetPerAccount) {
+        this.rateLimiter = rateLimiter;
+        this.userRepository = userRepository;
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+        this.endpoints = Map.of(
+                "/api/auth/login", new Endpoint("login", "usernameOrEmail",
+                        RateLimiter.Rule.parse(loginPerIp), RateLimiter.Rule.parse(loginPerAccount)),
+                "/api/auth/verify-otp", new Endpoint("verify-otp", "email",
+                        RateLimiter.Rule.parse(verifyPerIp), RateLimiter.Rule.parse(verifyPerAccount)),
+                "/api/auth/reset/request", new Endpoint("reset-request", "email",
+                        RateLimiter.Rule.parse(resetPerIp), RateLimiter.Rule.parse(resetPerAccount)));
+    }
+
+    @Override
+    protected boolean shouldNotFilter(@org.springframework.lang.NonNull HttpServletRequest request) {
+        return !"POST".equalsIgnoreCase(request.getMethod())
+                || !endpoints.containsKey(request.getServletPath());
+    }
+
+    @Override
+    protected void doFilterInternal(@org.springframework.lang.NonNull HttpServletRequest request,
+                                    @org.springframework.lang.NonNull HttpServletResponse response,
+                                    @org.springframework.lang.NonNull FilterChain filterChain)
+            throws ServletException, IOException {
+
+        Endpoint endpoint = endpoints.get(request.getServletPath());
+
+        String ip = request.getRemoteAddr();
+        long waitNanos = acquire(endpoint, "ip", ip, endpoint.perIp());
+
+        HttpServletRequest forwardedRequest = request;
+        if (waitNanos == 0) {
+            CachedBodyRequest cachedRequest = new CachedBodyRequest(request);
+            forwardedRequest = cachedRequest;
+            String account = extractAccount(cachedRequest.body, endpoint.accountField());
+            if (account != null) {
+                waitNanos = acquire(endpoint, "account", accountKey(account), endpoint.perAccount());
+            }
+        }
+
+        if (waitNanos > 0) {
+            long retryAfterSeconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + 999_999_999L));
+            log.warn("Rate limit exceeded on {} from {} (retry after {}s)", endpoint.name(), ip, retryAfterSeconds);
+            response.setStatus(429);
+            response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+            response.setContentType("application/json");
+            response.getWriter().write("{\"message\":\"Too many requests. Please try again in "
+                    + retryAfterSeconds + " seconds.\"}");
+            return;
+        }
+
+        filterChain.doFilter(forwardedRequest, response);
+    }
+
+    private long acquire(Endpoint endpoint, String scope, String key, RateLimiter.Rule rule) {
+        long waitNanos = rateLimiter.tryAcquire(endpoint.name() + ':' + scope + ':' + key, rule);
+        meterRegistry.counter("auth.rate_limit.requests",
+                "endpoint", endpoint.name(),
+                "scope", scope,
+                "outcome", waitNanos == 0 ? "allowed" : "rejected").increment();
+        return waitNanos;
+    }
+
+    /** The user id for a known account, otherwise the normalised name itself. */
+    private String accountKey(String account) {
+        List<Long> ids = userRepository.findIdsByUsernameOrEmail(account);
+        return ids.isEmpty() ? "name:" + account : "id:" + ids.get(0);
+    }
+
+    private String extractAccount(byte[] body, String field) {
+        if (body.length == 0) {
+            return null;
+        }
+        try {
+            JsonNode value = objectMapper.readTree(body).get(field);
+            if (value == null || !value.isTextual() || value.asText().isBlank()) {
+                return null;
+            }
+            return EmailValidator.normalizeEmail(value.asText());
+        } catch (IOException ex) {
+            // Malformed body - the controller will reject it; the per-IP bucket already counted it
+            return null;
+        }
+    }
+
+    /**
+     * Buffers the (small) JSON body so it can be inspected here and still read by the controller.
+     */
+    private static final class CachedBodyRequest extends HttpServletRequestWrapper {
+
+        private final byte[] body;
+
+        CachedBodyRequest(HttpServletRequest request) throws IOException {
+            super(request);
+            this.body = request.getInputStream().readNBytes(MAX_BODY_BYTES);
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream in = new ByteArrayInputStream(body);
+            return new ServletInputStream() {
+                @Override
+                public boolean isFinished() {
+                    return in.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                @Override
+                public void setReadListener(ReadListener readListener) {
+                    // The whole body is already in memory, so it is available and complete at once
+                    try {
+                        readListener.onDataAvailable();
+                        readListener.onAllDataRead();
+                    } catch (IOException ex) {
+                        readListener.onError(ex);
+                    }
+                }
+
+                @Override
+                public int read() {
+                    return in.read();
+                }
+            };
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            return new BufferedReader(new InputStreamReader(getInputStream(), StandardCharsets.UTF_8));
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package auca.ac.rw.Online.quiz.management.security;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * In-process token-bucket rate limiter.
+ *
+ * Each bucket is a single {@link AtomicLong} holding its "theoretical arrival time" (GCRA),
+ * so acquiring a token is one CAS with no locks. Buckets live in a fixed number of stripes
+ * keyed by hash; a bucket that has fully refilled carries no state and is dropped by the
+ * periodic sweep (or inline when a stripe grows past its size cap).
+ */
+@Component
+public class RateLimiter {
+
+    private static final Logger log = LoggerFactory.getLogger(RateLimiter.class);
+    private static final int STRIPES = 16;
+    private static final int MAX_BUCKETS_PER_STRIPE = 10_000;
+
+    /**
+     * A limit of {@code capacity} requests per {@code period}, refilled continuously.
+     */
+    public record Rule(int capacity, long periodNanos) {
+
+        /**
+         * Parses "capacity/seconds", e.g. "5/60" for five requests per minute.
+         */
+        public static Rule parse(String spec) {
+            String[] parts = spec.trim().split("/");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Rate limit must look like <capacity>/<seconds>: " + spec);
+            }
+            int capacity = Integer.parseInt(parts[0].trim());
+            long seconds = Long.parseLong(parts[1].trim());
+            if (capacity <= 0 || seconds <= 0) {
+                throw new IllegalArgumentException("Rate limit capacity and period must be positive: " + spec);
+            }
+            return new Rule(capacity, TimeUnit.SECONDS.toNanos(seconds));
+        }
+
+        long intervalNanos() {
+            return periodNanos / capacity;
+        }
+    }
+
+    private static final class Bucket {
+        private final AtomicLong theoreticalArrival = new AtomicLong(Long.MIN_VALUE);
+    }
+
+    @SuppressWarnings("unchecked")
+    private final ConcurrentHashMap<String, Bucket>[] stripes = new ConcurrentHashMap[STRIPES];
+
+    public RateLimiter(MeterRegistry meterRegistry) {
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new ConcurrentHashMap<>();
+        }
+        Gauge.builder("auth.rate_limit.buckets", this, RateLimiter::size)
+                .description("Rate limit buckets currently tracked")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Takes one token from the bucket for {@code key}.
+     *
+     * @return 0 if the request is allowed, otherwise the number of nanoseconds until a token frees up
+     */
+    public long tryAcquire(String key, Rule rule) {
+        ConcurrentHashMap<String, Bucket> stripe = stripeFor(key);
+        if (stripe.size() > MAX_BUCKETS_PER_STRIPE) {
+            evictIdle(stripe, System.nanoTime());
+        }
+        Bucket bucket = stripe.computeIfAbsent(key, k -> new Bucket());
+
+        long interval = rule.intervalNanos();
+        while (true) {
+            long now = System.nanoTime();
+            long tat = bucket.theoreticalArrival.get();
+            long newTat = Math.max(tat, now) + interval;
+            long allowedAt = newTat - rule.periodNanos();
+            if (allowedAt > now) {
+                return allowedAt - now;
+            }
+            if (bucket.theoreticalArrival.compareAndSet(tat, newTat)) {
+                return 0;
+            }
+        }
+    }
+
+    public int size() {
+        int size = 0;
+        for (ConcurrentHashMap<String, Bucket> stripe : stripes) {
+            size += stripe.size();
+        }
+        return size;
+    }
+
+    @Scheduled(fixedRate = 60000)
+    public void evictIdleBuckets() {
+        long now = System.nanoTime();
+        int removed = 0;
+        for (ConcurrentHashMap<String, Bucket> stripe : stripes) {
+            removed += evictIdle(stripe, now);
+        }
+        if (removed > 0) {
+            log.debug("Evicted {} idle rate limit bucket(s)", removed);
+        }
+    }
+
+    private int evictIdle(ConcurrentHashMap<String, Bucket> stripe, long now) {
+        int removed = 0;
+        for (var entry : stripe.entrySet()) {
+            // A bucket whose arrival time has passed is full again - same as a brand new one
+            long tat = entry.getValue().theoreticalArrival.get();
+            if ((tat == Long.MIN_VALUE || tat - now <= 0)
+                    && stripe.remove(entry.getKey(), entry.getValue())) {
+                removed++;
+            }
+        }
+        return removed;
+    }
+
+    private ConcurrentHashMap<String, Bucket> stripeFor(String key) {
+        int hash = key.hashCode();
+        return stripes[(hash ^ (hash >>> 16)) & (STRIPES - 1)];
+    }
+}
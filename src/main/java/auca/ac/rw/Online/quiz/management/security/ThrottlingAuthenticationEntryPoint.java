@@ -0,0 +1,40 @@
+package auca.ac.rw.Online.quiz.management.security;
+
+import auca.ac.rw.Online.quiz.management.exception.TooManyRequestsException;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.security.web.AuthenticationEntryPoint;
+
+/**
+ * Answers 429 with a Retry-After header when authentication failed because the password
+ * hashing pool was saturated, whether the {@link TooManyRequestsException} arrives directly or
+ * wrapped (Spring Security wraps it in an InternalAuthenticationServiceException when the user
+ * does not exist). Every other failure goes to the delegate.
+ */
+public class ThrottlingAuthenticationEntryPoint implements AuthenticationEntryPoint {
+
+    private final AuthenticationEntryPoint delegate;
+
+    public ThrottlingAuthenticationEntryPoint(AuthenticationEntryPoint delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public void commence(HttpServletRequest request, HttpServletResponse response,
+            AuthenticationException authException) throws IOException, ServletException {
+        TooManyRequestsException tooManyRequests = TooManyRequestsException.findIn(authException);
+        if (tooManyRequests == null) {
+            delegate.commence(request, response, authException);
+            return;
+        }
+        response.setStatus(429);
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(tooManyRequests.getRetryAfterSeconds()));
+        response.setContentType("application/json");
+        response.getWriter().write("{\"message\":\"Too many requests. Please try again in "
+                + tooManyRequests.getRetryAfterSeconds() + " seconds.\"}");
+    }
+}
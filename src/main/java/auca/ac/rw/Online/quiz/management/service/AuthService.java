@@ -1,6 +1,7 @@
 package auca.ac.rw.Online.quiz.management.service;
 
 import auca.ac.rw.Online.quiz.management.config.UserDetailsServiceImpl;
+import auca.ac.rw.Online.quiz.management.exception.TooManyRequestsException;
 import auca.ac.rw.Online.quiz.management.model.OtpToken;
 import auca.ac.rw.Online.quiz.management.model.OtpType;
 import auca.ac.rw.Online.quiz.management.model.User;
@@ -14,6 +15,7 @@ import org.slf4j.LoggerFactory;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.AuthenticationException;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
@@ -59,11 +61,14 @@ public class AuthService {
         // Authenticate username/password first
         try {
             log.debug("Attempting authentication for: {}", usernameOrEmail);
-            authenticationManager.authenticate(new UsernamePasswordAuthenticationToken(usernameOrEmail, password));
+            authenticate(usernameOrEmail, password);
             log.debug("Authentication successful for: {}", usernameOrEmail);
         } catch (BadCredentialsException ex) {
             log.warn("Authentication failed for {}: {}", usernameOrEmail, ex.getMessage());
             throw new BadCredentialsException("Invalid password. Please check your credentials.");
+        } catch (TooManyRequestsException ex) {
+            // Password hashing pool is saturated - let the controller answer 429
+            throw ex;
         } catch (Exception ex) {
             log.error("Authentication error for {}: {}", usernameOrEmail, ex.getMessage(), ex);
             throw new BadCredentialsException("Authentication failed: " + ex.getMessage());
@@ -92,12 +97,29 @@ public class AuthService {
         return userRegisteredEmail; // Return the email address where OTP was sent
     }
 
+    /**
+     * Runs the authentication manager, rethrowing a saturated password encoder's
+     * TooManyRequestsException as itself. Spring Security wraps it in an
+     * InternalAuthenticationServiceException when it is thrown while looking up the user.
+     */
+    private void authenticate(String usernameOrEmail, String password) {
+        try {
+            authenticationManager.authenticate(new UsernamePasswordAuthenticationToken(usernameOrEmail, password));
+        } catch (AuthenticationException ex) {
+            TooManyRequestsException tooManyRequests = TooManyRequestsException.findIn(ex);
+            if (tooManyRequests != null) {
+                throw tooManyRequests;
+            }
+            throw ex;
+        }
+    }
+
     @Transactional
     public String authenticateAndIssueToken(String usernameOrEmail, String password) {
         log.info("Authenticating user: {} (Bypassing OTP)", usernameOrEmail);
 
         // Authenticate username/password
-        authenticationManager.authenticate(new UsernamePasswordAuthenticationToken(usernameOrEmail, password));
+        authenticate(usernameOrEmail, password);
 
         UserDetails userDetails = userDetailsService.loadUserByUsername(usernameOrEmail);
         User user = userRepository.findByUsernameIgnoreCase(userDetails.getUsername())
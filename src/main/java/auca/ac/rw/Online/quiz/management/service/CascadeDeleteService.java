@@ -0,0 +1,322 @@
+package auca.ac.rw.Online.quiz.management.service;
+
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Deletes a quiz, question or user together with every row that references it.
+ *
+ * The entities have no cascade rules, and removing them through JPA would mean loading the
+ * whole graph first. Instead each delete is a fixed list of set-based DELETE statements run
+ * children first in one transaction, so it either removes everything or nothing:
+ * answers and user answers, reports, attempts, options, questions, link rows, then the row
+ * itself. A user's quizzes are kept (other students' results hang off them) with their
+ * creator cleared. The user's own location row and its closure rows go after the user row;
+ * seeded places and rows another user still points at are left alone.
+ *
+ * Very large quizzes can be deleted in the background ({@link #startQuizDelete}); the job
+ * counts the rows of each statement first and reports progress while it runs. Jobs run one at
+ * a time and are kept for an hour after they finish.
+ *
+ * The statements bypass the entity listeners, so the search indexes and the sampling bank are
+ * updated here once the transaction commits.
+ */
+@Service
+public class CascadeDeleteService {
+
+    private static final Logger log = LoggerFactory.getLogger(CascadeDeleteService.class);
+
+    private static final Duration JOB_RETENTION = Duration.ofHours(1);
+
+    private static final String QUIZ_QUESTIONS = "SELECT id FROM questions WHERE quiz_id = ?";
+    private static final String QUIZ_ATTEMPTS = "SELECT id FROM quiz_attempts WHERE quiz_id = ?";
+    private static final String USER_ATTEMPTS = "SELECT id FROM quiz_attempts WHERE user_id = ?";
+    // Bound to the deleted user's location id; matches only an unseeded row nobody else uses
+    private static final String OWN_LOCATION = "SELECT l.id FROM locations l WHERE l.id = ?"
+            + " AND (l.seeded IS NULL OR l.seeded = FALSE)"
+            + " AND NOT EXISTS (SELECT 1 FROM users u WHERE u.location_id = l.id)";
+
+    // Children first; every ? is bound to the id being deleted
+    private static final List<Step> QUIZ_STEPS = List.of(
+            Step.delete("answers", "attempt_id IN (" + QUIZ_ATTEMPTS + ") OR question_id IN (" + QUIZ_QUESTIONS + ")"),
+            Step.delete("user_answers", "attempt_id IN (" + QUIZ_ATTEMPTS + ") OR question_id IN (" + QUIZ_QUESTIONS + ")"),
+            Step.delete("reports", "quiz_id = ? OR attempt_id IN (" + QUIZ_ATTEMPTS + ")"),
+            Step.delete("quiz_attempts", "quiz_id = ?"),
+            Step.delete("options", "question_id IN (" + QUIZ_QUESTIONS + ")"),
+            Step.delete("questions", "quiz_id = ?"),
+            Step.delete("quiz_sampling_rules", "quiz_id = ?"),
+            Step.delete("quiz_student", "quiz_id = ?"),
+            Step.delete("quizzes", "id = ?"));
+
+    private static final List<Step> QUESTION_STEPS = List.of(
+            Step.delete("answers", "question_id = ?"),
+            Step.delete("user_answers", "question_id = ?"),
+            Step.delete("options", "question_id = ?"),
+            Step.delete("questions", "id = ?"));
+
+    private static final List<Step> USER_STEPS = List.of(
+            Step.delete("answers", "attempt_id IN (" + USER_ATTEMPTS + ")"),
+            Step.delete("user_answers", "attempt_id IN (" + USER_ATTEMPTS + ")"),
+            Step.delete("reports", "generated_by = ? OR attempt_id IN (" + USER_ATTEMPTS + ")"),
+            Step.delete("quiz_attempts", "user_id = ?"),
+            Step.delete("notifications", "user_id = ?"),
+            Step.delete("quiz_student", "student_id = ?"),
+            new Step("quizzes.created_by", "UPDATE quizzes SET created_by = NULL WHERE created_by = ?",
+                    "SELECT COUNT(*) FROM quizzes WHERE created_by = ?"),
+            Step.delete("users", "id = ?"));
+
+    // Run after USER_STEPS, once the users row no longer references the location
+    private static final List<Step> USER_LOCATION_STEPS = List.of(
+            Step.delete("location_closure", "descendant_id IN (" + OWN_LOCATION + ") OR ancestor_id IN (" + OWN_LOCATION + ")"),
+            Step.delete("locations", "id IN (" + OWN_LOCATION + ")"));
+
+    /** Rows affected per table, in statement order. */
+    public record DeleteReport(String entity, Long id, Map<String, Integer> rows, long millis) {
+        public long total() {
+            return rows.values().stream().mapToLong(Integer::longValue).sum();
+        }
+    }
+
+    public enum JobState {
+        QUEUED, RUNNING, DONE, FAILED
+    }
+
+    /** Snapshot of a background quiz delete; {@code estimatedRows} is known once counting is done. */
+    public record JobStatus(String jobId, Long quizId, JobState state, int step, int steps, String table,
+            long deletedRows, long estimatedRows, DeleteReport report, String error) {
+    }
+
+    private record Step(String table, String sql, String countSql) {
+        static Step delete(String table, String where) {
+            return new Step(table, "DELETE FROM " + table + " WHERE " + where,
+                    "SELECT COUNT(*) FROM " + table + " WHERE " + where);
+        }
+
+        Object[] args(Long id) {
+            Object[] args = new Object[(int) sql.chars().filter(c -> c == '?').count()];
+            Arrays.fill(args, id);
+            return args;
+        }
+    }
+
+    private static final class Job {
+        final String id = UUID.randomUUID().toString();
+        final Long quizId;
+        volatile JobState state = JobState.QUEUED;
+        volatile int step;
+        volatile String table;
+        volatile long deletedRows;
+        volatile long estimatedRows = -1;
+        volatile DeleteReport report;
+        volatile String error;
+        volatile Instant finishedAt;
+
+        Job(Long quizId) {
+            this.quizId = quizId;
+        }
+
+        JobStatus snapshot() {
+            return new JobStatus(id, quizId, state, step, QUIZ_STEPS.size(), table, deletedRows, estimatedRows,
+                    report, error);
+        }
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final SearchIndexService searchIndexService;
+    private final QuestionBankSearchService questionBankSearchService;
+    private final QuestionSamplingService questionSamplingService;
+    private final AuditService auditService;
+    private final Map<String, Job> jobs = new ConcurrentHashMap<>();
+    private final ExecutorService jobExecutor;
+
+    public CascadeDeleteService(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+            SearchIndexService searchIndexService, QuestionBankSearchService questionBankSearchService,
+            QuestionSamplingService questionSamplingService, AuditService auditService) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.searchIndexService = searchIndexService;
+        this.questionBankSearchService = questionBankSearchService;
+        this.questionSamplingService = questionSamplingService;
+        this.auditService = auditService;
+        this.jobExecutor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "cascade-delete");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        jobExecutor.shutdownNow();
+    }
+
+    /** Deletes the quiz with its questions, options, attempts, answers and reports; empty if absent. */
+    @Transactional
+    public Optional<DeleteReport> deleteQuiz(Long quizId) {
+        return Optional.ofNullable(runQuizDelete(quizId, null));
+    }
+
+    /** Deletes the question with its options and every answer given to it; empty if absent. */
+    @Transactional
+    public Optional<DeleteReport> deleteQuestion(Long questionId) {
+        if (!exists("questions", questionId)) {
+            return Optional.empty();
+        }
+        DeleteReport report = run("question", questionId, QUESTION_STEPS, null);
+        afterCommit(() -> {
+            searchIndexService.removed(null, null, List.of(questionId));
+            questionBankSearchService.markDirty(questionId);
+            questionSamplingService.requestRebuild();
+        });
+        return Optional.of(report);
+    }
+
+    /**
+     * Deletes the user with their attempts, answers, notifications, reports, enrolments and own
+     * location; quizzes they created are kept without a creator. Empty if absent.
+     */
+    @Transactional
+    public Optional<DeleteReport> deleteUser(Long userId) {
+        List<Map<String, Object>> users = jdbcTemplate.queryForList(
+                "SELECT username, location_id FROM users WHERE id = ?", userId);
+        if (users.isEmpty()) {
+            return Optional.empty();
+        }
+        DeleteReport report = run("user", userId, USER_STEPS, null);
+        Number locationId = (Number) users.get(0).get("location_id");
+        if (locationId != null) {
+            DeleteReport location = run("user location", locationId.longValue(), USER_LOCATION_STEPS, null);
+            Map<String, Integer> rows = new LinkedHashMap<>(report.rows());
+            rows.putAll(location.rows());
+            report = new DeleteReport("user", userId, rows, report.millis() + location.millis());
+        }
+        auditService.logSystemAction("USER_DELETED", (String) users.get(0).get("username"));
+        afterCommit(() -> searchIndexService.removed(userId, null, List.of()));
+        return Optional.of(report);
+    }
+
+    /**
+     * Queues a background delete of the quiz and returns its job; empty if the quiz does not
+     * exist. A quiz that is already being deleted returns the running job.
+     */
+    public Optional<JobStatus> startQuizDelete(Long quizId) {
+        if (!exists("quizzes", quizId)) {
+            return Optional.empty();
+        }
+        Instant cutoff = Instant.now().minus(JOB_RETENTION);
+        jobs.values().removeIf(job -> job.finishedAt != null && job.finishedAt.isBefore(cutoff));
+
+        Job job = new Job(quizId);
+        synchronized (jobs) {
+            for (Job existing : jobs.values()) {
+                if (existing.quizId.equals(quizId) && existing.finishedAt == null) {
+                    return Optional.of(existing.snapshot());
+                }
+            }
+            jobs.put(job.id, job);
+        }
+        jobExecutor.execute(() -> {
+            job.state = JobState.RUNNING;
+            try {
+                DeleteReport report = transactionTemplate.execute(status -> runQuizDelete(quizId, job));
+                // Null when the quiz went away while the job was queued; nothing left to delete
+                job.report = report;
+                job.state = JobState.DONE;
+            } catch (RuntimeException ex) {
+                log.error("Background delete of quiz {} failed: {}", quizId, ex.getMessage(), ex);
+                job.error = ex.getMessage();
+                job.state = JobState.FAILED;
+            } finally {
+                job.finishedAt = Instant.now();
+            }
+        });
+        return Optional.of(job.snapshot());
+    }
+
+    public Optional<JobStatus> job(String jobId) {
+        return Optional.ofNullable(jobs.get(jobId)).map(Job::snapshot);
+    }
+
+    private DeleteReport runQuizDelete(Long quizId, Job job) {
+        List<String> titles = jdbcTemplate.queryForList("SELECT title FROM quizzes WHERE id = ?", String.class, quizId);
+        if (titles.isEmpty()) {
+            return null;
+        }
+        List<Long> questionIds = jdbcTemplate.queryForList(QUIZ_QUESTIONS, Long.class, quizId);
+        DeleteReport report = run("quiz", quizId, QUIZ_STEPS, job);
+        auditService.logQuizAction("SYSTEM", titles.get(0), "QUIZ_DELETED");
+        afterCommit(() -> {
+            searchIndexService.removed(null, quizId, questionIds);
+            questionIds.forEach(questionBankSearchService::markDirty);
+            questionSamplingService.requestRebuild();
+        });
+        return report;
+    }
+
+    private DeleteReport run(String entity, Long id, List<Step> steps, Job job) {
+        long start = System.nanoTime();
+        if (job != null) {
+            // Same transaction as the deletes, so the estimate matches what they will see
+            long estimate = 0;
+            for (Step step : steps) {
+                Long count = jdbcTemplate.queryForObject(step.countSql(), Long.class, step.args(id));
+                estimate += count == null ? 0 : count;
+            }
+            job.estimatedRows = estimate;
+        }
+
+        Map<String, Integer> rows = new LinkedHashMap<>();
+        for (int i = 0; i < steps.size(); i++) {
+            Step step = steps.get(i);
+            if (job != null) {
+                job.step = i + 1;
+                job.table = step.table();
+            }
+            int affected = jdbcTemplate.update(step.sql(), step.args(id));
+            rows.put(step.table(), affected);
+            if (job != null) {
+                job.deletedRows += affected;
+            }
+        }
+        DeleteReport report = new DeleteReport(entity, id, rows, (System.nanoTime() - start) / 1_000_000);
+        log.info("Deleted {} {}: {} rows in {} ms {}", entity, id, report.total(), report.millis(), rows);
+        return report;
+    }
+
+    private boolean exists(String table, Long id) {
+        return !jdbcTemplate.queryForList("SELECT 1 FROM " + table + " WHERE id = ?", Integer.class, id).isEmpty();
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
@@ -0,0 +1,352 @@
+package auca.ac.rw.Online.quiz.management.service;
+
+import auca.ac.rw.Online.quiz.management.model.EEmailStatus;
+import auca.ac.rw.Online.quiz.management.model.OutboxEmail;
+import auca.ac.rw.Online.quiz.management.repository.OutboxEmailRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.mail.MessagingException;
+import jakarta.mail.SendFailedException;
+import jakarta.mail.Transport;
+import jakarta.mail.internet.MimeMessage;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.mail.javamail.MimeMessageHelper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * Delivers rows from the {@code email_outbox} table in the background.
+ *
+ * A poller claims due rows with a conditional UPDATE (so several nodes can share the table)
+ * and hands them to a fixed pool of workers. Each worker keeps its own SMTP connection open
+ * between messages and closes it after sitting idle. Sends to the same recipient domain are
+ * capped by a semaphore; failed sends are retried with exponential backoff until
+ * {@code max-attempts}, after which the row is marked FAILED.
+ */
+@Service
+public class EmailDispatcher {
+
+    private static final Logger log = LoggerFactory.getLogger(EmailDispatcher.class);
+    private static final List<EEmailStatus> CLAIMABLE = List.of(EEmailStatus.PENDING, EEmailStatus.SENDING);
+    private static final long DOMAIN_WAIT_MILLIS = 100;
+    private static final int MAX_ERROR_LENGTH = 1000;
+
+    /** A claimed row; the lease says how long this node owns it. */
+    private record Job(Long id, String recipient, String subject, String body, int attempts,
+            LocalDateTime leaseUntil) {
+    }
+
+    private final OutboxEmailRepository outboxEmailRepository;
+    private final JavaMailSender mailSender;
+    private final JobLockProvider jobLockProvider;
+    private final BlockingQueue<Job> jobs = new LinkedBlockingQueue<>();
+    private final ConcurrentHashMap<String, Semaphore> domainPermits = new ConcurrentHashMap<>();
+    private final ReentrantLock pollLock = new ReentrantLock();
+    private final AtomicBoolean pollPending = new AtomicBoolean();
+    private final ExecutorService workers;
+    private final ExecutorService wakeUpExecutor;
+    private final int workerCount;
+    private volatile boolean running = true;
+
+    @Value("${spring.mail.username:}")
+    private String mailUsername;
+
+    @Value("${spring.mail.password:}")
+    private String mailPassword;
+
+    @Value("${app.mail.outbox.batch-size:50}")
+    private int batchSize;
+
+    @Value("${app.mail.outbox.per-domain-concurrency:2}")
+    private int perDomainConcurrency;
+
+    @Value("${app.mail.outbox.max-attempts:6}")
+    private int maxAttempts;
+
+    @Value("${app.mail.outbox.backoff-initial-seconds:5}")
+    private long backoffInitialSeconds;
+
+    @Value("${app.mail.outbox.backoff-max-seconds:1800}")
+    private long backoffMaxSeconds;
+
+    @Value("${app.mail.outbox.lease-seconds:300}")
+    private long leaseSeconds;
+
+    @Value("${app.mail.outbox.connection-idle-seconds:30}")
+    private long connectionIdleSeconds;
+
+    @Value("${app.mail.outbox.purge-interval-ms:3600000}")
+    private long purgeIntervalMs;
+
+    @Value("${app.mail.outbox.sent-retention-hours:24}")
+    private long sentRetentionHours;
+
+    public EmailDispatcher(OutboxEmailRepository outboxEmailRepository, JavaMailSender mailSender,
+            MeterRegistry meterRegistry, JobLockProvider jobLockProvider, @Value("${app.mail.outbox.workers:4}") int workers) {
+        this.outboxEmailRepository = outboxEmailRepository;
+        this.mailSender = mailSender;
+        this.jobLockProvider = jobLockProvider;
+        this.workerCount = Math.max(1, workers);
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(workerCount, runnable -> {
+            Thread thread = new Thread(runnable, "mail-worker-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.wakeUpExecutor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "mail-outbox-poller");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        Gauge.builder("mail.outbox.queue.depth", jobs, BlockingQueue::size)
+                .description("Claimed outbox emails waiting for a mail worker")
+                .register(meterRegistry);
+    }
+
+    @jakarta.annotation.PostConstruct
+    public void startWorkers() {
+        if (mailPassword != null) {
+            mailPassword = mailPassword.replaceAll("\\s+", "");
+        }
+        for (int i = 0; i < workerCount; i++) {
+            workers.execute(this::runWorker);
+        }
+        log.info("Email outbox dispatcher started: {} worker(s), {} concurrent send(s) per domain",
+                workerCount, perDomainConcurrency);
+    }
+
+    @jakarta.annotation.PreDestroy
+    public void shutdown() {
+        running = false;
+        wakeUpExecutor.shutdownNow();
+        workers.shutdownNow();
+    }
+
+    /**
+     * Asks for an immediate poll instead of waiting for the next tick. Called after the
+     * transaction that wrote an outbox row commits; never blocks the caller.
+     */
+    public void wakeUp() {
+        if (running) {
+            wakeUpExecutor.execute(this::poll);
+        }
+    }
+
+    /**
+     * Claims due rows until the local queue holds a batch. Concurrent calls collapse into one
+     * running poll that goes round again, so a wake-up arriving mid-poll is never lost.
+     */
+    @Scheduled(fixedDelayString = "${app.mail.outbox.poll-interval-ms:5000}")
+    public void poll() {
+        pollPending.set(true);
+        while (running && pollPending.get() && pollLock.tryLock()) {
+            try {
+                pollPending.set(false);
+                claimDue();
+            } catch (Exception ex) {
+                log.error("Email outbox poll failed: {}", ex.getMessage(), ex);
+            } finally {
+                pollLock.unlock();
+            }
+        }
+    }
+
+    private void claimDue() {
+        int room = batchSize - jobs.size();
+        if (room <= 0) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        // Whole milliseconds, so the value read back from the column still equals the one the outcome
+        // update matches on
+        LocalDateTime leaseUntil = now.plusSeconds(leaseSeconds).truncatedTo(ChronoUnit.MILLIS);
+        for (OutboxEmail email : outboxEmailRepository.findDue(CLAIMABLE, now, PageRequest.of(0, room))) {
+            int claimed = outboxEmailRepository.claim(email.getId(), email.getStatus(), email.getNextAttemptAt(),
+                    EEmailStatus.SENDING, leaseUntil);
+            if (claimed == 1) {
+                jobs.add(new Job(email.getId(), email.getRecipient(), email.getSubject(), email.getBody(),
+                        email.getAttempts(), leaseUntil));
+            }
+        }
+    }
+
+    /**
+     * Deletes delivered rows after the retention period; failed rows are kept for inspection.
+     * Runs on one node per interval.
+     */
+    @Scheduled(fixedDelayString = "${app.mail.outbox.purge-interval-ms:3600000}")
+    public void purgeSent() {
+        jobLockProvider.runExclusively("mail-outbox-purge", Duration.ofMinutes(10),
+                Duration.ofMillis(purgeIntervalMs * 9 / 10), () -> {
+                    int deleted = outboxEmailRepository.deleteSentBefore(EEmailStatus.SENT,
+                            LocalDateTime.now().minusHours(sentRetentionHours));
+                    if (deleted > 0) {
+                        log.info("Purged {} delivered outbox email(s)", deleted);
+                    }
+                });
+    }
+
+    private void runWorker() {
+        Transport transport = null;
+        try {
+            while (running) {
+                Job job = jobs.poll(connectionIdleSeconds, TimeUnit.SECONDS);
+                if (job == null) {
+                    transport = close(transport);
+                    continue;
+                }
+                if (LocalDateTime.now().isAfter(job.leaseUntil())) {
+                    // Sat in the queue past its lease; another poll (maybe on another node) may own it now
+                    continue;
+                }
+                Semaphore permits = domainPermits.computeIfAbsent(domainOf(job.recipient()),
+                        domain -> new Semaphore(perDomainConcurrency));
+                if (!permits.tryAcquire(DOMAIN_WAIT_MILLIS, TimeUnit.MILLISECONDS)) {
+                    // Domain is at its limit - let this worker serve other domains meanwhile
+                    jobs.add(job);
+                    continue;
+                }
+                try {
+                    transport = deliver(job, transport);
+                } finally {
+                    permits.release();
+                }
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } finally {
+            close(transport);
+        }
+    }
+
+    private Transport deliver(Job job, Transport transport) {
+        try {
+            if (mailSender instanceof JavaMailSenderImpl sender) {
+                if (transport == null || !transport.isConnected()) {
+                    close(transport);
+                    transport = connect(sender);
+                }
+                MimeMessage message = sender.createMimeMessage();
+                MimeMessageHelper helper = new MimeMessageHelper(message, "UTF-8");
+                helper.setFrom(mailUsername);
+                helper.setTo(job.recipient());
+                helper.setSubject(job.subject());
+                helper.setText(job.body() != null ? job.body() : "");
+                message.saveChanges();
+                transport.sendMessage(message, message.getAllRecipients());
+            } else {
+                SimpleMailMessage message = new SimpleMailMessage();
+                message.setFrom(mailUsername);
+                message.setTo(job.recipient());
+                message.setSubject(job.subject());
+                message.setText(job.body());
+                mailSender.send(message);
+            }
+            if (outboxEmailRepository.markSent(job.id(), EEmailStatus.SENDING, job.leaseUntil(), EEmailStatus.SENT,
+                    LocalDateTime.now()) == 0) {
+                log.warn("Email {} to {} was delivered after its lease was lost; it may be delivered again",
+                        job.id(), job.recipient());
+                return transport;
+            }
+            log.info("Email {} delivered to {} (attempt {})", job.id(), job.recipient(), job.attempts() + 1);
+        } catch (Exception ex) {
+            // The connection is in an unknown state after a failure; start afresh next time
+            transport = close(transport);
+            recordFailure(job, ex);
+        }
+        return transport;
+    }
+
+    private Transport connect(JavaMailSenderImpl sender) throws MessagingException {
+        String protocol = sender.getProtocol() != null ? sender.getProtocol() : "smtp";
+        Transport transport = sender.getSession().getTransport(protocol);
+        transport.connect(sender.getHost(), sender.getPort(), sender.getUsername(), mailPassword);
+        log.debug("Opened SMTP connection to {}:{}", sender.getHost(), sender.getPort());
+        return transport;
+    }
+
+    private Transport close(Transport transport) {
+        if (transport != null) {
+            try {
+                transport.close();
+            } catch (MessagingException ex) {
+                log.debug("Error closing SMTP connection: {}", ex.getMessage());
+            }
+        }
+        return null;
+    }
+
+    private void recordFailure(Job job, Exception ex) {
+        int attempt = job.attempts() + 1;
+        boolean permanent = ex instanceof SendFailedException sendFailed
+                && sendFailed.getInvalidAddresses() != null
+                && sendFailed.getInvalidAddresses().length > 0;
+        String error = truncate(ex.getClass().getSimpleName() + ": " + ex.getMessage());
+
+        if (permanent || attempt >= maxAttempts) {
+            if (markAttemptFailed(job, EEmailStatus.FAILED, LocalDateTime.now(), error)) {
+                log.error("Giving up on email {} to {} after {} attempt(s): {}", job.id(), job.recipient(), attempt, error);
+            }
+            return;
+        }
+
+        Duration delay = backoff(attempt);
+        if (markAttemptFailed(job, EEmailStatus.PENDING, LocalDateTime.now().plus(delay), error)) {
+            log.warn("Email {} to {} failed (attempt {}/{}), retrying in {}s: {}",
+                    job.id(), job.recipient(), attempt, maxAttempts, delay.toSeconds(), error);
+        }
+    }
+
+    /** Records a failed attempt if this worker still holds the lease; false if another owns the row now. */
+    private boolean markAttemptFailed(Job job, EEmailStatus status, LocalDateTime nextAttemptAt, String error) {
+        if (outboxEmailRepository.markAttemptFailed(job.id(), EEmailStatus.SENDING, job.leaseUntil(), status,
+                nextAttemptAt, error) == 0) {
+            log.warn("Email {} to {} failed after its lease was lost; leaving it to its new owner: {}",
+                    job.id(), job.recipient(), error);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Exponential backoff with +/-20% jitter so retries from a burst do not hit the server together.
+     */
+    private Duration backoff(int attempt) {
+        long seconds = Math.min(backoffMaxSeconds, backoffInitialSeconds << Math.min(attempt - 1, 20));
+        long jitterMillis = (long) (seconds * 1000 * ThreadLocalRandom.current().nextDouble(-0.2, 0.2));
+        return Duration.ofMillis(Math.max(1000, seconds * 1000 + jitterMillis));
+    }
+
+    private static String domainOf(String recipient) {
+        int at = recipient.lastIndexOf('@');
+        return at >= 0 ? recipient.substring(at + 1).toLowerCase(Locale.ROOT) : "";
+    }
+
+    private static String truncate(String error) {
+        return error.length() > MAX_ERROR_LENGTH ? error.substring(0, MAX_ERROR_LENGTH) : error;
+    }
+}
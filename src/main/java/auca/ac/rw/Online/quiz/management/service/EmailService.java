@@ -1,17 +1,38 @@
 package auca.ac.rw.Online.quiz.management.service;
 
+import auca.ac.rw.Online.quiz.management.model.EEmailStatus;
+import auca.ac.rw.Online.quiz.management.model.OutboxEmail;
+import auca.ac.rw.Online.quiz.management.repository.OutboxEmailRepository;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.mail.SimpleMailMessage;
-import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.util.StringUtils;
 
+/**
+ * Validates and queues outgoing mail. Messages are written to the outbox in the caller's
+ * transaction and delivered by {@link EmailDispatcher}, so requests never wait on SMTP.
+ */
 @Service
 public class EmailService {
     private static final Logger log = LoggerFactory.getLogger(EmailService.class);
-    private final JavaMailSender mailSender;
+    private static final String INSERT_OUTBOX_SQL =
+            "INSERT INTO email_outbox (recipient, subject, body, status, attempts, next_attempt_at, created_at) "
+            + "VALUES (?, ?, ?, ?, 0, ?, ?)";
+    private static final String MAIL_NOT_CONFIGURED = "Mail is not configured on the server";
+
+    private final OutboxEmailRepository outboxEmailRepository;
+    private final EmailDispatcher emailDispatcher;
+    private final JdbcTemplate jdbcTemplate;
     
     @Value("${spring.mail.username:}")
     private String mailUsername;
@@ -19,8 +40,11 @@ public class EmailService {
     @Value("${spring.mail.password:}")
     private String mailPassword;
     
-    public EmailService(JavaMailSender mailSender) {
-        this.mailSender = mailSender;
+    public EmailService(OutboxEmailRepository outboxEmailRepository, EmailDispatcher emailDispatcher,
+                        JdbcTemplate jdbcTemplate) {
+        this.outboxEmailRepository = outboxEmailRepository;
+        this.emailDispatcher = emailDispatcher;
+        this.jdbcTemplate = jdbcTemplate;
     }
     
     @jakarta.annotation.PostConstruct
@@ -100,42 +124,8 @@ public class EmailService {
     }
 
     public void sendOtp(String to, String subject, String body) {
-        // Normalize password again (in case it wasn't done in PostConstruct)
-        if (mailPassword != null && mailPassword.contains(" ")) {
-            log.info("Removing spaces from Gmail App Password at send time");
-            mailPassword = mailPassword.replaceAll("\\s+", "");
-        }
-        
-        // Validate email configuration
-        boolean usernameValid = StringUtils.hasText(mailUsername) && 
-                               !mailUsername.equals("your_gmail_username") &&
-                               !mailUsername.equals("your-email@gmail.com");
-        boolean passwordValid = StringUtils.hasText(mailPassword) && 
-                               !mailPassword.equals("your_gmail_app_password") &&
-                               !mailPassword.equals("your_gmail_app_password");
-        
-        if (!usernameValid || !passwordValid) {
-            log.error("=== Email Configuration Error ===");
-            log.error("EMAIL_USERNAME/MAIL_USERNAME status: {}", usernameValid ? "CONFIGURED" : "NOT CONFIGURED");
-            log.error("EMAIL_PASSWORD/MAIL_PASSWORD status: {}", passwordValid ? "CONFIGURED" : "NOT CONFIGURED");
-            log.error("Current username value: {}", mailUsername != null && !mailUsername.isEmpty() ? 
-                     maskEmail(mailUsername) : "EMPTY or NULL");
-            log.error("Current password value: {}", mailPassword != null && !mailPassword.isEmpty() ? 
-                     "*** (length: " + mailPassword.length() + ")" : "EMPTY or NULL");
-            log.error("=================================");
-            log.error("Please set environment variables (either EMAIL_* or MAIL_*):");
-            log.error("Windows System Properties:");
-            log.error("  - EMAIL_USERNAME = your-email@gmail.com");
-            log.error("  - EMAIL_PASSWORD = your-app-password");
-            log.error("OR");
-            log.error("  - MAIL_USERNAME = your-email@gmail.com");
-            log.error("  - MAIL_PASSWORD = your-app-password");
-            log.error("Windows PowerShell: $env:EMAIL_USERNAME='your-email@gmail.com'");
-            log.error("Windows PowerShell: $env:EMAIL_PASSWORD='your-app-password'");
-            log.error("Windows CMD: set EMAIL_USERNAME=your-email@gmail.com");
-            log.error("Windows CMD: set EMAIL_PASSWORD=your-app-password");
-            log.error("Then RESTART your Spring Boot application");
-            log.error("For Gmail: Get App Password from https://myaccount.google.com/apppasswords");
+        if (!isConfigured()) {
+            logMissingConfiguration();
 
             // Extract and log OTP code for development
             String otpCode = extractOtpCode(body);
@@ -146,6 +136,111 @@ public class EmailService {
             return;
         }
         
+        String normalizedEmail = validateRecipient(to);
+        
+        OutboxEmail email = new OutboxEmail();
+        email.setRecipient(normalizedEmail);
+        email.setSubject(subject);
+        email.setBody(body);
+        email.setNextAttemptAt(LocalDateTime.now());
+        outboxEmailRepository.save(email);
+        log.info("OTP email to {} queued for delivery (outbox id {})", normalizedEmail, email.getId());
+
+        wakeDispatcherAfterCommit();
+    }
+
+    /**
+     * Queues the same message for several recipients with one batched insert. Invalid
+     * addresses are skipped rather than failing the whole set. When mail is not configured
+     * nothing is queued and every recipient is reported as rejected.
+     *
+     * @return recipients that were rejected, mapped to the reason (empty if all were queued)
+     */
+    public Map<String, String> queueAll(List<String> recipients, String subject, String body) {
+        Map<String, String> rejected = new LinkedHashMap<>();
+        if (!isConfigured()) {
+            logMissingConfiguration();
+            String otpCode = extractOtpCode(body);
+            log.warn("=== EMAIL NOT CONFIGURED - OTP FOR {}: {} ===", recipients, otpCode);
+            recipients.forEach(recipient -> rejected.put(recipient, MAIL_NOT_CONFIGURED));
+            return rejected;
+        }
+
+        List<String> accepted = new ArrayList<>(recipients.size());
+        for (String recipient : recipients) {
+            try {
+                accepted.add(validateRecipient(recipient));
+            } catch (IllegalArgumentException ex) {
+                rejected.put(recipient, ex.getMessage());
+            }
+        }
+        if (accepted.isEmpty()) {
+            return rejected;
+        }
+
+        // IDENTITY ids stop Hibernate from batching inserts, so go through JDBC directly
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.batchUpdate(INSERT_OUTBOX_SQL, accepted, accepted.size(), (ps, recipient) -> {
+            ps.setString(1, recipient);
+            ps.setString(2, subject);
+            ps.setString(3, body);
+            ps.setString(4, EEmailStatus.PENDING.name());
+            ps.setTimestamp(5, now);
+            ps.setTimestamp(6, now);
+        });
+        log.info("Queued {} email(s) for delivery to {}", accepted.size(), accepted);
+
+        wakeDispatcherAfterCommit();
+        return rejected;
+    }
+
+    private boolean isConfigured() {
+        // Normalize password again (in case it wasn't done in PostConstruct)
+        if (mailPassword != null && mailPassword.contains(" ")) {
+            log.info("Removing spaces from Gmail App Password at send time");
+            mailPassword = mailPassword.replaceAll("\\s+", "");
+        }
+        return isUsernameValid() && isPasswordValid();
+    }
+
+    private boolean isUsernameValid() {
+        return StringUtils.hasText(mailUsername) && 
+               !mailUsername.equals("your_gmail_username") &&
+               !mailUsername.equals("your-email@gmail.com");
+    }
+
+    private boolean isPasswordValid() {
+        return StringUtils.hasText(mailPassword) && 
+               !mailPassword.equals("your_gmail_app_password");
+    }
+
+    private void logMissingConfiguration() {
+        boolean usernameValid = isUsernameValid();
+        boolean passwordValid = isPasswordValid();
+        log.error("=== Email Configuration Error ===");
+        log.error("EMAIL_USERNAME/MAIL_USERNAME status: {}", usernameValid ? "CONFIGURED" : "NOT CONFIGURED");
+        log.error("EMAIL_PASSWORD/MAIL_PASSWORD status: {}", passwordValid ? "CONFIGURED" : "NOT CONFIGURED");
+        log.error("Current username value: {}", mailUsername != null && !mailUsername.isEmpty() ? 
+                 maskEmail(mailUsername) : "EMPTY or NULL");
+        log.error("Current password value: {}", mailPassword != null && !mailPassword.isEmpty() ? 
+                 "*** (length: " + mailPassword.length() + ")" : "EMPTY or NULL");
+        log.error("=================================");
+        log.error("Please set environment variables (either EMAIL_* or MAIL_*):");
+        log.error("Windows System Properties:");
+        log.error("  - EMAIL_USERNAME = your-email@gmail.com");
+        log.error("  - EMAIL_PASSWORD = your-app-password");
+        log.error("OR");
+        log.error("  - MAIL_USERNAME = your-email@gmail.com");
+        log.error("  - MAIL_PASSWORD = your-app-password");
+        log.error("Windows PowerShell: $env:EMAIL_USERNAME='your-email@gmail.com'");
+        log.error("Windows PowerShell: $env:EMAIL_PASSWORD='your-app-password'");
+        log.error("Windows CMD: set EMAIL_USERNAME=your-email@gmail.com");
+        log.error("Windows CMD: set EMAIL_PASSWORD=your-app-password");
+        log.error("Then RESTART your Spring Boot application");
+        log.error("For Gmail: Get App Password from https://myaccount.google.com/apppasswords");
+    }
+
+    private String validateRecipient(String to) {
         // Validate email format (any valid domain)
         if (to == null || to.isBlank()) {
             log.error("Invalid email address: email is null or blank");
@@ -157,77 +252,20 @@ public class EmailService {
             log.error("Invalid email format: {}", to);
             throw new IllegalArgumentException("Invalid email format");
         }
-        
-        try {
-            SimpleMailMessage message = new SimpleMailMessage();
-            message.setFrom(mailUsername); // Set from address
-            message.setTo(to.toLowerCase().trim()); // Normalize email
-            message.setSubject(subject);
-            message.setText(body);
-            
-            log.info("=== Attempting to send OTP email ===");
-            log.info("From: {}", maskEmail(mailUsername));
-            log.info("To: {}", to);
-            log.info("Subject: {}", subject);
-            log.info("SMTP Host: smtp.gmail.com");
-            log.info("SMTP Port: 587");
-            
-            mailSender.send(message);
-            log.info("✓✓✓ OTP email sent successfully to {} ✓✓✓", to);
-        } catch (org.springframework.mail.MailAuthenticationException ex) {
-            log.error("========================================");
-            log.error("❌ EMAIL AUTHENTICATION FAILED ❌");
-            log.error("========================================");
-            log.error("Error: {}", ex.getMessage());
-            log.error("Full exception:", ex);
-            log.error("");
-            log.error("Common causes:");
-            log.error("1. Incorrect Gmail App Password");
-            log.error("2. App Password not generated (use: https://myaccount.google.com/apppasswords)");
-            log.error("3. 2-Step Verification not enabled on Gmail account");
-            log.error("4. Wrong MAIL_USERNAME or MAIL_PASSWORD environment variable");
-            log.error("");
-            log.error("Current configuration:");
-            log.error("  MAIL_USERNAME: {}", maskEmail(mailUsername));
-            log.error("  MAIL_PASSWORD: {} (length: {})", 
-                     mailPassword != null && !mailPassword.isEmpty() ? "***SET***" : "NOT SET", 
-                     mailPassword != null ? mailPassword.length() : 0);
-            log.error("");
-            String otpCode = extractOtpCode(body);
-            log.error("=== EMAIL AUTH FAILED - OTP FOR {}: {} ===", to, otpCode);
-            log.error("========================================");
-            // Re-throw to let caller know email failed
-            throw new RuntimeException("Email authentication failed. Please check your Gmail App Password configuration. OTP code: " + otpCode, ex);
-        } catch (org.springframework.mail.MailSendException ex) {
-            log.error("========================================");
-            log.error("❌ EMAIL SEND FAILED ❌");
-            log.error("========================================");
-            log.error("Error: {}", ex.getMessage());
-            log.error("Full exception:", ex);
-            log.error("");
-            log.error("Common causes:");
-            log.error("1. Network connectivity issues");
-            log.error("2. Gmail blocking the connection");
-            log.error("3. Firewall blocking SMTP port 587");
-            log.error("4. Invalid recipient email address");
-            log.error("");
-            String otpCode = extractOtpCode(body);
-            log.error("=== EMAIL SEND FAILED - OTP FOR {}: {} ===", to, otpCode);
-            log.error("========================================");
-            // Re-throw to let caller know email failed
-            throw new RuntimeException("Failed to send email. OTP code: " + otpCode, ex);
-        } catch (Exception ex) {
-            log.error("========================================");
-            log.error("❌ UNEXPECTED EMAIL ERROR ❌");
-            log.error("========================================");
-            log.error("Error: {}", ex.getMessage());
-            log.error("Full exception:", ex);
-            log.error("");
-            String otpCode = extractOtpCode(body);
-            log.error("=== EMAIL ERROR - OTP FOR {}: {} ===", to, otpCode);
-            log.error("========================================");
-            // Re-throw to let caller know email failed
-            throw new RuntimeException("Unexpected error sending email. OTP code: " + otpCode, ex);
+        return normalizedEmail;
+    }
+
+    private void wakeDispatcherAfterCommit() {
+        // Deliver only once the caller's transaction (which also stores the OTP) has committed
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    emailDispatcher.wakeUp();
+                }
+            });
+        } else {
+            emailDispatcher.wakeUp();
         }
     }
     
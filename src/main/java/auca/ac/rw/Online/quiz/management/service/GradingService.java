@@ -31,7 +31,10 @@ public class GradingService {
         
         System.out.println("[GradingService] Grading attempt ID: " + attempt.getId() + " for user: " + attempt.getUser().getUsername());
         
-        List<Question> questions = questionRepository.findByQuizId(attempt.getQuiz().getId());
+        // A sampled attempt is graded on its own paper, not on the quiz's questions
+        List<Question> questions = attempt.getSampledQuestionIds() != null
+                ? questionRepository.findPaper(QuestionSamplingService.decode(attempt.getSampledQuestionIds()))
+                : questionRepository.findByQuizIdWithOptions(attempt.getQuiz().getId());
         int totalPoints = 0;
         int earnedPoints = 0;
 
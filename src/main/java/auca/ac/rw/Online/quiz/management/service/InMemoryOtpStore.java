@@ -0,0 +1,173 @@
+package auca.ac.rw.Online.quiz.management.service;
+
+import auca.ac.rw.Online.quiz.management.model.OtpToken;
+import auca.ac.rw.Online.quiz.management.model.OtpType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * OTP store kept entirely in memory: no DB writes on issue or verify.
+ *
+ * Entries live in a concurrent map and are expired by a hashed timing wheel (one slot per
+ * second, advanced by a scheduled tick), so cleanup costs O(expiring entries) rather than a
+ * scan of the whole map. Each OTP allows a limited number of wrong guesses before it is burned.
+ *
+ * Codes are lost on restart and are not visible to other nodes - use the JPA store for
+ * multi-node deployments.
+ */
+@Service
+@ConditionalOnProperty(name = "app.otp.store", havingValue = "memory")
+public class InMemoryOtpStore implements OtpStore {
+
+    private static final Logger log = LoggerFactory.getLogger(InMemoryOtpStore.class);
+    private static final long TICK_MILLIS = 1000;
+    private static final int WHEEL_SLOTS = 512; // ~8.5 minutes per revolution
+
+    private record Key(String email, OtpType type) {
+    }
+
+    /** One issued code; shared by every address it was sent to so consuming one burns all. */
+    private static final class Grant {
+        private final String code;
+        private final String userEmail;
+        private final long expiresAtMillis;
+        private final LocalDateTime expiresAt;
+        private final AtomicInteger failedAttempts = new AtomicInteger();
+        private final AtomicBoolean used = new AtomicBoolean();
+
+        private Grant(String code, String userEmail, LocalDateTime expiresAt) {
+            this.code = code;
+            this.userEmail = userEmail;
+            this.expiresAt = expiresAt;
+            this.expiresAtMillis = expiresAt.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        }
+
+        private boolean isActive(long nowMillis) {
+            return !used.get() && nowMillis < expiresAtMillis;
+        }
+    }
+
+    private record WheelEntry(Key key, Grant grant) {
+    }
+
+    private final ConcurrentHashMap<Key, Grant> grants = new ConcurrentHashMap<>();
+    @SuppressWarnings("unchecked")
+    private final Queue<WheelEntry>[] wheel = new Queue[WHEEL_SLOTS];
+    private final AtomicLong currentTick = new AtomicLong(System.currentTimeMillis() / TICK_MILLIS);
+
+    private final int maxAttempts;
+
+    public InMemoryOtpStore(@Value("${app.otp.max-attempts:5}") int maxAttempts) {
+        this.maxAttempts = maxAttempts;
+        for (int i = 0; i < WHEEL_SLOTS; i++) {
+            wheel[i] = new ConcurrentLinkedQueue<>();
+        }
+    }
+
+    @Override
+    public void store(List<String> emails, String userEmail, OtpType type, String code, LocalDateTime expiresAt) {
+        Grant grant = new Grant(code, userEmail, expiresAt);
+        for (String email : emails) {
+            Key key = new Key(email, type);
+            // Replacing the map entry invalidates any OTP still active for this address
+            grants.put(key, grant);
+            schedule(new WheelEntry(key, grant));
+        }
+    }
+
+    @Override
+    public OtpToken consume(String email, String code, OtpType type) {
+        Key key = new Key(email, type);
+        Grant grant = grants.get(key);
+        if (grant == null || !grant.isActive(System.currentTimeMillis())) {
+            log.warn("OTP validation failed: No valid OTP found for {} (type: {})", email, type);
+            throw new BadCredentialsException("OTP not found or expired. Please request a new OTP.");
+        }
+
+        if (!OtpStore.codesMatch(grant.code, code)) {
+            if (grant.failedAttempts.incrementAndGet() >= maxAttempts) {
+                grant.used.set(true);
+                grants.remove(key, grant);
+                log.warn("OTP for {} (type: {}) burned after {} failed attempts", email, type, maxAttempts);
+                throw new BadCredentialsException("Too many invalid attempts. Please request a new OTP.");
+            }
+            log.warn("OTP validation failed: Invalid code for {} (type: {})", email, type);
+            throw new BadCredentialsException("Invalid OTP code. Please check and try again.");
+        }
+
+        // Exactly one concurrent verifier wins; copies sent to other addresses die with it
+        if (!grant.used.compareAndSet(false, true)) {
+            throw new BadCredentialsException("OTP not found or expired. Please request a new OTP.");
+        }
+        grants.remove(key, grant);
+
+        OtpToken token = new OtpToken();
+        token.setEmail(email);
+        token.setUserEmail(grant.userEmail);
+        token.setCode(grant.code);
+        token.setExpiresAt(grant.expiresAt);
+        token.setType(type);
+        token.setUsed(true);
+        return token;
+    }
+
+    /**
+     * Advances the wheel to the current second, dropping expired or used grants from each
+     * slot passed. Grants due in a later revolution are put back.
+     */
+    @Scheduled(fixedRate = TICK_MILLIS)
+    public void advanceWheel() {
+        long nowMillis = System.currentTimeMillis();
+        long targetTick = nowMillis / TICK_MILLIS;
+        long tick;
+        while ((tick = currentTick.get()) <= targetTick) {
+            if (!currentTick.compareAndSet(tick, tick + 1)) {
+                continue;
+            }
+            Queue<WheelEntry> slot = wheel[(int) (tick % WHEEL_SLOTS)];
+            WheelEntry entry;
+            int expired = 0;
+            int pending = slot.size();
+            while (pending-- > 0 && (entry = slot.poll()) != null) {
+                if (entry.grant().isActive(nowMillis)) {
+                    schedule(entry);
+                } else if (grants.remove(entry.key(), entry.grant())) {
+                    expired++;
+                }
+            }
+            if (expired > 0) {
+                log.debug("Expired {} in-memory OTP(s)", expired);
+            }
+        }
+    }
+
+    /** Addresses holding a grant, including expired ones the wheel has not reached yet. */
+    int size() {
+        return grants.size();
+    }
+
+    private void schedule(WheelEntry entry) {
+        long dueTick = Math.max(entry.grant().expiresAtMillis / TICK_MILLIS, currentTick.get());
+        long ticksAhead = dueTick - currentTick.get();
+        if (ticksAhead >= WHEEL_SLOTS) {
+            // Park it at the far end of the wheel; it is re-scheduled when that slot comes round
+            dueTick = currentTick.get() + WHEEL_SLOTS - 1;
+        }
+        wheel[(int) (dueTick % WHEEL_SLOTS)].add(entry);
+    }
+}
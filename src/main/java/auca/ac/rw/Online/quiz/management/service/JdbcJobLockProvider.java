@@ -0,0 +1,150 @@
+package auca.ac.rw.Online.quiz.management.service;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * {@link JobLockProvider} on the {@code scheduler_locks} table (see
+ * {@link auca.ac.rw.Online.quiz.management.model.SchedulerLock}).
+ *
+ * A lease is taken with a conditional UPDATE that only matches an expired row, so of several
+ * nodes racing for it exactly one sees an update count of 1. The row for a job name is created
+ * by the first node to ask for it; a duplicate-key error on that INSERT just means another
+ * node won. Each statement commits in its own transaction, independent of the caller's.
+ *
+ * Times come from this node's clock. Node clocks are assumed to agree to well within a job's
+ * {@code lockAtLeastFor}.
+ */
+@Service
+public class JdbcJobLockProvider implements JobLockProvider {
+
+    private static final Logger log = LoggerFactory.getLogger(JdbcJobLockProvider.class);
+
+    private static final String INSERT_SQL =
+            "INSERT INTO scheduler_locks (name, locked_until, locked_at, locked_by) VALUES (?, ?, ?, ?)";
+    private static final String TAKE_SQL =
+            "UPDATE scheduler_locks SET locked_until = ?, locked_at = ?, locked_by = ? WHERE name = ? AND locked_until <= ?";
+    // Matches only our own lease: after an expiry another node may hold the row
+    private static final String RELEASE_SQL =
+            "UPDATE scheduler_locks SET locked_until = ? WHERE name = ? AND locked_by = ? AND locked_at = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final String nodeId;
+    private final Clock clock;
+    // Names whose row exists, so later attempts skip straight to the UPDATE
+    private final Set<String> knownNames = ConcurrentHashMap.newKeySet();
+
+    @Autowired
+    public JdbcJobLockProvider(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+            @Value("${app.scheduler.node-id:}") String nodeId) {
+        this(jdbcTemplate, transactionManager, nodeId.isBlank() ? defaultNodeId() : nodeId, Clock.systemDefaultZone());
+    }
+
+    JdbcJobLockProvider(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager, String nodeId,
+            Clock clock) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.nodeId = nodeId;
+        this.clock = clock;
+    }
+
+    /** Written to {@code locked_by}; unique per running application context. */
+    public String nodeId() {
+        return nodeId;
+    }
+
+    @Override
+    public Optional<Lease> tryLock(String name, Duration lockAtMostFor) {
+        // Whole milliseconds, so the release can match locked_at exactly whatever the column precision
+        LocalDateTime now = LocalDateTime.now(clock).truncatedTo(ChronoUnit.MILLIS);
+        LocalDateTime until = now.plus(lockAtMostFor);
+
+        boolean taken = false;
+        if (!knownNames.contains(name)) {
+            taken = insert(name, now, until);
+            knownNames.add(name);
+        }
+        if (!taken) {
+            Integer updated = transactionTemplate.execute(status -> jdbcTemplate.update(TAKE_SQL,
+                    Timestamp.valueOf(until), Timestamp.valueOf(now), nodeId, name, Timestamp.valueOf(now)));
+            taken = updated != null && updated == 1;
+        }
+        if (!taken) {
+            log.debug("Job lease '{}' is held by another node", name);
+            return Optional.empty();
+        }
+        log.debug("Job lease '{}' taken by {} until {}", name, nodeId, until);
+        return Optional.of(new JdbcLease(name, now));
+    }
+
+    private boolean insert(String name, LocalDateTime now, LocalDateTime until) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.update(INSERT_SQL, name,
+                    Timestamp.valueOf(until), Timestamp.valueOf(now), nodeId));
+            return true;
+        } catch (DataIntegrityViolationException e) {
+            return false;
+        }
+    }
+
+    private final class JdbcLease implements Lease {
+
+        private final String name;
+        private final LocalDateTime lockedAt;
+
+        JdbcLease(String name, LocalDateTime lockedAt) {
+            this.name = name;
+            this.lockedAt = lockedAt;
+        }
+
+        @Override
+        public String name() {
+            return name;
+        }
+
+        @Override
+        public void release(Duration lockAtLeastFor) {
+            LocalDateTime now = LocalDateTime.now(clock).truncatedTo(ChronoUnit.MILLIS);
+            LocalDateTime earliest = lockedAt.plus(lockAtLeastFor);
+            LocalDateTime until = earliest.isAfter(now) ? earliest : now;
+            Integer updated = transactionTemplate.execute(status -> jdbcTemplate.update(RELEASE_SQL,
+                    Timestamp.valueOf(until), name, nodeId, Timestamp.valueOf(lockedAt)));
+            if (updated == null || updated == 0) {
+                log.warn("Job lease '{}' expired before {} released it; the job ran longer than its lockAtMostFor",
+                        name, nodeId);
+            }
+        }
+    }
+
+    private static String defaultNodeId() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            host = "node";
+        }
+        // Suffix keeps several contexts on one host (or in one JVM) apart
+        return host + "-" + UUID.randomUUID().toString().substring(0, 8);
+    }
+}
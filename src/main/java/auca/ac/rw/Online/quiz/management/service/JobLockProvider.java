@@ -0,0 +1,49 @@
+package auca.ac.rw.Online.quiz.management.service;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Named leases that make a scheduled job run on one application node at a time.
+ *
+ * Use it for jobs that write shared rows (sweeps, purges). Jobs that maintain per-node state,
+ * such as the in-process search indexes, must keep running on every node.
+ *
+ * A lease ends when its holder releases it, or on its own once {@code lockAtMostFor} has
+ * passed, so a crashed node blocks a job for at most that long. Releasing with
+ * {@code lockAtLeastFor} keeps the lease for that long after it was taken. Set it close to the
+ * job's interval, and nodes whose timers fire at different moments will still run the job
+ * only once per interval.
+ */
+public interface JobLockProvider {
+
+    /** A lease held by this node. */
+    interface Lease {
+
+        String name();
+
+        /** Ends the lease, but no earlier than {@code lockAtLeastFor} after it was taken. */
+        void release(Duration lockAtLeastFor);
+    }
+
+    /** Takes the named lease unless another node holds it; empty if it does. */
+    Optional<Lease> tryLock(String name, Duration lockAtMostFor);
+
+    /**
+     * Runs {@code task} under the named lease if it can be taken.
+     *
+     * @return false if another node holds the lease and the task was skipped
+     */
+    default boolean runExclusively(String name, Duration lockAtMostFor, Duration lockAtLeastFor, Runnable task) {
+        Optional<Lease> lease = tryLock(name, lockAtMostFor);
+        if (lease.isEmpty()) {
+            return false;
+        }
+        try {
+            task.run();
+        } finally {
+            lease.get().release(lockAtLeastFor);
+        }
+        return true;
+    }
+}
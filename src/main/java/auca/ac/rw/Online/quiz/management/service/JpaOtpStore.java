@@ -0,0 +1,173 @@
+package auca.ac.rw.Online.quiz.management.service;
+
+import auca.ac.rw.Online.quiz.management.model.OtpToken;
+import auca.ac.rw.Online.quiz.management.model.OtpType;
+import auca.ac.rw.Online.quiz.management.repository.OtpTokenRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Database-backed OTP store. Works across several application nodes; expired and used
+ * rows are purged in batches by a scheduled job so the table does not grow forever.
+ *
+ * Wrong codes are counted on the row in a transaction of their own, so the count survives the
+ * rollback of the failed verify; after {@code app.otp.max-attempts} the code is burned.
+ */
+@Service
+@ConditionalOnProperty(name = "app.otp.store", havingValue = "jpa", matchIfMissing = true)
+public class JpaOtpStore implements OtpStore {
+
+    private static final Logger log = LoggerFactory.getLogger(JpaOtpStore.class);
+
+    private static final String INSERT_SQL =
+            "INSERT INTO otp_token (email, user_email, code, expires_at, type, used) VALUES (?, ?, ?, ?, ?, false)";
+
+    private final OtpTokenRepository otpTokenRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final JobLockProvider jobLockProvider;
+    private final TransactionTemplate failureTransaction;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${app.otp.max-attempts:5}")
+    private int maxAttempts;
+
+    @Value("${app.otp.purge.interval-ms:600000}")
+    private long purgeIntervalMs;
+
+    @Value("${app.otp.purge.retention-minutes:60}")
+    private long purgeRetentionMinutes;
+
+    @Value("${app.otp.purge.batch-size:1000}")
+    private int purgeBatchSize;
+
+    public JpaOtpStore(OtpTokenRepository otpTokenRepository, JdbcTemplate jdbcTemplate,
+            JobLockProvider jobLockProvider, PlatformTransactionManager transactionManager) {
+        this.otpTokenRepository = otpTokenRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.jobLockProvider = jobLockProvider;
+        this.failureTransaction = new TransactionTemplate(transactionManager);
+        this.failureTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    @Override
+    public void store(List<String> emails, String userEmail, OtpType type, String code, LocalDateTime expiresAt) {
+        // Invalidate any existing unused OTPs for these emails and type
+        int invalidated = emails.size() == 1
+                ? otpTokenRepository.markActiveAsUsed(emails.get(0), type, LocalDateTime.now())
+                : otpTokenRepository.markActiveAsUsedForEmails(emails, type, LocalDateTime.now());
+        if (invalidated > 0) {
+            log.debug("Invalidated {} existing OTP(s) for {} (type: {})", invalidated, emails, type);
+        }
+
+        // One JDBC batch for all recipients; IDENTITY ids would make saveAll insert row by row
+        Timestamp expires = Timestamp.valueOf(expiresAt);
+        jdbcTemplate.batchUpdate(INSERT_SQL, emails, emails.size(), (ps, email) -> {
+            ps.setString(1, email); // Email where OTP is sent
+            ps.setString(2, userEmail); // User's registered email for finding user
+            ps.setString(3, code);
+            ps.setTimestamp(4, expires);
+            ps.setString(5, type.name());
+        });
+    }
+
+    @Override
+    public OtpToken consume(String email, String code, OtpType type) {
+        // Find the most recent unused, non-expired OTP for this email and type
+        OtpToken token = otpTokenRepository
+                .findFirstByEmailAndTypeAndUsedFalseAndExpiresAtAfterOrderByExpiresAtDesc(
+                        email, type, LocalDateTime.now())
+                .orElseThrow(() -> {
+                    log.warn("OTP validation failed: No valid OTP found for {} (type: {})", email, type);
+                    return new BadCredentialsException("OTP not found or expired. Please request a new OTP.");
+                });
+
+        // Verify OTP code matches
+        if (!OtpStore.codesMatch(token.getCode(), code)) {
+            if (recordFailedAttempt(token)) {
+                log.warn("OTP for {} (type: {}) burned after {} failed attempts", email, type, maxAttempts);
+                throw new BadCredentialsException("Too many invalid attempts. Please request a new OTP.");
+            }
+            log.warn("OTP validation failed: Invalid code for {} (type: {})", email, type);
+            throw new BadCredentialsException("Invalid OTP code. Please check and try again.");
+        }
+
+        // Mark this OTP and all related OTPs (same code, same user, same type) as used
+        // This prevents reuse if OTP was sent to multiple emails. The UPDATE only matches unused
+        // rows, so of several concurrent verifies of one code exactly one marks anything.
+        String userEmail = token.getUserEmail();
+        // The UPDATE below already writes the flag; detached, setUsed() is not flushed a second time
+        entityManager.detach(token);
+        int markedCount = userEmail != null
+                ? otpTokenRepository.markActiveAsUsedByUserEmailAndCode(userEmail, code, type, LocalDateTime.now())
+                : otpTokenRepository.markAsUsed(token.getId());
+        if (markedCount == 0) {
+            // A concurrent verify of the same code marked it between our SELECT and UPDATE
+            log.warn("OTP validation failed: OTP already used for {} (type: {})", email, type);
+            throw new BadCredentialsException("OTP not found or expired. Please request a new OTP.");
+        }
+        token.setUsed(true);
+
+        log.debug("Marked {} related OTP(s) as used for {} (type: {})", markedCount, email, type);
+        return token;
+    }
+
+    /**
+     * Counts a wrong code against the token; true if that burned it. Burning also uses up the
+     * copies of the code sent to the user's other addresses.
+     */
+    private boolean recordFailedAttempt(OtpToken token) {
+        return Boolean.TRUE.equals(failureTransaction.execute(status -> {
+            otpTokenRepository.recordFailedAttempt(token.getId(), maxAttempts);
+            if (token.getFailedAttempts() + 1 < maxAttempts) {
+                return false;
+            }
+            if (token.getUserEmail() != null) {
+                otpTokenRepository.markActiveAsUsedByUserEmailAndCode(token.getUserEmail(), token.getCode(),
+                        token.getType(), LocalDateTime.now());
+            }
+            return true;
+        }));
+    }
+
+    /**
+     * Deletes OTP rows that expired more than the retention period ago, a batch per
+     * transaction so the purge never holds long locks on the table. Runs on one node per interval.
+     */
+    @Scheduled(fixedDelayString = "${app.otp.purge.interval-ms:600000}")
+    public void purgeExpiredTokens() {
+        jobLockProvider.runExclusively("otp-purge", Duration.ofMinutes(10),
+                Duration.ofMillis(purgeIntervalMs * 9 / 10), this::purgeExpiredTokensNow);
+    }
+
+    private void purgeExpiredTokensNow() {
+        LocalDateTime cutoff = LocalDateTime.now().minusMinutes(purgeRetentionMinutes);
+        int total = 0;
+        int deleted;
+        do {
+            deleted = otpTokenRepository.deleteExpiredBatch(cutoff, purgeBatchSize);
+            total += deleted;
+        } while (deleted == purgeBatchSize);
+
+        if (total > 0) {
+            log.info("Purged {} expired OTP token(s) older than {}", total, cutoff);
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package auca.ac.rw.Online.quiz.management.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Maintains the {@code location_closure} table from the id paths stored on each location
+ * (province_id, district_id, ... village_id).
+ *
+ * A location's level is the number of non-null ids below the province. A location A is an
+ * ancestor of D when D's path starts with A's path, so the closure is derived with one
+ * equality join per ancestor level instead of a recursive walk.
+ *
+ * Only seeded locations (the reference hierarchy) act as ancestors. Users' own location rows
+ * are linked below the seeded rows on their path, so they show up in user counts, but never
+ * above anything.
+ */
+@Service
+public class LocationHierarchyService {
+
+    private static final Logger log = LoggerFactory.getLogger(LocationHierarchyService.class);
+
+    private static final String[] PATH_COLUMNS = {"province_id", "district_id", "sector_id", "cell_id", "village_id"};
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public LocationHierarchyService(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /** Recomputes the whole closure table. Runs in the caller's transaction if there is one. */
+    @Transactional
+    public void rebuildClosure() {
+        long start = System.nanoTime();
+        jdbcTemplate.update("DELETE FROM location_closure");
+        int rows = insertClosure("", new Object[0]);
+        log.info("Location closure rebuilt: {} rows in {} ms", rows, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * Recomputes the closure rows of one location after it was created or moved: its ancestors
+     * and the existing locations below it. The location must already be flushed.
+     */
+    @Transactional
+    public void refreshLocation(Long locationId) {
+        removeLocation(locationId);
+        // Below (and including) the location, then above it; the self row comes from the first
+        insertClosure(" AND a.id = ?", new Object[] {locationId});
+        insertClosure(" AND d.id = ? AND a.id <> ?", new Object[] {locationId, locationId});
+    }
+
+    @Transactional
+    public void removeLocation(Long locationId) {
+        jdbcTemplate.update("DELETE FROM location_closure WHERE ancestor_id = ? OR descendant_id = ?", locationId, locationId);
+    }
+
+    @Transactional
+    public void clear() {
+        jdbcTemplate.update("DELETE FROM location_closure");
+    }
+
+    public boolean isPopulated() {
+        Integer found = jdbcTemplate.query("SELECT 1 FROM location_closure FETCH FIRST 1 ROWS ONLY",
+                rs -> rs.next() ? 1 : null);
+        return found != null;
+    }
+
+    /**
+     * One INSERT ... SELECT per ancestor level: seeded ancestors at level k are joined to every
+     * location sharing their first k + 1 path ids.
+     */
+    private int insertClosure(String extraCondition, Object[] args) {
+        String descendantLevel = level("d");
+        int rows = 0;
+        for (int k = 0; k < PATH_COLUMNS.length; k++) {
+            StringBuilder sql = new StringBuilder()
+                    .append("INSERT INTO location_closure (ancestor_id, descendant_id, depth) ")
+                    .append("SELECT a.id, d.id, ").append(descendantLevel).append(" - ").append(k)
+                    .append(" FROM locations a JOIN locations d ON ");
+            for (int i = 0; i <= k; i++) {
+                if (i > 0) {
+                    sql.append(" AND ");
+                }
+                sql.append("d.").append(PATH_COLUMNS[i]).append(" = a.").append(PATH_COLUMNS[i]);
+            }
+            // Ancestor is a seeded row sitting exactly at level k
+            sql.append(" WHERE a.seeded = TRUE AND a.").append(PATH_COLUMNS[k]).append(" IS NOT NULL");
+            if (k + 1 < PATH_COLUMNS.length) {
+                sql.append(" AND a.").append(PATH_COLUMNS[k + 1]).append(" IS NULL");
+            }
+            sql.append(extraCondition);
+            rows += jdbcTemplate.update(sql.toString(), args);
+        }
+        return rows;
+    }
+
+    private static String level(String alias) {
+        StringBuilder expr = new StringBuilder("(");
+        for (int i = 1; i < PATH_COLUMNS.length; i++) {
+            if (i > 1) {
+                expr.append(" + ");
+            }
+            expr.append("CASE WHEN ").append(alias).append('.').append(PATH_COLUMNS[i]).append(" IS NULL THEN 0 ELSE 1 END");
+        }
+        return expr.append(")").toString();
+    }
+}
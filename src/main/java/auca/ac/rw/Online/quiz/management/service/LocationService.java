@@ -1,9 +1,11 @@
 package auca.ac.rw.Online.quiz.management.service;
 
+import auca.ac.rw.Online.quiz.management.controller.dto.LocationWithUserDTO;
 import auca.ac.rw.Online.quiz.management.model.Location;
 import auca.ac.rw.Online.quiz.management.repository.LocationRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import java.util.List;
 import java.util.Optional;
 
@@ -11,14 +13,25 @@ import java.util.Optional;
 public class LocationService {
     @Autowired
     private LocationRepository locationRepository;
+    @Autowired
+    private LocationHierarchyService locationHierarchyService;
 
     public List<Location> getAllLocations() { return locationRepository.findAll(); }
 
     public Optional<Location> getLocationById(Long id) { return locationRepository.findById(id); }
 
-    public Location saveLocation(Location location) { return locationRepository.save(location); }
+    @Transactional
+    public Location saveLocation(Location location) {
+        Location saved = locationRepository.saveAndFlush(location);
+        locationHierarchyService.refreshLocation(saved.getId());
+        return saved;
+    }
 
-    public void deleteLocation(Long id) { locationRepository.deleteById(id); }
+    @Transactional
+    public void deleteLocation(Long id) {
+        locationHierarchyService.removeLocation(id);
+        locationRepository.deleteById(id);
+    }
     
     public org.springframework.data.domain.Page<Location> search(String q, org.springframework.data.domain.Pageable pageable) {
         if (q == null || q.isBlank()) {
@@ -28,6 +41,18 @@ public class LocationService {
             q, q, q, pageable);
     }
     
+    /**
+     * One row per location-user pair (or per location with no users, unless
+     * {@code userLocationsOnly}), filtered by province/district/sector name.
+     */
+    public org.springframework.data.domain.Page<LocationWithUserDTO> getLocationUserRows(String q, boolean userLocationsOnly,
+            org.springframework.data.domain.Pageable pageable) {
+        String query = q == null ? "" : q.trim();
+        return userLocationsOnly
+                ? locationRepository.findUserLocationRows(query, pageable)
+                : locationRepository.findLocationUserRows(query, pageable);
+    }
+    
     public List<Location> getUserLocations() {
         return locationRepository.findAllWithUsers();
     }
@@ -39,7 +64,9 @@ public class LocationService {
         return locationRepository.findUserLocationsWithSearch(q, pageable);
     }
     
+    @Transactional
     public void clearAllLocations() {
+        locationHierarchyService.clear();
         locationRepository.deleteAll();
     }
     
@@ -0,0 +1,45 @@
+package auca.ac.rw.Online.quiz.management.service;
+
+import auca.ac.rw.Online.quiz.management.model.Location;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * JPA entity listener that asks {@link LocationTreeService} to rebuild once a transaction
+ * that wrote a seeded location commits. Users' own location rows are not part of the tree,
+ * so creating or editing users never triggers a rebuild.
+ */
+@Component
+public class LocationTreeListener {
+
+    // Resolved lazily: Hibernate creates listeners while the EntityManagerFactory is starting
+    private final ObjectProvider<LocationTreeService> locationTreeService;
+
+    public LocationTreeListener(ObjectProvider<LocationTreeService> locationTreeService) {
+        this.locationTreeService = locationTreeService;
+    }
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void onChanged(Object entity) {
+        if (!(entity instanceof Location location) || !location.isSeeded()) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    locationTreeService.getObject().requestRebuild();
+                }
+            });
+        } else {
+            locationTreeService.getObject().requestRebuild();
+        }
+    }
+}
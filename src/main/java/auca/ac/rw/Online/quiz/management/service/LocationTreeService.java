@@ -0,0 +1,250 @@
+package auca.ac.rw.Online.quiz.management.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.util.DigestUtils;
+
+/**
+ * Immutable in-memory copy of the province / district / sector / cell / village hierarchy
+ * behind the cascading location dropdowns.
+ *
+ * Each node keeps its children in an array sorted by name (the order the dropdowns show)
+ * and their ids in a separate sorted array for lookups, plus the children's JSON and ETag,
+ * computed once per build. The whole tree is rebuilt from the seeded rows of the
+ * {@code locations} table at startup, after the seeders have run, and again in the background
+ * whenever {@link LocationTreeListener} reports a committed write to one of them (users' own
+ * location rows never change the tree); the new tree replaces the old one in a single
+ * reference swap, so readers never see a half-built tree.
+ */
+@Service
+public class LocationTreeService {
+
+    private static final Logger log = LoggerFactory.getLogger(LocationTreeService.class);
+
+    private static final int LEVELS = 5; // province, district, sector, cell, village
+    private static final Node[] NO_CHILDREN = new Node[0];
+    private static final long[] NO_IDS = new long[0];
+
+    /** A location and its direct children; immutable once built. */
+    public static final class Node {
+        private final long id;
+        private final String name;
+        private final Node[] children;        // sorted by name, then id
+        private final long[] childIds;        // sorted ascending
+        private final int[] childPositions;   // childIds[i] is children[childPositions[i]]
+        private final byte[] childrenJson;
+        private final String childrenEtag;
+
+        private Node(long id, String name, Node[] children, byte[] childrenJson) {
+            this.id = id;
+            this.name = name;
+            this.children = children;
+            this.childrenJson = childrenJson;
+            this.childrenEtag = "\"" + DigestUtils.md5DigestAsHex(childrenJson) + "\"";
+
+            Integer[] order = new Integer[children.length];
+            for (int i = 0; i < order.length; i++) {
+                order[i] = i;
+            }
+            Arrays.sort(order, Comparator.comparingLong(i -> children[i].id));
+            this.childIds = children.length == 0 ? NO_IDS : new long[children.length];
+            this.childPositions = new int[children.length];
+            for (int i = 0; i < order.length; i++) {
+                childIds[i] = children[order[i]].id;
+                childPositions[i] = order[i];
+            }
+        }
+
+        public long getId() { return id; }
+        public String getName() { return name; }
+
+        public Node child(long childId) {
+            int pos = Arrays.binarySearch(childIds, childId);
+            return pos < 0 ? null : children[childPositions[pos]];
+        }
+
+        /** The children as {@code [{"id":..,"name":..}, ...]}, sorted by name. */
+        public byte[] childrenJson() { return childrenJson; }
+
+        /** Strong ETag of {@link #childrenJson()}; stable across rebuilds while the data is. */
+        public String childrenEtag() { return childrenEtag; }
+    }
+
+    /** Mutable node used only while building. */
+    private static final class Draft {
+        final long id;
+        final String name;
+        final Map<Long, Draft> children = new LinkedHashMap<>();
+
+        Draft(long id, String name) {
+            this.id = id;
+            this.name = name;
+        }
+    }
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final ObjectMapper objectMapper;
+    private final byte[] emptyJson;
+    private final String emptyEtag;
+    private final AtomicBoolean rebuildPending = new AtomicBoolean();
+    private final ExecutorService rebuildExecutor;
+    private final Object buildLock = new Object();
+    private volatile Node root;
+
+    public LocationTreeService(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+        this.emptyJson = "[]".getBytes(StandardCharsets.UTF_8);
+        this.emptyEtag = "\"" + DigestUtils.md5DigestAsHex(emptyJson) + "\"";
+        this.rebuildExecutor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "location-tree-rebuild");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        rebuild();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        rebuildExecutor.shutdownNow();
+    }
+
+    /**
+     * The node at the given id path from the root ({@code provinceId, districtId, ...}), or
+     * null if any step does not exist. No ids means the root, whose children are the provinces.
+     */
+    public Node find(long... path) {
+        Node node = root();
+        for (long id : path) {
+            node = node.child(id);
+            if (node == null) {
+                return null;
+            }
+        }
+        return node;
+    }
+
+    public byte[] emptyJson() { return emptyJson; }
+    public String emptyEtag() { return emptyEtag; }
+
+    /**
+     * Schedules a rebuild on the background thread. Bursts of writes (e.g. a reseed) collapse
+     * into one rebuild that starts after the previous one finishes.
+     */
+    public void requestRebuild() {
+        if (rebuildPending.compareAndSet(false, true)) {
+            rebuildExecutor.execute(() -> {
+                rebuildPending.set(false);
+                rebuild();
+            });
+        }
+    }
+
+    private Node root() {
+        Node current = root;
+        if (current == null) {
+            // First request beat the startup build
+            synchronized (buildLock) {
+                if (root == null) {
+                    rebuild();
+                }
+                current = root;
+            }
+        }
+        return current;
+    }
+
+    public void rebuild() {
+        long start = System.nanoTime();
+        synchronized (buildLock) {
+            List<Object[]> rows;
+            try {
+                rows = entityManager.createQuery(
+                        "SELECT l.provinceId, l.provinceName, l.districtId, l.districtName, l.sectorId, l.sectorName, "
+                                + "l.cellId, l.cellName, l.villageId, l.villageName FROM Location l WHERE l.seeded = true",
+                        Object[].class)
+                        .getResultList();
+            } catch (RuntimeException ex) {
+                log.error("Location tree rebuild failed, keeping the previous tree: {}", ex.getMessage(), ex);
+                if (root == null) {
+                    root = new Node(0, null, NO_CHILDREN, emptyJson);
+                }
+                return;
+            }
+
+            Draft top = new Draft(0, null);
+            for (Object[] row : rows) {
+                Draft parent = top;
+                for (int level = 0; level < LEVELS; level++) {
+                    Long id = (Long) row[level * 2];
+                    String name = (String) row[level * 2 + 1];
+                    if (id == null || name == null) {
+                        break; // A province row has no district, and so on
+                    }
+                    // First name seen wins if rows disagree
+                    parent = parent.children.computeIfAbsent(id, key -> new Draft(key, name));
+                }
+            }
+
+            int[] count = new int[1];
+            root = freeze(top, count);
+            log.info("Location tree built: {} nodes from {} rows in {} ms",
+                    count[0], rows.size(), (System.nanoTime() - start) / 1_000_000);
+        }
+    }
+
+    private Node freeze(Draft draft, int[] count) {
+        Node[] children = NO_CHILDREN;
+        if (!draft.children.isEmpty()) {
+            children = new Node[draft.children.size()];
+            int i = 0;
+            for (Draft child : draft.children.values()) {
+                children[i++] = freeze(child, count);
+            }
+            Arrays.sort(children, Comparator.comparing((Node node) -> node.name).thenComparingLong(node -> node.id));
+        }
+        count[0]++;
+        return new Node(draft.id, draft.name, children, toJson(children));
+    }
+
+    private byte[] toJson(Node[] children) {
+        if (children.length == 0) {
+            return emptyJson;
+        }
+        List<Map<String, Object>> items = new ArrayList<>(children.length);
+        for (Node child : children) {
+            Map<String, Object> item = new LinkedHashMap<>();
+            item.put("id", child.id);
+            item.put("name", child.name);
+            items.add(item);
+        }
+        try {
+            return objectMapper.writeValueAsBytes(items);
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("Could not serialize location children", ex);
+        }
+    }
+}
@@ -3,16 +3,23 @@ package auca.ac.rw.Online.quiz.management.service;
 import auca.ac.rw.Online.quiz.management.model.Notification;
 import auca.ac.rw.Online.quiz.management.model.User;
 import auca.ac.rw.Online.quiz.management.repository.NotificationRepository;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import java.time.OffsetDateTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 @Service
 public class NotificationService {
+    private static final String PUBLISHED_TITLE = "New Quiz Available";
+
     private final NotificationRepository notificationRepository;
+    private final JdbcTemplate jdbcTemplate;
 
-    public NotificationService(NotificationRepository notificationRepository) {
+    public NotificationService(NotificationRepository notificationRepository, JdbcTemplate jdbcTemplate) {
         this.notificationRepository = notificationRepository;
+        this.jdbcTemplate = jdbcTemplate;
     }
 
     public void createNotification(User user, String title, String message) {
@@ -37,8 +44,26 @@ public class NotificationService {
     }
 
     public void notifyQuizPublished(User user, String quizTitle) {
-        createNotification(user, "New Quiz Available",
-                "A new quiz '" + quizTitle + "' has been published and is available for you to take.");
+        createNotification(user, PUBLISHED_TITLE, publishedMessage(quizTitle));
+    }
+
+    /**
+     * Notifies every student enrolled in each quiz (quiz id to title) that it has opened: one
+     * INSERT ... SELECT per quiz, sent as a single batch.
+     */
+    public void notifyEnrolledQuizPublished(Map<Long, String> quizTitles) {
+        if (quizTitles.isEmpty()) {
+            return;
+        }
+        OffsetDateTime now = OffsetDateTime.now();
+        List<Object[]> args = new ArrayList<>(quizTitles.size());
+        quizTitles.forEach((quizId, title) -> args.add(new Object[] {PUBLISHED_TITLE, publishedMessage(title), now, quizId}));
+        jdbcTemplate.batchUpdate("INSERT INTO notifications (user_id, title, message, read, created_at) "
+                + "SELECT student_id, ?, ?, FALSE, ? FROM quiz_student WHERE quiz_id = ?", args);
+    }
+
+    private static String publishedMessage(String quizTitle) {
+        return "A new quiz '" + quizTitle + "' has been published and is available for you to take.";
     }
 
     public void notifyQuizGraded(User user, String quizTitle, int score) {
@@ -0,0 +1,132 @@
+package auca.ac.rw.Online.quiz.management.service;
+
+import auca.ac.rw.Online.quiz.management.exception.OptionInUseException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Brings a question's stored options in line with a submitted list while keeping the ids of
+ * options that survive the edit. Graded answers point at those ids
+ * ({@code UserAnswer.selectedOptionId}), so a text fix must not turn into delete + insert.
+ *
+ * Submitted options are matched to stored ones by id first. Options sent without an id (older
+ * clients) are then matched by their exact text. Only the differences are written: changed
+ * options in one UPDATE batch, new ones in one INSERT batch, removed ones in one DELETE batch.
+ *
+ * Options that answers refer to are never deleted: if the edit removes one, nothing is written
+ * and {@link OptionInUseException} is thrown, so the caller's transaction rolls back as a whole.
+ */
+@Service
+public class OptionReconciler {
+
+    private static final Logger log = LoggerFactory.getLogger(OptionReconciler.class);
+
+    /** A submitted option; {@code id} is null for options the client has not saved yet. */
+    public record SubmittedOption(Long id, String text, boolean correct) {
+    }
+
+    /** Statements issued for one reconcile; all zero when nothing changed. */
+    public record Changes(int updated, int inserted, int deleted) {
+        public boolean any() {
+            return updated + inserted + deleted > 0;
+        }
+    }
+
+    private record StoredOption(long id, String text, boolean correct) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final QuestionBankSearchService questionBankSearchService;
+
+    public OptionReconciler(JdbcTemplate jdbcTemplate, QuestionBankSearchService questionBankSearchService) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.questionBankSearchService = questionBankSearchService;
+    }
+
+    @Transactional
+    public Changes reconcile(Long questionId, List<SubmittedOption> submitted) {
+        Map<Long, StoredOption> stored = new LinkedHashMap<>();
+        jdbcTemplate.query("SELECT id, text, correct FROM options WHERE question_id = ? ORDER BY id",
+                rs -> {
+                    long id = rs.getLong(1);
+                    stored.put(id, new StoredOption(id, rs.getString(2), rs.getBoolean(3)));
+                }, questionId);
+
+        List<Object[]> updates = new ArrayList<>();
+        List<Object[]> inserts = new ArrayList<>();
+        List<SubmittedOption> withoutMatch = new ArrayList<>();
+
+        for (SubmittedOption option : submitted) {
+            StoredOption current = option.id() == null ? null : stored.remove(option.id());
+            if (current == null) {
+                withoutMatch.add(option);
+            } else if (!current.text().equals(option.text()) || current.correct() != option.correct()) {
+                updates.add(new Object[] {option.text(), option.correct(), current.id()});
+            }
+        }
+        for (SubmittedOption option : withoutMatch) {
+            StoredOption sameText = stored.values().stream()
+                    .filter(candidate -> candidate.text().equals(option.text()))
+                    .findFirst()
+                    .orElse(null);
+            if (sameText == null) {
+                inserts.add(new Object[] {option.text(), option.correct(), questionId});
+                continue;
+            }
+            stored.remove(sameText.id());
+            if (sameText.correct() != option.correct()) {
+                updates.add(new Object[] {option.text(), option.correct(), sameText.id()});
+            }
+        }
+        List<Object[]> deletes = stored.keySet().stream().map(id -> new Object[] {id}).toList();
+        if (!deletes.isEmpty()) {
+            List<Long> inUse = findAnswered(stored.keySet());
+            if (!inUse.isEmpty()) {
+                throw new OptionInUseException("Options " + inUse + " of question " + questionId
+                        + " have been answered and cannot be removed; edit their text instead", inUse);
+            }
+        }
+
+        if (!updates.isEmpty()) {
+            jdbcTemplate.batchUpdate("UPDATE options SET text = ?, correct = ? WHERE id = ?", updates);
+        }
+        if (!inserts.isEmpty()) {
+            jdbcTemplate.batchUpdate("INSERT INTO options (text, correct, question_id) VALUES (?, ?, ?)", inserts);
+        }
+        if (!deletes.isEmpty()) {
+            jdbcTemplate.batchUpdate("DELETE FROM options WHERE id = ?", deletes);
+        }
+
+        Changes changes = new Changes(updates.size(), inserts.size(), deletes.size());
+        if (changes.any()) {
+            // JDBC writes bypass the entity listeners
+            questionBankSearchService.reindexAfterCommit(questionId);
+            log.debug("Options of question {} reconciled: {}", questionId, changes);
+        }
+        return changes;
+    }
+
+    /** The ids among {@code optionIds} that a graded or in-progress answer refers to. */
+    private List<Long> findAnswered(Collection<Long> optionIds) {
+        String placeholders = String.join(",", Collections.nCopies(optionIds.size(), "?"));
+        Object[] args = new Object[optionIds.size() * 2];
+        int i = 0;
+        for (int pass = 0; pass < 2; pass++) {
+            for (Long id : optionIds) {
+                args[i++] = id;
+            }
+        }
+        return jdbcTemplate.queryForList("SELECT option_id FROM answers WHERE option_id IN (" + placeholders + ")"
+                + " UNION SELECT selected_option_id FROM user_answers WHERE selected_option_id IN (" + placeholders + ")"
+                + " ORDER BY 1", Long.class, args);
+    }
+}
@@ -2,7 +2,6 @@ package auca.ac.rw.Online.quiz.management.service;
 
 import auca.ac.rw.Online.quiz.management.model.OtpToken;
 import auca.ac.rw.Online.quiz.management.model.OtpType;
-import auca.ac.rw.Online.quiz.management.repository.OtpTokenRepository;
 import auca.ac.rw.Online.quiz.management.util.EmailValidator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -12,7 +11,12 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.security.SecureRandom;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * Service for OTP generation, validation, and management.
@@ -29,11 +33,11 @@ public class OtpService {
     private static final int OTP_EXPIRATION_MINUTES = 5;
     private static final SecureRandom secureRandom = new SecureRandom();
     
-    private final OtpTokenRepository otpTokenRepository;
+    private final OtpStore otpStore;
     private final EmailService emailService;
 
-    public OtpService(OtpTokenRepository otpTokenRepository, EmailService emailService) {
-        this.otpTokenRepository = otpTokenRepository;
+    public OtpService(OtpStore otpStore, EmailService emailService) {
+        this.otpStore = otpStore;
         this.emailService = emailService;
     }
 
@@ -58,84 +62,85 @@ public class OtpService {
     }
 
     /**
-     * Sends the same OTP code to multiple email addresses
+     * Delivery outcome for one address of a multi-recipient OTP.
+     * @param error why the address was not queued, or null if it was
+     */
+    public record RecipientResult(String email, boolean queued, String error) {
+    }
+
+    /**
+     * Result of {@link #sendOtpToMultipleEmails}: the shared code plus one entry per address.
+     */
+    public record MultiRecipientOtp(String code, List<RecipientResult> recipients) {
+        public long queuedCount() {
+            return recipients.stream().filter(RecipientResult::queued).count();
+        }
+    }
+
+    /**
+     * Sends the same OTP code to multiple email addresses.
+     * All tokens and outbox rows are written with one batched insert each; the mail workers
+     * then deliver the messages concurrently. An invalid address is reported in the result
+     * instead of aborting the others.
      * @param emails List of recipient email addresses
      * @param type Type of OTP (LOGIN_2FA, PASSWORD_RESET, etc.)
      * @param userEmail User's registered email (for finding user during verification)
-     * @return The generated OTP code
+     * @return The generated OTP code and the outcome for each address
      */
     @Transactional
-    public String sendOtpToMultipleEmails(List<String> emails, OtpType type, String userEmail) {
+    public MultiRecipientOtp sendOtpToMultipleEmails(List<String> emails, OtpType type, String userEmail) {
         if (emails == null || emails.isEmpty()) {
             throw new IllegalArgumentException("Email list cannot be empty");
         }
         
-        // Normalize all emails
-        List<String> normalizedEmails = emails.stream()
-                .map(email -> {
-                    EmailValidator.validateEmail(email);
-                    return EmailValidator.normalizeEmail(email);
-                })
-                .distinct() // Remove duplicates
-                .toList();
+        // Validate and normalize each address on its own
+        Map<String, String> rejected = new LinkedHashMap<>();
+        Set<String> normalized = new LinkedHashSet<>(); // Removes duplicates, keeps order
+        for (String email : emails) {
+            try {
+                EmailValidator.validateEmail(email);
+                normalized.add(EmailValidator.normalizeEmail(email));
+            } catch (IllegalArgumentException ex) {
+                rejected.put(email, ex.getMessage());
+            }
+        }
+        if (normalized.isEmpty()) {
+            throw new IllegalArgumentException("No valid email address in " + emails);
+        }
+        List<String> normalizedEmails = List.copyOf(normalized);
         
         String normalizedUserEmail = (userEmail != null && !userEmail.isBlank()) 
             ? EmailValidator.normalizeEmail(userEmail) 
             : normalizedEmails.get(0);
         
-        // Invalidate existing OTPs for all emails
-        for (String email : normalizedEmails) {
-            invalidateExistingOtps(email, type);
-        }
-        
         // Generate a single OTP code for all emails
         String otpCode = generateOtp();
         LocalDateTime expiresAt = LocalDateTime.now().plusMinutes(OTP_EXPIRATION_MINUTES);
         
-        // Create OTP tokens for each email with the same code
-        for (String email : normalizedEmails) {
-            OtpToken token = new OtpToken();
-            token.setEmail(email);
-            token.setUserEmail(normalizedUserEmail);
-            token.setCode(otpCode);
-            token.setExpiresAt(expiresAt);
-            token.setType(type);
-            token.setUsed(false);
-            otpTokenRepository.save(token);
-            log.info("OTP token created for {} (user: {}, type: {}), expires at {}", 
-                    email, normalizedUserEmail, type, expiresAt);
-        }
+        // Store the same code for each email, replacing any OTP still active there
+        otpStore.store(normalizedEmails, normalizedUserEmail, type, otpCode, expiresAt);
+        log.info("OTP tokens created for {} (user: {}, type: {}), expires at {}", 
+                normalizedEmails, normalizedUserEmail, type, expiresAt);
         
-        // Send OTP email to all addresses
+        // Queue one email per address; delivery happens after commit
         String subject = getOtpSubject(type);
         String body = getOtpBody(otpCode, OTP_EXPIRATION_MINUTES);
+        rejected.putAll(emailService.queueAll(normalizedEmails, subject, body));
         
-        int successCount = 0;
-        int failCount = 0;
+        List<RecipientResult> results = new ArrayList<>(emails.size());
         for (String email : normalizedEmails) {
-            try {
-                emailService.sendOtp(email, subject, body);
-                log.info("OTP email sent successfully to {}", email);
-                successCount++;
-            } catch (Exception ex) {
-                log.error("Failed to send OTP email to {}: {}", email, ex.getMessage());
-                failCount++;
-                // Continue sending to other emails even if one fails
-            }
-        }
-        
-        if (successCount == 0) {
-            log.warn("=== OTP CODE FOR ALL EMAILS: {} (Expires in {} minutes) ===", 
-                    otpCode, OTP_EXPIRATION_MINUTES);
-            throw new RuntimeException("Failed to send OTP to any email address");
+            String error = rejected.remove(email);
+            results.add(new RecipientResult(email, error == null, error));
         }
+        rejected.forEach((email, error) -> results.add(new RecipientResult(email, false, error)));
         
-        if (failCount > 0) {
-            log.warn("OTP sent to {} email(s) successfully, but failed to send to {} email(s)", 
-                    successCount, failCount);
+        MultiRecipientOtp result = new MultiRecipientOtp(otpCode, results);
+        if (result.queuedCount() < results.size()) {
+            log.warn("OTP queued for {} of {} email address(es); rejected: {}", 
+                    result.queuedCount(), results.size(),
+                    results.stream().filter(r -> !r.queued()).map(RecipientResult::email).toList());
         }
-        
-        return otpCode;
+        return result;
     }
 
     /**
@@ -156,24 +161,14 @@ public class OtpService {
             ? EmailValidator.normalizeEmail(userEmail) 
             : normalizedEmail; // Default to recipient email if not provided
         
-        // Invalidate any existing unused OTPs for this email and type
-        invalidateExistingOtps(normalizedEmail, type);
-        
         // Generate new OTP
         String otpCode = generateOtp();
+        LocalDateTime expiresAt = LocalDateTime.now().plusMinutes(OTP_EXPIRATION_MINUTES);
         
-        // Create and save OTP token
-        OtpToken token = new OtpToken();
-        token.setEmail(normalizedEmail); // Email where OTP is sent
-        token.setUserEmail(normalizedUserEmail); // User's registered email for finding user
-        token.setCode(otpCode);
-        token.setExpiresAt(LocalDateTime.now().plusMinutes(OTP_EXPIRATION_MINUTES));
-        token.setType(type);
-        token.setUsed(false);
-        
-        otpTokenRepository.save(token);
+        // Store the OTP, replacing any existing unused OTP for this email and type
+        otpStore.store(List.of(normalizedEmail), normalizedUserEmail, type, otpCode, expiresAt);
         log.info("OTP token created for {} (user: {}, type: {}), expires at {}", 
-                normalizedEmail, normalizedUserEmail, type, token.getExpiresAt());
+                normalizedEmail, normalizedUserEmail, type, expiresAt);
         
         // Send OTP via email
         String subject = getOtpSubject(type);
@@ -181,7 +176,7 @@ public class OtpService {
         
         try {
             emailService.sendOtp(normalizedEmail, subject, body);
-            log.info("OTP email sent successfully to {}", normalizedEmail);
+            log.info("OTP email queued for {}", normalizedEmail);
         } catch (Exception ex) {
             log.error("Failed to send OTP email to {}: {}", normalizedEmail, ex.getMessage());
             // Still log OTP for development/debugging
@@ -206,64 +201,15 @@ public class OtpService {
         String normalizedEmail = EmailValidator.normalizeEmail(email);
         String trimmedCode = code.trim();
         
-        // Find the most recent unused, non-expired OTP for this email and type
-        OtpToken token = otpTokenRepository
-                .findFirstByEmailAndTypeAndUsedFalseAndExpiresAtAfterOrderByExpiresAtDesc(
-                        normalizedEmail, type, LocalDateTime.now())
-                .orElseThrow(() -> {
-                    log.warn("OTP validation failed: No valid OTP found for {} (type: {})", normalizedEmail, type);
-                    return new BadCredentialsException("OTP not found or expired. Please request a new OTP.");
-                });
-
-        // Verify OTP code matches
-        if (!token.getCode().equals(trimmedCode)) {
-            log.warn("OTP validation failed: Invalid code for {} (type: {})", normalizedEmail, type);
-            throw new BadCredentialsException("Invalid OTP code. Please check and try again.");
-        }
-
-        // Mark this OTP and all related OTPs (same code, same user, same type) as used
-        // This prevents reuse if OTP was sent to multiple emails
-        String userEmail = token.getUserEmail();
-        List<OtpToken> relatedTokens = otpTokenRepository.findAll().stream()
-                .filter(t -> t.getType() == type)
-                .filter(t -> !t.isUsed())
-                .filter(t -> t.getExpiresAt().isAfter(LocalDateTime.now()))
-                .filter(t -> t.getCode().equals(trimmedCode))
-                .filter(t -> userEmail != null && userEmail.equals(t.getUserEmail()))
-                .toList();
-        
-        for (OtpToken relatedToken : relatedTokens) {
-            relatedToken.setUsed(true);
-            otpTokenRepository.save(relatedToken);
-        }
+        // Verify the most recent active OTP and mark it (and copies sent to the user's other
+        // addresses) as used
+        OtpToken token = otpStore.consume(normalizedEmail, trimmedCode, type);
         
-        log.info("OTP validated and marked as used for {} (type: {}). Marked {} related OTP(s) as used.", 
-                normalizedEmail, type, relatedTokens.size());
+        log.info("OTP validated and marked as used for {} (type: {})", normalizedEmail, type);
         
         return token;
     }
 
-    /**
-     * Invalidates all existing unused OTPs for the given email and type
-     * This prevents multiple valid OTPs from existing simultaneously
-     */
-    private void invalidateExistingOtps(String email, OtpType type) {
-        List<OtpToken> existingTokens = otpTokenRepository.findAll().stream()
-                .filter(t -> t.getEmail().equalsIgnoreCase(email))
-                .filter(t -> t.getType() == type)
-                .filter(t -> !t.isUsed())
-                .filter(t -> t.getExpiresAt().isAfter(LocalDateTime.now()))
-                .toList();
-        
-        if (!existingTokens.isEmpty()) {
-            log.debug("Invalidating {} existing OTP(s) for {} (type: {})", existingTokens.size(), email, type);
-            existingTokens.forEach(token -> {
-                token.setUsed(true);
-                otpTokenRepository.save(token);
-            });
-        }
-    }
-
     /**
      * Gets the email subject based on OTP type
      */
@@ -0,0 +1,45 @@
+package auca.ac.rw.Online.quiz.management.service;
+
+import auca.ac.rw.Online.quiz.management.model.OtpToken;
+import auca.ac.rw.Online.quiz.management.model.OtpType;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Storage backend for issued OTP codes, selected with {@code app.otp.store}:
+ * - {@code jpa} (default): {@link JpaOtpStore}, shared by every node through the database
+ * - {@code memory}: {@link InMemoryOtpStore}, no DB writes, single-node deployments only
+ */
+public interface OtpStore {
+
+    /**
+     * Stores {@code code} for every address in {@code emails}, replacing any OTP of the same
+     * type that is still active for those addresses.
+     */
+    void store(List<String> emails, String userEmail, OtpType type, String code, LocalDateTime expiresAt);
+
+    /**
+     * Verifies {@code code} for the given address and consumes it, together with every copy of
+     * the same code sent to the user's other addresses.
+     *
+     * @return the consumed token (its userEmail identifies the account)
+     * A wrong code counts against the OTP; after {@code app.otp.max-attempts} wrong codes it is
+     * burned and a new one has to be requested.
+     *
+     * @throws org.springframework.security.authentication.BadCredentialsException if no active OTP
+     *         exists or the code does not match
+     */
+    OtpToken consume(String email, String code, OtpType type);
+
+    /**
+     * Compares OTP codes in time independent of where they differ.
+     */
+    static boolean codesMatch(String expected, String actual) {
+        if (expected == null || actual == null) {
+            return false;
+        }
+        return MessageDigest.isEqual(expected.getBytes(StandardCharsets.UTF_8), actual.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,386 @@
+package auca.ac.rw.Online.quiz.management.service;
+
+import auca.ac.rw.Online.quiz.management.model.EQuestionType;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.en.EnglishAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.queryparser.simple.SimpleQueryParser;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.store.ByteBuffersDirectory;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.FSDirectory;
+import org.apache.lucene.store.LockObtainFailedException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Full-text index of the question bank: question text, option text and category, with
+ * English stemming and stop words, ranked by BM25. Lives in memory unless
+ * {@code app.question-bank.index-dir} is set. Lucene allows one writer per directory, so a
+ * second node or context on the same host that finds the directory locked uses an in-memory
+ * index instead of failing to start.
+ *
+ * An on-disk index is searchable as soon as the application starts; a full reindex then
+ * runs in the background to pick up anything changed while the node was down. An empty
+ * index (in memory, or a new directory) is not {@link #isReady() ready} until that first
+ * reindex finishes, and callers should fall back to the database meanwhile. After that,
+ * {@link SearchIndexListener} marks questions dirty as they (or their options) are written,
+ * and a short scheduled task re-reads them and refreshes the searcher, so writes show up
+ * within about {@code app.question-bank.refresh-interval-ms}.
+ */
+@Service
+public class QuestionBankSearchService {
+
+    private static final Logger log = LoggerFactory.getLogger(QuestionBankSearchService.class);
+
+    private static final String FIELD_ID = "id";
+    private static final String FIELD_QUIZ = "quizId";
+    private static final String FIELD_TYPE = "type";
+    private static final String FIELD_CATEGORY_KEY = "categoryKey";
+    private static final String FIELD_GENERATION = "generation";
+    private static final String FIELD_TEXT = "text";
+    private static final String FIELD_OPTIONS = "options";
+    private static final String FIELD_CATEGORY = "category";
+
+    // Question text matters most, then category, then option wording
+    private static final Map<String, Float> QUERY_FIELDS = Map.of(
+            FIELD_TEXT, 3f,
+            FIELD_CATEGORY, 2f,
+            FIELD_OPTIONS, 1f);
+
+    /** One search hit; the caller loads the question itself. */
+    public record Hit(long questionId, float score) {
+    }
+
+    public record Page(long total, List<Hit> hits) {
+    }
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final int batchSize;
+    private final Analyzer analyzer = new EnglishAnalyzer();
+    private final Directory directory;
+    private final IndexWriter writer;
+    private final SearcherManager searcherManager;
+
+    private final Set<Long> dirtyQuestionIds = ConcurrentHashMap.newKeySet();
+    // Serializes "read from DB, write documents" between the reindex and the dirty drain,
+    // so a reindex batch read before a commit cannot overwrite the drain's newer document
+    private final ReentrantLock writeLock = new ReentrantLock();
+    // Documents written under the current reindex carry this value; older ones are stale
+    private volatile String generation = Long.toString(System.currentTimeMillis());
+    // False while the index is empty and the first reindex has not finished
+    private volatile boolean ready;
+
+    public QuestionBankSearchService(
+            @Value("${app.question-bank.index-dir:}") String indexDir,
+            @Value("${app.question-bank.reindex-batch-size:500}") int batchSize) {
+        this.batchSize = batchSize;
+        boolean onDisk = indexDir != null && !indexDir.isBlank();
+        IndexWriter openedWriter = null;
+        Directory openedDirectory = null;
+        try {
+            if (onDisk) {
+                openedDirectory = FSDirectory.open(Path.of(indexDir));
+                try {
+                    openedWriter = openWriter(openedDirectory);
+                } catch (LockObtainFailedException ex) {
+                    log.warn("Question bank index at {} is locked by another process, using an in-memory index",
+                            indexDir);
+                    openedDirectory.close();
+                    onDisk = false;
+                }
+            }
+            if (!onDisk) {
+                openedDirectory = new ByteBuffersDirectory();
+                openedWriter = openWriter(openedDirectory);
+            }
+            this.directory = openedDirectory;
+            this.writer = openedWriter;
+            this.searcherManager = new SearcherManager(writer, null);
+            this.ready = writer.getDocStats().numDocs > 0;
+        } catch (IOException ex) {
+            throw new IllegalStateException("Could not open question bank index at " + indexDir, ex);
+        }
+        log.info("Question bank index opened at {} with {} documents",
+                onDisk ? indexDir : "<memory>", writer.getDocStats().numDocs);
+    }
+
+    private IndexWriter openWriter(Directory directory) throws IOException {
+        IndexWriterConfig config = new IndexWriterConfig(analyzer);
+        config.setOpenMode(IndexWriterConfig.OpenMode.CREATE_OR_APPEND);
+        return new IndexWriter(directory, config);
+    }
+
+    /** False when the index is in memory, by configuration or because the directory was locked. */
+    boolean isOnDisk() {
+        return !(directory instanceof ByteBuffersDirectory);
+    }
+
+    /**
+     * Whether {@link #search} sees the whole question bank: the index was loaded from disk or
+     * has been fully built since startup. Until then it may return nothing or a partial bank.
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Ranked question ids for {@code query}; a blank query lists every question that passes
+     * the filters. Null filters are ignored; {@code category} matches case-insensitively.
+     */
+    public Page search(String query, EQuestionType type, Long quizId, String category, int page, int size) {
+        BooleanQuery.Builder builder = new BooleanQuery.Builder();
+        if (query == null || query.isBlank()) {
+            builder.add(new MatchAllDocsQuery(), BooleanClause.Occur.MUST);
+        } else {
+            SimpleQueryParser parser = new SimpleQueryParser(analyzer, QUERY_FIELDS);
+            parser.setDefaultOperator(BooleanClause.Occur.MUST);
+            // Simple syntax only ("quotes", -exclude, prefix*), so user input never fails to parse
+            builder.add(parser.parse(query.trim()), BooleanClause.Occur.MUST);
+        }
+        if (type != null) {
+            builder.add(new TermQuery(new Term(FIELD_TYPE, type.name())), BooleanClause.Occur.FILTER);
+        }
+        if (quizId != null) {
+            builder.add(new TermQuery(new Term(FIELD_QUIZ, quizId.toString())), BooleanClause.Occur.FILTER);
+        }
+        if (category != null && !category.isBlank()) {
+            builder.add(new TermQuery(new Term(FIELD_CATEGORY_KEY, categoryKey(category))), BooleanClause.Occur.FILTER);
+        }
+        Query filtered = builder.build();
+
+        IndexSearcher searcher = null;
+        try {
+            searcher = searcherManager.acquire();
+            TopDocs top = searcher.search(filtered, (page + 1) * size);
+            List<Hit> hits = new ArrayList<>(size);
+            for (int i = page * size; i < top.scoreDocs.length; i++) {
+                ScoreDoc scoreDoc = top.scoreDocs[i];
+                String id = searcher.storedFields().document(scoreDoc.doc).get(FIELD_ID);
+                hits.add(new Hit(Long.parseLong(id), scoreDoc.score));
+            }
+            return new Page(searcher.count(filtered), hits);
+        } catch (IOException ex) {
+            throw new IllegalStateException("Question bank search failed", ex);
+        } finally {
+            if (searcher != null) {
+                try {
+                    searcherManager.release(searcher);
+                } catch (IOException ex) {
+                    log.warn("Could not release question bank searcher: {}", ex.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Re-indexes the question once the current transaction commits. For writes the entity
+     * listener cannot see, such as bulk JPQL deletes of options.
+     */
+    public void reindexAfterCommit(Long questionId) {
+        if (questionId == null) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    markDirty(questionId);
+                }
+            });
+        } else {
+            markDirty(questionId);
+        }
+    }
+
+    /** Called after commit; picked up by the next {@link #refreshDirty()}. */
+    void markDirty(Long questionId) {
+        if (questionId != null) {
+            dirtyQuestionIds.add(questionId);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.question-bank.refresh-interval-ms:1000}")
+    public void refreshDirty() {
+        if (dirtyQuestionIds.isEmpty()) {
+            return;
+        }
+        List<Long> ids = new ArrayList<>();
+        for (Long id : dirtyQuestionIds) {
+            if (ids.size() == batchSize) {
+                break;
+            }
+            ids.add(id);
+        }
+        // Remove before reading: a write committed after this point marks the id dirty again
+        ids.forEach(dirtyQuestionIds::remove);
+        try {
+            writeLock.lock();
+            try {
+                Map<Long, Document> documents = load(ids);
+                for (Long id : ids) {
+                    Document document = documents.get(id);
+                    if (document == null) {
+                        writer.deleteDocuments(new Term(FIELD_ID, id.toString()));
+                    } else {
+                        writer.updateDocument(new Term(FIELD_ID, id.toString()), document);
+                    }
+                }
+            } finally {
+                writeLock.unlock();
+            }
+            searcherManager.maybeRefresh();
+        } catch (IOException | RuntimeException ex) {
+            dirtyQuestionIds.addAll(ids);
+            log.error("Question bank index refresh failed, will retry: {}", ex.getMessage(), ex);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        Thread thread = new Thread(this::reindex, "question-bank-reindex");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Rewrites every question's document, then drops documents for questions that no longer
+     * exist. The previous documents stay searchable until the new ones are committed.
+     */
+    public void reindex() {
+        long start = System.nanoTime();
+        String reindexGeneration = Long.toString(System.currentTimeMillis());
+        generation = reindexGeneration;
+        long count = 0;
+        try {
+            long lastId = 0;
+            while (true) {
+                List<Long> ids = entityManager.createQuery(
+                        "SELECT q.id FROM Question q WHERE q.id > :lastId ORDER BY q.id", Long.class)
+                        .setParameter("lastId", lastId)
+                        .setMaxResults(batchSize)
+                        .getResultList();
+                if (ids.isEmpty()) {
+                    break;
+                }
+                writeLock.lock();
+                try {
+                    Map<Long, Document> documents = load(ids);
+                    for (Map.Entry<Long, Document> entry : documents.entrySet()) {
+                        writer.updateDocument(new Term(FIELD_ID, entry.getKey().toString()), entry.getValue());
+                    }
+                } finally {
+                    writeLock.unlock();
+                }
+                count += ids.size();
+                lastId = ids.get(ids.size() - 1);
+            }
+            writer.deleteDocuments(new BooleanQuery.Builder()
+                    .add(new MatchAllDocsQuery(), BooleanClause.Occur.MUST)
+                    .add(new TermQuery(new Term(FIELD_GENERATION, reindexGeneration)), BooleanClause.Occur.MUST_NOT)
+                    .build());
+            writer.commit();
+            searcherManager.maybeRefresh();
+            ready = true;
+        } catch (IOException | RuntimeException ex) {
+            log.error("Question bank reindex failed after {} questions: {}", count, ex.getMessage(), ex);
+            return;
+        }
+        log.info("Question bank index rebuilt: {} questions in {} ms", count, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /** Documents for the given question ids that still exist. Projections only, two queries per batch. */
+    private Map<Long, Document> load(List<Long> ids) {
+        Map<Long, List<String>> optionTexts = new HashMap<>();
+        for (Object[] row : entityManager.createQuery(
+                "SELECT o.question.id, o.text FROM Option o WHERE o.question.id IN :ids", Object[].class)
+                .setParameter("ids", ids)
+                .getResultList()) {
+            optionTexts.computeIfAbsent((Long) row[0], id -> new ArrayList<>()).add((String) row[1]);
+        }
+
+        String currentGeneration = generation;
+        Map<Long, Document> documents = new HashMap<>();
+        for (Object[] row : entityManager.createQuery(
+                "SELECT q.id, q.text, q.type, q.quiz.id, q.category FROM Question q WHERE q.id IN :ids", Object[].class)
+                .setParameter("ids", ids)
+                .getResultList()) {
+            Long id = (Long) row[0];
+            Document document = new Document();
+            document.add(new StringField(FIELD_ID, id.toString(), Field.Store.YES));
+            document.add(new StringField(FIELD_GENERATION, currentGeneration, Field.Store.NO));
+            if (row[2] != null) {
+                document.add(new StringField(FIELD_TYPE, ((EQuestionType) row[2]).name(), Field.Store.NO));
+            }
+            if (row[3] != null) {
+                document.add(new StringField(FIELD_QUIZ, row[3].toString(), Field.Store.NO));
+            }
+            if (row[1] != null) {
+                document.add(new TextField(FIELD_TEXT, (String) row[1], Field.Store.NO));
+            }
+            String category = (String) row[4];
+            if (category != null && !category.isBlank()) {
+                document.add(new TextField(FIELD_CATEGORY, category, Field.Store.NO));
+                document.add(new StringField(FIELD_CATEGORY_KEY, categoryKey(category), Field.Store.NO));
+            }
+            for (String optionText : optionTexts.getOrDefault(id, List.of())) {
+                if (optionText != null) {
+                    document.add(new TextField(FIELD_OPTIONS, optionText, Field.Store.NO));
+                }
+            }
+            documents.put(id, document);
+        }
+        return documents;
+    }
+
+    private static String categoryKey(String category) {
+        return category.trim().toLowerCase(Locale.ROOT);
+    }
+
+    @PreDestroy
+    public void close() {
+        try {
+            searcherManager.close();
+            writer.close(); // Commits pending changes
+            directory.close();
+        } catch (IOException ex) {
+            log.warn("Could not close question bank index cleanly: {}", ex.getMessage());
+        }
+    }
+}
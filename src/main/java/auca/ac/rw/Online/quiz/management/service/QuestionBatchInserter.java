@@ -0,0 +1,227 @@
+package auca.ac.rw.Online.quiz.management.service;
+
+import auca.ac.rw.Online.quiz.management.model.EQuestionType;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.SqlTypeValue;
+import org.springframework.jdbc.core.StatementCreatorUtils;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Validates new questions and writes them with their options in two JDBC batches: one
+ * multi-row question INSERT returning the generated ids, then one option INSERT for all of
+ * their options. Used by the file import, the bulk authoring endpoint and quiz cloning.
+ *
+ * JDBC writes bypass the entity listeners, so the search indexes are fed here once the
+ * surrounding transaction commits.
+ */
+@Service
+public class QuestionBatchInserter {
+
+    private static final String INSERT_QUESTION =
+            "INSERT INTO questions (text, type, quiz_id, category, points) VALUES (?, ?, ?, ?, ?)";
+    private static final String INSERT_OPTION =
+            "INSERT INTO options (text, correct, question_id) VALUES (?, ?, ?)";
+
+    private static final int MAX_TEXT = 1000;
+    private static final int MAX_OPTION_TEXT = 500;
+    private static final int MAX_CATEGORY = 255;
+
+    public record NewOption(String text, boolean correct) {
+    }
+
+    public record NewQuestion(long quizId, String text, EQuestionType type, int points, String category,
+            List<NewOption> options) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final SearchIndexService searchIndexService;
+    private final QuestionBankSearchService questionBankSearchService;
+    private final QuestionSamplingService questionSamplingService;
+
+    public QuestionBatchInserter(JdbcTemplate jdbcTemplate, SearchIndexService searchIndexService,
+            QuestionBankSearchService questionBankSearchService, QuestionSamplingService questionSamplingService) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.searchIndexService = searchIndexService;
+        this.questionBankSearchService = questionBankSearchService;
+        this.questionSamplingService = questionSamplingService;
+    }
+
+    /**
+     * Checks one question given as raw field values (null = absent) and applies the defaults:
+     * type MULTIPLE_CHOICE, 1 point, and a True/False pair for TRUE_FALSE without options.
+     *
+     * @throws IllegalArgumentException with a message suitable for the caller's error report
+     */
+    public static NewQuestion validate(String quizIdRaw, String text, String typeRaw, String pointsRaw,
+            String category, List<NewOption> options) {
+        if (quizIdRaw == null) {
+            throw new IllegalArgumentException("quizId is required");
+        }
+        long quizId;
+        try {
+            quizId = Long.parseLong(quizIdRaw);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("quizId must be a number");
+        }
+        if (text == null) {
+            throw new IllegalArgumentException("text is required");
+        }
+        if (text.length() > MAX_TEXT) {
+            throw new IllegalArgumentException("text is longer than " + MAX_TEXT + " characters");
+        }
+
+        EQuestionType type = EQuestionType.MULTIPLE_CHOICE;
+        if (typeRaw != null) {
+            try {
+                type = EQuestionType.valueOf(typeRaw.toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unknown question type '" + typeRaw + "'");
+            }
+        }
+
+        int points = 1;
+        if (pointsRaw != null) {
+            try {
+                points = Integer.parseInt(pointsRaw);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("points must be a whole number");
+            }
+            if (points <= 0) {
+                throw new IllegalArgumentException("points must be positive");
+            }
+        }
+
+        if (category != null && category.length() > MAX_CATEGORY) {
+            throw new IllegalArgumentException("category is longer than " + MAX_CATEGORY + " characters");
+        }
+
+        if (type == EQuestionType.TRUE_FALSE && options.isEmpty()) {
+            // Same default pair the question editor creates
+            options = List.of(new NewOption("True", false), new NewOption("False", false));
+        }
+        int correctCount = 0;
+        for (NewOption option : options) {
+            if (option.text().isEmpty()) {
+                throw new IllegalArgumentException("Option text must not be empty");
+            }
+            if (option.text().length() > MAX_OPTION_TEXT) {
+                throw new IllegalArgumentException("Option text is longer than " + MAX_OPTION_TEXT + " characters");
+            }
+            if (option.correct()) {
+                correctCount++;
+            }
+        }
+        if (type != EQuestionType.SHORT_ANSWER && type != EQuestionType.TRUE_FALSE) {
+            if (options.size() < 2) {
+                throw new IllegalArgumentException(type + " questions need at least two options");
+            }
+            if (correctCount == 0) {
+                throw new IllegalArgumentException("At least one option must be marked correct");
+            }
+        }
+        if ((type == EQuestionType.SINGLE_CHOICE || type == EQuestionType.TRUE_FALSE) && correctCount > 1) {
+            throw new IllegalArgumentException(type + " questions can have only one correct option");
+        }
+        return new NewQuestion(quizId, text, type, points, category, List.copyOf(options));
+    }
+
+    /** Generated ids: one per question, and per question one per option, in input order. */
+    public record Inserted(List<Long> questionIds, List<List<Long>> optionIds) {
+    }
+
+    /**
+     * Inserts the questions and their options in the current transaction (a new one if there is
+     * none) and returns the question ids in input order. The quizzes must exist.
+     */
+    @Transactional
+    public List<Long> insert(List<NewQuestion> questions) {
+        return insertWithOptionIds(questions).questionIds();
+    }
+
+    /** As {@link #insert}, also returning the generated option ids. */
+    @Transactional
+    public Inserted insertWithOptionIds(List<NewQuestion> questions) {
+        if (questions.isEmpty()) {
+            return new Inserted(List.of(), List.of());
+        }
+        List<Object[]> questionRows = new ArrayList<>(questions.size());
+        for (NewQuestion question : questions) {
+            questionRows.add(new Object[] {question.text(), question.type().name(), question.quizId(),
+                    question.category(), question.points()});
+        }
+        List<Long> ids = insertReturningIds(INSERT_QUESTION, questionRows);
+
+        List<Object[]> optionRows = new ArrayList<>();
+        for (int i = 0; i < questions.size(); i++) {
+            for (NewOption option : questions.get(i).options()) {
+                optionRows.add(new Object[] {option.text(), option.correct(), ids.get(i)});
+            }
+        }
+        List<Long> flatOptionIds = optionRows.isEmpty() ? List.of() : insertReturningIds(INSERT_OPTION, optionRows);
+        List<List<Long>> optionIds = new ArrayList<>(questions.size());
+        int next = 0;
+        for (NewQuestion question : questions) {
+            int count = question.options().size();
+            optionIds.add(flatOptionIds.subList(next, next + count));
+            next += count;
+        }
+
+        List<String> texts = questions.stream().map(NewQuestion::text).toList();
+        afterCommit(() -> {
+            for (int i = 0; i < ids.size(); i++) {
+                searchIndexService.questionSaved(ids.get(i), texts.get(i));
+                questionBankSearchService.markDirty(ids.get(i));
+            }
+            questionSamplingService.requestRebuild();
+        });
+        return new Inserted(ids, optionIds);
+    }
+
+    /** One JDBC batch; returns the generated ids in row order. */
+    private List<Long> insertReturningIds(String sql, List<Object[]> rows) {
+        return jdbcTemplate.execute((ConnectionCallback<List<Long>>) connection -> {
+            try (PreparedStatement ps = connection.prepareStatement(sql, new String[] {"id"})) {
+                for (Object[] row : rows) {
+                    for (int i = 0; i < row.length; i++) {
+                        // Same null handling as JdbcTemplate.batchUpdate
+                        StatementCreatorUtils.setParameterValue(ps, i + 1, SqlTypeValue.TYPE_UNKNOWN, row[i]);
+                    }
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+                List<Long> generated = new ArrayList<>(rows.size());
+                try (ResultSet keys = ps.getGeneratedKeys()) {
+                    while (keys.next()) {
+                        generated.add(keys.getLong(1));
+                    }
+                }
+                if (generated.size() != rows.size()) {
+                    throw new IllegalStateException("Expected " + rows.size() + " generated ids, got " + generated.size());
+                }
+                return generated;
+            }
+        });
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
@@ -0,0 +1,265 @@
+package auca.ac.rw.Online.quiz.management.service;
+
+import auca.ac.rw.Online.quiz.management.model.EQuestionType;
+import auca.ac.rw.Online.quiz.management.util.CsvWriter;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Streams questions with their options as NDJSON or CSV, in the same shapes
+ * {@link QuestionImportService} reads back.
+ *
+ * Questions and options come from one LEFT JOIN ordered by question id and read through a
+ * forward-only cursor ({@code app.bulk.export.fetch-size} rows per round trip). Consecutive rows
+ * of the same question are folded into one record, so only the question being written is held
+ * in memory.
+ */
+@Service
+public class QuestionExportService {
+
+    private static final Logger log = LoggerFactory.getLogger(QuestionExportService.class);
+
+    private static final String SELECT = "SELECT q.id, q.quiz_id, q.text, q.type, q.points, q.category, "
+            + "o.text AS option_text, o.correct FROM questions q LEFT JOIN options o ON o.question_id = q.id";
+
+    private static final String[] CSV_HEADER = {"id", "quizId", "text", "type", "points", "category", "options", "correct"};
+
+    public enum Format {
+        NDJSON, CSV;
+
+        public static Format parse(String format) {
+            if (format == null || format.isBlank()) {
+                return NDJSON;
+            }
+            String lower = format.trim().toLowerCase(Locale.ROOT);
+            return switch (lower) {
+                case "ndjson", "jsonl" -> NDJSON;
+                case "csv" -> CSV;
+                default -> throw new IllegalArgumentException("Unsupported export format '" + format + "'");
+            };
+        }
+
+        public String extension() {
+            return this == CSV ? "csv" : "ndjson";
+        }
+
+        public String contentType() {
+            return this == CSV ? "text/csv; charset=UTF-8" : "application/x-ndjson";
+        }
+    }
+
+    /** Optional filters; null means no filter. Category matches case-insensitively. */
+    public record Filter(Long quizId, String category, EQuestionType type) {
+    }
+
+    private static final class Current {
+        long id;
+        long quizId;
+        String text;
+        String type;
+        Integer points;
+        String category;
+        final List<String> optionTexts = new ArrayList<>();
+        final List<Boolean> optionCorrect = new ArrayList<>();
+    }
+
+    /** Writes one folded question in the chosen format. */
+    private interface RecordWriter {
+        void write(Current question) throws IOException;
+
+        void finish() throws IOException;
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final int fetchSize;
+
+    public QuestionExportService(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+            ObjectMapper objectMapper, @Value("${app.bulk.export.fetch-size:1000}") int fetchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.objectMapper = objectMapper;
+        this.fetchSize = fetchSize;
+    }
+
+    /**
+     * Writes every matching question to {@code out} and returns how many were written. The
+     * stream is flushed but not closed.
+     */
+    public long export(Filter filter, Format format, OutputStream out) throws IOException {
+        long start = System.nanoTime();
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+        RecordWriter records = format == Format.CSV ? csvWriter(writer) : ndjsonWriter(writer);
+
+        StringBuilder sql = new StringBuilder(SELECT).append(" WHERE 1 = 1");
+        List<Object> args = new ArrayList<>();
+        if (filter.quizId() != null) {
+            sql.append(" AND q.quiz_id = ?");
+            args.add(filter.quizId());
+        }
+        if (filter.category() != null) {
+            sql.append(" AND LOWER(q.category) = ?");
+            args.add(filter.category().trim().toLowerCase(Locale.ROOT));
+        }
+        if (filter.type() != null) {
+            sql.append(" AND q.type = ?");
+            args.add(filter.type().name());
+        }
+        sql.append(" ORDER BY q.id, o.id");
+
+        long[] count = new long[1];
+        try {
+            // A transaction keeps the PostgreSQL driver on a server-side cursor instead of
+            // buffering the whole result
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.query(connection -> {
+                PreparedStatement ps = connection.prepareStatement(sql.toString(),
+                        ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                ps.setFetchSize(fetchSize);
+                for (int i = 0; i < args.size(); i++) {
+                    ps.setObject(i + 1, args.get(i));
+                }
+                return ps;
+            }, (ResultSet rs) -> {
+                Current current = null;
+                while (rs.next()) {
+                    long id = rs.getLong(1);
+                    if (current == null || current.id != id) {
+                        if (current != null) {
+                            write(records, current);
+                            count[0]++;
+                        }
+                        current = read(rs, id);
+                    }
+                    String optionText = rs.getString(7);
+                    if (optionText != null) {
+                        current.optionTexts.add(optionText);
+                        current.optionCorrect.add(rs.getBoolean(8));
+                    }
+                }
+                if (current != null) {
+                    write(records, current);
+                    count[0]++;
+                }
+                return null;
+            }));
+        } catch (UncheckedIOException e) {
+            // Typically the client went away mid-download
+            throw e.getCause();
+        }
+        records.finish();
+        writer.flush();
+
+        log.info("Question export ({}): {} questions in {} ms", format, count[0], (System.nanoTime() - start) / 1_000_000);
+        return count[0];
+    }
+
+    private static Current read(ResultSet rs, long id) throws SQLException {
+        Current current = new Current();
+        current.id = id;
+        current.quizId = rs.getLong(2);
+        current.text = rs.getString(3);
+        current.type = rs.getString(4);
+        int points = rs.getInt(5);
+        current.points = rs.wasNull() ? null : points;
+        current.category = rs.getString(6);
+        return current;
+    }
+
+    private static void write(RecordWriter records, Current question) {
+        try {
+            records.write(question);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private RecordWriter ndjsonWriter(Writer writer) throws IOException {
+        JsonGenerator json = objectMapper.getFactory().createGenerator(writer);
+        json.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        json.disable(JsonGenerator.Feature.FLUSH_PASSED_TO_STREAM);
+        json.setRootValueSeparator(null); // Records are newline separated below
+        return new RecordWriter() {
+            @Override
+            public void write(Current q) throws IOException {
+                json.writeStartObject();
+                json.writeNumberField("id", q.id);
+                json.writeNumberField("quizId", q.quizId);
+                json.writeStringField("text", q.text);
+                json.writeStringField("type", q.type);
+                if (q.points != null) {
+                    json.writeNumberField("points", q.points);
+                }
+                if (q.category != null) {
+                    json.writeStringField("category", q.category);
+                }
+                json.writeArrayFieldStart("options");
+                for (int i = 0; i < q.optionTexts.size(); i++) {
+                    json.writeStartObject();
+                    json.writeStringField("text", q.optionTexts.get(i));
+                    json.writeBooleanField("isCorrect", q.optionCorrect.get(i));
+                    json.writeEndObject();
+                }
+                json.writeEndArray();
+                json.writeEndObject();
+                json.flush();
+                writer.write('\n');
+            }
+
+            @Override
+            public void finish() throws IOException {
+                json.close();
+            }
+        };
+    }
+
+    private RecordWriter csvWriter(Writer writer) throws IOException {
+        CsvWriter csv = new CsvWriter(writer);
+        csv.writeRecord(CSV_HEADER);
+        return new RecordWriter() {
+            @Override
+            public void write(Current q) throws IOException {
+                // Options joined with | (escaped inside option text) and the correct ones as 1-based
+                // positions, as the importer expects
+                StringBuilder correct = new StringBuilder();
+                for (int i = 0; i < q.optionCorrect.size(); i++) {
+                    if (q.optionCorrect.get(i)) {
+                        if (!correct.isEmpty()) {
+                            correct.append('|');
+                        }
+                        correct.append(i + 1);
+                    }
+                }
+                csv.writeRecord(String.valueOf(q.id), String.valueOf(q.quizId), q.text, q.type,
+                        q.points == null ? null : String.valueOf(q.points), q.category,
+                        CsvWriter.joinEscaped(q.optionTexts, '|'), correct.toString());
+            }
+
+            @Override
+            public void finish() {
+                // Nothing buffered beyond the writer
+            }
+        };
+    }
+}
@@ -0,0 +1,436 @@
+package auca.ac.rw.Online.quiz.management.service;
+
+import auca.ac.rw.Online.quiz.management.service.QuestionBatchInserter.NewOption;
+import auca.ac.rw.Online.quiz.management.service.QuestionBatchInserter.NewQuestion;
+import auca.ac.rw.Online.quiz.management.util.CsvReader;
+import auca.ac.rw.Online.quiz.management.util.CsvWriter;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Streams a question bank file (CSV or NDJSON) into the database.
+ *
+ * Rows are parsed one at a time, validated, and collected into chunks of
+ * {@code app.bulk.import.chunk-size}. Each chunk is written with JDBC batch inserts (questions,
+ * then their options) in its own transaction. Memory therefore stays bounded by one chunk
+ * plus the capped error list, whatever the file size. If a chunk fails in the database, its
+ * rows are retried one at a time so that only the offending rows are reported.
+ *
+ * CSV needs a header row. {@code quizId} and {@code text} are required. {@code type},
+ * {@code points}, {@code category}, {@code options} and {@code correct} are optional.
+ * {@code options} is separated by {@code |}; a {@code |} or backslash inside an option is
+ * written {@code \|} or {@code \\} (see {@link CsvWriter#joinEscaped}), as the export does.
+ * {@code correct} lists the correct options by 1-based position or by text, also separated
+ * by {@code |}. NDJSON takes one JSON object per line, shaped like the question create
+ * payload: {@code {"quizId":1,"text":"..","options":[{"text":"..","isCorrect":true}]}}.
+ */
+@Service
+public class QuestionImportService {
+
+    private static final Logger log = LoggerFactory.getLogger(QuestionImportService.class);
+
+    private static final int MAX_RECORD_CHARS = 64 * 1024;
+    private static final int KNOWN_QUIZ_CACHE_LIMIT = 10_000;
+
+    public enum Format {
+        CSV, NDJSON;
+
+        /** From an explicit format name, else the file extension; null if neither is recognised. */
+        public static Format detect(String format, String filename) {
+            String hint = format != null && !format.isBlank() ? format : filename;
+            if (hint == null) {
+                return null;
+            }
+            String lower = hint.trim().toLowerCase(Locale.ROOT);
+            if (lower.equals("csv") || lower.endsWith(".csv")) {
+                return CSV;
+            }
+            if (lower.equals("ndjson") || lower.equals("jsonl")
+                    || lower.endsWith(".ndjson") || lower.endsWith(".jsonl")) {
+                return NDJSON;
+            }
+            return null;
+        }
+    }
+
+    public record RowError(long row, String message) {
+    }
+
+    /**
+     * @param rows data rows read (CSV header excluded)
+     * @param aborted true if the file could not be read to the end; rows before that were kept
+     */
+    public record ImportReport(long rows, long imported, long failed, List<RowError> errors,
+            boolean errorsTruncated, boolean aborted) {
+    }
+
+    /** A validated question and the line it came from. */
+    private record QuestionRow(long row, NewQuestion question) {
+    }
+
+    /** Counters and the capped error list for one import. */
+    private final class Progress {
+        long rows;
+        long imported;
+        long failed;
+        boolean aborted;
+        final List<RowError> errors = new ArrayList<>();
+        boolean errorsTruncated;
+
+        void fail(long row, String message) {
+            failed++;
+            if (errors.size() < maxErrors) {
+                errors.add(new RowError(row, message));
+            } else {
+                errorsTruncated = true;
+            }
+        }
+
+        ImportReport report() {
+            return new ImportReport(rows, imported, failed, Collections.unmodifiableList(errors), errorsTruncated, aborted);
+        }
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final QuestionBatchInserter inserter;
+    private final int chunkSize;
+    private final int maxErrors;
+
+    public QuestionImportService(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+            ObjectMapper objectMapper, QuestionBatchInserter inserter,
+            @Value("${app.bulk.import.chunk-size:500}") int chunkSize,
+            @Value("${app.bulk.import.max-errors:1000}") int maxErrors) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.objectMapper = objectMapper;
+        this.inserter = inserter;
+        this.chunkSize = chunkSize;
+        this.maxErrors = maxErrors;
+    }
+
+    /**
+     * Imports every valid row of {@code in}. Invalid rows are reported and skipped.
+     *
+     * @throws IllegalArgumentException if the CSV header lacks a required column
+     */
+    public ImportReport importQuestions(InputStream in, Format format) throws IOException {
+        long start = System.nanoTime();
+        Progress progress = new Progress();
+        Map<Long, Boolean> knownQuizzes = new HashMap<>();
+        List<QuestionRow> chunk = new ArrayList<>(chunkSize);
+
+        Reader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8), 64 * 1024);
+        RowSource source = format == Format.CSV ? new CsvSource(reader) : new NdjsonSource(reader);
+        while (true) {
+            QuestionRow row;
+            try {
+                row = source.next(progress);
+            } catch (IOException e) {
+                // Unreadable from here on (e.g. an unterminated quote): keep what was imported
+                progress.aborted = true;
+                progress.fail(source.position(), "Stopped reading: " + e.getMessage());
+                break;
+            }
+            if (row == END) {
+                break;
+            }
+            if (row != null) {
+                chunk.add(row);
+                if (chunk.size() == chunkSize) {
+                    flush(chunk, knownQuizzes, progress);
+                }
+            }
+        }
+        flush(chunk, knownQuizzes, progress);
+
+        log.info("Question import ({}): {} rows, {} imported, {} failed in {} ms", format, progress.rows,
+                progress.imported, progress.failed, (System.nanoTime() - start) / 1_000_000);
+        return progress.report();
+    }
+
+    // ----- parsing -----
+
+    private static final QuestionRow END = new QuestionRow(-1, null);
+
+    /** Yields validated rows; null for a rejected row (already reported), END when done. */
+    private abstract class RowSource {
+        abstract QuestionRow next(Progress progress) throws IOException;
+
+        /** Line of the row last read, for error reports. */
+        abstract long position();
+    }
+
+    private final class CsvSource extends RowSource {
+        private final CsvReader csv;
+        private Map<String, Integer> columns;
+
+        CsvSource(Reader reader) {
+            this.csv = new CsvReader(reader, MAX_RECORD_CHARS);
+        }
+
+        @Override
+        QuestionRow next(Progress progress) throws IOException {
+            if (columns == null) {
+                List<String> header = csv.next();
+                if (header == null) {
+                    return END;
+                }
+                columns = new HashMap<>();
+                for (int i = 0; i < header.size(); i++) {
+                    columns.put(header.get(i).trim().toLowerCase(Locale.ROOT), i);
+                }
+                if (!columns.containsKey("quizid") || !columns.containsKey("text")) {
+                    throw new IllegalArgumentException("CSV header must include quizId and text columns");
+                }
+            }
+
+            List<String> record;
+            try {
+                record = csv.next();
+            } catch (CsvReader.RecordTooLongException e) {
+                progress.rows++;
+                progress.fail(csv.recordStartLine(), e.getMessage());
+                return null;
+            }
+            if (record == null) {
+                return END;
+            }
+            progress.rows++;
+            long line = csv.recordStartLine();
+            try {
+                List<NewOption> options = csvOptions(get(record, "options"), get(record, "correct"));
+                return new QuestionRow(line, QuestionBatchInserter.validate(get(record, "quizid"), get(record, "text"),
+                        get(record, "type"), get(record, "points"), get(record, "category"), options));
+            } catch (IllegalArgumentException e) {
+                progress.fail(line, e.getMessage());
+                return null;
+            }
+        }
+
+        @Override
+        long position() {
+            return csv.recordStartLine();
+        }
+
+        private String get(List<String> record, String column) {
+            Integer index = columns.get(column);
+            if (index == null || index >= record.size()) {
+                return null;
+            }
+            String value = record.get(index).trim();
+            return value.isEmpty() ? null : value;
+        }
+
+        private List<NewOption> csvOptions(String options, String correct) {
+            if (options == null) {
+                return List.of();
+            }
+            List<String> texts = CsvReader.splitEscaped(options, '|');
+            Set<Integer> correctPositions = new HashSet<>();
+            if (correct != null) {
+                for (String token : CsvReader.splitEscaped(correct, '|')) {
+                    String t = token.trim();
+                    if (t.isEmpty()) {
+                        continue;
+                    }
+                    int position = -1;
+                    if (t.chars().allMatch(Character::isDigit)) {
+                        position = Integer.parseInt(t) - 1;
+                    } else {
+                        for (int i = 0; i < texts.size(); i++) {
+                            if (texts.get(i).trim().equalsIgnoreCase(t)) {
+                                position = i;
+                                break;
+                            }
+                        }
+                    }
+                    if (position < 0 || position >= texts.size()) {
+                        throw new IllegalArgumentException("correct refers to unknown option '" + t + "'");
+                    }
+                    correctPositions.add(position);
+                }
+            }
+            List<NewOption> result = new ArrayList<>(texts.size());
+            for (int i = 0; i < texts.size(); i++) {
+                result.add(new NewOption(texts.get(i).trim(), correctPositions.contains(i)));
+            }
+            return result;
+        }
+    }
+
+    private final class NdjsonSource extends RowSource {
+        private final Reader reader;
+        private final StringBuilder line = new StringBuilder();
+        private long lineNumber;
+        private boolean eof;
+
+        NdjsonSource(Reader reader) {
+            this.reader = reader;
+        }
+
+        @Override
+        QuestionRow next(Progress progress) throws IOException {
+            while (true) {
+                if (eof) {
+                    return END;
+                }
+                boolean tooLong = readLine();
+                if (!tooLong && line.toString().isBlank()) {
+                    continue;
+                }
+                progress.rows++;
+                if (tooLong) {
+                    progress.fail(lineNumber, "Line is longer than " + MAX_RECORD_CHARS + " characters");
+                    return null;
+                }
+                try {
+                    JsonNode node = objectMapper.readTree(line.toString());
+                    if (node == null || !node.isObject()) {
+                        throw new IllegalArgumentException("Line is not a JSON object");
+                    }
+                    return new QuestionRow(lineNumber, QuestionBatchInserter.validate(text(node, "quizId"),
+                            text(node, "text"), text(node, "type"), text(node, "points"), text(node, "category"),
+                            jsonOptions(node.get("options"))));
+                } catch (JsonProcessingException e) {
+                    progress.fail(lineNumber, "Invalid JSON: " + e.getOriginalMessage());
+                    return null;
+                } catch (IllegalArgumentException e) {
+                    progress.fail(lineNumber, e.getMessage());
+                    return null;
+                }
+            }
+        }
+
+        @Override
+        long position() {
+            return lineNumber;
+        }
+
+        /** Reads one line into {@code line}, keeping at most MAX_RECORD_CHARS; true if it was longer. */
+        private boolean readLine() throws IOException {
+            line.setLength(0);
+            lineNumber++;
+            boolean tooLong = false;
+            int c;
+            while ((c = reader.read()) != -1 && c != '\n') {
+                if (line.length() < MAX_RECORD_CHARS) {
+                    line.append((char) c);
+                } else {
+                    tooLong = true;
+                }
+            }
+            if (c == -1) {
+                eof = true;
+            }
+            return tooLong;
+        }
+
+        private String text(JsonNode node, String field) {
+            JsonNode value = node.get(field);
+            if (value == null || value.isNull()) {
+                return null;
+            }
+            String text = value.asText().trim();
+            return text.isEmpty() ? null : text;
+        }
+
+        private List<NewOption> jsonOptions(JsonNode options) {
+            if (options == null || options.isNull()) {
+                return List.of();
+            }
+            if (!options.isArray()) {
+                throw new IllegalArgumentException("options must be an array");
+            }
+            List<NewOption> result = new ArrayList<>(options.size());
+            for (JsonNode option : options) {
+                JsonNode correct = option.has("isCorrect") ? option.get("isCorrect") : option.get("correct");
+                result.add(new NewOption(option.path("text").asText("").trim(), correct != null && correct.asBoolean()));
+            }
+            return result;
+        }
+    }
+
+    // ----- writing -----
+
+    private void flush(List<QuestionRow> chunk, Map<Long, Boolean> knownQuizzes, Progress progress) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        List<QuestionRow> valid = new ArrayList<>(chunk.size());
+        resolveQuizzes(chunk, knownQuizzes);
+        for (QuestionRow row : chunk) {
+            if (Boolean.TRUE.equals(knownQuizzes.get(row.question().quizId()))) {
+                valid.add(row);
+            } else {
+                progress.fail(row.row(), "Quiz " + row.question().quizId() + " does not exist");
+            }
+        }
+        chunk.clear();
+        if (valid.isEmpty()) {
+            return;
+        }
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> inserter.insert(valid.stream().map(QuestionRow::question).toList()));
+            progress.imported += valid.size();
+        } catch (DataAccessException e) {
+            // Find the offending rows instead of failing the whole chunk
+            log.warn("Question import chunk failed ({}), retrying its {} rows one by one", e.getMostSpecificCause().getMessage(), valid.size());
+            for (QuestionRow row : valid) {
+                try {
+                    transactionTemplate.executeWithoutResult(status -> inserter.insert(List.of(row.question())));
+                    progress.imported++;
+                } catch (DataAccessException rowError) {
+                    progress.fail(row.row(), "Database rejected the row: " + rowError.getMostSpecificCause().getMessage());
+                }
+            }
+        }
+    }
+
+    /** Fills {@code knownQuizzes} for the chunk's quiz ids with one IN query. */
+    private void resolveQuizzes(List<QuestionRow> chunk, Map<Long, Boolean> knownQuizzes) {
+        if (knownQuizzes.size() > KNOWN_QUIZ_CACHE_LIMIT) {
+            knownQuizzes.clear();
+        }
+        Set<Long> unknown = new HashSet<>();
+        for (QuestionRow row : chunk) {
+            if (!knownQuizzes.containsKey(row.question().quizId())) {
+                unknown.add(row.question().quizId());
+            }
+        }
+        if (unknown.isEmpty()) {
+            return;
+        }
+        String placeholders = String.join(",", Collections.nCopies(unknown.size(), "?"));
+        Set<Long> existing = new HashSet<>(jdbcTemplate.queryForList(
+                "SELECT id FROM quizzes WHERE id IN (" + placeholders + ")", Long.class, unknown.toArray()));
+        for (Long id : unknown) {
+            knownQuizzes.put(id, existing.contains(id));
+        }
+    }
+}
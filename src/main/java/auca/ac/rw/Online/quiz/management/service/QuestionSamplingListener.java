@@ -0,0 +1,40 @@
+package auca.ac.rw.Online.quiz.management.service;
+
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * JPA entity listener that asks {@link QuestionSamplingService} to rebuild its category banks
+ * once a transaction that wrote a question commits.
+ */
+@Component
+public class QuestionSamplingListener {
+
+    // Resolved lazily: Hibernate creates listeners while the EntityManagerFactory is starting
+    private final ObjectProvider<QuestionSamplingService> questionSamplingService;
+
+    public QuestionSamplingListener(ObjectProvider<QuestionSamplingService> questionSamplingService) {
+        this.questionSamplingService = questionSamplingService;
+    }
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void onChanged(Object entity) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    questionSamplingService.getObject().requestRebuild();
+                }
+            });
+        } else {
+            questionSamplingService.getObject().requestRebuild();
+        }
+    }
+}
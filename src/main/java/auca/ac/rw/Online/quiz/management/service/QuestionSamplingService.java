@@ -0,0 +1,230 @@
+package auca.ac.rw.Online.quiz.management.service;
+
+import auca.ac.rw.Online.quiz.management.model.QuizSamplingRule;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+/**
+ * Draws random exam papers from the question bank, N questions per category.
+ *
+ * The bank is held in memory as one sorted id array per category key (lower-cased category).
+ * A draw of k questions from a category of n uses Floyd's algorithm: O(k) time and memory
+ * whatever n is, and no shuffle of the bank. Draws are seeded from the attempt, and the
+ * resulting ids are stored on the attempt, so grading and review read back the exact paper
+ * even after the bank changes.
+ *
+ * The arrays are rebuilt at startup and in the background after committed question writes
+ * ({@link QuestionSamplingListener}, plus JDBC inserts via {@link QuestionBatchInserter}).
+ */
+@Service
+public class QuestionSamplingService {
+
+    private static final Logger log = LoggerFactory.getLogger(QuestionSamplingService.class);
+
+    private static final long[] EMPTY = new long[0];
+
+    private final AtomicBoolean rebuildPending = new AtomicBoolean();
+    private final ExecutorService rebuildExecutor;
+    private final Object buildLock = new Object();
+    private volatile Map<String, long[]> banks;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public QuestionSamplingService() {
+        this.rebuildExecutor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "question-sampling-rebuild");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        rebuild();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        rebuildExecutor.shutdownNow();
+    }
+
+    public static String categoryKey(String category) {
+        return category == null ? "" : category.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /** Number of bank questions in the category. */
+    public int bankSize(String category) {
+        return banks().getOrDefault(categoryKey(category), EMPTY).length;
+    }
+
+    /**
+     * Draws a paper: for each rule, {@code questionCount} distinct questions of its category,
+     * then the whole paper in random order. The same seed and bank give the same paper.
+     *
+     * @throws IllegalStateException if a category has fewer questions than its rule asks for
+     */
+    public List<Long> sample(List<QuizSamplingRule> rules, long seed) {
+        // Rules naming the same category draw from it once, so a question cannot appear twice
+        Map<String, Integer> wanted = new LinkedHashMap<>();
+        for (QuizSamplingRule rule : rules) {
+            wanted.merge(categoryKey(rule.getCategory()), rule.getQuestionCount(), Integer::sum);
+        }
+
+        Map<String, long[]> current = banks();
+        SplittableRandom random = new SplittableRandom(seed);
+        List<Long> paper = new ArrayList<>();
+        for (Map.Entry<String, Integer> entry : wanted.entrySet()) {
+            long[] bank = current.getOrDefault(entry.getKey(), EMPTY);
+            int k = entry.getValue();
+            if (k > bank.length) {
+                throw new IllegalStateException("Category '" + entry.getKey() + "' has " + bank.length
+                        + " questions but the quiz draws " + k);
+            }
+            for (int index : floyd(bank.length, k, random)) {
+                paper.add(bank[index]);
+            }
+        }
+        // Fisher-Yates over the k drawn ids only, so categories are interleaved
+        for (int i = paper.size() - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            Long swap = paper.get(i);
+            paper.set(i, paper.get(j));
+            paper.set(j, swap);
+        }
+        return paper;
+    }
+
+    /** Seed of an attempt's paper; spreads consecutive attempt ids over the whole seed space. */
+    public static long seedFor(long quizId, long attemptId) {
+        long z = attemptId * 0x9E3779B97F4A7C15L + quizId;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    public static String encode(List<Long> questionIds) {
+        StringBuilder out = new StringBuilder();
+        for (Long id : questionIds) {
+            if (!out.isEmpty()) {
+                out.append(',');
+            }
+            out.append(id);
+        }
+        return out.toString();
+    }
+
+    /** The ids stored by {@link #encode}, in order; empty for null or blank. */
+    public static List<Long> decode(String questionIds) {
+        List<Long> ids = new ArrayList<>();
+        if (questionIds == null || questionIds.isBlank()) {
+            return ids;
+        }
+        for (String id : questionIds.split(",")) {
+            ids.add(Long.parseLong(id.trim()));
+        }
+        return ids;
+    }
+
+    /**
+     * Floyd's algorithm: k distinct indices from [0, n), each k-subset equally likely.
+     * Only the chosen indices are stored.
+     */
+    static int[] floyd(int n, int k, SplittableRandom random) {
+        Set<Integer> chosen = new HashSet<>(k * 2);
+        int[] result = new int[k];
+        int size = 0;
+        for (int j = n - k; j < n; j++) {
+            int t = random.nextInt(j + 1);
+            int pick = chosen.contains(t) ? j : t;
+            chosen.add(pick);
+            result[size++] = pick;
+        }
+        return result;
+    }
+
+    /** Schedules a rebuild; bursts of question writes collapse into one. */
+    public void requestRebuild() {
+        if (rebuildPending.compareAndSet(false, true)) {
+            rebuildExecutor.execute(() -> {
+                rebuildPending.set(false);
+                rebuild();
+            });
+        }
+    }
+
+    private Map<String, long[]> banks() {
+        Map<String, long[]> current = banks;
+        if (current == null) {
+            // First draw beat the startup build
+            synchronized (buildLock) {
+                if (banks == null) {
+                    rebuild();
+                }
+                current = banks;
+            }
+        }
+        return current;
+    }
+
+    public void rebuild() {
+        long start = System.nanoTime();
+        synchronized (buildLock) {
+            List<Object[]> rows;
+            try {
+                rows = entityManager.createQuery(
+                        "SELECT q.id, q.category FROM Question q WHERE q.category IS NOT NULL", Object[].class)
+                        .getResultList();
+            } catch (RuntimeException ex) {
+                log.error("Question sampling bank rebuild failed, keeping the previous bank: {}", ex.getMessage(), ex);
+                if (banks == null) {
+                    banks = Map.of();
+                }
+                return;
+            }
+
+            Map<String, long[]> built = new HashMap<>();
+            Map<String, Integer> sizes = new HashMap<>();
+            for (Object[] row : rows) {
+                String key = categoryKey((String) row[1]);
+                if (key.isEmpty()) {
+                    continue;
+                }
+                long[] ids = built.computeIfAbsent(key, k -> new long[16]);
+                int size = sizes.merge(key, 1, Integer::sum);
+                if (size > ids.length) {
+                    ids = Arrays.copyOf(ids, ids.length * 2);
+                    built.put(key, ids);
+                }
+                ids[size - 1] = (Long) row[0];
+            }
+            for (Map.Entry<String, long[]> entry : built.entrySet()) {
+                long[] ids = Arrays.copyOf(entry.getValue(), sizes.get(entry.getKey()));
+                Arrays.sort(ids);
+                entry.setValue(ids);
+            }
+            banks = built;
+            log.info("Question sampling bank built: {} questions in {} categories in {} ms",
+                    rows.size(), built.size(), (System.nanoTime() - start) / 1_000_000);
+        }
+    }
+}
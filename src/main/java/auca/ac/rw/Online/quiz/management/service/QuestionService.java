@@ -1,10 +1,12 @@
 package auca.ac.rw.Online.quiz.management.service;
 
+import auca.ac.rw.Online.quiz.management.model.EQuestionType;
 import auca.ac.rw.Online.quiz.management.model.Question;
 import auca.ac.rw.Online.quiz.management.repository.QuestionRepository;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
+import java.util.Locale;
 import java.util.Optional;
 
 @Service
@@ -17,8 +19,8 @@ public class QuestionService {
 
     public List<Question> findAll() { return questionRepository.findAll(); }
     public Optional<Question> findById(Long id) { return questionRepository.findById(id); }
+    public List<Question> findAllById(List<Long> ids) { return questionRepository.findAllById(ids); }
     public Question save(Question question) { return questionRepository.save(question); }
-    public void deleteById(Long id) { questionRepository.deleteById(id); }
     
     public org.springframework.data.domain.Page<Question> search(String q, org.springframework.data.domain.Pageable pageable) {
         if (q == null || q.isBlank()) {
@@ -27,8 +29,16 @@ public class QuestionService {
         return questionRepository.findByTextContainingIgnoreCase(q, pageable);
     }
     
+    /** Substring bank search from the database, for while the full-text index is still being built. */
+    public org.springframework.data.domain.Page<Question> searchBank(String q, EQuestionType type, Long quizId,
+            String category, org.springframework.data.domain.Pageable pageable) {
+        String text = q == null || q.isBlank() ? null : q.trim().toLowerCase(Locale.ROOT);
+        String categoryKey = category == null || category.isBlank() ? null : category.trim().toLowerCase(Locale.ROOT);
+        return questionRepository.searchBank(text, type, quizId, categoryKey, pageable);
+    }
+
     public List<Question> findByQuizId(Long quizId) {
-        return questionRepository.findByQuizId(quizId);
+        return questionRepository.findByQuizIdWithOptions(quizId);
     }
 }
 
@@ -0,0 +1,128 @@
+package auca.ac.rw.Online.quiz.management.service;
+
+import auca.ac.rw.Online.quiz.management.model.EQuestionType;
+import auca.ac.rw.Online.quiz.management.model.EQuizStatus;
+import auca.ac.rw.Online.quiz.management.model.Quiz;
+import auca.ac.rw.Online.quiz.management.model.User;
+import auca.ac.rw.Online.quiz.management.repository.QuizRepository;
+import auca.ac.rw.Online.quiz.management.service.QuestionBatchInserter.NewOption;
+import auca.ac.rw.Online.quiz.management.service.QuestionBatchInserter.NewQuestion;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Deep-copies a quiz with its questions, options and sampling rules in one transaction.
+ *
+ * The round trips are fixed whatever the quiz size: the quiz row, one SELECT for all questions
+ * and options, one question batch and one option batch (both returning generated ids), and one
+ * INSERT ... SELECT for the sampling rules. The copy starts as a DRAFT without a schedule.
+ */
+@Service
+public class QuizCloneService {
+
+    private static final Logger log = LoggerFactory.getLogger(QuizCloneService.class);
+
+    /** The new quiz and, for every copied question and option, source id to copy id. */
+    public record CloneResult(Long quizId, Map<Long, Long> questionIds, Map<Long, Long> optionIds) {
+    }
+
+    private record SourceQuestion(long id, NewQuestion copy, List<Long> optionIds) {
+    }
+
+    private final QuizRepository quizRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final QuestionBatchInserter questionBatchInserter;
+    private final AuditService auditService;
+
+    public QuizCloneService(QuizRepository quizRepository, JdbcTemplate jdbcTemplate,
+            QuestionBatchInserter questionBatchInserter, AuditService auditService) {
+        this.quizRepository = quizRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.questionBatchInserter = questionBatchInserter;
+        this.auditService = auditService;
+    }
+
+    /**
+     * Copies quiz {@code sourceId}; empty if it does not exist.
+     *
+     * @param title title of the copy, or null for "&lt;source title&gt; (copy)"
+     * @param owner creator of the copy, or null to keep the source's creator
+     */
+    @Transactional
+    public Optional<CloneResult> cloneQuiz(Long sourceId, String title, User owner) {
+        Optional<Quiz> found = quizRepository.findById(sourceId);
+        if (found.isEmpty()) {
+            return Optional.empty();
+        }
+        long start = System.nanoTime();
+        Quiz source = found.get();
+
+        Quiz copy = new Quiz();
+        copy.setTitle(title != null && !title.isBlank() ? title.trim() : source.getTitle() + " (copy)");
+        copy.setStatus(EQuizStatus.DRAFT);
+        copy.setDurationMinutes(source.getDurationMinutes());
+        copy.setCreatedBy(owner != null ? owner : source.getCreatedBy());
+        copy = quizRepository.save(copy);
+        long copyId = copy.getId();
+
+        List<SourceQuestion> questions = loadQuestions(sourceId, copyId);
+        QuestionBatchInserter.Inserted inserted =
+                questionBatchInserter.insertWithOptionIds(questions.stream().map(SourceQuestion::copy).toList());
+
+        Map<Long, Long> questionIds = new LinkedHashMap<>();
+        Map<Long, Long> optionIds = new LinkedHashMap<>();
+        for (int i = 0; i < questions.size(); i++) {
+            SourceQuestion question = questions.get(i);
+            questionIds.put(question.id(), inserted.questionIds().get(i));
+            List<Long> newOptionIds = inserted.optionIds().get(i);
+            for (int j = 0; j < question.optionIds().size(); j++) {
+                optionIds.put(question.optionIds().get(j), newOptionIds.get(j));
+            }
+        }
+
+        jdbcTemplate.update("INSERT INTO quiz_sampling_rules (quiz_id, category, question_count) "
+                + "SELECT ?, category, question_count FROM quiz_sampling_rules WHERE quiz_id = ? ORDER BY id",
+                copyId, sourceId);
+
+        auditService.logQuizAction(owner != null ? owner.getUsername() : "SYSTEM", copy.getTitle(), "QUIZ_CLONED");
+        log.info("Quiz {} cloned to {}: {} questions, {} options in {} ms", sourceId, copyId, questionIds.size(),
+                optionIds.size(), (System.nanoTime() - start) / 1_000_000);
+        return Optional.of(new CloneResult(copyId, questionIds, optionIds));
+    }
+
+    /** All questions of the quiz with their options in one ordered SELECT, as copies for {@code targetQuizId}. */
+    private List<SourceQuestion> loadQuestions(Long quizId, long targetQuizId) {
+        List<SourceQuestion> questions = new ArrayList<>();
+        jdbcTemplate.query("SELECT q.id, q.text, q.type, q.points, q.category, o.id, o.text, o.correct "
+                + "FROM questions q LEFT JOIN options o ON o.question_id = q.id "
+                + "WHERE q.quiz_id = ? ORDER BY q.id, o.id", rs -> {
+                    long id = rs.getLong(1);
+                    SourceQuestion current = questions.isEmpty() ? null : questions.get(questions.size() - 1);
+                    if (current == null || current.id() != id) {
+                        int points = rs.getInt(4);
+                        if (rs.wasNull()) {
+                            points = 1;
+                        }
+                        // Copied as stored; legacy rows are not re-validated
+                        current = new SourceQuestion(id, new NewQuestion(targetQuizId, rs.getString(2),
+                                EQuestionType.valueOf(rs.getString(3)), points, rs.getString(5), new ArrayList<>()),
+                                new ArrayList<>());
+                        questions.add(current);
+                    }
+                    long optionId = rs.getLong(6);
+                    if (!rs.wasNull()) {
+                        current.copy().options().add(new NewOption(rs.getString(7), rs.getBoolean(8)));
+                        current.optionIds().add(optionId);
+                    }
+                }, quizId);
+        return questions;
+    }
+}
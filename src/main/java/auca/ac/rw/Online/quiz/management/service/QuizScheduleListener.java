@@ -0,0 +1,57 @@
+package auca.ac.rw.Online.quiz.management.service;
+
+import auca.ac.rw.Online.quiz.management.model.EQuizStatus;
+import auca.ac.rw.Online.quiz.management.model.Quiz;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import java.time.OffsetDateTime;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * JPA entity listener that keeps {@link QuizSchedulingService}'s queue in step with saved
+ * quizzes. The queue is changed after the surrounding transaction commits.
+ */
+@Component
+public class QuizScheduleListener {
+
+    // Resolved lazily: Hibernate creates listeners while the EntityManagerFactory is starting
+    private final ObjectProvider<QuizSchedulingService> quizSchedulingService;
+
+    public QuizScheduleListener(ObjectProvider<QuizSchedulingService> quizSchedulingService) {
+        this.quizSchedulingService = quizSchedulingService;
+    }
+
+    @PostPersist
+    @PostUpdate
+    public void onSaved(Quiz quiz) {
+        // Copy the values now; the entity may change again before the transaction commits
+        Long id = quiz.getId();
+        EQuizStatus status = quiz.getStatus();
+        OffsetDateTime startTime = quiz.getStartTime();
+        OffsetDateTime endTime = quiz.getEndTime();
+        afterCommit(() -> quizSchedulingService.getObject().schedule(id, status, startTime, endTime));
+    }
+
+    @PostRemove
+    public void onRemoved(Quiz quiz) {
+        Long id = quiz.getId();
+        afterCommit(() -> quizSchedulingService.getObject().unschedule(id));
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
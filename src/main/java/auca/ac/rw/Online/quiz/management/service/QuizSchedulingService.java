@@ -3,59 +3,243 @@ package auca.ac.rw.Online.quiz.management.service;
 import auca.ac.rw.Online.quiz.management.model.Quiz;
 import auca.ac.rw.Online.quiz.management.model.EQuizStatus;
 import auca.ac.rw.Online.quiz.management.repository.QuizRepository;
-import org.springframework.scheduling.annotation.Scheduled;
-import org.springframework.stereotype.Service;
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.time.Instant;
 import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+/**
+ * Opens quizzes at their start time (DRAFT to PUBLISHED) and archives them at their end time
+ * (PUBLISHED to ARCHIVED).
+ *
+ * Upcoming transitions sit in a {@link DelayQueue} ordered by instant, loaded at startup and
+ * updated by {@link QuizScheduleListener} whenever a quiz is saved. A worker thread blocks
+ * until the earliest one is due, drains every other transition due at that moment, and applies
+ * them with one bulk UPDATE per target status. Each UPDATE re-checks status and time in the
+ * database, so queue entries left behind by edits or deletes are harmless.
+ *
+ * Students enrolled in a newly opened quiz are notified in the same transaction, and cached
+ * search results are invalidated once it commits. A slow sweep catches anything the queue
+ * missed, such as quizzes written with plain SQL.
+ *
+ * Every node queues every transition, but applying them takes a {@link JobLockProvider} lease,
+ * so only one node publishes (and notifies) at a time. A node that finds the lease taken tries
+ * again shortly; by then the quizzes have usually moved on and its UPDATE matches nothing.
+ */
 @Service
 public class QuizSchedulingService {
+
+    private static final Logger log = LoggerFactory.getLogger(QuizSchedulingService.class);
+    private static final Duration RETRY_DELAY = Duration.ofSeconds(5);
+    private static final String TRANSITIONS_LOCK = "quiz-status-transitions";
+    private static final String SWEEP_LOCK = "quiz-status-sweep";
+    private static final Duration LOCK_AT_MOST_FOR = Duration.ofMinutes(5);
+
+    /** A status change due at {@code at}; {@code opens} is DRAFT to PUBLISHED, otherwise PUBLISHED to ARCHIVED. */
+    private record Transition(long quizId, boolean opens, Instant at) implements Delayed {
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(Duration.between(Instant.now(), at));
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            return at.compareTo(((Transition) other).at);
+        }
+    }
+
     private final QuizRepository quizRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final NotificationService notificationService;
+    private final SearchIndexService searchIndexService;
+    private final JobLockProvider jobLockProvider;
+    private final DelayQueue<Transition> queue = new DelayQueue<>();
+    private final Object fireLock = new Object();
+    private final Thread worker;
+
+    @Value("${app.quiz.schedule.sweep-interval-ms:600000}")
+    private long sweepIntervalMs;
 
-    public QuizSchedulingService(QuizRepository quizRepository) {
+    public QuizSchedulingService(QuizRepository quizRepository, PlatformTransactionManager transactionManager,
+            NotificationService notificationService, SearchIndexService searchIndexService,
+            JobLockProvider jobLockProvider) {
         this.quizRepository = quizRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.notificationService = notificationService;
+        this.searchIndexService = searchIndexService;
+        this.jobLockProvider = jobLockProvider;
+        this.worker = new Thread(this::run, "quiz-status-scheduler");
+        this.worker.setDaemon(true);
     }
 
-    @Scheduled(fixedRate = 60000) // Check every minute
-    public void updateQuizStatuses() {
-        OffsetDateTime now = OffsetDateTime.now();
-        
-        // Auto-publish quizzes that should start
-        List<Quiz> quizzesToPublish = quizRepository.findByStatusAndStartTimeBefore(
-            EQuizStatus.DRAFT, now);
-        for (Quiz quiz : quizzesToPublish) {
-            if (quiz.getStartTime() != null && quiz.getStartTime().isBefore(now)) {
-                quiz.setStatus(EQuizStatus.PUBLISHED);
-                quizRepository.save(quiz);
-            }
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        long start = System.nanoTime();
+        List<Object[]> rows = quizRepository.findScheduled();
+        for (Object[] row : rows) {
+            // Quizzes saved since startup are already queued; a duplicate entry only costs a no-op UPDATE
+            enqueue((Long) row[0], (EQuizStatus) row[1], (OffsetDateTime) row[2], (OffsetDateTime) row[3]);
         }
-        
-        // Auto-archive quizzes that should end
-        List<Quiz> quizzesToArchive = quizRepository.findByStatusAndEndTimeBefore(
-            EQuizStatus.PUBLISHED, now);
-        for (Quiz quiz : quizzesToArchive) {
-            if (quiz.getEndTime() != null && quiz.getEndTime().isBefore(now)) {
-                quiz.setStatus(EQuizStatus.ARCHIVED);
-                quizRepository.save(quiz);
+        worker.start();
+        log.info("Quiz status scheduler started: {} quizzes, {} transitions queued in {} ms",
+                rows.size(), queue.size(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        worker.interrupt();
+    }
+
+    /** Replaces the quiz's queued transitions; call once the write that set these values has committed. */
+    public void schedule(Long quizId, EQuizStatus status, OffsetDateTime startTime, OffsetDateTime endTime) {
+        unschedule(quizId);
+        enqueue(quizId, status, startTime, endTime);
+    }
+
+    public void unschedule(Long quizId) {
+        queue.removeIf(transition -> transition.quizId() == quizId);
+    }
+
+    /** Safety net for transitions the queue never saw, e.g. quizzes changed with plain SQL. */
+    @Scheduled(fixedDelayString = "${app.quiz.schedule.sweep-interval-ms:600000}",
+            initialDelayString = "${app.quiz.schedule.sweep-interval-ms:600000}")
+    public void sweep() {
+        // Held for most of the interval, so nodes whose timers are out of step still sweep once per interval
+        Duration lockAtLeastFor = Duration.ofMillis(sweepIntervalMs * 9 / 10);
+        jobLockProvider.runExclusively(SWEEP_LOCK, LOCK_AT_MOST_FOR, lockAtLeastFor, () -> {
+            List<Long> overdue = quizRepository.findOverdueIds(OffsetDateTime.now());
+            if (!overdue.isEmpty()) {
+                log.info("Quiz status sweep found {} overdue quizzes", overdue.size());
+                if (!fireExclusively(overdue, overdue)) {
+                    log.debug("Quiz status transitions are running on another node; sweep skipped");
+                }
             }
-        }
+        });
     }
 
     public boolean isQuizAvailable(Quiz quiz) {
         OffsetDateTime now = OffsetDateTime.now();
-        
+
         if (quiz.getStatus() != EQuizStatus.PUBLISHED) {
             return false;
         }
-        
+
         if (quiz.getStartTime() != null && quiz.getStartTime().isAfter(now)) {
             return false;
         }
-        
+
         if (quiz.getEndTime() != null && quiz.getEndTime().isBefore(now)) {
             return false;
         }
-        
+
         return true;
     }
-}
\ No newline at end of file
+
+    private void enqueue(Long quizId, EQuizStatus status, OffsetDateTime startTime, OffsetDateTime endTime) {
+        if (status == EQuizStatus.DRAFT && startTime != null) {
+            queue.add(new Transition(quizId, true, startTime.toInstant()));
+        }
+        // A draft whose start is pushed past its end stays a draft; the UPDATE's status check skips it
+        if ((status == EQuizStatus.DRAFT || status == EQuizStatus.PUBLISHED) && endTime != null) {
+            queue.add(new Transition(quizId, false, endTime.toInstant()));
+        }
+    }
+
+    private void run() {
+        while (!Thread.currentThread().isInterrupted()) {
+            List<Transition> due = new ArrayList<>();
+            try {
+                due.add(queue.take());
+            } catch (InterruptedException e) {
+                return;
+            }
+            queue.drainTo(due);
+
+            Set<Long> opening = new LinkedHashSet<>();
+            Set<Long> closing = new LinkedHashSet<>();
+            for (Transition transition : due) {
+                (transition.opens() ? opening : closing).add(transition.quizId());
+            }
+            try {
+                if (!fireExclusively(opening, closing)) {
+                    log.debug("Quiz status transitions are running on another node, retrying {} in {} s",
+                            due.size(), RETRY_DELAY.toSeconds());
+                    retryLater(due);
+                }
+            } catch (RuntimeException ex) {
+                log.error("Quiz status transition failed for {} quizzes, retrying in {} s: {}",
+                        due.size(), RETRY_DELAY.toSeconds(), ex.getMessage(), ex);
+                retryLater(due);
+            }
+        }
+    }
+
+    private void retryLater(List<Transition> due) {
+        Instant retryAt = Instant.now().plus(RETRY_DELAY);
+        due.forEach(transition -> queue.add(new Transition(transition.quizId(), transition.opens(), retryAt)));
+    }
+
+    /** Applies the transitions under the cluster-wide lease; false if another node holds it. */
+    private boolean fireExclusively(Collection<Long> opening, Collection<Long> closing) {
+        return jobLockProvider.runExclusively(TRANSITIONS_LOCK, LOCK_AT_MOST_FOR, Duration.ZERO,
+                () -> fire(opening, closing));
+    }
+
+    private void fire(Collection<Long> opening, Collection<Long> closing) {
+        // The worker and the sweep must not both notify for the same quiz
+        synchronized (fireLock) {
+            long start = System.nanoTime();
+            OffsetDateTime now = OffsetDateTime.now();
+            Map<Long, String> opened = new LinkedHashMap<>();
+            Map<Long, String> closed = new LinkedHashMap<>();
+            transactionTemplate.executeWithoutResult(status -> {
+                if (!opening.isEmpty()) {
+                    quizRepository.findStarted(opening, EQuizStatus.DRAFT, now)
+                            .forEach(row -> opened.put((Long) row[0], (String) row[1]));
+                    if (!opened.isEmpty()) {
+                        quizRepository.updateStatus(opened.keySet(), EQuizStatus.DRAFT, EQuizStatus.PUBLISHED);
+                    }
+                }
+                // After the publish UPDATE, so a quiz whose start and end have both passed ends up ARCHIVED.
+                // Quizzes just opened are checked too: their end transition may not have been queued yet
+                Set<Long> ending = new LinkedHashSet<>(closing);
+                ending.addAll(opened.keySet());
+                if (!ending.isEmpty()) {
+                    quizRepository.findEnded(ending, EQuizStatus.PUBLISHED, now)
+                            .forEach(row -> closed.put((Long) row[0], (String) row[1]));
+                    if (!closed.isEmpty()) {
+                        quizRepository.updateStatus(closed.keySet(), EQuizStatus.PUBLISHED, EQuizStatus.ARCHIVED);
+                    }
+                }
+                Map<Long, String> stillOpen = new LinkedHashMap<>(opened);
+                stillOpen.keySet().removeAll(closed.keySet());
+                notificationService.notifyEnrolledQuizPublished(stillOpen);
+            });
+            if (opened.isEmpty() && closed.isEmpty()) {
+                return;
+            }
+            searchIndexService.contentChanged();
+            log.info("Quiz status: {} published {}, {} archived {} in {} ms", opened.size(), opened.keySet(),
+                    closed.size(), closed.keySet(), (System.nanoTime() - start) / 1_000_000);
+        }
+    }
+}
@@ -3,18 +3,26 @@ package auca.ac.rw.Online.quiz.management.service;
 import auca.ac.rw.Online.quiz.management.model.Quiz;
 import auca.ac.rw.Online.quiz.management.model.Question;
 import auca.ac.rw.Online.quiz.management.model.QuizAttempt;
+import auca.ac.rw.Online.quiz.management.model.QuizSamplingRule;
+import auca.ac.rw.Online.quiz.management.model.EAttemptStatus;
 import auca.ac.rw.Online.quiz.management.model.User;
 import auca.ac.rw.Online.quiz.management.repository.QuizRepository;
 import auca.ac.rw.Online.quiz.management.repository.QuestionRepository;
 import auca.ac.rw.Online.quiz.management.repository.QuizAttemptRepository;
+import auca.ac.rw.Online.quiz.management.repository.QuizSamplingRuleRepository;
 import auca.ac.rw.Online.quiz.management.repository.UserRepository;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -28,6 +36,9 @@ public class QuizService {
     private final GradingService gradingService;
     private final QuestionRandomizationService questionRandomizationService;
     private final AuditService auditService;
+    private final QuizSamplingRuleRepository quizSamplingRuleRepository;
+    private final QuestionSamplingService questionSamplingService;
+    private final TransactionTemplate attemptTransaction;
     
     @PersistenceContext
     private EntityManager entityManager;
@@ -35,7 +46,9 @@ public class QuizService {
     public QuizService(QuizRepository quizRepository, QuestionRepository questionRepository,
             QuizAttemptRepository quizAttemptRepository, UserRepository userRepository,
             GradingService gradingService,
-            QuestionRandomizationService questionRandomizationService, AuditService auditService) {
+            QuestionRandomizationService questionRandomizationService, AuditService auditService,
+            QuizSamplingRuleRepository quizSamplingRuleRepository, QuestionSamplingService questionSamplingService,
+            PlatformTransactionManager transactionManager) {
         this.quizRepository = quizRepository;
         this.questionRepository = questionRepository;
         this.quizAttemptRepository = quizAttemptRepository;
@@ -43,6 +56,10 @@ public class QuizService {
         this.gradingService = gradingService;
         this.questionRandomizationService = questionRandomizationService;
         this.auditService = auditService;
+        this.quizSamplingRuleRepository = quizSamplingRuleRepository;
+        this.questionSamplingService = questionSamplingService;
+        this.attemptTransaction = new TransactionTemplate(transactionManager);
+        this.attemptTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
     }
 
     public List<Quiz> findAll() {
@@ -69,13 +86,6 @@ public class QuizService {
         return saved;
     }
 
-    public void deleteById(Long id) {
-        quizRepository.findById(id).ifPresent(quiz -> {
-            auditService.logQuizAction("SYSTEM", quiz.getTitle(), "QUIZ_DELETED");
-        });
-        quizRepository.deleteById(id);
-    }
-
     public Page<Quiz> search(String q, Pageable pageable) {
         if (q == null || q.isBlank()) {
             return quizRepository.findAll(pageable);
@@ -84,12 +94,101 @@ public class QuizService {
     }
 
     public List<Question> getQuizQuestions(Long quizId) {
-        List<Question> questions = questionRepository.findByQuizId(quizId);
+        List<Question> questions = questionRepository.findByQuizIdWithOptions(quizId);
         return questionRandomizationService.randomizeQuizQuestions(questions, true, true);
     }
 
     public List<Question> getQuizQuestionsOrdered(Long quizId) {
-        return questionRepository.findByQuizId(quizId);
+        return questionRepository.findByQuizIdWithOptions(quizId);
+    }
+
+    /**
+     * Questions to show {@code username}. A quiz with sampling rules opens (or resumes) the
+     * student's IN_PROGRESS attempt and returns its paper, drawn once per attempt; any other
+     * quiz returns its own questions shuffled.
+     *
+     * @throws IllegalStateException if a sampled category has too few questions
+     */
+    @Transactional
+    public List<Question> getQuizQuestions(Long quizId, String username) {
+        List<QuizSamplingRule> rules = quizSamplingRuleRepository.findByQuizId(quizId);
+        if (rules.isEmpty() || username == null || username.isBlank()) {
+            return getQuizQuestions(quizId);
+        }
+
+        QuizAttempt attempt = quizAttemptRepository.findByQuizIdAndUsername(quizId, username).orElse(null);
+        if (attempt == null) {
+            try {
+                attempt = openAttempt(quizId, username, rules);
+            } catch (DataIntegrityViolationException e) {
+                // A concurrent request from the same student opened the attempt first; deliver its paper
+                attempt = quizAttemptRepository.findByQuizIdAndUsername(quizId, username).orElseThrow(() -> e);
+            }
+        } else if (attempt.getStatus() != EAttemptStatus.IN_PROGRESS) {
+            throw new RuntimeException("You have already attempted this quiz. Each quiz can only be taken once.");
+        }
+
+        List<Question> paper = questionRepository.findPaper(QuestionSamplingService.decode(attempt.getSampledQuestionIds()));
+        return questionRandomizationService.randomizeQuizQuestions(paper, false, true);
+    }
+
+    /**
+     * Creates the student's IN_PROGRESS attempt with its paper and commits it on its own, so a
+     * concurrent request for the same attempt fails on {@code uk_quiz_attempts_in_progress}
+     * instead of opening a second one.
+     */
+    private QuizAttempt openAttempt(Long quizId, String username, List<QuizSamplingRule> rules) {
+        return attemptTransaction.execute(status -> {
+            User user = userRepository.findByUsernameIgnoreCase(username.trim())
+                .or(() -> userRepository.findByEmailIgnoreCase(username.trim()))
+                .orElseThrow(() -> new RuntimeException("User not found by username or email: " + username));
+            Quiz quiz = quizRepository.findById(quizId)
+                .orElseThrow(() -> new RuntimeException("Quiz not found in database with ID: " + quizId));
+
+            QuizAttempt attempt = new QuizAttempt();
+            attempt.setQuiz(quiz);
+            attempt.setUser(user);
+            attempt.setStatus(EAttemptStatus.IN_PROGRESS);
+            attempt.setStartedAt(java.time.OffsetDateTime.now());
+            attempt = quizAttemptRepository.saveAndFlush(attempt);
+
+            List<Long> paper = questionSamplingService.sample(rules,
+                QuestionSamplingService.seedFor(quizId, attempt.getId()));
+            attempt.setSampledQuestionIds(QuestionSamplingService.encode(paper));
+            return attempt;
+        });
+    }
+
+    public List<QuizSamplingRule> getSamplingRules(Long quizId) {
+        return quizSamplingRuleRepository.findByQuizId(quizId);
+    }
+
+    /** Replaces the quiz's sampling rules; an empty list turns sampling off. */
+    @Transactional
+    public List<QuizSamplingRule> replaceSamplingRules(Long quizId, List<QuizSamplingRule> rules) {
+        Quiz quiz = quizRepository.findById(quizId)
+            .orElseThrow(() -> new RuntimeException("Quiz not found in database with ID: " + quizId));
+        for (QuizSamplingRule rule : rules) {
+            if (rule.getCategory() == null || rule.getCategory().isBlank()) {
+                throw new IllegalArgumentException("Each sampling rule needs a category");
+            }
+            if (rule.getQuestionCount() <= 0) {
+                throw new IllegalArgumentException("questionCount must be positive for category " + rule.getCategory());
+            }
+        }
+        quizSamplingRuleRepository.deleteByQuizId(quizId);
+        List<QuizSamplingRule> saved = new ArrayList<>();
+        for (QuizSamplingRule rule : rules) {
+            saved.add(quizSamplingRuleRepository.save(
+                new QuizSamplingRule(quiz, rule.getCategory().trim(), rule.getQuestionCount())));
+        }
+        auditService.logQuizAction("SYSTEM", quiz.getTitle(), "QUIZ_SAMPLING_UPDATED");
+        return saved;
+    }
+
+    /** Bank questions currently available in the category. */
+    public int samplingBankSize(String category) {
+        return questionSamplingService.bankSize(category);
     }
 
     @Transactional
@@ -106,8 +205,9 @@ public class QuizService {
         }
         
         // Check if user has already attempted this quiz
+        // An IN_PROGRESS attempt was opened when a sampled paper was delivered; submit into it
         Optional<QuizAttempt> existingAttempt = quizAttemptRepository.findByQuizIdAndUsername(quizId, username);
-        if (existingAttempt.isPresent()) {
+        if (existingAttempt.isPresent() && existingAttempt.get().getStatus() != EAttemptStatus.IN_PROGRESS) {
             throw new RuntimeException("You have already attempted this quiz. Each quiz can only be taken once.");
         }
         
@@ -176,9 +276,9 @@ public class QuizService {
             quiz = entityManager.merge(quiz);
         }
         
-        // Step 4: Create the attempt
-        QuizAttempt attempt = new QuizAttempt();
-        System.out.println("[QuizService] Created new QuizAttempt instance");
+        // Step 4: Create the attempt, or continue the one holding the student's sampled paper
+        QuizAttempt attempt = existingAttempt.orElseGet(QuizAttempt::new);
+        System.out.println("[QuizService] " + (attempt.getId() == null ? "Created new QuizAttempt instance" : "Continuing attempt " + attempt.getId()));
         
         // Step 5: Set the managed entities
         attempt.setQuiz(quiz);
@@ -187,7 +287,9 @@ public class QuizService {
         attempt.setUser(user);
         System.out.println("[QuizService] User set on attempt: " + (attempt.getUser() != null ? attempt.getUser().getUsername() : "NULL"));
         
-        attempt.setStartedAt(java.time.OffsetDateTime.now());
+        if (attempt.getStartedAt() == null) {
+            attempt.setStartedAt(java.time.OffsetDateTime.now());
+        }
         attempt.setSubmittedAt(java.time.OffsetDateTime.now());
         attempt.setStatus(auca.ac.rw.Online.quiz.management.model.EAttemptStatus.SUBMITTED);
         
@@ -0,0 +1,73 @@
+package auca.ac.rw.Online.quiz.management.service;
+
+import auca.ac.rw.Online.quiz.management.model.Option;
+import auca.ac.rw.Online.quiz.management.model.Question;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * JPA entity listener that feeds writes to {@link SearchIndexService} and, for questions and
+ * their options, {@link QuestionBankSearchService}. Changes are applied after the
+ * surrounding transaction commits, so a rollback never reaches the index.
+ */
+@Component
+public class SearchIndexListener {
+
+    // Resolved lazily: Hibernate creates listeners while the EntityManagerFactory is starting
+    private final ObjectProvider<SearchIndexService> searchIndexService;
+    private final ObjectProvider<QuestionBankSearchService> questionBankSearchService;
+
+    public SearchIndexListener(ObjectProvider<SearchIndexService> searchIndexService,
+            ObjectProvider<QuestionBankSearchService> questionBankSearchService) {
+        this.searchIndexService = searchIndexService;
+        this.questionBankSearchService = questionBankSearchService;
+    }
+
+    @PostPersist
+    @PostUpdate
+    public void onSaved(Object entity) {
+        Long questionId = questionIdOf(entity);
+        afterCommit(() -> {
+            searchIndexService.getObject().onSaved(entity);
+            questionBankSearchService.getObject().markDirty(questionId);
+        });
+    }
+
+    @PostRemove
+    public void onRemoved(Object entity) {
+        Long questionId = questionIdOf(entity);
+        afterCommit(() -> {
+            searchIndexService.getObject().onRemoved(entity);
+            questionBankSearchService.getObject().markDirty(questionId);
+        });
+    }
+
+    /** The question whose bank document this entity feeds, or null. */
+    private static Long questionIdOf(Object entity) {
+        if (entity instanceof Question question) {
+            return question.getId();
+        }
+        if (entity instanceof Option option && option.getQuestion() != null) {
+            return option.getQuestion().getId();
+        }
+        return null;
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
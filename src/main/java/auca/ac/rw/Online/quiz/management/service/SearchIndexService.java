@@ -0,0 +1,252 @@
+package auca.ac.rw.Online.quiz.management.service;
+
+import auca.ac.rw.Online.quiz.management.model.EUserRole;
+import auca.ac.rw.Online.quiz.management.model.Question;
+import auca.ac.rw.Online.quiz.management.model.Quiz;
+import auca.ac.rw.Online.quiz.management.model.User;
+import auca.ac.rw.Online.quiz.management.util.RadixTrie;
+import auca.ac.rw.Online.quiz.management.util.TrigramIndex;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * In-process search index over usernames/emails, quiz titles and question text, plus a
+ * prefix trie over usernames and emails for user pickers.
+ *
+ * Built from the database once the application is ready, then kept current by
+ * {@link SearchIndexListener} as entities are written, and rebuilt periodically to catch
+ * writes that bypass JPA (bulk JPQL/SQL). Until the first build finishes {@link #isReady()}
+ * is false and callers should fall back to the database.
+ */
+@Service
+public class SearchIndexService {
+
+    private static final Logger log = LoggerFactory.getLogger(SearchIndexService.class);
+
+    /** One full set of indexes; swapped as a whole on rebuild. */
+    private static final class Indexes {
+        final TrigramIndex users = new TrigramIndex();
+        final TrigramIndex quizzes = new TrigramIndex();
+        final TrigramIndex questions = new TrigramIndex();
+        final Set<Integer> adminUserIds = ConcurrentHashMap.newKeySet();
+        // Username/email prefixes for typeahead; userKeys remembers what to unlink on update
+        final RadixTrie userPrefixes = new RadixTrie();
+        final Map<Integer, String[]> userKeys = new ConcurrentHashMap<>();
+    }
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private volatile Indexes current;
+    // Bumped on every change that can affect search results; see SearchResultCache
+    private final AtomicLong generation = new AtomicLong();
+    // Changes seen while a rebuild is reading the database, replayed onto the new indexes
+    private List<Consumer<Indexes>> changesDuringRebuild;
+    private final Object rebuildLock = new Object();
+
+    public boolean isReady() {
+        return current != null;
+    }
+
+    public long generation() {
+        return generation.get();
+    }
+
+    public int[] searchUsers(String query, int limit, boolean includeAdmins) {
+        Indexes indexes = current;
+        return indexes.users.search(query, limit,
+                id -> includeAdmins || !indexes.adminUserIds.contains(id));
+    }
+
+    /**
+     * Users whose username or email starts with {@code prefix}, in alphabetical key order.
+     */
+    public int[] completeUsers(String prefix, int limit, boolean includeAdmins) {
+        Indexes indexes = current;
+        return indexes.userPrefixes.prefixSearch(TrigramIndex.normalize(prefix), limit,
+                id -> includeAdmins || !indexes.adminUserIds.contains(id));
+    }
+
+    public int[] searchQuizzes(String query, int limit) {
+        return current.quizzes.search(query, limit, id -> true);
+    }
+
+    public int[] searchQuestions(String query, int limit) {
+        return current.questions.search(query, limit, id -> true);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        rebuild();
+    }
+
+    @Scheduled(fixedDelayString = "${app.search.index.rebuild-interval-ms:1800000}",
+            initialDelayString = "${app.search.index.rebuild-interval-ms:1800000}")
+    public void rebuild() {
+        long start = System.nanoTime();
+        synchronized (rebuildLock) {
+            changesDuringRebuild = new ArrayList<>();
+        }
+
+        Indexes fresh = new Indexes();
+        try {
+            // Projections only: no entity hydration or lazy associations
+            for (Object[] row : entityManager.createQuery(
+                    "SELECT u.id, u.username, u.email, u.role FROM User u", Object[].class).getResultList()) {
+                indexUser(fresh, (Long) row[0], (String) row[1], (String) row[2], (EUserRole) row[3]);
+            }
+            for (Object[] row : entityManager.createQuery(
+                    "SELECT q.id, q.title FROM Quiz q", Object[].class).getResultList()) {
+                fresh.quizzes.put(toIndexId((Long) row[0]), (String) row[1]);
+            }
+            for (Object[] row : entityManager.createQuery(
+                    "SELECT q.id, q.text FROM Question q", Object[].class).getResultList()) {
+                fresh.questions.put(toIndexId((Long) row[0]), (String) row[1]);
+            }
+        } catch (RuntimeException ex) {
+            synchronized (rebuildLock) {
+                changesDuringRebuild = null;
+            }
+            log.error("Search index rebuild failed, keeping the previous index: {}", ex.getMessage(), ex);
+            return;
+        }
+
+        synchronized (rebuildLock) {
+            changesDuringRebuild.forEach(change -> change.accept(fresh));
+            changesDuringRebuild = null;
+            current = fresh;
+            generation.incrementAndGet();
+        }
+        log.info("Search index built: {} users, {} quizzes, {} questions in {} ms",
+                fresh.users.size(), fresh.quizzes.size(), fresh.questions.size(),
+                (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /** For questions written with plain JDBC (e.g. bulk import); call after commit. */
+    public void questionSaved(Long questionId, String text) {
+        int id = toIndexId(questionId);
+        apply(indexes -> indexes.questions.put(id, text));
+    }
+
+    /** For rows deleted with plain JDBC (cascade deletes); call after commit. Null ids are skipped. */
+    public void removed(Long userId, Long quizId, Collection<Long> questionIds) {
+        Integer user = userId == null ? null : toIndexId(userId);
+        Integer quiz = quizId == null ? null : toIndexId(quizId);
+        int[] questions = questionIds.stream().mapToInt(SearchIndexService::toIndexId).toArray();
+        apply(indexes -> {
+            if (user != null) {
+                indexes.users.remove(user);
+                indexes.adminUserIds.remove(user);
+                unlinkUserKeys(indexes, user);
+            }
+            if (quiz != null) {
+                indexes.quizzes.remove(quiz);
+            }
+            for (int question : questions) {
+                indexes.questions.remove(question);
+            }
+        });
+    }
+
+    /** For bulk writes that change what results show but no indexed text (e.g. quiz status); call after commit. */
+    public void contentChanged() {
+        generation.incrementAndGet();
+    }
+
+    void onSaved(Object entity) {
+        // Copy the values now; the entity may change again before a replay runs
+        if (entity instanceof User user) {
+            Long id = user.getId();
+            String username = user.getUsername();
+            String email = user.getEmail();
+            EUserRole role = user.getRole();
+            apply(indexes -> indexUser(indexes, id, username, email, role));
+        } else if (entity instanceof Quiz quiz) {
+            int id = toIndexId(quiz.getId());
+            String title = quiz.getTitle();
+            apply(indexes -> indexes.quizzes.put(id, title));
+        } else if (entity instanceof Question question) {
+            int id = toIndexId(question.getId());
+            String text = question.getText();
+            apply(indexes -> indexes.questions.put(id, text));
+        } else {
+            // Not indexed, but shown in results (e.g. attempts)
+            generation.incrementAndGet();
+        }
+    }
+
+    void onRemoved(Object entity) {
+        if (entity instanceof User user) {
+            int id = toIndexId(user.getId());
+            apply(indexes -> {
+                indexes.users.remove(id);
+                indexes.adminUserIds.remove(id);
+                unlinkUserKeys(indexes, id);
+            });
+        } else if (entity instanceof Quiz quiz) {
+            int id = toIndexId(quiz.getId());
+            apply(indexes -> indexes.quizzes.remove(id));
+        } else if (entity instanceof Question question) {
+            int id = toIndexId(question.getId());
+            apply(indexes -> indexes.questions.remove(id));
+        } else {
+            generation.incrementAndGet();
+        }
+    }
+
+    private void apply(Consumer<Indexes> change) {
+        synchronized (rebuildLock) {
+            if (current != null) {
+                change.accept(current);
+            }
+            if (changesDuringRebuild != null) {
+                changesDuringRebuild.add(change);
+            }
+            generation.incrementAndGet();
+        }
+    }
+
+    private static void indexUser(Indexes indexes, Long userId, String username, String email, EUserRole role) {
+        int id = toIndexId(userId);
+        indexes.users.put(id, username, email);
+        if (role == EUserRole.ADMIN) {
+            indexes.adminUserIds.add(id);
+        } else {
+            indexes.adminUserIds.remove(id);
+        }
+
+        unlinkUserKeys(indexes, id);
+        String[] keys = {TrigramIndex.normalize(username), TrigramIndex.normalize(email)};
+        for (String key : keys) {
+            indexes.userPrefixes.add(key, id);
+        }
+        indexes.userKeys.put(id, keys);
+    }
+
+    private static void unlinkUserKeys(Indexes indexes, int id) {
+        String[] previous = indexes.userKeys.remove(id);
+        if (previous != null) {
+            for (String key : previous) {
+                indexes.userPrefixes.remove(key, id);
+            }
+        }
+    }
+
+    private static int toIndexId(Long id) {
+        return Math.toIntExact(id);
+    }
+}
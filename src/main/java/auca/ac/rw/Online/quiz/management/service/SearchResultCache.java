@@ -0,0 +1,144 @@
+package auca.ac.rw.Online.quiz.management.service;
+
+import auca.ac.rw.Online.quiz.management.util.TrigramIndex;
+import com.fasterxml.jackson.databind.JsonNode;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Short-lived cache of global search results, keyed by normalized query and whether the
+ * caller may see admin users.
+ *
+ * Typeahead sends every keystroke, so a miss also looks at shorter prefixes of the query:
+ * if "algeb" was cached and every category came back with fewer hits than the page limit,
+ * that result is complete, and "algebr" is answered by filtering it in memory.
+ *
+ * Entries expire after a TTL, the map is LRU-bounded, and any write to a searched entity
+ * (see {@link SearchIndexService#generation()}) makes every entry stale at once.
+ */
+@Component
+public class SearchResultCache {
+
+    /** One search hit: its entity id and JSON, plus the normalized text the query matched against. */
+    public record Item(long id, JsonNode json, String matchText) {
+    }
+
+    /**
+     * Hits for one category. {@code complete} means these are all the matches, not just the
+     * first page, so they can answer longer queries too. {@code ranked} means they are in the
+     * search index's rank order rather than the database's.
+     */
+    public record CategoryResult(List<Item> items, boolean complete, boolean ranked) {
+    }
+
+    // The order TrigramIndex.search returns: best score, then shortest text, then lowest id
+    private static Comparator<Item> rankFor(String query) {
+        return Comparator.comparingInt((Item item) -> -TrigramIndex.matchScore(item.matchText(), query))
+                .thenComparingInt(item -> item.matchText().length())
+                .thenComparingLong(Item::id);
+    }
+
+    private record Key(String query, boolean admin) {
+    }
+
+    private record Entry(long generation, long expiresAtNanos, Map<String, CategoryResult> results) {
+        boolean isComplete() {
+            return results.values().stream().allMatch(CategoryResult::complete);
+        }
+    }
+
+    private final long ttlNanos;
+    private final Map<Key, Entry> entries;
+    private final Counter exactHits;
+    private final Counter prefixHits;
+    private final Counter misses;
+
+    public SearchResultCache(MeterRegistry meterRegistry,
+            @Value("${app.search.cache.ttl-ms:30000}") long ttlMillis,
+            @Value("${app.search.cache.max-entries:2000}") int maxEntries) {
+        this.ttlNanos = ttlMillis * 1_000_000L;
+        // Access-ordered LinkedHashMap: evicts the least recently used entry past the cap
+        this.entries = new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+                return size() > maxEntries;
+            }
+        };
+        this.exactHits = meterRegistry.counter("search.cache.requests", "outcome", "hit");
+        this.prefixHits = meterRegistry.counter("search.cache.requests", "outcome", "prefix");
+        this.misses = meterRegistry.counter("search.cache.requests", "outcome", "miss");
+    }
+
+    /**
+     * @param query normalized query
+     * @param generation the index generation the caller would search at
+     * @return cached results per category, or null on a miss
+     */
+    public Map<String, CategoryResult> get(String query, boolean admin, long generation) {
+        long now = System.nanoTime();
+        synchronized (entries) {
+            Entry exact = live(new Key(query, admin), generation, now);
+            if (exact != null) {
+                exactHits.increment();
+                return exact.results();
+            }
+            for (int length = query.length() - 1; length > 0; length--) {
+                Entry prefix = live(new Key(query.substring(0, length), admin), generation, now);
+                if (prefix != null && prefix.isComplete()) {
+                    Map<String, CategoryResult> narrowed = narrow(prefix.results(), query);
+                    entries.put(new Key(query, admin), new Entry(generation, prefix.expiresAtNanos(), narrowed));
+                    prefixHits.increment();
+                    return narrowed;
+                }
+            }
+        }
+        misses.increment();
+        return null;
+    }
+
+    public void put(String query, boolean admin, long generation, Map<String, CategoryResult> results) {
+        synchronized (entries) {
+            entries.put(new Key(query, admin), new Entry(generation, System.nanoTime() + ttlNanos, results));
+        }
+    }
+
+    private Entry live(Key key, long generation, long now) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.generation() != generation || now - entry.expiresAtNanos() >= 0) {
+            entries.remove(key);
+            return null;
+        }
+        return entry;
+    }
+
+    /**
+     * Keeps the hits that still match the longer query. Ranked categories are re-ranked for it
+     * the way the index ranks; the others keep the database's order.
+     */
+    private static Map<String, CategoryResult> narrow(Map<String, CategoryResult> results, String query) {
+        Map<String, CategoryResult> narrowed = new LinkedHashMap<>();
+        results.forEach((category, result) -> {
+            List<Item> items = new ArrayList<>();
+            for (Item item : result.items()) {
+                if (item.matchText().contains(query)) {
+                    items.add(item);
+                }
+            }
+            if (result.ranked()) {
+                items.sort(rankFor(query));
+            }
+            narrowed.put(category, new CategoryResult(items, true, result.ranked()));
+        });
+        return narrowed;
+    }
+}
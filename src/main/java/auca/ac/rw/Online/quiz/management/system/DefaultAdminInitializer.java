@@ -46,6 +46,12 @@ public class DefaultAdminInitializer implements ApplicationRunner {
      * Gets or creates a default location (Kigali City) for default users
      */
     private Location getOrCreateDefaultLocation() {
+        // The seeded province row, which RwandaLocationSeeder (run first) keeps in place
+        var seededKigali = locationRepository.findFirstBySeededTrueAndProvinceIdAndLocationType(1L, LocationType.PROVINCE);
+        if (seededKigali.isPresent()) {
+            return seededKigali.get();
+        }
+
         // Try to find an existing location in Kigali by province name (using repository directly to avoid loading users)
         var kigaliLocations = locationRepository.findByProvinceName("Kigali");
         if (kigaliLocations != null && !kigaliLocations.isEmpty()) {
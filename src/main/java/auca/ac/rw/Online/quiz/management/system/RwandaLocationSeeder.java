@@ -1,17 +1,34 @@
 package auca.ac.rw.Online.quiz.management.system;
 
+import auca.ac.rw.Online.quiz.management.model.DatasetVersion;
 import auca.ac.rw.Online.quiz.management.model.Location;
 import auca.ac.rw.Online.quiz.management.model.LocationType;
+import auca.ac.rw.Online.quiz.management.repository.DatasetVersionRepository;
 import auca.ac.rw.Online.quiz.management.repository.LocationRepository;
+import auca.ac.rw.Online.quiz.management.service.LocationHierarchyService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.boot.ApplicationArguments;
 import org.springframework.boot.ApplicationRunner;
 import org.springframework.core.annotation.Order;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Types;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.HexFormat;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * Seeds the database with real Rwanda administrative divisions.
@@ -23,60 +40,167 @@ import java.util.List;
  * - Multiple Sectors per district
  * - Multiple Cells per sector
  * - Multiple Villages per cell
+ *
+ * The rows are written with JDBC batches in one transaction, flagged as seeded, and tagged
+ * with a dataset version (a hash of the rows). Later starts that find the same version skip
+ * loading. A changed dataset is applied as an upsert of the seeded rows, so users keep their
+ * location ids; a failed load stops the application instead of starting without locations.
  */
 @Component
 @Order(1) // Run before other seeders
 public class RwandaLocationSeeder implements ApplicationRunner {
 
     private static final Logger log = LoggerFactory.getLogger(RwandaLocationSeeder.class);
+
+    private static final String DATASET_NAME = "rwanda-locations";
+    private static final int BATCH_SIZE = 1000;
+    private static final String INSERT_SQL =
+            "INSERT INTO locations (province_id, province_name, district_id, district_name, sector_id, sector_name, " +
+            "cell_id, cell_name, village_id, village_name, location_type, seeded) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, TRUE)";
+    private static final String EXISTING_SQL =
+            "SELECT id, province_id, district_id, sector_id, cell_id, village_id, seeded FROM locations";
+    private static final String UPDATE_SQL =
+            "UPDATE locations SET province_name = ?, district_name = ?, sector_name = ?, cell_name = ?, " +
+            "village_name = ?, location_type = ?, seeded = TRUE WHERE id = ?";
+    private static final String UNFLAG_SQL = "UPDATE locations SET seeded = FALSE WHERE id = ?";
+    private static final String DELETE_UNREFERENCED_SQL =
+            "DELETE FROM locations WHERE id = ? AND NOT EXISTS (SELECT 1 FROM users u WHERE u.location_id = locations.id)";
+
     private final LocationRepository locationRepository;
+    private final DatasetVersionRepository datasetVersionRepository;
+    private final LocationHierarchyService locationHierarchyService;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
 
-    public RwandaLocationSeeder(LocationRepository locationRepository) {
+    public RwandaLocationSeeder(LocationRepository locationRepository, DatasetVersionRepository datasetVersionRepository,
+                                LocationHierarchyService locationHierarchyService,
+                                JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
         this.locationRepository = locationRepository;
+        this.datasetVersionRepository = datasetVersionRepository;
+        this.locationHierarchyService = locationHierarchyService;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
     }
 
     @Override
     public void run(ApplicationArguments args) {
-        // Check if we have all 5 provinces - if not, reseed
-        long locationCount = locationRepository.count();
-        List<Object[]> existingProvinces = locationRepository.findDistinctProvinces();
-        int provinceCount = existingProvinces != null ? existingProvinces.size() : 0;
-        
-        // Check for force reseed property
-        String forceReseed = System.getProperty("rwanda.locations.force.reseed", "false");
-        boolean shouldReseed = "true".equalsIgnoreCase(forceReseed);
-        
-        // Always verify data completeness
-        if (locationCount > 0 && provinceCount >= 5) {
-            log.info("Rwanda locations found ({} provinces). Verifying data completeness...", provinceCount);
-            // Verify we have districts, sectors, cells, and villages
-            boolean hasCompleteData = verifyCompleteData();
-            if (!hasCompleteData) {
-                log.warn("Location data appears incomplete. Clearing and reseeding...");
-                shouldReseed = true;
-            } else {
-                // Double-check: verify we have all 5 expected provinces by name
-                boolean hasAllProvinces = verifyAllProvincesExist(existingProvinces);
-                if (!hasAllProvinces) {
-                    log.warn("Not all expected provinces found. Clearing and reseeding...");
-                    shouldReseed = true;
-                } else {
-                    log.info("Rwanda locations verified complete. Skipping reseed...");
-                    return;
-                }
+        long start = System.nanoTime();
+        boolean forceReseed = "true".equalsIgnoreCase(System.getProperty("rwanda.locations.force.reseed", "false"));
+
+        // Generating the rows is cheap (in memory); it's writing them that costs startup time
+        List<Location> locations = buildDataset();
+        String version = datasetVersion(locations);
+
+        DatasetVersion loaded = datasetVersionRepository.findById(DATASET_NAME).orElse(null);
+        // No seeded rows under a matching version: loaded before the seeded flag existed
+        if (!forceReseed && loaded != null && version.equals(loaded.getVersion()) && locationRepository.existsBySeededTrue()) {
+            if (!locationHierarchyService.isPopulated()) {
+                // Loaded before the closure table existed
+                locationHierarchyService.rebuildClosure();
             }
+            log.info("Rwanda locations dataset {} already loaded ({} rows). Skipping seeding ({} ms)",
+                    version, loaded.getRowCount(), elapsedMillis(start));
+            return;
         }
-        
-        if (shouldReseed || (locationCount > 0 && provinceCount < 5) || locationCount == 0) {
-            if (locationCount > 0) {
-                log.warn("Incomplete location data found ({} provinces, expected 5). Clearing and reseeding...", provinceCount);
-            } else {
-                log.info("No location data found. Seeding initial data...");
-            }
-            locationRepository.deleteAll();
+
+        if (loaded != null) {
+            log.info("Rwanda locations dataset {} -> {}. Reconciling...", loaded.getVersion(), version);
+        } else {
+            log.info("Seeding Rwanda locations dataset {}...", version);
+        }
+
+        LoadResult result;
+        try {
+            result = bulkLoad(locations, version);
+        } catch (DataAccessException e) {
+            // Nothing was written; starting without the reference hierarchy would only hide the problem
+            throw new IllegalStateException("Rwanda location seeding failed for dataset " + version + ": "
+                    + e.getMostSpecificCause().getMessage(), e);
         }
+        log.info("Seeded Rwanda locations dataset {}: {} inserted, {} updated, {} retired in {} ms",
+                version, result.inserted(), result.updated(), result.retired(), elapsedMillis(start));
+    }
+
+    /** Identifies a dataset row by its id path; names may change between dataset versions. */
+    private record PathKey(Long provinceId, Long districtId, Long sectorId, Long cellId, Long villageId) {
+        static PathKey of(Location location) {
+            return new PathKey(location.getProvinceId(), location.getDistrictId(), location.getSectorId(),
+                    location.getCellId(), location.getVillageId());
+        }
+    }
+
+    private record LoadResult(int inserted, int updated, int retired) {}
+
+    /**
+     * Brings the seeded rows in line with {@code locations} in one transaction, leaving users'
+     * own location rows alone. Seeded rows are matched by id path and updated in place, so the
+     * users pointing at them keep their ids; missing rows are inserted with JDBC batches
+     * (IDENTITY ids would make {@code saveAll} insert row by row); seeded rows no longer in the
+     * dataset are deleted, or just unflagged while a user still references them. The closure
+     * table and dataset version are written in the same transaction, so a failed load leaves
+     * the previous data in place.
+     *
+     * Rows loaded before the seeded flag existed are unflagged; if no row is flagged yet, the
+     * oldest row on each dataset path is adopted as the seeded one.
+     */
+    private LoadResult bulkLoad(List<Location> locations, String version) {
+        return transactionTemplate.execute(status -> {
+            Map<PathKey, Long> seededIds = new HashMap<>();
+            Map<PathKey, Long> unflaggedIds = new HashMap<>();
+            jdbcTemplate.query(EXISTING_SQL, rs -> {
+                PathKey key = new PathKey(rs.getObject(2, Long.class), rs.getObject(3, Long.class),
+                        rs.getObject(4, Long.class), rs.getObject(5, Long.class), rs.getObject(6, Long.class));
+                Map<PathKey, Long> ids = Boolean.TRUE.equals(rs.getObject(7, Boolean.class)) ? seededIds : unflaggedIds;
+                ids.merge(key, rs.getLong(1), Math::min);
+            });
+            Map<PathKey, Long> matchable = seededIds.isEmpty() ? unflaggedIds : seededIds;
 
-        log.info("Starting Rwanda location data seeding...");
+            List<Location> updates = new ArrayList<>();
+            List<Location> inserts = new ArrayList<>();
+            Set<Long> kept = new HashSet<>();
+            for (Location location : locations) {
+                Long id = matchable.get(PathKey.of(location));
+                if (id != null && kept.add(id)) {
+                    location.setId(id);
+                    updates.add(location);
+                } else {
+                    inserts.add(location);
+                }
+            }
+            List<Long> retired = seededIds.values().stream().filter(id -> !kept.contains(id)).toList();
+
+            jdbcTemplate.batchUpdate(UPDATE_SQL, updates, BATCH_SIZE, (ps, location) -> {
+                ps.setString(1, location.getProvinceName());
+                ps.setString(2, location.getDistrictName());
+                ps.setString(3, location.getSectorName());
+                ps.setString(4, location.getCellName());
+                ps.setString(5, location.getVillageName());
+                ps.setString(6, location.getLocationType().name());
+                ps.setLong(7, location.getId());
+            });
+            jdbcTemplate.batchUpdate(INSERT_SQL, inserts, BATCH_SIZE, (ps, location) -> {
+                ps.setLong(1, location.getProvinceId());
+                ps.setString(2, location.getProvinceName());
+                ps.setObject(3, location.getDistrictId(), Types.BIGINT);
+                ps.setString(4, location.getDistrictName());
+                ps.setObject(5, location.getSectorId(), Types.BIGINT);
+                ps.setString(6, location.getSectorName());
+                ps.setObject(7, location.getCellId(), Types.BIGINT);
+                ps.setString(8, location.getCellName());
+                ps.setObject(9, location.getVillageId(), Types.BIGINT);
+                ps.setString(10, location.getVillageName());
+                ps.setString(11, location.getLocationType().name());
+            });
+            jdbcTemplate.batchUpdate(UNFLAG_SQL, retired, BATCH_SIZE, (ps, id) -> ps.setLong(1, id));
+            jdbcTemplate.batchUpdate(DELETE_UNREFERENCED_SQL, retired, BATCH_SIZE, (ps, id) -> ps.setLong(1, id));
+
+            locationHierarchyService.rebuildClosure();
+            datasetVersionRepository.save(new DatasetVersion(DATASET_NAME, version, locations.size(), LocalDateTime.now()));
+            return new LoadResult(inserts.size(), updates.size(), retired.size());
+        });
+    }
+
+    private List<Location> buildDataset() {
         List<Location> locations = new ArrayList<>();
 
         // Add all 5 Rwanda provinces
@@ -101,87 +225,32 @@ public class RwandaLocationSeeder implements ApplicationRunner {
         // Province 5: Western Province (Province ID: 5)
         locations.addAll(seedWesternProvince());
 
-        // Save locations in batches to avoid memory issues
-        int batchSize = 1000;
-        int totalSaved = 0;
-        for (int i = 0; i < locations.size(); i += batchSize) {
-            int end = Math.min(i + batchSize, locations.size());
-            List<Location> batch = locations.subList(i, end);
-            locationRepository.saveAll(batch);
-            totalSaved += batch.size();
-            log.info("Saved batch: {}/{} locations", totalSaved, locations.size());
-        }
-        
-        log.info("Successfully seeded {} Rwanda locations", totalSaved);
-        
-        // Verify the data was saved correctly
-        List<Object[]> savedProvinces = locationRepository.findDistinctProvinces();
-        int savedProvinceCount = savedProvinces != null ? savedProvinces.size() : 0;
-        log.info("Verification: {} provinces saved", savedProvinceCount);
-        
-        if (savedProvinceCount < 5) {
-            log.error("ERROR: Expected 5 provinces but only {} were saved!", savedProvinceCount);
-        }
+        return locations;
     }
-    
-    private boolean verifyCompleteData() {
+
+    /** Fingerprint of the generated rows; changes whenever the seed data in this class does. */
+    private static String datasetVersion(List<Location> locations) {
         try {
-            List<Object[]> provinces = locationRepository.findDistinctProvinces();
-            if (provinces == null || provinces.size() < 5) {
-                log.warn("Insufficient provinces found: {}", provinces != null ? provinces.size() : 0);
-                return false;
-            }
-            
-            // Check if we have districts for at least one province
-            for (Object[] province : provinces) {
-                if (province != null && province.length >= 2 && province[0] != null) {
-                    Long provinceId = (Long) province[0];
-                    List<Object[]> districts = locationRepository.findDistinctDistrictsByProvinceId(provinceId);
-                    if (districts != null && !districts.isEmpty()) {
-                        // Check if we have sectors for at least one district
-                        for (Object[] district : districts) {
-                            if (district != null && district.length >= 2 && district[0] != null) {
-                                Long districtId = (Long) district[0];
-                                List<Object[]> sectors = locationRepository.findDistinctSectorsByProvinceAndDistrict(provinceId, districtId);
-                                if (sectors != null && !sectors.isEmpty()) {
-                                    return true; // We have at least one complete hierarchy
-                                }
-                            }
-                        }
-                    }
-                }
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            StringBuilder row = new StringBuilder();
+            for (Location l : locations) {
+                row.setLength(0);
+                row.append(l.getProvinceId()).append('|').append(l.getProvinceName()).append('|')
+                        .append(l.getDistrictId()).append('|').append(l.getDistrictName()).append('|')
+                        .append(l.getSectorId()).append('|').append(l.getSectorName()).append('|')
+                        .append(l.getCellId()).append('|').append(l.getCellName()).append('|')
+                        .append(l.getVillageId()).append('|').append(l.getVillageName()).append('|')
+                        .append(l.getLocationType()).append('\n');
+                digest.update(row.toString().getBytes(StandardCharsets.UTF_8));
             }
-            log.warn("No complete location hierarchy found");
-            return false;
-        } catch (Exception e) {
-            log.error("Error verifying location data: {}", e.getMessage());
-            return false;
+            return HexFormat.of().formatHex(digest.digest(), 0, 16);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
         }
     }
-    
-    private boolean verifyAllProvincesExist(List<Object[]> existingProvinces) {
-        if (existingProvinces == null || existingProvinces.size() < 5) {
-            return false;
-        }
-        
-        // Check for the 5 expected provinces
-        String[] expectedProvinces = {"Kigali", "Northern Province", "Southern Province", "Eastern Province", "Western Province"};
-        java.util.Set<String> foundProvinces = new java.util.HashSet<>();
-        
-        for (Object[] province : existingProvinces) {
-            if (province != null && province.length >= 2 && province[1] != null) {
-                foundProvinces.add(province[1].toString());
-            }
-        }
-        
-        for (String expected : expectedProvinces) {
-            if (!foundProvinces.contains(expected)) {
-                log.warn("Missing expected province: {}", expected);
-                return false;
-            }
-        }
-        
-        return true;
+
+    private static long elapsedMillis(long startNanos) {
+        return (System.nanoTime() - startNanos) / 1_000_000;
     }
 
     private List<Location> seedKigaliProvince() {
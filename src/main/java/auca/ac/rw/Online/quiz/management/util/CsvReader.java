@@ -0,0 +1,170 @@
+package auca.ac.rw.Online.quiz.management.util;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Incremental RFC 4180 CSV reader: one record per {@link #next()} call, read straight from the
+ * underlying {@link Reader}. Quoted fields may contain commas, doubled quotes and line breaks.
+ *
+ * Memory is bounded by the longest record; records over {@code maxRecordChars} throw
+ * {@link RecordTooLongException} after the rest of the record has been skipped, so the caller
+ * can report the row and keep reading.
+ */
+public class CsvReader {
+
+    public static class RecordTooLongException extends IOException {
+        public RecordTooLongException(String message) {
+            super(message);
+        }
+    }
+
+    private final Reader reader;
+    private final int maxRecordChars;
+    private final StringBuilder field = new StringBuilder();
+    private long lineNumber = 1;
+    private long recordStartLine;
+    private int pushedBack = -2; // -2 = nothing pushed back
+
+    public CsvReader(Reader reader, int maxRecordChars) {
+        this.reader = reader;
+        this.maxRecordChars = maxRecordChars;
+    }
+
+    /** Line on which the record last returned by {@link #next()} started (1-based). */
+    public long recordStartLine() {
+        return recordStartLine;
+    }
+
+    /** The next record's fields, or null at end of input. Blank lines are skipped. */
+    public List<String> next() throws IOException {
+        List<String> fields = new ArrayList<>();
+        field.setLength(0);
+        int recordChars = 0;
+        boolean quoted = false;
+        boolean fieldStarted = false;
+        boolean tooLong = false;
+        recordStartLine = lineNumber;
+
+        while (true) {
+            int c = read();
+            if (c == -1) {
+                if (quoted) {
+                    throw new IOException("Unterminated quoted field starting on line " + recordStartLine);
+                }
+                if (fields.isEmpty() && !fieldStarted) {
+                    return null;
+                }
+                fields.add(field.toString());
+                return finish(fields, tooLong);
+            }
+            if (++recordChars > maxRecordChars && !tooLong) {
+                tooLong = true;
+                field.setLength(0);
+                fields.clear();
+            }
+
+            if (quoted) {
+                if (c == '"') {
+                    int following = read();
+                    if (following == '"') {
+                        append('"', tooLong);
+                    } else {
+                        quoted = false;
+                        unread(following);
+                    }
+                } else {
+                    if (c == '\n') {
+                        lineNumber++;
+                    }
+                    append((char) c, tooLong);
+                }
+                continue;
+            }
+
+            switch (c) {
+                case '"' -> {
+                    quoted = true;
+                    fieldStarted = true;
+                }
+                case ',' -> {
+                    if (!tooLong) {
+                        fields.add(field.toString());
+                    }
+                    field.setLength(0);
+                    fieldStarted = true;
+                }
+                case '\r' -> {
+                    // Swallowed; \n ends the record
+                }
+                case '\n' -> {
+                    lineNumber++;
+                    if (fields.isEmpty() && !fieldStarted && field.isEmpty()) {
+                        recordStartLine = lineNumber; // Blank line
+                        recordChars = 0;
+                        continue;
+                    }
+                    fields.add(field.toString());
+                    return finish(fields, tooLong);
+                }
+                default -> {
+                    append((char) c, tooLong);
+                    fieldStarted = true;
+                }
+            }
+        }
+    }
+
+    /**
+     * Splits a field written by {@link CsvWriter#joinEscaped}. A backslash escapes the separator
+     * or another backslash; before any other character it is kept, so hand-written values such
+     * as Windows paths read unchanged.
+     */
+    public static List<String> splitEscaped(String field, char separator) {
+        List<String> values = new ArrayList<>();
+        StringBuilder value = new StringBuilder();
+        for (int i = 0; i < field.length(); i++) {
+            char c = field.charAt(i);
+            if (c == '\\' && i + 1 < field.length()
+                    && (field.charAt(i + 1) == separator || field.charAt(i + 1) == '\\')) {
+                value.append(field.charAt(++i));
+            } else if (c == separator) {
+                values.add(value.toString());
+                value.setLength(0);
+            } else {
+                value.append(c);
+            }
+        }
+        values.add(value.toString());
+        return values;
+    }
+
+    private List<String> finish(List<String> fields, boolean tooLong) throws RecordTooLongException {
+        if (tooLong) {
+            throw new RecordTooLongException("Record starting on line " + recordStartLine
+                    + " is longer than " + maxRecordChars + " characters");
+        }
+        return fields;
+    }
+
+    private void append(char c, boolean tooLong) {
+        if (!tooLong) {
+            field.append(c);
+        }
+    }
+
+    private int read() throws IOException {
+        if (pushedBack != -2) {
+            int c = pushedBack;
+            pushedBack = -2;
+            return c;
+        }
+        return reader.read();
+    }
+
+    private void unread(int c) {
+        pushedBack = c;
+    }
+}
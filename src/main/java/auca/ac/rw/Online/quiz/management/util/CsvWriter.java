@@ -0,0 +1,69 @@
+package auca.ac.rw.Online.quiz.management.util;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+
+/**
+ * Writes RFC 4180 records to a {@link Writer}, one {@link #writeRecord} call per line. Fields
+ * containing commas, quotes or line breaks are quoted; the output reads back with {@link CsvReader}.
+ */
+public class CsvWriter {
+
+    private final Writer writer;
+
+    public CsvWriter(Writer writer) {
+        this.writer = writer;
+    }
+
+    /** Writes one record; null fields are written as empty. */
+    public void writeRecord(String... fields) throws IOException {
+        for (int i = 0; i < fields.length; i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            writeField(fields[i]);
+        }
+        writer.write("\r\n");
+    }
+
+    /**
+     * Joins {@code values} into one field, putting a backslash before each {@code separator} or
+     * backslash inside a value. {@link CsvReader#splitEscaped} splits it back.
+     */
+    public static String joinEscaped(List<String> values, char separator) {
+        StringBuilder joined = new StringBuilder();
+        for (int i = 0; i < values.size(); i++) {
+            if (i > 0) {
+                joined.append(separator);
+            }
+            String value = values.get(i);
+            for (int j = 0; j < value.length(); j++) {
+                char c = value.charAt(j);
+                if (c == separator || c == '\\') {
+                    joined.append('\\');
+                }
+                joined.append(c);
+            }
+        }
+        return joined.toString();
+    }
+
+    private void writeField(String value) throws IOException {
+        if (value == null || value.isEmpty()) {
+            return;
+        }
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        writer.write(value.replace("\"", "\"\""));
+        writer.write('"');
+    }
+}
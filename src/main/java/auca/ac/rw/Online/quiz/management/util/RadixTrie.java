@@ -0,0 +1,252 @@
+package auca.ac.rw.Online.quiz.management.util;
+
+import java.util.Arrays;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.IntPredicate;
+
+/**
+ * Compressed (radix) trie from lowercase string keys to int ids, for prefix lookups.
+ *
+ * Edges carry whole substrings, so the depth is bounded by the number of branching points
+ * rather than key length. Each node keeps the ids whose key ends there in a sorted
+ * {@code int[]} and its children in a char-sorted array. A prefix lookup walks at most
+ * {@code prefix.length()} characters and then visits the subtree in key order until
+ * {@code limit} ids are collected.
+ *
+ * Thread-safe: lookups share a read lock, updates take the write lock.
+ */
+public class RadixTrie {
+
+    private static final int[] NO_IDS = new int[0];
+    private static final Node[] NO_CHILDREN = new Node[0];
+
+    private static final class Node {
+        String label;
+        Node[] children = NO_CHILDREN; // sorted by first char of label
+        int[] ids = NO_IDS;            // sorted
+
+        Node(String label) {
+            this.label = label;
+        }
+
+        int childIndex(char c) {
+            int low = 0;
+            int high = children.length - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                char midChar = children[mid].label.charAt(0);
+                if (midChar < c) {
+                    low = mid + 1;
+                } else if (midChar > c) {
+                    high = mid - 1;
+                } else {
+                    return mid;
+                }
+            }
+            return -(low + 1);
+        }
+
+        void insertChild(int insertionPoint, Node child) {
+            Node[] grown = new Node[children.length + 1];
+            System.arraycopy(children, 0, grown, 0, insertionPoint);
+            grown[insertionPoint] = child;
+            System.arraycopy(children, insertionPoint, grown, insertionPoint + 1, children.length - insertionPoint);
+            children = grown;
+        }
+
+        void removeChild(int index) {
+            Node[] shrunk = new Node[children.length - 1];
+            System.arraycopy(children, 0, shrunk, 0, index);
+            System.arraycopy(children, index + 1, shrunk, index, children.length - index - 1);
+            children = shrunk;
+        }
+    }
+
+    private final Node root = new Node("");
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public void add(String key, int id) {
+        if (key == null || key.isEmpty()) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            Node node = root;
+            int pos = 0;
+            while (pos < key.length()) {
+                int index = node.childIndex(key.charAt(pos));
+                if (index < 0) {
+                    Node leaf = new Node(key.substring(pos));
+                    leaf.ids = new int[] {id};
+                    node.insertChild(-index - 1, leaf);
+                    return;
+                }
+                Node child = node.children[index];
+                int common = commonPrefixLength(child.label, key, pos);
+                if (common < child.label.length()) {
+                    // Split the edge: child keeps the tail under a new intermediate node
+                    Node middle = new Node(child.label.substring(0, common));
+                    child.label = child.label.substring(common);
+                    middle.children = new Node[] {child};
+                    node.children[index] = middle;
+                    child = middle;
+                }
+                node = child;
+                pos += common;
+            }
+            node.ids = insertSorted(node.ids, id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(String key, int id) {
+        if (key == null || key.isEmpty()) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            remove(root, key, 0, id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Ids of keys starting with {@code prefix}, in key order, without duplicates.
+     */
+    public int[] prefixSearch(String prefix, int limit, IntPredicate filter) {
+        if (prefix == null || prefix.isEmpty() || limit <= 0) {
+            return NO_IDS;
+        }
+        lock.readLock().lock();
+        try {
+            Node node = root;
+            int pos = 0;
+            while (pos < prefix.length()) {
+                int index = node.childIndex(prefix.charAt(pos));
+                if (index < 0) {
+                    return NO_IDS;
+                }
+                Node child = node.children[index];
+                int common = commonPrefixLength(child.label, prefix, pos);
+                if (pos + common < prefix.length() && common < child.label.length()) {
+                    return NO_IDS; // Diverges inside the edge
+                }
+                node = child;
+                pos += common;
+            }
+            Collector collector = new Collector(limit, filter);
+            collector.visit(node);
+            return collector.result();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Depth-first walk in key order that stops once enough ids are collected. */
+    private static final class Collector {
+        private final int limit;
+        private final IntPredicate filter;
+        private final int[] found;
+        private int size;
+
+        Collector(int limit, IntPredicate filter) {
+            this.limit = limit;
+            this.filter = filter;
+            this.found = new int[limit];
+        }
+
+        void visit(Node node) {
+            for (int id : node.ids) {
+                if (size == limit) {
+                    return;
+                }
+                if (filter.test(id) && !contains(id)) {
+                    found[size++] = id;
+                }
+            }
+            for (Node child : node.children) {
+                if (size == limit) {
+                    return;
+                }
+                visit(child);
+            }
+        }
+
+        // Results are small (a typeahead page), so a linear check beats a hash set
+        private boolean contains(int id) {
+            for (int i = 0; i < size; i++) {
+                if (found[i] == id) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        int[] result() {
+            return Arrays.copyOf(found, size);
+        }
+    }
+
+    /** @return true if {@code node} is now empty and can be unlinked by its parent */
+    private static boolean remove(Node node, String key, int pos, int id) {
+        if (pos == key.length()) {
+            node.ids = removeSorted(node.ids, id);
+        } else {
+            int index = node.childIndex(key.charAt(pos));
+            if (index < 0) {
+                return false;
+            }
+            Node child = node.children[index];
+            if (!key.startsWith(child.label, pos)) {
+                return false;
+            }
+            if (remove(child, key, pos + child.label.length(), id)) {
+                node.removeChild(index);
+            } else if (child.ids.length == 0 && child.children.length == 1) {
+                // Merge a pass-through node back into its only child
+                Node only = child.children[0];
+                only.label = child.label + only.label;
+                node.children[index] = only;
+            }
+        }
+        return node.ids.length == 0 && node.children.length == 0 && !node.label.isEmpty();
+    }
+
+    private static int commonPrefixLength(String label, String key, int pos) {
+        int max = Math.min(label.length(), key.length() - pos);
+        int i = 0;
+        while (i < max && label.charAt(i) == key.charAt(pos + i)) {
+            i++;
+        }
+        return i;
+    }
+
+    private static int[] insertSorted(int[] ids, int id) {
+        int pos = Arrays.binarySearch(ids, id);
+        if (pos >= 0) {
+            return ids;
+        }
+        pos = -pos - 1;
+        int[] grown = new int[ids.length + 1];
+        System.arraycopy(ids, 0, grown, 0, pos);
+        grown[pos] = id;
+        System.arraycopy(ids, pos, grown, pos + 1, ids.length - pos);
+        return grown;
+    }
+
+    private static int[] removeSorted(int[] ids, int id) {
+        int pos = Arrays.binarySearch(ids, id);
+        if (pos < 0) {
+            return ids;
+        }
+        if (ids.length == 1) {
+            return NO_IDS;
+        }
+        int[] shrunk = new int[ids.length - 1];
+        System.arraycopy(ids, 0, shrunk, 0, pos);
+        System.arraycopy(ids, pos + 1, shrunk, pos, ids.length - pos - 1);
+        return shrunk;
+    }
+}
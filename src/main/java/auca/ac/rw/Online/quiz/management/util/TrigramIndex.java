@@ -0,0 +1,281 @@
+package auca.ac.rw.Online.quiz.management.util;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.IntPredicate;
+
+/**
+ * Substring index over short texts keyed by int id.
+ *
+ * Every distinct character trigram of a document maps to a sorted {@code int[]} posting
+ * list. A query of three or more characters intersects the postings of its trigrams and
+ * only checks the surviving candidates with {@code indexOf}, so it behaves like
+ * {@code LIKE '%q%'} without scanning everything. Shorter queries fall back to a scan of
+ * the in-memory texts.
+ *
+ * A document may hold several fields separated by '\n' (e.g. username and email). Matches
+ * are ranked: whole field, then field prefix, then word prefix, then anywhere, with
+ * shorter documents first on ties.
+ *
+ * Thread-safe: searches share a read lock, updates take the write lock.
+ */
+public class TrigramIndex {
+
+    public static final char FIELD_SEPARATOR = '\n';
+
+    private static final int[] EMPTY = new int[0];
+
+    private final Map<Integer, String> texts = new HashMap<>();
+    private final Map<Long, Postings> postings = new HashMap<>();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /** Growable sorted int list - one per trigram. */
+    private static final class Postings {
+        private int[] ids = new int[4];
+        private int size;
+
+        void add(int id) {
+            int pos = Arrays.binarySearch(ids, 0, size, id);
+            if (pos >= 0) {
+                return;
+            }
+            pos = -pos - 1;
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            System.arraycopy(ids, pos, ids, pos + 1, size - pos);
+            ids[pos] = id;
+            size++;
+        }
+
+        boolean remove(int id) {
+            int pos = Arrays.binarySearch(ids, 0, size, id);
+            if (pos < 0) {
+                return false;
+            }
+            System.arraycopy(ids, pos + 1, ids, pos, size - pos - 1);
+            size--;
+            return true;
+        }
+    }
+
+    /**
+     * Adds or replaces the document with the given id. Null fields are skipped.
+     */
+    public void put(int id, String... fields) {
+        String text = normalizeFields(fields);
+        lock.writeLock().lock();
+        try {
+            String previous = texts.put(id, text);
+            if (previous != null) {
+                if (previous.equals(text)) {
+                    return;
+                }
+                unindex(id, previous);
+            }
+            for (long trigram : trigrams(text)) {
+                postings.computeIfAbsent(trigram, t -> new Postings()).add(id);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(int id) {
+        lock.writeLock().lock();
+        try {
+            String previous = texts.remove(id);
+            if (previous != null) {
+                unindex(id, previous);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return texts.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns up to {@code limit} ids whose text contains {@code query} (case-insensitive),
+     * best match first.
+     *
+     * @param filter only ids it accepts are returned; pass {@code id -> true} for all
+     */
+    public int[] search(String query, int limit, IntPredicate filter) {
+        String q = normalize(query);
+        if (q.isEmpty() || limit <= 0) {
+            return EMPTY;
+        }
+
+        // Min-heap on rank holding the best `limit` hits seen so far
+        PriorityQueue<Hit> best = new PriorityQueue<>(limit + 1, Hit.WORST_FIRST);
+        lock.readLock().lock();
+        try {
+            if (q.length() < 3) {
+                for (Map.Entry<Integer, String> entry : texts.entrySet()) {
+                    offer(best, limit, entry.getKey(), entry.getValue(), q, filter);
+                }
+            } else {
+                int[] candidates = candidates(q);
+                for (int id : candidates) {
+                    offer(best, limit, id, texts.get(id), q, filter);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        int[] result = new int[best.size()];
+        for (int i = result.length - 1; i >= 0; i--) {
+            result[i] = best.poll().id;
+        }
+        return result;
+    }
+
+    private void offer(PriorityQueue<Hit> best, int limit, int id, String text, String q, IntPredicate filter) {
+        int score = matchScore(text, q);
+        if (score == 0 || !filter.test(id)) {
+            return;
+        }
+        Hit hit = new Hit(id, score, text.length());
+        if (best.size() < limit) {
+            best.add(hit);
+        } else if (Hit.WORST_FIRST.compare(hit, best.peek()) > 0) {
+            best.poll();
+            best.add(hit);
+        }
+    }
+
+    private record Hit(int id, int score, int length) {
+        static final Comparator<Hit> WORST_FIRST = Comparator
+                .comparingInt(Hit::score)
+                .thenComparing(Hit::length, Comparator.reverseOrder())
+                .thenComparing(Hit::id, Comparator.reverseOrder());
+    }
+
+    /**
+     * Rank of {@code q} (already normalized) within a normalized document text:
+     * 0 = no match, 1 = inside a word, 2 = word prefix, 3 = field prefix, 4 = whole field.
+     */
+    public static int matchScore(String text, String q) {
+        int best = 0;
+        int from = 0;
+        int pos;
+        while (best < 4 && (pos = text.indexOf(q, from)) >= 0) {
+            int end = pos + q.length();
+            boolean fieldStart = pos == 0 || text.charAt(pos - 1) == FIELD_SEPARATOR;
+            boolean fieldEnd = end == text.length() || text.charAt(end) == FIELD_SEPARATOR;
+            int score;
+            if (fieldStart && fieldEnd) {
+                score = 4;
+            } else if (fieldStart) {
+                score = 3;
+            } else if (!Character.isLetterOrDigit(text.charAt(pos - 1))) {
+                score = 2;
+            } else {
+                score = 1;
+            }
+            best = Math.max(best, score);
+            from = pos + 1;
+        }
+        return best;
+    }
+
+    /** Intersection of the postings of every trigram in {@code q}, smallest list first. */
+    private int[] candidates(String q) {
+        Set<Long> grams = trigrams(q);
+        Postings[] lists = new Postings[grams.size()];
+        int n = 0;
+        for (long gram : grams) {
+            Postings list = postings.get(gram);
+            if (list == null || list.size == 0) {
+                return EMPTY;
+            }
+            lists[n++] = list;
+        }
+        Arrays.sort(lists, 0, n, (a, b) -> Integer.compare(a.size, b.size));
+
+        int[] result = Arrays.copyOf(lists[0].ids, lists[0].size);
+        int resultSize = result.length;
+        for (int i = 1; i < n && resultSize > 0; i++) {
+            resultSize = intersect(result, resultSize, lists[i]);
+        }
+        return Arrays.copyOf(result, resultSize);
+    }
+
+    /** Keeps in {@code acc} only ids also present in {@code other}; returns the new size. */
+    private static int intersect(int[] acc, int accSize, Postings other) {
+        int kept = 0;
+        int j = 0;
+        for (int i = 0; i < accSize && j < other.size; i++) {
+            int id = acc[i];
+            // Skip ahead with binary search: `acc` is usually much shorter than `other`
+            int pos = Arrays.binarySearch(other.ids, j, other.size, id);
+            if (pos >= 0) {
+                acc[kept++] = id;
+                j = pos + 1;
+            } else {
+                j = -pos - 1;
+            }
+        }
+        return kept;
+    }
+
+    private void unindex(int id, String text) {
+        for (long trigram : trigrams(text)) {
+            Postings list = postings.get(trigram);
+            if (list != null && list.remove(id) && list.size == 0) {
+                postings.remove(trigram);
+            }
+        }
+    }
+
+    private static Set<Long> trigrams(String text) {
+        Set<Long> grams = new HashSet<>();
+        for (int i = 0; i + 3 <= text.length(); i++) {
+            char a = text.charAt(i);
+            char b = text.charAt(i + 1);
+            char c = text.charAt(i + 2);
+            if (a == FIELD_SEPARATOR || b == FIELD_SEPARATOR || c == FIELD_SEPARATOR) {
+                continue;
+            }
+            grams.add(((long) a << 32) | ((long) b << 16) | c);
+        }
+        return grams;
+    }
+
+    /**
+     * Joins and normalizes fields the way {@link #put} stores them.
+     */
+    public static String normalizeFields(String... fields) {
+        StringBuilder sb = new StringBuilder();
+        for (String field : fields) {
+            if (field == null || field.isBlank()) {
+                continue;
+            }
+            if (!sb.isEmpty()) {
+                sb.append(FIELD_SEPARATOR);
+            }
+            sb.append(normalize(field));
+        }
+        return sb.toString();
+    }
+
+    public static String normalize(String s) {
+        return s == null ? "" : s.trim().toLowerCase(Locale.ROOT).replace(FIELD_SEPARATOR, ' ');
+    }
+}
@@ -0,0 +1,82 @@
+package auca.ac.rw.Online.quiz.management;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import javax.sql.DataSource;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Counts the SQL statements Hibernate prepares on the current thread while recording, so
+ * tests can pin query counts without picking up statements from background jobs.
+ *
+ * Enable with {@code spring.jpa.properties.hibernate.session_factory.statement_inspector}, or
+ * wrap the DataSource with {@link #counting(DataSource)} to count JdbcTemplate statements as
+ * well (not both, or Hibernate's statements count twice).
+ */
+public class StatementCounter implements StatementInspector {
+
+    private static final ThreadLocal<int[]> COUNT = new ThreadLocal<>();
+
+    public static void start() {
+        COUNT.set(new int[2]); // all statements, SELECTs
+    }
+
+    /** SELECTs so far since {@link #start()}, without stopping; 0 when not recording. */
+    public static int selects() {
+        int[] count = COUNT.get();
+        return count == null ? 0 : count[1];
+    }
+
+    /** Stops recording and returns the number of statements since {@link #start()}. */
+    public static int stop() {
+        int[] count = COUNT.get();
+        COUNT.remove();
+        return count == null ? 0 : count[0];
+    }
+
+    @Override
+    public String inspect(String sql) {
+        int[] count = COUNT.get();
+        if (count != null) {
+            count[0]++;
+            if (sql.stripLeading().regionMatches(true, 0, "select", 0, 6)) {
+                count[1]++;
+            }
+        }
+        return sql;
+    }
+
+    /** The DataSource, counting every statement prepared on its connections. */
+    public static DataSource counting(DataSource target) {
+        StatementCounter counter = new StatementCounter();
+        return proxy(DataSource.class, target, (proxy, method, args) -> {
+            Object result = invoke(target, method, args);
+            if (result instanceof Connection connection) {
+                return proxy(Connection.class, connection, (connectionProxy, connectionMethod, connectionArgs) -> {
+                    if (connectionMethod.getName().startsWith("prepare") && connectionArgs != null
+                            && connectionArgs[0] instanceof String sql) {
+                        counter.inspect(sql);
+                    }
+                    return invoke(connection, connectionMethod, connectionArgs);
+                });
+            }
+            return result;
+        });
+    }
+
+    private static <T> T proxy(Class<T> type, T target, InvocationHandler handler) {
+        return type.cast(Proxy.newProxyInstance(StatementCounter.class.getClassLoader(), new Class<?>[] {type},
+                handler));
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
@@ -0,0 +1,194 @@
+package auca.ac.rw.Online.quiz.management.controller;
+
+import auca.ac.rw.Online.quiz.management.model.Location;
+import auca.ac.rw.Online.quiz.management.model.LocationType;
+import auca.ac.rw.Online.quiz.management.model.User;
+import auca.ac.rw.Online.quiz.management.repository.LocationRepository;
+import auca.ac.rw.Online.quiz.management.service.LocationTreeService;
+import auca.ac.rw.Online.quiz.management.system.OnlineQuizManagementSystemApplication;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * The cascading dropdown endpoints, answered from {@link LocationTreeService}, return what the
+ * DISTINCT queries they replaced returned, revalidate with {@code If-None-Match}, and keep their
+ * ETags while only users' own location rows change.
+ */
+@SpringBootTest(classes = OnlineQuizManagementSystemApplication.class)
+@TestPropertySource(locations = "classpath:application-test.properties")
+public class LocationDropdownTest {
+
+    private static final AtomicInteger users = new AtomicInteger();
+
+    @Autowired
+    private LocationController locationController;
+
+    @Autowired
+    private UserController userController;
+
+    @Autowired
+    private LocationRepository locationRepository;
+
+    @Autowired
+    private LocationTreeService locationTreeService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    public void everyLevelMatchesTheDistinctQueries() throws Exception {
+        List<Map<String, Object>> provinces = assertMatches(locationController.getProvinces(),
+                locationRepository.findDistinctProvinces());
+        assertEquals(5, provinces.size());
+
+        int compared = 0;
+        for (long p : ids(provinces)) {
+            for (long d : ids(assertMatches(locationController.getDistricts(p),
+                    locationRepository.findDistinctDistrictsByProvinceId(p)))) {
+                for (long s : ids(assertMatches(locationController.getSectors(p, d),
+                        locationRepository.findDistinctSectorsByProvinceAndDistrict(p, d)))) {
+                    for (long c : ids(assertMatches(locationController.getCells(p, d, s),
+                            locationRepository.findDistinctCellsByProvinceDistrictAndSector(p, d, s)))) {
+                        assertMatches(locationController.getVillages(p, d, s, c),
+                                locationRepository.findDistinctVillagesByLocation(p, d, s, c));
+                        compared++;
+                    }
+                }
+            }
+        }
+        assertTrue(compared > 0);
+
+        // Unknown parents answer an empty list, as the queries did
+        assertMatches(locationController.getDistricts(-1L), locationRepository.findDistinctDistrictsByProvinceId(-1L));
+        assertMatches(locationController.getVillages(1L, -1L, -1L, -1L),
+                locationRepository.findDistinctVillagesByLocation(1L, -1L, -1L, -1L));
+    }
+
+    @Test
+    public void repeatRequestWithTheETagIsNotModified() throws Exception {
+        // Standalone, so the security filter chain is not in the way
+        MockMvc mockMvc = MockMvcBuilders.standaloneSetup(locationController).build();
+
+        MvcResult first = mockMvc.perform(get("/api/locations/districts").param("provinceId", "1"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-cache"))
+                .andReturn();
+        String etag = first.getResponse().getHeader(HttpHeaders.ETAG);
+        assertNotNull(etag);
+        assertTrue(first.getResponse().getContentAsByteArray().length > 2);
+
+        MvcResult repeat = mockMvc.perform(get("/api/locations/districts").param("provinceId", "1")
+                        .header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, etag))
+                .andReturn();
+        assertEquals(0, repeat.getResponse().getContentAsByteArray().length);
+
+        // Another level's tag does not match
+        String provincesEtag = locationController.getProvinces().getHeaders().getETag();
+        assertNotEquals(etag, provincesEtag);
+        mockMvc.perform(get("/api/locations/districts").param("provinceId", "1")
+                        .header(HttpHeaders.IF_NONE_MATCH, provincesEtag))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    public void usersOwnLocationsLeaveTheETagsUnchanged() throws Exception {
+        Location village = locationRepository.findFirstBySeededTrueAndProvinceIdAndLocationType(1L, LocationType.VILLAGE)
+                .orElseThrow();
+        Supplier<ResponseEntity<byte[]>> villages = () -> locationController.getVillages(village.getProvinceId(),
+                village.getDistrictId(), village.getSectorId(), village.getCellId());
+        LocationTreeService.Node root = locationTreeService.find();
+        String provincesEtag = locationController.getProvinces().getHeaders().getETag();
+        String villagesEtag = villages.get().getHeaders().getETag();
+
+        createUserAt(village);
+        // Give a wrongly requested rebuild time to land
+        Thread.sleep(1000);
+
+        assertSame(root, locationTreeService.find());
+        assertEquals(provincesEtag, locationController.getProvinces().getHeaders().getETag());
+        assertEquals(villagesEtag, villages.get().getHeaders().getETag());
+
+        // A seeded rename does change it, and renaming back restores the same tag
+        String name = village.getVillageName();
+        try {
+            village.setVillageName(name + " renamed");
+            locationRepository.save(village);
+            assertNotEquals(villagesEtag, awaitEtag(villages, etag -> !etag.equals(villagesEtag)));
+        } finally {
+            village.setVillageName(name);
+            locationRepository.save(village);
+        }
+        assertEquals(villagesEtag, awaitEtag(villages, villagesEtag::equals));
+    }
+
+    /** Asserts the dropdown body is the query's rows as {@code [{"id":..,"name":..}]} and returns it. */
+    private List<Map<String, Object>> assertMatches(ResponseEntity<byte[]> response, List<Object[]> rows) throws Exception {
+        List<Map<String, Object>> expected = new ArrayList<>();
+        for (Object[] row : rows) {
+            Map<String, Object> item = new LinkedHashMap<>();
+            item.put("id", row[0]);
+            item.put("name", row[1]);
+            expected.add(item);
+        }
+        String body = new String(response.getBody(), StandardCharsets.UTF_8);
+        assertEquals(objectMapper.writeValueAsString(expected), body);
+        assertNotNull(response.getHeaders().getETag());
+        return objectMapper.readValue(body, new TypeReference<>() {});
+    }
+
+    private static List<Long> ids(List<Map<String, Object>> items) {
+        return items.stream().map(item -> ((Number) item.get("id")).longValue()).toList();
+    }
+
+    private static String awaitEtag(Supplier<ResponseEntity<byte[]>> request, Predicate<String> done)
+            throws InterruptedException {
+        long deadline = System.nanoTime() + 30_000_000_000L;
+        String etag = request.get().getHeaders().getETag();
+        while (!done.test(etag) && System.nanoTime() < deadline) {
+            Thread.sleep(100);
+            etag = request.get().getHeaders().getETag();
+        }
+        return etag;
+    }
+
+    private void createUserAt(Location place) {
+        String username = "dropdown" + users.incrementAndGet();
+        User user = new User();
+        user.setUsername(username);
+        user.setEmail(username + "@example.com");
+        user.setPassword("Secret123@");
+        // What the user form sends: the path of the chosen place, without an id
+        user.setLocation(new Location(null, place.getProvinceId(), place.getProvinceName(), place.getDistrictId(),
+                place.getDistrictName(), place.getSectorId(), place.getSectorName(), place.getCellId(),
+                place.getCellName(), place.getVillageId(), place.getVillageName(), null));
+
+        ResponseEntity<?> response = userController.create(user);
+        assertEquals(201, response.getStatusCode().value(), String.valueOf(response.getBody()));
+        assertFalse(((User) response.getBody()).getLocation().isSeeded());
+    }
+}
@@ -0,0 +1,96 @@
+package auca.ac.rw.Online.quiz.management.controller;
+
+import auca.ac.rw.Online.quiz.management.model.Location;
+import auca.ac.rw.Online.quiz.management.model.LocationType;
+import auca.ac.rw.Online.quiz.management.model.User;
+import auca.ac.rw.Online.quiz.management.repository.LocationRepository;
+import auca.ac.rw.Online.quiz.management.system.OnlineQuizManagementSystemApplication;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.TestPropertySource;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Users get location rows of their own; those hang below the seeded hierarchy, counted as
+ * users but never as places or ancestors.
+ */
+@SpringBootTest(classes = OnlineQuizManagementSystemApplication.class)
+@TestPropertySource(locations = "classpath:application-test.properties")
+public class LocationHierarchyTest {
+
+    private static final AtomicInteger users = new AtomicInteger();
+
+    @Autowired
+    private UserController userController;
+
+    @Autowired
+    private LocationController locationController;
+
+    @Autowired
+    private LocationRepository locationRepository;
+
+    private Location province;
+
+    @BeforeEach
+    public void findKigali() {
+        province = locationRepository.findFirstBySeededTrueAndProvinceIdAndLocationType(1L, LocationType.PROVINCE)
+                .orElseThrow();
+    }
+
+    @Test
+    public void creatingAUserLeavesSubtreeCountsUnchanged() {
+        Location sector = locationController.getDescendants(province.getId(), LocationType.SECTOR).get(0);
+        Map<String, Object> before = locationController.getSubtreeSummary(province.getId()).getBody();
+        int sectorsBefore = locationController.getDescendants(province.getId(), LocationType.SECTOR).size();
+
+        Location own = createUserAt(sector);
+
+        assertNotEquals(sector.getId(), own.getId());
+        assertFalse(own.isSeeded());
+        Map<String, Object> after = locationController.getSubtreeSummary(province.getId()).getBody();
+        assertEquals(before.get("descendants"), after.get("descendants"));
+        assertEquals((Long) before.get("users") + 1, after.get("users"));
+        assertEquals(sectorsBefore, locationController.getDescendants(province.getId(), LocationType.SECTOR).size());
+    }
+
+    @Test
+    public void ancestorPathsHaveOneSeededRowPerLevel() {
+        Location village = locationController.getDescendants(province.getId(), LocationType.VILLAGE).get(0);
+        // A user placed at province level used to become a second ancestor of everything in it
+        createUserAt(province);
+        Location own = createUserAt(village);
+
+        List<LocationType> expected = List.of(LocationType.PROVINCE, LocationType.DISTRICT, LocationType.SECTOR,
+                LocationType.CELL, LocationType.VILLAGE);
+        for (Long id : List.of(village.getId(), own.getId())) {
+            List<Location> path = locationController.getAncestors(id);
+            assertEquals(expected, path.stream().map(Location::getLocationType).toList(), "path of " + id);
+            assertTrue(path.stream().allMatch(Location::isSeeded), "path of " + id);
+            assertEquals(village.getId(), path.get(path.size() - 1).getId());
+        }
+    }
+
+    private Location createUserAt(Location place) {
+        String username = "hierarchy" + users.incrementAndGet();
+        User user = new User();
+        user.setUsername(username);
+        user.setEmail(username + "@example.com");
+        user.setPassword("Secret123@");
+        // What the user form sends: the path of the chosen place, without an id
+        user.setLocation(new Location(null, place.getProvinceId(), place.getProvinceName(), place.getDistrictId(),
+                place.getDistrictName(), place.getSectorId(), place.getSectorName(), place.getCellId(),
+                place.getCellName(), place.getVillageId(), place.getVillageName(), null));
+
+        ResponseEntity<?> response = userController.create(user);
+        assertEquals(201, response.getStatusCode().value(), String.valueOf(response.getBody()));
+        return ((User) response.getBody()).getLocation();
+    }
+}
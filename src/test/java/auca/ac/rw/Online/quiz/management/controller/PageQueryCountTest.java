@@ -0,0 +1,106 @@
+package auca.ac.rw.Online.quiz.management.controller;
+
+import auca.ac.rw.Online.quiz.management.StatementCounter;
+import auca.ac.rw.Online.quiz.management.controller.dto.LocationWithUserDTO;
+import auca.ac.rw.Online.quiz.management.model.EUserRole;
+import auca.ac.rw.Online.quiz.management.model.Location;
+import auca.ac.rw.Online.quiz.management.model.User;
+import auca.ac.rw.Online.quiz.management.repository.LocationRepository;
+import auca.ac.rw.Online.quiz.management.repository.UserRepository;
+import auca.ac.rw.Online.quiz.management.system.OnlineQuizManagementSystemApplication;
+import org.hibernate.Hibernate;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.context.TestPropertySource;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The user and location pages must load a page with at most two statements: the page itself
+ * (with its associations) and the COUNT.
+ */
+@SpringBootTest(classes = OnlineQuizManagementSystemApplication.class)
+@TestPropertySource(locations = "classpath:application-test.properties", properties = {
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector=auca.ac.rw.Online.quiz.management.StatementCounter"
+})
+public class PageQueryCountTest {
+
+    private static final int MAX_STATEMENTS_PER_PAGE = 2;
+
+    @Autowired
+    private UserController userController;
+
+    @Autowired
+    private LocationController locationController;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private LocationRepository locationRepository;
+
+    @BeforeEach
+    public void createUsers() {
+        Location location = locationRepository.findAll(PageRequest.of(0, 1)).getContent().get(0);
+        for (int i = 0; i < 5; i++) {
+            String username = "pagecount" + i;
+            if (userRepository.findByUsernameIgnoreCase(username).isEmpty()) {
+                User user = new User();
+                user.setUsername(username);
+                user.setEmail(username + "@example.com");
+                user.setPassword("not-a-real-hash");
+                user.setRole(EUserRole.STUDENT);
+                user.setLocation(location);
+                userRepository.save(user);
+            }
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void userPageLoadsUsersWithLocationsInOneSelect() {
+        StatementCounter.start();
+        Page<User> page = (Page<User>) userController.page(0, 3, "", "contains", Sort.unsorted()).getBody();
+        int statements = StatementCounter.stop();
+
+        assertNotNull(page);
+        assertEquals(3, page.getContent().size());
+        assertTrue(page.getTotalElements() >= 5);
+        page.getContent().forEach(user -> assertTrue(Hibernate.isInitialized(user.getLocation())));
+        assertTrue(statements <= MAX_STATEMENTS_PER_PAGE, "user page ran " + statements + " statements");
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void userSearchPageStaysWithinTwoStatements() {
+        StatementCounter.start();
+        Page<User> page = (Page<User>) userController.page(0, 3, "pagecount", "contains", Sort.unsorted()).getBody();
+        int statements = StatementCounter.stop();
+
+        assertNotNull(page);
+        assertEquals(5, page.getTotalElements());
+        page.getContent().forEach(user -> assertTrue(Hibernate.isInitialized(user.getLocation())));
+        assertTrue(statements <= MAX_STATEMENTS_PER_PAGE, "user search page ran " + statements + " statements");
+    }
+
+    @Test
+    public void locationPagesStayWithinTwoStatements() {
+        StatementCounter.start();
+        Page<LocationWithUserDTO> all = locationController.page(0, 10, "", false);
+        int statements = StatementCounter.stop();
+        assertEquals(10, all.getContent().size());
+        assertTrue(statements <= MAX_STATEMENTS_PER_PAGE, "location page ran " + statements + " statements");
+
+        StatementCounter.start();
+        Page<LocationWithUserDTO> withUsers = locationController.page(0, 10, "", true);
+        statements = StatementCounter.stop();
+        assertTrue(withUsers.getTotalElements() >= 5);
+        withUsers.getContent().forEach(row -> assertNotNull(row.getUsername()));
+        assertTrue(statements <= MAX_STATEMENTS_PER_PAGE, "user location page ran " + statements + " statements");
+    }
+}
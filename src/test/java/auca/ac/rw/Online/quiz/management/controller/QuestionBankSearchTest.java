@@ -0,0 +1,145 @@
+package auca.ac.rw.Online.quiz.management.controller;
+
+import auca.ac.rw.Online.quiz.management.model.EQuestionType;
+import auca.ac.rw.Online.quiz.management.model.Option;
+import auca.ac.rw.Online.quiz.management.model.Question;
+import auca.ac.rw.Online.quiz.management.model.Quiz;
+import auca.ac.rw.Online.quiz.management.repository.OptionRepository;
+import auca.ac.rw.Online.quiz.management.repository.QuestionRepository;
+import auca.ac.rw.Online.quiz.management.repository.QuizRepository;
+import auca.ac.rw.Online.quiz.management.service.CascadeDeleteService;
+import auca.ac.rw.Online.quiz.management.service.OptionReconciler;
+import auca.ac.rw.Online.quiz.management.service.QuestionBankSearchService;
+import auca.ac.rw.Online.quiz.management.service.QuestionBatchInserter;
+import auca.ac.rw.Online.quiz.management.service.QuestionService;
+import auca.ac.rw.Online.quiz.management.system.OnlineQuizManagementSystemApplication;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestPropertySource;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Question bank search answers from the full-text index once it is built, and from the
+ * database, flagged as {@code indexing}, while it is still empty.
+ */
+@SpringBootTest(classes = OnlineQuizManagementSystemApplication.class)
+@TestPropertySource(locations = "classpath:application-test.properties")
+public class QuestionBankSearchTest {
+
+    @Autowired
+    private QuestionController questionController;
+
+    @Autowired
+    private QuestionBankSearchService questionBankSearchService;
+
+    @Autowired
+    private QuestionService questionService;
+
+    @Autowired
+    private QuizRepository quizRepository;
+
+    @Autowired
+    private QuestionRepository questionRepository;
+
+    @Autowired
+    private OptionRepository optionRepository;
+
+    @Autowired
+    private QuestionBatchInserter questionBatchInserter;
+
+    @Autowired
+    private OptionReconciler optionReconciler;
+
+    @Autowired
+    private CascadeDeleteService cascadeDeleteService;
+
+    private Quiz quiz;
+    private Question mountain;
+    private Question river;
+
+    @BeforeEach
+    public void createQuestions() {
+        Quiz created = new Quiz();
+        created.setTitle("Bank search");
+        quiz = quizRepository.save(created);
+        mountain = question("Which country is Kilimanjaro in?", EQuestionType.SINGLE_CHOICE, "Geography", "Tanzania");
+        river = question("Name the longest river", EQuestionType.SHORT_ANSWER, "geography", null);
+    }
+
+    @Test
+    public void readyIndexAnswersWithScores() throws InterruptedException {
+        // The startup reindex runs in the background, and new questions are picked up within a second
+        long deadline = System.nanoTime() + 30_000_000_000L;
+        Map<String, Object> body = search(questionController, "kilimanjaro", null, null);
+        while ((Long) body.get("total") == 0 && System.nanoTime() < deadline) {
+            Thread.sleep(200);
+            body = search(questionController, "kilimanjaro", null, null);
+        }
+
+        assertTrue(questionBankSearchService.isReady());
+        assertEquals(false, body.get("indexing"));
+        assertEquals(List.of(mountain.getId()), ids(body));
+        assertNotNull(results(body).get(0).get("score"));
+    }
+
+    @Test
+    public void emptyIndexFallsBackToTheDatabase() {
+        // Same beans, but an index whose first reindex has not run
+        QuestionBankSearchService building = new QuestionBankSearchService("", 500);
+        try {
+            assertFalse(building.isReady());
+            QuestionController controller = new QuestionController(questionService, quizRepository, optionRepository,
+                    building, questionBatchInserter, optionReconciler, cascadeDeleteService);
+
+            Map<String, Object> body = search(controller, "KILIMANJARO", null, null);
+            assertEquals(true, body.get("indexing"));
+            assertEquals(1L, body.get("total"));
+            assertEquals(List.of(mountain.getId()), ids(body));
+            assertNull(results(body).get(0).get("score"));
+
+            // Option text and category match too; filters still apply
+            assertEquals(List.of(mountain.getId()), ids(search(controller, "tanzania", null, null)));
+            assertEquals(List.of(mountain.getId(), river.getId()), ids(search(controller, "", "GEOGRAPHY ", null)));
+            assertEquals(List.of(river.getId()), ids(search(controller, "", "geography", "short_answer")));
+        } finally {
+            building.close();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> search(QuestionController controller, String q, String category, String type) {
+        return (Map<String, Object>) controller.bankSearch(q, type, quiz.getId(), category, 0, 20).getBody();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Map<String, Object>> results(Map<String, Object> body) {
+        return (List<Map<String, Object>>) body.get("results");
+    }
+
+    private static List<Long> ids(Map<String, Object> body) {
+        return results(body).stream().map(result -> ((Question) result.get("question")).getId()).toList();
+    }
+
+    private Question question(String text, EQuestionType type, String category, String optionText) {
+        Question question = new Question();
+        question.setText(text);
+        question.setType(type);
+        question.setCategory(category);
+        question.setQuiz(quiz);
+        question = questionRepository.save(question);
+        if (optionText != null) {
+            Option option = new Option();
+            option.setText(optionText);
+            option.setCorrect(true);
+            option.setQuestion(question);
+            optionRepository.save(option);
+        }
+        return question;
+    }
+}
@@ -0,0 +1,141 @@
+package auca.ac.rw.Online.quiz.management.controller;
+
+import auca.ac.rw.Online.quiz.management.model.EQuestionType;
+import auca.ac.rw.Online.quiz.management.model.Option;
+import auca.ac.rw.Online.quiz.management.model.Question;
+import auca.ac.rw.Online.quiz.management.model.Quiz;
+import auca.ac.rw.Online.quiz.management.repository.QuestionRepository;
+import auca.ac.rw.Online.quiz.management.repository.QuizRepository;
+import auca.ac.rw.Online.quiz.management.system.OnlineQuizManagementSystemApplication;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.TestPropertySource;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * {@code POST /api/questions/bulk} saves every question or none, and returns the created ids
+ * in request order.
+ */
+@SpringBootTest(classes = OnlineQuizManagementSystemApplication.class)
+@TestPropertySource(locations = "classpath:application-test.properties")
+public class QuestionBulkCreateTest {
+
+    @Autowired
+    private QuestionController questionController;
+
+    @Autowired
+    private QuizRepository quizRepository;
+
+    @Autowired
+    private QuestionRepository questionRepository;
+
+    private Quiz quiz;
+
+    @BeforeEach
+    public void createQuiz() {
+        Quiz created = new Quiz();
+        created.setTitle("Bulk create");
+        quiz = quizRepository.save(created);
+    }
+
+    @Test
+    public void oneInvalidQuestionSavesNothing() {
+        long before = questionRepository.count();
+
+        ResponseEntity<?> response = questionController.createBulk(payload(quiz.getId(), List.of(
+                question("Capital of Rwanda?", "SINGLE_CHOICE", option("Kigali", true), option("Huye", false)),
+                question("No correct option", "MULTIPLE_CHOICE", option("A", false), option("B", false)),
+                question("Name a lake", "SHORT_ANSWER"),
+                question("", "TRUE_FALSE"))));
+
+        assertEquals(400, response.getStatusCode().value());
+        Map<?, ?> body = (Map<?, ?>) response.getBody();
+        assertEquals("2 of 4 questions are invalid; nothing was saved", body.get("message"));
+        List<?> errors = (List<?>) body.get("errors");
+        assertEquals(List.of(1, 3), errors.stream().map(error -> ((Map<?, ?>) error).get("index")).toList());
+        assertEquals("At least one option must be marked correct", ((Map<?, ?>) errors.get(0)).get("message"));
+        assertEquals("text is required", ((Map<?, ?>) errors.get(1)).get("message"));
+
+        assertEquals(List.of(), questionRepository.findByQuizIdWithOptions(quiz.getId()));
+        assertEquals(before, questionRepository.count());
+    }
+
+    @Test
+    public void missingQuizIsNotFound() {
+        long before = questionRepository.count();
+        long missing = quiz.getId() + 1_000_000;
+
+        ResponseEntity<?> response = questionController.createBulk(payload(missing, List.of(
+                question("Name a lake", "SHORT_ANSWER"))));
+
+        assertEquals(404, response.getStatusCode().value());
+        assertEquals("Quiz not found with ID: " + missing, response.getBody());
+        assertEquals(before, questionRepository.count());
+    }
+
+    @Test
+    public void createdIdsComeBackInRequestOrder() {
+        List<String> texts = List.of("Zebra crossings", "Apples", "Mountains", "Boolean");
+
+        ResponseEntity<?> response = questionController.createBulk(payload(quiz.getId(), List.of(
+                question(texts.get(0), "MULTIPLE_CHOICE", option("One", true), option("Two", true), option("Three", false)),
+                question(texts.get(1), "SHORT_ANSWER"),
+                question(texts.get(2), "single_choice", option("Karisimbi", true), option("Muhabura", false)),
+                question(texts.get(3), "TRUE_FALSE"))));
+
+        assertEquals(201, response.getStatusCode().value(), String.valueOf(response.getBody()));
+        Map<?, ?> body = (Map<?, ?>) response.getBody();
+        assertEquals(quiz.getId(), body.get("quizId"));
+        assertEquals(4, body.get("created"));
+        List<Long> ids = ((List<?>) body.get("ids")).stream().map(id -> (Long) id).toList();
+
+        Map<Long, Question> saved = questionRepository.findByIdInWithOptions(ids).stream()
+                .collect(Collectors.toMap(Question::getId, Function.identity()));
+        assertEquals(texts, ids.stream().map(id -> saved.get(id).getText()).toList());
+        assertEquals(EQuestionType.SINGLE_CHOICE, saved.get(ids.get(2)).getType());
+        // Options keep their request order as well
+        assertEquals(List.of("One", "Two", "Three"), optionTexts(saved.get(ids.get(0))));
+        assertEquals(List.of(), optionTexts(saved.get(ids.get(1))));
+        assertEquals(List.of("True", "False"), optionTexts(saved.get(ids.get(3))));
+        assertTrue(saved.get(ids.get(2)).getOptions().get(0).isCorrect());
+        assertEquals(4, questionRepository.findByQuizIdWithOptions(quiz.getId()).size());
+    }
+
+    private static List<String> optionTexts(Question question) {
+        return question.getOptions().stream().map(Option::getText).toList();
+    }
+
+    private static Map<String, Object> payload(long quizId, List<Map<String, Object>> questions) {
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("quizId", quizId);
+        payload.put("questions", questions);
+        return payload;
+    }
+
+    @SafeVarargs
+    private static Map<String, Object> question(String text, String type, Map<String, Object>... options) {
+        Map<String, Object> question = new LinkedHashMap<>();
+        question.put("text", text);
+        question.put("type", type);
+        question.put("points", 1);
+        question.put("options", List.of(options));
+        return question;
+    }
+
+    private static Map<String, Object> option(String text, boolean correct) {
+        Map<String, Object> option = new LinkedHashMap<>();
+        option.put("text", text);
+        option.put("isCorrect", correct);
+        return option;
+    }
+}
@@ -0,0 +1,118 @@
+package auca.ac.rw.Online.quiz.management.controller;
+
+import auca.ac.rw.Online.quiz.management.model.EUserRole;
+import auca.ac.rw.Online.quiz.management.model.Location;
+import auca.ac.rw.Online.quiz.management.model.User;
+import auca.ac.rw.Online.quiz.management.repository.LocationRepository;
+import auca.ac.rw.Online.quiz.management.repository.UserRepository;
+import auca.ac.rw.Online.quiz.management.system.OnlineQuizManagementSystemApplication;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.context.TestPropertySource;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The admin user table's search: substring matches over id, username, email and role from the
+ * database by default, username/email prefix matches with {@code match=prefix}, and the
+ * requested sort on every database path.
+ */
+@SpringBootTest(classes = OnlineQuizManagementSystemApplication.class)
+@TestPropertySource(locations = "classpath:application-test.properties")
+public class UserSearchTest {
+
+    @Autowired
+    private UserController userController;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private LocationRepository locationRepository;
+
+    private User bravo;
+
+    @BeforeEach
+    public void createUsers() {
+        user("searchalpha", "alpha.inbox@usersearch.test", EUserRole.STUDENT);
+        bravo = user("searchbravo", "bravo.inbox@usersearch.test", EUserRole.INSTRUCTOR);
+        user("searchcharlie", "charlie@usersearch.test", EUserRole.STUDENT);
+    }
+
+    @Test
+    public void defaultSearchMatchesAnywhereInIdUsernameEmailOrRole() {
+        assertEquals(List.of("searchalpha", "searchbravo"), usernames(page("INBOX@usersearch", "contains", Sort.by("username"))));
+        assertEquals(List.of("searchalpha", "searchbravo", "searchcharlie"),
+                usernames(page("usersearch.test", "contains", Sort.by("username"))));
+        assertTrue(usernames(page("instruct", "contains", Sort.unsorted())).contains("searchbravo"));
+        assertTrue(usernames(page(String.valueOf(bravo.getId()), "contains", Sort.unsorted())).contains("searchbravo"));
+    }
+
+    @Test
+    public void prefixMatchOnlyMatchesTheStartOfUsernamesAndEmails() {
+        // From the trie, in key order
+        assertEquals(List.of("searchalpha", "searchbravo", "searchcharlie"),
+                usernames(page("Search", "prefix", Sort.unsorted())));
+        assertEquals(List.of("searchbravo"), usernames(page("bravo.in", "prefix", Sort.unsorted())));
+        assertEquals(List.of(), usernames(page("inbox", "prefix", Sort.unsorted())));
+        assertFalse(usernames(page("instructor", "prefix", Sort.unsorted())).contains("searchbravo"));
+    }
+
+    @Test
+    public void sortIsAppliedOnEveryPath() {
+        Sort byUsernameDesc = Sort.by(Sort.Direction.DESC, "username");
+
+        assertEquals(List.of("searchcharlie", "searchbravo", "searchalpha"),
+                usernames(page("usersearch.test", "contains", byUsernameDesc)));
+        // A sorted prefix search is answered by the database
+        assertEquals(List.of("searchcharlie", "searchbravo", "searchalpha"),
+                usernames(page("search", "prefix", byUsernameDesc)));
+        Page<User> sorted = page("usersearch.test", "contains", Sort.by(Sort.Direction.DESC, "role", "username"));
+        assertEquals(List.of("searchcharlie", "searchalpha", "searchbravo"), usernames(sorted));
+        sorted.getContent().forEach(user -> assertNull(user.getPassword()));
+    }
+
+    @Test
+    public void pagesSplitTheMatches() {
+        Page<User> second = page(1, 2, "search", "prefix", Sort.unsorted());
+        assertEquals(3, second.getTotalElements());
+        assertEquals(List.of("searchcharlie"), usernames(second));
+
+        second = page(1, 2, "usersearch.test", "contains", Sort.by("username"));
+        assertEquals(3, second.getTotalElements());
+        assertEquals(List.of("searchcharlie"), usernames(second));
+    }
+
+    private Page<User> page(String q, String match, Sort sort) {
+        return page(0, 10, q, match, sort);
+    }
+
+    @SuppressWarnings("unchecked")
+    private Page<User> page(int page, int size, String q, String match, Sort sort) {
+        return (Page<User>) userController.page(page, size, q, match, sort).getBody();
+    }
+
+    private static List<String> usernames(Page<User> page) {
+        return page.getContent().stream().map(User::getUsername).toList();
+    }
+
+    private User user(String username, String email, EUserRole role) {
+        return userRepository.findByUsernameIgnoreCase(username).orElseGet(() -> {
+            Location location = locationRepository.findAll(PageRequest.of(0, 1)).getContent().get(0);
+            User created = new User();
+            created.setUsername(username);
+            created.setEmail(email);
+            created.setPassword("not-a-real-hash");
+            created.setRole(role);
+            created.setLocation(location);
+            return userRepository.save(created);
+        });
+    }
+}
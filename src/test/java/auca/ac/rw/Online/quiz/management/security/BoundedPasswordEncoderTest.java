@@ -0,0 +1,141 @@
+package auca.ac.rw.Online.quiz.management.security;
+
+import auca.ac.rw.Online.quiz.management.exception.TooManyRequestsException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.InternalAuthenticationServiceException;
+import org.springframework.security.authentication.ProviderManager;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.provisioning.InMemoryUserDetailsManager;
+import org.springframework.security.web.authentication.Http403ForbiddenEntryPoint;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * A saturated hashing pool must surface as 429 whether or not the account exists.
+ */
+public class BoundedPasswordEncoderTest {
+
+    private final CountDownLatch workerBusy = new CountDownLatch(1);
+    private final CountDownLatch releaseWorker = new CountDownLatch(1);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ExecutorService callers = Executors.newFixedThreadPool(2);
+    private BoundedPasswordEncoder encoder;
+
+    @BeforeEach
+    public void saturate() throws Exception {
+        // One worker and a one-slot queue: a blocked hash plus one waiting call fills the pool
+        encoder = new BoundedPasswordEncoder(new BlockingEncoder(), 10, 1, 1, 3, meterRegistry);
+        callers.submit(() -> encoder.encode("first"));
+        assertTrue(workerBusy.await(10, TimeUnit.SECONDS));
+        callers.submit(() -> encoder.encode("second"));
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (meterRegistry.get("auth.password.hash.queue.depth").gauge().value() < 1) {
+            assertTrue(System.nanoTime() < deadline, "second hash never queued");
+            Thread.sleep(5);
+        }
+    }
+
+    @AfterEach
+    public void release() {
+        releaseWorker.countDown();
+        callers.shutdownNow();
+        encoder.destroy();
+    }
+
+    @Test
+    public void saturatedEncoderRejectsWithRetryAfter() {
+        TooManyRequestsException ex = assertThrows(TooManyRequestsException.class,
+                () -> encoder.matches("secret", "hash"));
+        assertEquals(3, ex.getRetryAfterSeconds());
+        assertEquals(1.0, meterRegistry.get("auth.password.hash.rejected").counter().count());
+    }
+
+    @Test
+    public void unknownUserIsThrottledNotUnauthorized() throws Exception {
+        AuthenticationException failure = assertAuthenticationFails("nobody");
+        assertEquals(429, commence(failure).getStatus());
+    }
+
+    @Test
+    public void knownUserIsThrottledNotUnauthorized() throws Exception {
+        AuthenticationException failure = assertAuthenticationFails("alice");
+        assertEquals(429, commence(failure).getStatus());
+    }
+
+    @Test
+    public void entryPointUnwrapsInternalAuthenticationServiceException() throws Exception {
+        TooManyRequestsException cause = new TooManyRequestsException("busy", 7);
+        MockHttpServletResponse response = commence(new InternalAuthenticationServiceException("wrapped", cause));
+
+        assertEquals(429, response.getStatus());
+        assertEquals("7", response.getHeader("Retry-After"));
+    }
+
+    @Test
+    public void entryPointDelegatesOtherFailures() throws Exception {
+        MockHttpServletResponse response = commence(new InternalAuthenticationServiceException("database down"));
+
+        assertEquals(403, response.getStatus());
+    }
+
+    /**
+     * Authenticates through the same provider setup as SecurityConfig and returns the failure
+     * as an AuthenticationException, the only type the entry point receives.
+     */
+    @SuppressWarnings("deprecation")
+    private AuthenticationException assertAuthenticationFails(String username) {
+        InMemoryUserDetailsManager users = new InMemoryUserDetailsManager(
+                User.withUsername("alice").password("hash").roles("STUDENT").build());
+        DaoAuthenticationProvider provider = new DaoAuthenticationProvider();
+        provider.setUserDetailsService(users);
+        provider.setPasswordEncoder(encoder);
+        ProviderManager manager = new ProviderManager(provider);
+
+        RuntimeException thrown = assertThrows(RuntimeException.class,
+                () -> manager.authenticate(new UsernamePasswordAuthenticationToken(username, "secret")));
+        assertNotNull(TooManyRequestsException.findIn(thrown), "throttling lost in " + thrown);
+        return thrown instanceof AuthenticationException authException
+                ? authException
+                : new InternalAuthenticationServiceException(thrown.getMessage(), thrown);
+    }
+
+    private static MockHttpServletResponse commence(AuthenticationException failure) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        new ThrottlingAuthenticationEntryPoint(new Http403ForbiddenEntryPoint())
+                .commence(new MockHttpServletRequest("POST", "/api/auth/login"), response, failure);
+        return response;
+    }
+
+    /** Holds the single worker thread until the test finishes. */
+    private final class BlockingEncoder implements PasswordEncoder {
+
+        @Override
+        public String encode(CharSequence rawPassword) {
+            workerBusy.countDown();
+            try {
+                releaseWorker.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return rawPassword.toString();
+        }
+
+        @Override
+        public boolean matches(CharSequence rawPassword, String encodedPassword) {
+            return rawPassword.toString().equals(encodedPassword);
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package auca.ac.rw.Online.quiz.management.security;
+
+import auca.ac.rw.Online.quiz.management.repository.UserRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.ServletResponse;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class LoginRateLimitFilterTest {
+
+    private UserRepository userRepository;
+    private LoginRateLimitFilter filter;
+
+    @BeforeEach
+    public void createFilter() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        userRepository = mock(UserRepository.class);
+        when(userRepository.findIdsByUsernameOrEmail(anyString())).thenReturn(List.of());
+        filter = new LoginRateLimitFilter(new RateLimiter(meterRegistry), userRepository, new ObjectMapper(),
+                meterRegistry, "3/60", "2/60", "3/60", "2/60", "3/60", "2/60");
+    }
+
+    @Test
+    public void eachClientAddressHasItsOwnBucket() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            assertEquals(200, login("10.0.0.1", "user" + i).getStatus());
+        }
+        MockHttpServletResponse limited = login("10.0.0.1", "user3");
+        assertEquals(429, limited.getStatus());
+        assertNotNull(limited.getHeader("Retry-After"));
+
+        assertEquals(200, login("10.0.0.2", "user4").getStatus());
+    }
+
+    @Test
+    public void usernameAndEmailOfOneAccountShareABucket() throws Exception {
+        when(userRepository.findIdsByUsernameOrEmail("alice")).thenReturn(List.of(42L));
+        when(userRepository.findIdsByUsernameOrEmail("alice@example.com")).thenReturn(List.of(42L));
+
+        assertEquals(200, login("10.0.0.1", "alice").getStatus());
+        assertEquals(200, login("10.0.0.2", "ALICE@example.com").getStatus());
+        assertEquals(429, login("10.0.0.3", "alice").getStatus());
+        assertEquals(429, login("10.0.0.4", "alice@example.com").getStatus());
+    }
+
+    @Test
+    public void unknownNamesAreLimitedByName() throws Exception {
+        assertEquals(200, login("10.0.0.1", "ghost").getStatus());
+        assertEquals(200, login("10.0.0.2", "ghost").getStatus());
+        assertEquals(429, login("10.0.0.3", "ghost").getStatus());
+        assertEquals(200, login("10.0.0.4", "ghost2").getStatus());
+    }
+
+    @Test
+    public void bodyIsStillReadableDownstream() throws Exception {
+        AtomicReference<String> body = new AtomicReference<>();
+        AtomicBoolean allDataRead = new AtomicBoolean();
+        MockFilterChain chain = new MockFilterChain() {
+            @Override
+            public void doFilter(ServletRequest request, ServletResponse response) {
+                try {
+                    ServletInputStream in = request.getInputStream();
+                    in.setReadListener(new ReadListener() {
+                        @Override
+                        public void onDataAvailable() throws IOException {
+                            body.set(new String(in.readAllBytes(), StandardCharsets.UTF_8));
+                        }
+
+                        @Override
+                        public void onAllDataRead() {
+                            allDataRead.set(true);
+                        }
+
+                        @Override
+                        public void onError(Throwable t) {
+                            fail(t);
+                        }
+                    });
+                } catch (IOException e) {
+                    fail(e);
+                }
+            }
+        };
+
+        MockHttpServletRequest request = loginRequest("10.0.0.1", "bob");
+        filter.doFilter(request, new MockHttpServletResponse(), chain);
+
+        assertEquals(new String(request.getContentAsByteArray(), StandardCharsets.UTF_8), body.get());
+        assertTrue(allDataRead.get());
+    }
+
+    private MockHttpServletResponse login(String remoteAddr, String usernameOrEmail) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(loginRequest(remoteAddr, usernameOrEmail), response, new MockFilterChain());
+        return response;
+    }
+
+    private static MockHttpServletRequest loginRequest(String remoteAddr, String usernameOrEmail) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/auth/login");
+        request.setServletPath("/api/auth/login");
+        request.setRemoteAddr(remoteAddr);
+        request.setContentType("application/json");
+        request.setContent(("{\"usernameOrEmail\":\"" + usernameOrEmail + "\",\"password\":\"x\"}")
+                .getBytes(StandardCharsets.UTF_8));
+        return request;
+    }
+}
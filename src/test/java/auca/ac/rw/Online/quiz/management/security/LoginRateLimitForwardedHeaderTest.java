@@ -0,0 +1,49 @@
+package auca.ac.rw.Online.quiz.management.security;
+
+import auca.ac.rw.Online.quiz.management.system.OnlineQuizManagementSystemApplication;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.TestPropertySource;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Behind a load balancer every request arrives from the proxy's address; the per-IP buckets
+ * must follow X-Forwarded-For instead, or one client locks everybody out.
+ */
+@SpringBootTest(classes = OnlineQuizManagementSystemApplication.class,
+        webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@TestPropertySource(locations = "classpath:application-test.properties", properties = {
+        "app.security.rate-limit.login.per-ip=2/60",
+        "app.security.rate-limit.login.per-account=100/60"
+})
+public class LoginRateLimitForwardedHeaderTest {
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Test
+    public void clientsBehindTheProxyHaveSeparateBuckets() {
+        assertNotEquals(429, login("203.0.113.10", "forwarded-a1"));
+        assertNotEquals(429, login("203.0.113.10", "forwarded-a2"));
+        assertEquals(429, login("203.0.113.10", "forwarded-a3"));
+
+        // Same proxy (loopback), different client
+        assertNotEquals(429, login("203.0.113.20", "forwarded-b1"));
+    }
+
+    private int login(String clientIp, String usernameOrEmail) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        headers.set("X-Forwarded-For", clientIp);
+        Map<String, String> body = Map.of("usernameOrEmail", usernameOrEmail, "password", "wrong");
+        return restTemplate.postForEntity("/api/auth/login", new HttpEntity<>(body, headers), String.class)
+                .getStatusCode().value();
+    }
+}
@@ -0,0 +1,236 @@
+package auca.ac.rw.Online.quiz.management.service;
+
+import auca.ac.rw.Online.quiz.management.controller.UserController;
+import auca.ac.rw.Online.quiz.management.model.Answer;
+import auca.ac.rw.Online.quiz.management.model.EQuestionType;
+import auca.ac.rw.Online.quiz.management.model.EUserRole;
+import auca.ac.rw.Online.quiz.management.model.Location;
+import auca.ac.rw.Online.quiz.management.model.LocationType;
+import auca.ac.rw.Online.quiz.management.model.Notification;
+import auca.ac.rw.Online.quiz.management.model.Option;
+import auca.ac.rw.Online.quiz.management.model.Question;
+import auca.ac.rw.Online.quiz.management.model.Quiz;
+import auca.ac.rw.Online.quiz.management.model.QuizAttempt;
+import auca.ac.rw.Online.quiz.management.model.Report;
+import auca.ac.rw.Online.quiz.management.model.User;
+import auca.ac.rw.Online.quiz.management.model.UserAnswer;
+import auca.ac.rw.Online.quiz.management.repository.AnswerRepository;
+import auca.ac.rw.Online.quiz.management.repository.LocationRepository;
+import auca.ac.rw.Online.quiz.management.repository.NotificationRepository;
+import auca.ac.rw.Online.quiz.management.repository.OptionRepository;
+import auca.ac.rw.Online.quiz.management.repository.QuestionRepository;
+import auca.ac.rw.Online.quiz.management.repository.QuizAttemptRepository;
+import auca.ac.rw.Online.quiz.management.repository.QuizRepository;
+import auca.ac.rw.Online.quiz.management.repository.ReportRepository;
+import auca.ac.rw.Online.quiz.management.repository.UserAnswerRepository;
+import auca.ac.rw.Online.quiz.management.repository.UserRepository;
+import auca.ac.rw.Online.quiz.management.system.OnlineQuizManagementSystemApplication;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Cascade deletes against a user with a full set of dependants: attempts, answers of both
+ * kinds, reports, notifications and a location row of their own.
+ */
+@SpringBootTest(classes = OnlineQuizManagementSystemApplication.class)
+@TestPropertySource(locations = "classpath:application-test.properties")
+public class CascadeDeleteServiceTest {
+
+    private static final AtomicInteger users = new AtomicInteger();
+
+    @Autowired
+    private CascadeDeleteService cascadeDeleteService;
+
+    @Autowired
+    private UserController userController;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private LocationRepository locationRepository;
+
+    @Autowired
+    private QuizRepository quizRepository;
+
+    @Autowired
+    private QuestionRepository questionRepository;
+
+    @Autowired
+    private OptionRepository optionRepository;
+
+    @Autowired
+    private QuizAttemptRepository quizAttemptRepository;
+
+    @Autowired
+    private AnswerRepository answerRepository;
+
+    @Autowired
+    private UserAnswerRepository userAnswerRepository;
+
+    @Autowired
+    private ReportRepository reportRepository;
+
+    @Autowired
+    private NotificationRepository notificationRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Location province;
+    private User student;
+    private Quiz quiz;
+    private Question question;
+    private QuizAttempt attempt;
+
+    @BeforeEach
+    public void createStudentWithResults() {
+        province = locationRepository.findFirstBySeededTrueAndProvinceIdAndLocationType(1L, LocationType.PROVINCE)
+                .orElseThrow();
+        student = createUserAt(province);
+
+        quiz = new Quiz();
+        quiz.setTitle("Cascade quiz");
+        quiz.setCreatedBy(student);
+        quiz = quizRepository.save(quiz);
+        question = new Question();
+        question.setText("Pick one");
+        question.setType(EQuestionType.SINGLE_CHOICE);
+        question.setQuiz(quiz);
+        question = questionRepository.save(question);
+        Option option = new Option();
+        option.setText("Right");
+        option.setCorrect(true);
+        option.setQuestion(question);
+        option = optionRepository.save(option);
+
+        attempt = new QuizAttempt();
+        attempt.setUser(student);
+        attempt.setQuiz(quiz);
+        attempt = quizAttemptRepository.save(attempt);
+        Answer answer = new Answer();
+        answer.setAttempt(attempt);
+        answer.setQuestion(question);
+        answer.setSelectedOption(option);
+        answerRepository.save(answer);
+        UserAnswer userAnswer = new UserAnswer();
+        userAnswer.setAttempt(attempt);
+        userAnswer.setQuestion(question);
+        userAnswer.setSelectedOptionId(option.getId());
+        userAnswerRepository.save(userAnswer);
+
+        Report report = new Report();
+        report.setType("SCORE_SUMMARY");
+        report.setGeneratedBy(student);
+        report.setQuiz(quiz);
+        report.setQuizAttempt(attempt);
+        reportRepository.save(report);
+        Notification notification = new Notification();
+        notification.setUser(student);
+        notification.setTitle("Results");
+        notification.setMessage("Your quiz was graded");
+        notificationRepository.save(notification);
+    }
+
+    @Test
+    public void deleteQuizRemovesItsAttemptsAnswersAndReports() {
+        CascadeDeleteService.DeleteReport report = cascadeDeleteService.deleteQuiz(quiz.getId()).orElseThrow();
+
+        assertEquals(1, report.rows().get("answers"));
+        assertEquals(1, report.rows().get("user_answers"));
+        assertEquals(1, report.rows().get("reports"));
+        assertEquals(1, report.rows().get("quiz_attempts"));
+        assertEquals(0, count("SELECT COUNT(*) FROM quizzes WHERE id = ?", quiz.getId()));
+        assertEquals(0, count("SELECT COUNT(*) FROM questions WHERE quiz_id = ?", quiz.getId()));
+        // The student and their own rows stay
+        assertEquals(1, count("SELECT COUNT(*) FROM users WHERE id = ?", student.getId()));
+        assertEquals(1, count("SELECT COUNT(*) FROM notifications WHERE user_id = ?", student.getId()));
+    }
+
+    @Test
+    public void deleteQuestionRemovesItsOptionsAndAnswers() {
+        CascadeDeleteService.DeleteReport report = cascadeDeleteService.deleteQuestion(question.getId()).orElseThrow();
+
+        assertEquals(1, report.rows().get("answers"));
+        assertEquals(1, report.rows().get("user_answers"));
+        assertEquals(1, report.rows().get("options"));
+        assertEquals(0, count("SELECT COUNT(*) FROM questions WHERE id = ?", question.getId()));
+        assertEquals(1, count("SELECT COUNT(*) FROM quiz_attempts WHERE id = ?", attempt.getId()));
+        assertEquals(1, count("SELECT COUNT(*) FROM reports WHERE attempt_id = ?", attempt.getId()));
+    }
+
+    @Test
+    public void deleteUserRemovesTheirRowsAndOwnLocation() {
+        Long locationId = student.getLocation().getId();
+        int seededBefore = count("SELECT COUNT(*) FROM locations WHERE seeded = TRUE");
+        int ownClosureRows = count("SELECT COUNT(*) FROM location_closure WHERE descendant_id = ? OR ancestor_id = ?",
+                locationId, locationId);
+        int closureBefore = count("SELECT COUNT(*) FROM location_closure");
+        assertTrue(ownClosureRows > 0);
+
+        CascadeDeleteService.DeleteReport report = cascadeDeleteService.deleteUser(student.getId()).orElseThrow();
+
+        assertEquals(1, report.rows().get("notifications"));
+        assertEquals(1, report.rows().get("reports"));
+        assertEquals(1, report.rows().get("locations"));
+        assertEquals(ownClosureRows, report.rows().get("location_closure"));
+        assertEquals(0, count("SELECT COUNT(*) FROM users WHERE id = ?", student.getId()));
+        assertEquals(0, count("SELECT COUNT(*) FROM quiz_attempts WHERE user_id = ?", student.getId()));
+        assertEquals(0, count("SELECT COUNT(*) FROM answers WHERE attempt_id = ?", attempt.getId()));
+        assertEquals(0, count("SELECT COUNT(*) FROM user_answers WHERE attempt_id = ?", attempt.getId()));
+        assertEquals(0, count("SELECT COUNT(*) FROM notifications WHERE user_id = ?", student.getId()));
+        assertEquals(0, count("SELECT COUNT(*) FROM locations WHERE id = ?", locationId));
+        assertEquals(closureBefore - ownClosureRows, count("SELECT COUNT(*) FROM location_closure"));
+        assertEquals(seededBefore, count("SELECT COUNT(*) FROM locations WHERE seeded = TRUE"));
+        // Their quiz stays for other students' results, without a creator
+        assertEquals(1, count("SELECT COUNT(*) FROM quizzes WHERE id = ? AND created_by IS NULL", quiz.getId()));
+    }
+
+    @Test
+    public void deleteUserKeepsASeededLocation() {
+        // Older rows could point a user straight at a seeded place
+        User legacy = new User();
+        legacy.setUsername("cascadelegacy" + users.incrementAndGet());
+        legacy.setEmail(legacy.getUsername() + "@example.com");
+        legacy.setPassword("not-a-real-hash");
+        legacy.setRole(EUserRole.STUDENT);
+        legacy.setLocation(province);
+        legacy = userRepository.save(legacy);
+        int closureBefore = count("SELECT COUNT(*) FROM location_closure");
+
+        CascadeDeleteService.DeleteReport report = cascadeDeleteService.deleteUser(legacy.getId()).orElseThrow();
+
+        assertEquals(0, report.rows().get("locations"));
+        assertEquals(0, report.rows().get("location_closure"));
+        assertEquals(1, count("SELECT COUNT(*) FROM locations WHERE id = ? AND seeded = TRUE", province.getId()));
+        assertEquals(closureBefore, count("SELECT COUNT(*) FROM location_closure"));
+    }
+
+    private User createUserAt(Location place) {
+        String username = "cascade" + users.incrementAndGet();
+        User user = new User();
+        user.setUsername(username);
+        user.setEmail(username + "@example.com");
+        user.setPassword("Secret123@");
+        user.setLocation(new Location(null, place.getProvinceId(), place.getProvinceName(), place.getDistrictId(),
+                place.getDistrictName(), place.getSectorId(), place.getSectorName(), place.getCellId(),
+                place.getCellName(), place.getVillageId(), place.getVillageName(), null));
+
+        ResponseEntity<?> response = userController.create(user);
+        assertEquals(201, response.getStatusCode().value(), String.valueOf(response.getBody()));
+        return (User) response.getBody();
+    }
+
+    private int count(String sql, Object... args) {
+        return jdbcTemplate.queryForObject(sql, Integer.class, args);
+    }
+}
@@ -0,0 +1,113 @@
+package auca.ac.rw.Online.quiz.management.service;
+
+import auca.ac.rw.Online.quiz.management.model.EEmailStatus;
+import auca.ac.rw.Online.quiz.management.model.OtpType;
+import auca.ac.rw.Online.quiz.management.model.OutboxEmail;
+import auca.ac.rw.Online.quiz.management.repository.OutboxEmailRepository;
+import auca.ac.rw.Online.quiz.management.system.OnlineQuizManagementSystemApplication;
+import com.icegreen.greenmail.configuration.GreenMailConfiguration;
+import com.icegreen.greenmail.junit5.GreenMailExtension;
+import com.icegreen.greenmail.util.GreenMailUtil;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import jakarta.mail.internet.MimeMessage;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestPropertySource;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * OTP mail goes through the outbox and is delivered by the background workers to a local
+ * GreenMail SMTP server; a worker can only record the outcome of a send while it still holds
+ * the lease it claimed the row with.
+ */
+@SpringBootTest(classes = OnlineQuizManagementSystemApplication.class)
+@TestPropertySource(locations = "classpath:application-test.properties", properties = {
+        "spring.mail.port=3025",
+        "spring.mail.username=quiz@localhost",
+        "spring.mail.password=secret",
+        "spring.mail.properties.mail.smtp.starttls.enable=false",
+        "app.mail.outbox.poll-interval-ms=500"
+})
+public class EmailOutboxDeliveryTest {
+
+    @RegisterExtension
+    static GreenMailExtension greenMail = new GreenMailExtension(ServerSetupTest.SMTP)
+            .withConfiguration(GreenMailConfiguration.aConfig().withUser("quiz@localhost", "secret"));
+
+    @Autowired
+    private OtpService otpService;
+
+    @Autowired
+    private OutboxEmailRepository outboxEmailRepository;
+
+    @Test
+    public void otpEmailIsDeliveredFromOutbox() throws Exception {
+        String code = otpService.sendOtp("student@example.com", OtpType.LOGIN_2FA);
+
+        assertTrue(greenMail.waitForIncomingEmail(10_000, 1), "OTP email was not delivered");
+        MimeMessage[] received = greenMail.getReceivedMessages();
+        assertEquals("student@example.com", received[0].getAllRecipients()[0].toString());
+        assertTrue(GreenMailUtil.getBody(received[0]).contains(code));
+
+        // The status update follows the SMTP exchange; give the worker a moment to record it
+        long deadline = System.currentTimeMillis() + 5_000;
+        List<OutboxEmail> rows;
+        do {
+            rows = outboxEmailRepository.findAll();
+            if (!rows.isEmpty() && rows.get(0).getStatus() == EEmailStatus.SENT) {
+                break;
+            }
+            Thread.sleep(100);
+        } while (System.currentTimeMillis() < deadline);
+
+        assertEquals(1, rows.size());
+        assertEquals(EEmailStatus.SENT, rows.get(0).getStatus());
+        assertNull(rows.get(0).getBody(), "Delivered OTP body should be cleared");
+    }
+
+    @Test
+    public void outcomeIsOnlyRecordedUnderTheClaimedLease() {
+        // Leased well into the future, so the pollers leave it alone
+        LocalDateTime lease = LocalDateTime.now().plusHours(1).truncatedTo(ChronoUnit.MILLIS);
+        LocalDateTime reclaimedLease = lease.plusMinutes(5);
+        OutboxEmail email = new OutboxEmail();
+        email.setRecipient("lease@example.com");
+        email.setSubject("Lease");
+        email.setBody("body");
+        email.setStatus(EEmailStatus.SENDING);
+        email.setNextAttemptAt(reclaimedLease);
+        Long id = outboxEmailRepository.save(email).getId();
+        try {
+            // The row was re-claimed under a new lease: the old holder changes nothing
+            assertEquals(0, outboxEmailRepository.markSent(id, EEmailStatus.SENDING, lease, EEmailStatus.SENT,
+                    LocalDateTime.now()));
+            assertEquals(0, outboxEmailRepository.markAttemptFailed(id, EEmailStatus.SENDING, lease,
+                    EEmailStatus.PENDING, LocalDateTime.now(), "late failure"));
+            OutboxEmail row = outboxEmailRepository.findById(id).orElseThrow();
+            assertEquals(EEmailStatus.SENDING, row.getStatus());
+            assertEquals(0, row.getAttempts());
+            assertEquals("body", row.getBody());
+
+            // The current holder records the send, read back with the lease it wrote
+            assertEquals(reclaimedLease, row.getNextAttemptAt());
+            assertEquals(1, outboxEmailRepository.markSent(id, EEmailStatus.SENDING, reclaimedLease,
+                    EEmailStatus.SENT, LocalDateTime.now()));
+
+            // A late failure must not flip the SENT row back to PENDING
+            assertEquals(0, outboxEmailRepository.markAttemptFailed(id, EEmailStatus.SENDING, reclaimedLease,
+                    EEmailStatus.PENDING, LocalDateTime.now(), "late failure"));
+            row = outboxEmailRepository.findById(id).orElseThrow();
+            assertEquals(EEmailStatus.SENT, row.getStatus());
+            assertEquals(1, row.getAttempts());
+            assertNull(row.getLastError());
+        } finally {
+            outboxEmailRepository.deleteById(id);
+        }
+    }
+}
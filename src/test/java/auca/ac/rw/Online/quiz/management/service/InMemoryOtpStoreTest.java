@@ -0,0 +1,125 @@
+package auca.ac.rw.Online.quiz.management.service;
+
+import auca.ac.rw.Online.quiz.management.model.OtpToken;
+import auca.ac.rw.Online.quiz.management.model.OtpType;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.BadCredentialsException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The in-memory OTP store: expiry through the timing wheel, burning after too many wrong
+ * codes, and a single winner among concurrent verifies.
+ */
+public class InMemoryOtpStoreTest {
+
+    private static final String CODE = "123456";
+
+    private final InMemoryOtpStore store = new InMemoryOtpStore(3);
+
+    @Test
+    public void correctCodeIsConsumedWithItsCopies() {
+        store.store(List.of("a@example.com", "b@example.com"), "a@example.com", OtpType.LOGIN_2FA, CODE,
+                LocalDateTime.now().plusMinutes(5));
+
+        OtpToken token = store.consume("b@example.com", CODE, OtpType.LOGIN_2FA);
+
+        assertEquals("a@example.com", token.getUserEmail());
+        assertTrue(token.isUsed());
+        assertRejected("OTP not found", () -> store.consume("a@example.com", CODE, OtpType.LOGIN_2FA));
+    }
+
+    @Test
+    public void wrongCodesBurnTheOtpAfterMaxAttempts() {
+        store.store(List.of("a@example.com", "b@example.com"), "a@example.com", OtpType.LOGIN_2FA, CODE,
+                LocalDateTime.now().plusMinutes(5));
+
+        assertRejected("Invalid OTP code", () -> store.consume("a@example.com", "000000", OtpType.LOGIN_2FA));
+        assertRejected("Invalid OTP code", () -> store.consume("b@example.com", "000001", OtpType.LOGIN_2FA));
+        assertRejected("Too many invalid attempts", () -> store.consume("a@example.com", "000002", OtpType.LOGIN_2FA));
+
+        // Burned for every address it was sent to, even with the right code
+        assertRejected("OTP not found", () -> store.consume("a@example.com", CODE, OtpType.LOGIN_2FA));
+        assertRejected("OTP not found", () -> store.consume("b@example.com", CODE, OtpType.LOGIN_2FA));
+    }
+
+    @Test
+    public void newOtpReplacesTheActiveOne() {
+        store.store(List.of("a@example.com"), "a@example.com", OtpType.LOGIN_2FA, "111111",
+                LocalDateTime.now().plusMinutes(5));
+        store.store(List.of("a@example.com"), "a@example.com", OtpType.LOGIN_2FA, CODE,
+                LocalDateTime.now().plusMinutes(5));
+
+        assertRejected("Invalid OTP code", () -> store.consume("a@example.com", "111111", OtpType.LOGIN_2FA));
+        assertEquals(CODE, store.consume("a@example.com", CODE, OtpType.LOGIN_2FA).getCode());
+    }
+
+    @Test
+    public void wheelDropsExpiredOtps() throws InterruptedException {
+        LocalDateTime expiresAt = LocalDateTime.now().plusSeconds(1);
+        store.store(List.of("short@example.com"), "short@example.com", OtpType.LOGIN_2FA, CODE, expiresAt);
+        // Further out than one revolution of the wheel, so it is parked and put back
+        store.store(List.of("long@example.com"), "long@example.com", OtpType.LOGIN_2FA, CODE,
+                LocalDateTime.now().plusHours(1));
+        store.advanceWheel();
+        assertEquals(2, store.size());
+
+        while (!LocalDateTime.now().isAfter(expiresAt.plusNanos(20_000_000))) {
+            Thread.sleep(50);
+        }
+        assertRejected("OTP not found", () -> store.consume("short@example.com", CODE, OtpType.LOGIN_2FA));
+        store.advanceWheel();
+
+        assertEquals(1, store.size());
+        assertEquals("long@example.com", store.consume("long@example.com", CODE, OtpType.LOGIN_2FA).getEmail());
+    }
+
+    @Test
+    public void concurrentVerifiesHaveOneWinner() throws Exception {
+        int verifiers = 8;
+        ExecutorService pool = Executors.newFixedThreadPool(verifiers);
+        try {
+            for (int round = 0; round < 50; round++) {
+                String email = "race" + round + "@example.com";
+                store.store(List.of(email), email, OtpType.LOGIN_2FA, CODE, LocalDateTime.now().plusMinutes(5));
+
+                CountDownLatch go = new CountDownLatch(1);
+                List<Future<OtpToken>> results = new ArrayList<>();
+                for (int i = 0; i < verifiers; i++) {
+                    results.add(pool.submit(() -> {
+                        go.await();
+                        return store.consume(email, CODE, OtpType.LOGIN_2FA);
+                    }));
+                }
+                go.countDown();
+
+                int accepted = 0;
+                for (Future<OtpToken> result : results) {
+                    try {
+                        result.get(10, TimeUnit.SECONDS);
+                        accepted++;
+                    } catch (ExecutionException e) {
+                        assertInstanceOf(BadCredentialsException.class, e.getCause());
+                    }
+                }
+                assertEquals(1, accepted, "round " + round);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private static void assertRejected(String message, Runnable verify) {
+        BadCredentialsException ex = assertThrows(BadCredentialsException.class, verify::run);
+        assertTrue(ex.getMessage().startsWith(message), ex.getMessage());
+    }
+}
@@ -0,0 +1,164 @@
+package auca.ac.rw.Online.quiz.management.service;
+
+import auca.ac.rw.Online.quiz.management.system.OnlineQuizManagementSystemApplication;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Several application contexts in one JVM, sharing one H2 database like nodes behind a load
+ * balancer, compete for the same job leases.
+ */
+@SpringBootTest(classes = OnlineQuizManagementSystemApplication.class)
+@TestPropertySource(locations = "classpath:application-test.properties", properties = {
+        "app.scheduler.node-id=node-a"
+})
+public class JobLockProviderClusterTest {
+
+    private static final List<ConfigurableApplicationContext> otherNodes = new ArrayList<>();
+
+    @Autowired
+    private JobLockProvider nodeA;
+
+    @BeforeEach
+    public void startOtherNodes() {
+        // Started after node A, whose context creates the schema the others join
+        if (otherNodes.isEmpty()) {
+            otherNodes.add(startNode("node-b"));
+            otherNodes.add(startNode("node-c"));
+        }
+    }
+
+    @AfterAll
+    public static void stopOtherNodes() {
+        otherNodes.forEach(ConfigurableApplicationContext::close);
+        otherNodes.clear();
+    }
+
+    private static ConfigurableApplicationContext startNode(String nodeId) {
+        return new SpringApplicationBuilder(OnlineQuizManagementSystemApplication.class).run(
+                "--spring.config.additional-location=classpath:application-test.properties",
+                "--spring.jpa.hibernate.ddl-auto=none",
+                "--server.port=0",
+                "--app.scheduler.node-id=" + nodeId);
+    }
+
+    @Test
+    public void onlyOneNodeRunsAJobPerInterval() throws Exception {
+        List<JobLockProvider> nodes = new ArrayList<>();
+        nodes.add(nodeA);
+        otherNodes.forEach(context -> nodes.add(context.getBean(JobLockProvider.class)));
+
+        AtomicInteger runs = new AtomicInteger();
+        CountDownLatch go = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(nodes.size());
+        try {
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (JobLockProvider node : nodes) {
+                results.add(pool.submit(() -> {
+                    go.await();
+                    return node.runExclusively("cluster-test-job", Duration.ofMinutes(1), Duration.ofMinutes(1),
+                            runs::incrementAndGet);
+                }));
+            }
+            go.countDown();
+            int ran = 0;
+            for (Future<Boolean> result : results) {
+                if (result.get(30, TimeUnit.SECONDS)) {
+                    ran++;
+                }
+            }
+            assertEquals(1, ran);
+            assertEquals(1, runs.get());
+        } finally {
+            pool.shutdownNow();
+        }
+
+        // lockAtLeastFor keeps the lease after the run, so the next timer tick on any node skips it
+        for (JobLockProvider node : nodes) {
+            assertFalse(node.runExclusively("cluster-test-job", Duration.ofMinutes(1), Duration.ofMinutes(1),
+                    runs::incrementAndGet));
+        }
+        assertEquals(1, runs.get());
+    }
+
+    @Test
+    public void leaseOfACrashedNodeExpires() {
+        MutableClock clock = new MutableClock(Instant.parse("2030-01-01T00:00:00Z"));
+        JobLockProvider crashed = nodeWithClock(otherNodes.get(0), "crashed-node", clock);
+        JobLockProvider survivor = nodeWithClock(otherNodes.get(1), "survivor-node", clock);
+
+        Optional<JobLockProvider.Lease> lost = crashed.tryLock("expiry-test-job", Duration.ofSeconds(30));
+        assertTrue(lost.isPresent());
+        // The holder never releases; the job is blocked only until lockAtMostFor has passed
+        assertTrue(survivor.tryLock("expiry-test-job", Duration.ofSeconds(30)).isEmpty());
+
+        clock.advance(Duration.ofSeconds(31));
+        Optional<JobLockProvider.Lease> taken = survivor.tryLock("expiry-test-job", Duration.ofSeconds(30));
+        assertTrue(taken.isPresent());
+
+        // A late release from the old holder must not free the survivor's lease
+        lost.get().release(Duration.ZERO);
+        assertTrue(crashed.tryLock("expiry-test-job", Duration.ofSeconds(30)).isEmpty());
+
+        taken.get().release(Duration.ZERO);
+        assertTrue(crashed.tryLock("expiry-test-job", Duration.ofSeconds(30)).isPresent());
+    }
+
+    private static JobLockProvider nodeWithClock(ConfigurableApplicationContext context, String nodeId, Clock clock) {
+        return new JdbcJobLockProvider(context.getBean(JdbcTemplate.class),
+                context.getBean(PlatformTransactionManager.class), nodeId, clock);
+    }
+
+    private static final class MutableClock extends Clock {
+
+        private volatile Instant now;
+
+        MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+    }
+}
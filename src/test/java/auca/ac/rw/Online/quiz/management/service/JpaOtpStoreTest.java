@@ -0,0 +1,53 @@
+package auca.ac.rw.Online.quiz.management.service;
+
+import auca.ac.rw.Online.quiz.management.model.OtpType;
+import auca.ac.rw.Online.quiz.management.system.OnlineQuizManagementSystemApplication;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.test.context.TestPropertySource;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The database store limits wrong guesses like the in-memory one, although each failed verify
+ * rolls back.
+ */
+@SpringBootTest(classes = OnlineQuizManagementSystemApplication.class)
+@TestPropertySource(locations = "classpath:application-test.properties")
+public class JpaOtpStoreTest {
+
+    @Autowired
+    private OtpService otpService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    public void wrongCodesBurnTheOtpAfterMaxAttempts() {
+        String email = "burn@example.com";
+        String other = "burn-backup@example.com";
+        String code = otpService.sendOtpToMultipleEmails(List.of(email, other), OtpType.LOGIN_2FA, email).code();
+        String wrong = code.equals("000000") ? "000001" : "000000";
+
+        for (int attempt = 1; attempt < 5; attempt++) {
+            assertRejected("Invalid OTP code", email, wrong);
+        }
+        assertRejected("Too many invalid attempts", email, wrong);
+
+        // Burned for every address it was sent to, even with the right code
+        assertRejected("OTP not found", email, code);
+        assertRejected("OTP not found", other, code);
+        assertEquals(5, jdbcTemplate.queryForObject(
+                "SELECT failed_attempts FROM otp_token WHERE email = ?", Integer.class, email));
+    }
+
+    private void assertRejected(String message, String email, String code) {
+        BadCredentialsException ex = assertThrows(BadCredentialsException.class,
+                () -> otpService.validateOtp(email, code, OtpType.LOGIN_2FA));
+        assertTrue(ex.getMessage().startsWith(message), ex.getMessage());
+    }
+}
@@ -0,0 +1,149 @@
+package auca.ac.rw.Online.quiz.management.service;
+
+import auca.ac.rw.Online.quiz.management.controller.QuestionController;
+import auca.ac.rw.Online.quiz.management.exception.OptionInUseException;
+import auca.ac.rw.Online.quiz.management.model.Answer;
+import auca.ac.rw.Online.quiz.management.model.EQuestionType;
+import auca.ac.rw.Online.quiz.management.model.EUserRole;
+import auca.ac.rw.Online.quiz.management.model.Location;
+import auca.ac.rw.Online.quiz.management.model.Option;
+import auca.ac.rw.Online.quiz.management.model.Question;
+import auca.ac.rw.Online.quiz.management.model.Quiz;
+import auca.ac.rw.Online.quiz.management.model.QuizAttempt;
+import auca.ac.rw.Online.quiz.management.model.User;
+import auca.ac.rw.Online.quiz.management.repository.AnswerRepository;
+import auca.ac.rw.Online.quiz.management.repository.LocationRepository;
+import auca.ac.rw.Online.quiz.management.repository.OptionRepository;
+import auca.ac.rw.Online.quiz.management.repository.QuestionRepository;
+import auca.ac.rw.Online.quiz.management.repository.QuizAttemptRepository;
+import auca.ac.rw.Online.quiz.management.repository.QuizRepository;
+import auca.ac.rw.Online.quiz.management.repository.UserRepository;
+import auca.ac.rw.Online.quiz.management.system.OnlineQuizManagementSystemApplication;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Editing a question must not delete options that answers point at; the edit is refused and
+ * rolled back instead of failing at commit.
+ */
+@SpringBootTest(classes = OnlineQuizManagementSystemApplication.class)
+@TestPropertySource(locations = "classpath:application-test.properties")
+public class OptionReconcilerTest {
+
+    @Autowired
+    private QuestionController questionController;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private LocationRepository locationRepository;
+
+    @Autowired
+    private QuizRepository quizRepository;
+
+    @Autowired
+    private QuestionRepository questionRepository;
+
+    @Autowired
+    private OptionRepository optionRepository;
+
+    @Autowired
+    private QuizAttemptRepository quizAttemptRepository;
+
+    @Autowired
+    private AnswerRepository answerRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Question question;
+    private final List<Option> options = new ArrayList<>();
+
+    @BeforeEach
+    public void createAnsweredQuestion() {
+        User user = userRepository.findByUsernameIgnoreCase("reconciletest").orElseGet(() -> {
+            Location location = locationRepository.findAll(PageRequest.of(0, 1)).getContent().get(0);
+            User created = new User();
+            created.setUsername("reconciletest");
+            created.setEmail("reconciletest@example.com");
+            created.setPassword("not-a-real-hash");
+            created.setRole(EUserRole.STUDENT);
+            created.setLocation(location);
+            return userRepository.save(created);
+        });
+        Quiz quiz = new Quiz();
+        quiz.setTitle("Reconcile quiz");
+        quiz.setCreatedBy(user);
+        quiz = quizRepository.save(quiz);
+
+        question = new Question();
+        question.setText("Pick one");
+        question.setType(EQuestionType.SINGLE_CHOICE);
+        question.setQuiz(quiz);
+        question = questionRepository.save(question);
+        options.clear();
+        for (String text : List.of("Answered", "Unanswered", "Other")) {
+            Option option = new Option();
+            option.setText(text);
+            option.setCorrect(text.equals("Answered"));
+            option.setQuestion(question);
+            options.add(optionRepository.save(option));
+        }
+
+        QuizAttempt attempt = new QuizAttempt();
+        attempt.setUser(user);
+        attempt.setQuiz(quiz);
+        attempt = quizAttemptRepository.save(attempt);
+        Answer answer = new Answer();
+        answer.setAttempt(attempt);
+        answer.setQuestion(question);
+        answer.setSelectedOption(options.get(0));
+        answerRepository.save(answer);
+    }
+
+    @Test
+    public void removingAnAnsweredOptionIsRefusedAndRolledBack() {
+        Map<String, Object> payload = Map.of("text", "Renamed", "options", List.of(
+                option(options.get(1)), option(options.get(2))));
+
+        OptionInUseException refused = assertThrows(OptionInUseException.class,
+                () -> questionController.update(question.getId(), payload));
+
+        assertEquals(List.of(options.get(0).getId()), refused.getOptionIds());
+        assertEquals("Pick one", jdbcTemplate.queryForObject(
+                "SELECT text FROM questions WHERE id = ?", String.class, question.getId()));
+        assertEquals(3, optionCount());
+    }
+
+    @Test
+    public void unansweredOptionsCanStillBeRemoved() {
+        Map<String, Object> payload = Map.of("options", List.of(
+                option(options.get(0)), Map.of("id", options.get(2).getId(), "text", "Other, reworded", "isCorrect", false)));
+
+        assertEquals(200, questionController.update(question.getId(), payload).getStatusCode().value());
+
+        assertEquals(List.of("Answered", "Other, reworded"), jdbcTemplate.queryForList(
+                "SELECT text FROM options WHERE question_id = ? ORDER BY id", String.class, question.getId()));
+    }
+
+    private int optionCount() {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM options WHERE question_id = ?", Integer.class,
+                question.getId());
+    }
+
+    private static Map<String, Object> option(Option option) {
+        return Map.of("id", option.getId(), "text", option.getText(), "isCorrect", option.isCorrect());
+    }
+}
@@ -0,0 +1,67 @@
+package auca.ac.rw.Online.quiz.management.service;
+
+import auca.ac.rw.Online.quiz.management.model.OtpType;
+import auca.ac.rw.Online.quiz.management.system.OnlineQuizManagementSystemApplication;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.test.context.TestPropertySource;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * A single-use OTP verified by several requests at once must let exactly one of them through.
+ */
+@SpringBootTest(classes = OnlineQuizManagementSystemApplication.class)
+@TestPropertySource(locations = "classpath:application-test.properties")
+public class OtpConcurrentVerifyTest {
+
+    private static final int VERIFIERS = 8;
+    private static final int ROUNDS = 10;
+
+    @Autowired
+    private OtpService otpService;
+
+    @Test
+    public void concurrentVerifiesOfOneCodeHaveOneWinner() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(VERIFIERS);
+        try {
+            for (int round = 0; round < ROUNDS; round++) {
+                String email = "race" + round + "@example.com";
+                String code = otpService.sendOtp(email, OtpType.LOGIN_2FA, email);
+
+                CountDownLatch go = new CountDownLatch(1);
+                List<Future<?>> results = new ArrayList<>();
+                for (int i = 0; i < VERIFIERS; i++) {
+                    results.add(pool.submit(() -> {
+                        go.await();
+                        return otpService.validateOtp(email, code, OtpType.LOGIN_2FA);
+                    }));
+                }
+                go.countDown();
+
+                int accepted = 0;
+                for (Future<?> result : results) {
+                    try {
+                        result.get(30, TimeUnit.SECONDS);
+                        accepted++;
+                    } catch (ExecutionException e) {
+                        assertInstanceOf(BadCredentialsException.class, e.getCause());
+                    }
+                }
+                assertEquals(1, accepted, "round " + round);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package auca.ac.rw.Online.quiz.management.service;
+
+import auca.ac.rw.Online.quiz.management.StatementCounter;
+import auca.ac.rw.Online.quiz.management.model.OtpToken;
+import auca.ac.rw.Online.quiz.management.model.OtpType;
+import auca.ac.rw.Online.quiz.management.system.OnlineQuizManagementSystemApplication;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * OTP verification must stay one indexed SELECT plus one UPDATE however many historical rows
+ * the table holds. The plan and statement checks run in the normal suite; the latency run
+ * with 1M historical rows only with: mvn test -Dtest=OtpLookupBenchmarkTest -Dbenchmark=true
+ */
+@SpringBootTest(classes = OnlineQuizManagementSystemApplication.class)
+@TestPropertySource(locations = "classpath:application-test.properties", properties = {
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector=auca.ac.rw.Online.quiz.management.StatementCounter"
+})
+public class OtpLookupBenchmarkTest {
+
+    private static final int HISTORICAL_TOKENS = 1_000_000;
+    private static final int ITERATIONS = 200;
+
+    @Autowired
+    private OtpService otpService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    public void verifyIsOneSelectAndOneUpdate() {
+        String email = "plan-check@example.com";
+        String code = otpService.sendOtp(email, OtpType.LOGIN_2FA, email);
+
+        StatementCounter.start();
+        OtpToken token = otpService.validateOtp(email, code, OtpType.LOGIN_2FA);
+        int selects = StatementCounter.selects();
+        int statements = StatementCounter.stop();
+
+        assertEquals(email, token.getUserEmail());
+        assertEquals(1, selects);
+        assertEquals(2, statements);
+    }
+
+    @Test
+    public void lookupsUseTheirIndexes() {
+        assertLookupsUseIndexes();
+    }
+
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+    public void issueAndVerifyWithOneMillionHistoricalTokens() {
+        seedHistoricalTokens();
+        assertLookupsUseIndexes();
+
+        long totalNanos = 0;
+        for (int i = 0; i < ITERATIONS; i++) {
+            String email = "bench" + (i % 1000) + "@example.com";
+            long start = System.nanoTime();
+            String code = otpService.sendOtp(email, OtpType.LOGIN_2FA, email);
+            StatementCounter.start();
+            OtpToken token = otpService.validateOtp(email, code, OtpType.LOGIN_2FA);
+            int statements = StatementCounter.stop();
+            totalNanos += System.nanoTime() - start;
+            assertEquals(email, token.getUserEmail());
+            assertEquals(2, statements);
+        }
+
+        System.out.printf("[OtpLookupBenchmark] %d historical tokens: issue+verify avg %.3f ms%n",
+                HISTORICAL_TOKENS, totalNanos / (ITERATIONS * 1_000_000.0));
+    }
+
+    /** The SQL behind consume(): the active-token lookup and the mark-as-used UPDATE. */
+    private void assertLookupsUseIndexes() {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        assertPlanUses("idx_otp_email_type_used_expires",
+                "EXPLAIN SELECT id FROM otp_token WHERE email = ? AND type = ? AND used = FALSE AND expires_at > ? "
+                        + "ORDER BY expires_at DESC LIMIT 1",
+                "bench1@example.com", OtpType.LOGIN_2FA.name(), now);
+        assertPlanUses("idx_otp_user_email_code_type",
+                "EXPLAIN UPDATE otp_token SET used = TRUE WHERE user_email = ? AND code = ? AND type = ? "
+                        + "AND used = FALSE AND expires_at > ?",
+                "bench1@example.com", "000001", OtpType.LOGIN_2FA.name(), now);
+    }
+
+    private void assertPlanUses(String index, String explain, Object... args) {
+        String plan = jdbcTemplate.queryForObject(explain, String.class, args);
+        assertNotNull(plan);
+        assertTrue(plan.toLowerCase().contains(index), "expected " + index + " in plan:\n" + plan);
+    }
+
+    private void seedHistoricalTokens() {
+        LocalDateTime past = LocalDateTime.now().minusDays(1);
+        int batchSize = 10_000;
+        for (int offset = 0; offset < HISTORICAL_TOKENS; offset += batchSize) {
+            List<Object[]> rows = new ArrayList<>(batchSize);
+            for (int i = offset; i < offset + batchSize; i++) {
+                String email = "bench" + (i % 1000) + "@example.com";
+                rows.add(new Object[] { email, email, String.format("%06d", i % 1_000_000),
+                        Timestamp.valueOf(past.plusSeconds(i % 3600)), OtpType.LOGIN_2FA.name(), i % 2 == 0 });
+            }
+            jdbcTemplate.batchUpdate(
+                    "INSERT INTO otp_token (email, user_email, code, expires_at, type, used) VALUES (?, ?, ?, ?, ?, ?)",
+                    rows);
+        }
+    }
+}
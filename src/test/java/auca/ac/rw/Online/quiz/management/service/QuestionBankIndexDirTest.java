@@ -0,0 +1,52 @@
+package auca.ac.rw.Online.quiz.management.service;
+
+import java.nio.file.Path;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Two application contexts on one host configured with the same index directory must both
+ * start; Lucene's write.lock lets only the first keep the index on disk.
+ */
+public class QuestionBankIndexDirTest {
+
+    @TempDir
+    Path indexDir;
+
+    @Test
+    public void secondInstanceOnALockedDirectoryFallsBackToMemory() {
+        QuestionBankSearchService first = new QuestionBankSearchService(indexDir.toString(), 500);
+        try {
+            assertTrue(first.isOnDisk());
+
+            QuestionBankSearchService second = new QuestionBankSearchService(indexDir.toString(), 500);
+            try {
+                assertFalse(second.isOnDisk());
+            } finally {
+                second.close();
+            }
+        } finally {
+            first.close();
+        }
+
+        // Once the holder is gone the directory is usable again
+        QuestionBankSearchService restarted = new QuestionBankSearchService(indexDir.toString(), 500);
+        try {
+            assertTrue(restarted.isOnDisk());
+        } finally {
+            restarted.close();
+        }
+    }
+
+    @Test
+    public void blankDirectoryIsInMemory() {
+        QuestionBankSearchService service = new QuestionBankSearchService("", 500);
+        try {
+            assertFalse(service.isOnDisk());
+        } finally {
+            service.close();
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package auca.ac.rw.Online.quiz.management.service;
+
+import auca.ac.rw.Online.quiz.management.controller.BulkOperationsController;
+import auca.ac.rw.Online.quiz.management.model.EQuestionType;
+import auca.ac.rw.Online.quiz.management.model.EUserRole;
+import auca.ac.rw.Online.quiz.management.model.Location;
+import auca.ac.rw.Online.quiz.management.model.Quiz;
+import auca.ac.rw.Online.quiz.management.model.User;
+import auca.ac.rw.Online.quiz.management.repository.LocationRepository;
+import auca.ac.rw.Online.quiz.management.repository.QuizRepository;
+import auca.ac.rw.Online.quiz.management.repository.UserRepository;
+import auca.ac.rw.Online.quiz.management.system.OnlineQuizManagementSystemApplication;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Exports must read back through the importer unchanged, including option text that contains
+ * the CSV option separator.
+ */
+@SpringBootTest(classes = OnlineQuizManagementSystemApplication.class)
+@TestPropertySource(locations = "classpath:application-test.properties", properties = {
+        "app.bulk.export.timeout-ms=45000"
+})
+public class QuestionExportServiceTest {
+
+    @Autowired
+    private QuestionExportService exportService;
+
+    @Autowired
+    private QuestionImportService importService;
+
+    @Autowired
+    private BulkOperationsController bulkOperationsController;
+
+    @Autowired
+    private QuizRepository quizRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private LocationRepository locationRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private long quizId;
+
+    @BeforeEach
+    public void createQuestions() throws IOException {
+        User user = userRepository.findByUsernameIgnoreCase("exporttest").orElseGet(() -> {
+            Location location = locationRepository.findAll(PageRequest.of(0, 1)).getContent().get(0);
+            User created = new User();
+            created.setUsername("exporttest");
+            created.setEmail("exporttest@example.com");
+            created.setPassword("not-a-real-hash");
+            created.setRole(EUserRole.INSTRUCTOR);
+            created.setLocation(location);
+            return userRepository.save(created);
+        });
+        Quiz quiz = new Quiz();
+        quiz.setTitle("Export quiz");
+        quiz.setCreatedBy(user);
+        quizId = quizRepository.save(quiz).getId();
+
+        String ndjson = "{\"quizId\":" + quizId + ",\"text\":\"Which are true?\",\"type\":\"MULTIPLE_CHOICE\",\"points\":3,"
+                + "\"options\":[{\"text\":\"a|b\",\"isCorrect\":true},{\"text\":\"C:\\\\temp\\\\|x\",\"isCorrect\":true},"
+                + "{\"text\":\"plain\"}]}\n"
+                + "{\"quizId\":" + quizId + ",\"text\":\"Comma, \\\"quote\\\"\\nand a line break\",\"type\":\"SINGLE_CHOICE\","
+                + "\"category\":\"Geo\",\"options\":[{\"text\":\"x\"},{\"text\":\"y\",\"isCorrect\":true}]}\n"
+                + "{\"quizId\":" + quizId + ",\"text\":\"Sky is blue\",\"type\":\"TRUE_FALSE\","
+                + "\"options\":[{\"text\":\"True\",\"isCorrect\":true},{\"text\":\"False\"}]}\n";
+        assertEquals(3, importService.importQuestions(stream(ndjson), QuestionImportService.Format.NDJSON).imported());
+    }
+
+    @Test
+    public void csvExportReadsBackUnchanged() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertEquals(3, exportService.export(new QuestionExportService.Filter(quizId, null, null),
+                QuestionExportService.Format.CSV, out));
+
+        // Same quizId column, so the copies land in the same quiz after the originals
+        QuestionImportService.ImportReport report = importService.importQuestions(
+                new ByteArrayInputStream(out.toByteArray()), QuestionImportService.Format.CSV);
+        assertEquals(0, report.failed(), String.valueOf(report.errors()));
+        assertEquals(3, report.imported());
+
+        List<String> questions = jdbcTemplate.query(
+                "SELECT text, type, points, category, id FROM questions WHERE quiz_id = ? ORDER BY id",
+                (rs, i) -> rs.getString(1) + "/" + rs.getString(2) + "/" + rs.getInt(3) + "/" + rs.getString(4)
+                        + "/" + options(rs.getLong(5)), quizId);
+        assertEquals(6, questions.size());
+        assertEquals(questions.subList(0, 3), questions.subList(3, 6));
+        assertTrue(questions.get(3).endsWith("/[a|b:true, C:\\temp\\|x:true, plain:false]"), questions.get(3));
+    }
+
+    @Test
+    public void ndjsonExportAppliesFilters() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertEquals(1, exportService.export(new QuestionExportService.Filter(quizId, " GEO ", null),
+                QuestionExportService.Format.NDJSON, out));
+
+        List<String> lines = out.toString(StandardCharsets.UTF_8).lines().toList();
+        assertEquals(1, lines.size());
+        JsonNode question = objectMapper.readTree(lines.get(0));
+        assertEquals(quizId, question.get("quizId").asLong());
+        assertEquals("SINGLE_CHOICE", question.get("type").asText());
+        assertEquals("Geo", question.get("category").asText());
+        assertEquals(2, question.get("options").size());
+        assertTrue(question.get("options").get(1).get("isCorrect").asBoolean());
+
+        out.reset();
+        assertEquals(1, exportService.export(new QuestionExportService.Filter(quizId, null, EQuestionType.TRUE_FALSE),
+                QuestionExportService.Format.NDJSON, out));
+    }
+
+    @Test
+    public void endpointStreamsWithItsOwnTimeout() throws Exception {
+        MockMvc mockMvc = MockMvcBuilders.standaloneSetup(bulkOperationsController).build();
+
+        MvcResult started = mockMvc.perform(get("/api/bulk/questions/export")
+                        .param("quizId", String.valueOf(quizId)).param("format", "csv").param("gzip", "true"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        assertEquals(45000, started.getRequest().getAsyncContext().getTimeout());
+        mockMvc.perform(asyncDispatch(started)).andExpect(status().isOk());
+
+        assertEquals("application/gzip", started.getResponse().getContentType());
+        assertTrue(started.getResponse().getHeader("Content-Disposition").contains("questions.csv.gz"));
+        try (GZIPInputStream in = new GZIPInputStream(
+                new ByteArrayInputStream(started.getResponse().getContentAsByteArray()))) {
+            String csv = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+            assertTrue(csv.startsWith("id,quizId,text,type,points,category,options,correct\r\n"), csv);
+            assertTrue(csv.contains(",a\\|b|C:\\\\temp\\\\\\|x|plain,1|2\r\n"), csv);
+        }
+
+        mockMvc.perform(get("/api/bulk/questions/export").param("format", "xml"))
+                .andExpect(status().isBadRequest());
+    }
+
+    private String options(long questionId) {
+        return jdbcTemplate.query("SELECT text, correct FROM options WHERE question_id = ? ORDER BY id",
+                (rs, i) -> rs.getString(1) + ":" + rs.getBoolean(2), questionId).toString();
+    }
+
+    private static ByteArrayInputStream stream(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+}
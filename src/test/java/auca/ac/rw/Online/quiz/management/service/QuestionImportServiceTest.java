@@ -0,0 +1,190 @@
+package auca.ac.rw.Online.quiz.management.service;
+
+import auca.ac.rw.Online.quiz.management.model.EUserRole;
+import auca.ac.rw.Online.quiz.management.model.Location;
+import auca.ac.rw.Online.quiz.management.model.Quiz;
+import auca.ac.rw.Online.quiz.management.model.User;
+import auca.ac.rw.Online.quiz.management.repository.LocationRepository;
+import auca.ac.rw.Online.quiz.management.repository.QuizRepository;
+import auca.ac.rw.Online.quiz.management.repository.UserRepository;
+import auca.ac.rw.Online.quiz.management.service.QuestionImportService.Format;
+import auca.ac.rw.Online.quiz.management.service.QuestionImportService.ImportReport;
+import auca.ac.rw.Online.quiz.management.service.QuestionImportService.RowError;
+import auca.ac.rw.Online.quiz.management.system.OnlineQuizManagementSystemApplication;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Imports small files in chunks of two rows into a fresh quiz and checks what was stored and
+ * what was reported.
+ */
+@SpringBootTest(classes = OnlineQuizManagementSystemApplication.class)
+@TestPropertySource(locations = "classpath:application-test.properties", properties = {
+        "app.bulk.import.chunk-size=2",
+        "app.bulk.import.max-errors=3"
+})
+public class QuestionImportServiceTest {
+
+    private static final long MISSING_QUIZ = 987654321L;
+
+    @Autowired
+    private QuestionImportService importService;
+
+    @Autowired
+    private QuizRepository quizRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private LocationRepository locationRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private long quizId;
+
+    @BeforeEach
+    public void createQuiz() {
+        User user = userRepository.findByUsernameIgnoreCase("importtest").orElseGet(() -> {
+            Location location = locationRepository.findAll(PageRequest.of(0, 1)).getContent().get(0);
+            User created = new User();
+            created.setUsername("importtest");
+            created.setEmail("importtest@example.com");
+            created.setPassword("not-a-real-hash");
+            created.setRole(EUserRole.INSTRUCTOR);
+            created.setLocation(location);
+            return userRepository.save(created);
+        });
+        Quiz quiz = new Quiz();
+        quiz.setTitle("Import quiz");
+        quiz.setCreatedBy(user);
+        quizId = quizRepository.save(quiz).getId();
+    }
+
+    @Test
+    public void csvImportsValidRowsAndReportsTheRest() throws IOException {
+        String csv = "quizId,text,type,points,category,options,correct\n"
+                + quizId + ",Capital of France?,MULTIPLE_CHOICE,2,geo,Paris|Lyon|Nice,paris\n"
+                + quizId + ",\"Pick the \"\"odd\"\" one,\nplease\",SINGLE_CHOICE,,,1|2|3,2\n"
+                + quizId + ",Water is wet,TRUE_FALSE,,,,\n"
+                + MISSING_QUIZ + ",Orphan,,,,A|B,A\n"
+                + quizId + ",Bad correct,,,,A|B,7\n"
+                + quizId + ",Bad points,,abc,,A|B,A\n";
+
+        ImportReport report = importService.importQuestions(stream(csv), Format.CSV);
+
+        assertEquals(6, report.rows());
+        assertEquals(3, report.imported());
+        assertEquals(3, report.failed());
+        assertFalse(report.aborted());
+        Map<Long, String> errors = byRow(report.errors());
+        assertEquals("Quiz " + MISSING_QUIZ + " does not exist", errors.get(6L));
+        assertEquals("correct refers to unknown option '7'", errors.get(7L));
+        assertEquals("points must be a whole number", errors.get(8L));
+
+        assertEquals(List.of("Capital of France?", "Pick the \"odd\" one,\nplease", "Water is wet"), questionTexts());
+        assertEquals(List.of("Paris:true", "Lyon:false", "Nice:false", "1:false", "2:true", "3:false",
+                "True:false", "False:false"), options());
+        assertEquals(2, jdbcTemplate.queryForObject(
+                "SELECT points FROM questions WHERE quiz_id = ? AND category = 'geo'", Integer.class, quizId));
+    }
+
+    @Test
+    public void ndjsonImportsObjectsAndReportsBadLines() throws IOException {
+        String ndjson = "{\"quizId\":" + quizId + ",\"text\":\"Json question\","
+                + "\"options\":[{\"text\":\"Yes\",\"isCorrect\":true},{\"text\":\"No\"}]}\n"
+                + "\n"
+                + "{\"quizId\":" + quizId + ",\"text\":\n"
+                + "[1,2]\n"
+                + "{\"quizId\":" + quizId + ",\"text\":\"Legacy flag\","
+                + "\"options\":[{\"text\":\"A\",\"correct\":true},{\"text\":\"B\",\"correct\":false}]}";
+
+        ImportReport report = importService.importQuestions(stream(ndjson), Format.NDJSON);
+
+        assertEquals(4, report.rows());
+        assertEquals(2, report.imported());
+        Map<Long, String> errors = byRow(report.errors());
+        assertTrue(errors.get(3L).startsWith("Invalid JSON"), errors.get(3L));
+        assertEquals("Line is not a JSON object", errors.get(4L));
+        assertEquals(List.of("Json question", "Legacy flag"), questionTexts());
+        assertEquals(List.of("Yes:true", "No:false", "A:true", "B:false"), options());
+    }
+
+    @Test
+    public void errorListIsCappedButEveryFailureIsCounted() throws IOException {
+        StringBuilder csv = new StringBuilder("quizId,text\n");
+        for (int i = 0; i < 5; i++) {
+            csv.append("not-a-number,Question ").append(i).append('\n');
+        }
+
+        ImportReport report = importService.importQuestions(stream(csv.toString()), Format.CSV);
+
+        assertEquals(5, report.failed());
+        assertEquals(3, report.errors().size());
+        assertTrue(report.errorsTruncated());
+    }
+
+    @Test
+    public void unreadableTailKeepsTheRowsBeforeIt() throws IOException {
+        String csv = "quizId,text,options,correct\n"
+                + quizId + ",Kept one,A|B,1\n"
+                + quizId + ",Kept two,A|B,2\n"
+                + quizId + ",Kept three,A|B,1\n"
+                + quizId + ",\"never closed\n";
+
+        ImportReport report = importService.importQuestions(stream(csv), Format.CSV);
+
+        assertTrue(report.aborted());
+        assertEquals(3, report.imported());
+        assertEquals(5L, report.errors().get(0).row());
+        assertTrue(report.errors().get(0).message().startsWith("Stopped reading"));
+        assertEquals(List.of("Kept one", "Kept two", "Kept three"), questionTexts());
+    }
+
+    @Test
+    public void csvWithoutRequiredColumnsIsRejected() {
+        assertThrows(IllegalArgumentException.class,
+                () -> importService.importQuestions(stream("text,options\nQuestion,A|B\n"), Format.CSV));
+    }
+
+    @Test
+    public void formatComesFromTheNameOrTheExtension() {
+        assertEquals(Format.CSV, Format.detect(null, "bank.CSV"));
+        assertEquals(Format.NDJSON, Format.detect("jsonl", "bank.csv"));
+        assertEquals(Format.NDJSON, Format.detect(" ", "bank.ndjson"));
+        assertNull(Format.detect(null, "bank.xlsx"));
+    }
+
+    private List<String> questionTexts() {
+        return jdbcTemplate.queryForList("SELECT text FROM questions WHERE quiz_id = ? ORDER BY id", String.class, quizId);
+    }
+
+    private List<String> options() {
+        return jdbcTemplate.query("SELECT o.text, o.correct FROM options o JOIN questions q ON q.id = o.question_id "
+                        + "WHERE q.quiz_id = ? ORDER BY q.id, o.id",
+                (rs, i) -> rs.getString(1) + ":" + rs.getBoolean(2), quizId);
+    }
+
+    private static Map<Long, String> byRow(List<RowError> errors) {
+        return errors.stream().collect(Collectors.toMap(RowError::row, RowError::message));
+    }
+
+    private static ByteArrayInputStream stream(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+}
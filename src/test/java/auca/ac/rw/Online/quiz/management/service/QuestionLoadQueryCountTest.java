@@ -0,0 +1,154 @@
+package auca.ac.rw.Online.quiz.management.service;
+
+import auca.ac.rw.Online.quiz.management.StatementCounter;
+import auca.ac.rw.Online.quiz.management.model.EAttemptStatus;
+import auca.ac.rw.Online.quiz.management.model.EQuestionType;
+import auca.ac.rw.Online.quiz.management.model.EUserRole;
+import auca.ac.rw.Online.quiz.management.model.Location;
+import auca.ac.rw.Online.quiz.management.model.Option;
+import auca.ac.rw.Online.quiz.management.model.Question;
+import auca.ac.rw.Online.quiz.management.model.Quiz;
+import auca.ac.rw.Online.quiz.management.model.QuizAttempt;
+import auca.ac.rw.Online.quiz.management.model.User;
+import auca.ac.rw.Online.quiz.management.repository.LocationRepository;
+import auca.ac.rw.Online.quiz.management.repository.OptionRepository;
+import auca.ac.rw.Online.quiz.management.repository.QuestionRepository;
+import auca.ac.rw.Online.quiz.management.repository.QuizAttemptRepository;
+import auca.ac.rw.Online.quiz.management.repository.QuizRepository;
+import auca.ac.rw.Online.quiz.management.repository.UserRepository;
+import auca.ac.rw.Online.quiz.management.system.OnlineQuizManagementSystemApplication;
+import org.hibernate.Hibernate;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Delivering and grading a quiz must load its questions and options in a bounded number of
+ * SELECTs, however many questions the quiz has.
+ */
+@SpringBootTest(classes = OnlineQuizManagementSystemApplication.class)
+@TestPropertySource(locations = "classpath:application-test.properties", properties = {
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector=auca.ac.rw.Online.quiz.management.StatementCounter"
+})
+public class QuestionLoadQueryCountTest {
+
+    private static final int QUESTIONS = 6;
+    private static final int OPTIONS_PER_QUESTION = 3;
+    private static final int MAX_SELECTS = 2;
+
+    @Autowired
+    private QuizService quizService;
+
+    @Autowired
+    private GradingService gradingService;
+
+    @Autowired
+    private QuizRepository quizRepository;
+
+    @Autowired
+    private QuestionRepository questionRepository;
+
+    @Autowired
+    private OptionRepository optionRepository;
+
+    @Autowired
+    private QuizAttemptRepository quizAttemptRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private LocationRepository locationRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private User user;
+    private Quiz quiz;
+
+    @BeforeEach
+    public void createQuiz() {
+        user = userRepository.findByUsernameIgnoreCase("questioncount").orElseGet(() -> {
+            Location location = locationRepository.findAll(PageRequest.of(0, 1)).getContent().get(0);
+            User created = new User();
+            created.setUsername("questioncount");
+            created.setEmail("questioncount@example.com");
+            created.setPassword("not-a-real-hash");
+            created.setRole(EUserRole.STUDENT);
+            created.setLocation(location);
+            return userRepository.save(created);
+        });
+
+        quiz = new Quiz();
+        quiz.setTitle("Query count quiz");
+        quiz.setCreatedBy(user);
+        quiz = quizRepository.save(quiz);
+        for (int i = 0; i < QUESTIONS; i++) {
+            Question question = new Question();
+            question.setText("Question " + i);
+            question.setType(EQuestionType.MULTIPLE_CHOICE);
+            question.setQuiz(quiz);
+            question = questionRepository.save(question);
+            for (int j = 0; j < OPTIONS_PER_QUESTION; j++) {
+                Option option = new Option();
+                option.setText("Option " + j);
+                option.setCorrect(j == 0);
+                option.setQuestion(question);
+                optionRepository.save(option);
+            }
+        }
+    }
+
+    @Test
+    public void deliveryLoadsQuestionsWithOptionsInBoundedSelects() {
+        StatementCounter.start();
+        List<Question> questions = quizService.getQuizQuestionsOrdered(quiz.getId());
+        int selects = StatementCounter.selects();
+        StatementCounter.stop();
+
+        assertEquals(QUESTIONS, questions.size());
+        for (Question question : questions) {
+            assertTrue(Hibernate.isInitialized(question.getOptions()));
+            assertEquals(OPTIONS_PER_QUESTION, question.getOptions().size());
+        }
+        assertTrue(selects <= MAX_SELECTS, "delivery ran " + selects + " SELECTs");
+    }
+
+    @Test
+    public void gradingLoadsQuestionsWithOptionsInBoundedSelects() {
+        QuizAttempt saved = new QuizAttempt();
+        saved.setUser(user);
+        saved.setQuiz(quiz);
+        saved.setStatus(EAttemptStatus.PENDING);
+        Long attemptId = quizAttemptRepository.save(saved).getId();
+
+        Map<String, Object> answers = new HashMap<>();
+        for (Question question : quizService.getQuizQuestionsOrdered(quiz.getId())) {
+            answers.put(question.getId().toString(), question.getOptions().get(0).getId().toString());
+        }
+
+        int selects = new TransactionTemplate(transactionManager).execute(status -> {
+            QuizAttempt attempt = quizAttemptRepository.findById(attemptId).orElseThrow();
+            StatementCounter.start();
+            QuizAttempt graded = gradingService.gradeAttempt(attempt, answers);
+            int count = StatementCounter.selects();
+            StatementCounter.stop();
+            assertEquals(100.0, graded.getScore());
+            return count;
+        });
+
+        // The answer INSERTs scale with the quiz by design; the reads must not
+        assertTrue(selects <= MAX_SELECTS, "grading ran " + selects + " SELECTs");
+    }
+}
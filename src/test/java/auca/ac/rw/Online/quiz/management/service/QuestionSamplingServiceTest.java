@@ -0,0 +1,216 @@
+package auca.ac.rw.Online.quiz.management.service;
+
+import auca.ac.rw.Online.quiz.management.model.EQuestionType;
+import auca.ac.rw.Online.quiz.management.model.EUserRole;
+import auca.ac.rw.Online.quiz.management.model.Location;
+import auca.ac.rw.Online.quiz.management.model.Question;
+import auca.ac.rw.Online.quiz.management.model.Quiz;
+import auca.ac.rw.Online.quiz.management.model.QuizSamplingRule;
+import auca.ac.rw.Online.quiz.management.model.User;
+import auca.ac.rw.Online.quiz.management.repository.LocationRepository;
+import auca.ac.rw.Online.quiz.management.repository.QuestionRepository;
+import auca.ac.rw.Online.quiz.management.repository.QuizRepository;
+import auca.ac.rw.Online.quiz.management.repository.QuizSamplingRuleRepository;
+import auca.ac.rw.Online.quiz.management.repository.UserRepository;
+import auca.ac.rw.Online.quiz.management.system.OnlineQuizManagementSystemApplication;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Sampled papers: distinct draws, the configured count per category, the same paper again from
+ * the same seed, and one attempt per student however many deliveries race.
+ */
+@SpringBootTest(classes = OnlineQuizManagementSystemApplication.class)
+@TestPropertySource(locations = "classpath:application-test.properties")
+public class QuestionSamplingServiceTest {
+
+    private static final AtomicInteger banks = new AtomicInteger();
+
+    @Autowired
+    private QuestionSamplingService questionSamplingService;
+
+    @Autowired
+    private QuizService quizService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private LocationRepository locationRepository;
+
+    @Autowired
+    private QuizRepository quizRepository;
+
+    @Autowired
+    private QuestionRepository questionRepository;
+
+    @Autowired
+    private QuizSamplingRuleRepository quizSamplingRuleRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private User student;
+    private Quiz quiz;
+    private String algebra;
+    private String geometry;
+    private final Set<Long> algebraIds = new HashSet<>();
+    private final Set<Long> geometryIds = new HashSet<>();
+
+    @BeforeEach
+    public void createBank() {
+        student = userRepository.findByUsernameIgnoreCase("samplingtest").orElseGet(() -> {
+            Location location = locationRepository.findAll(PageRequest.of(0, 1)).getContent().get(0);
+            User created = new User();
+            created.setUsername("samplingtest");
+            created.setEmail("samplingtest@example.com");
+            created.setPassword("not-a-real-hash");
+            created.setRole(EUserRole.STUDENT);
+            created.setLocation(location);
+            return userRepository.save(created);
+        });
+        quiz = new Quiz();
+        quiz.setTitle("Sampling quiz");
+        quiz.setCreatedBy(student);
+        quiz = quizRepository.save(quiz);
+
+        // Categories of their own, so other tests' questions never land in the bank
+        int bank = banks.incrementAndGet();
+        algebra = "Sampling-Algebra-" + bank;
+        geometry = "Sampling-Geometry-" + bank;
+        algebraIds.clear();
+        geometryIds.clear();
+        for (int i = 0; i < 20; i++) {
+            algebraIds.add(question(algebra, i));
+        }
+        for (int i = 0; i < 8; i++) {
+            geometryIds.add(question(geometry, i));
+        }
+        questionSamplingService.rebuild();
+    }
+
+    @Test
+    public void floydDrawsDistinctIndicesInRange() {
+        SplittableRandom random = new SplittableRandom(42);
+        for (int[] nk : new int[][] {{1, 1}, {10, 0}, {10, 1}, {10, 10}, {1000, 37}}) {
+            int[] drawn = QuestionSamplingService.floyd(nk[0], nk[1], random);
+
+            assertEquals(nk[1], drawn.length);
+            Set<Integer> distinct = new HashSet<>();
+            for (int index : drawn) {
+                assertTrue(index >= 0 && index < nk[0], index + " outside [0, " + nk[0] + ")");
+                assertTrue(distinct.add(index), "index " + index + " drawn twice");
+            }
+        }
+    }
+
+    @Test
+    public void floydReachesEveryIndex() {
+        SplittableRandom random = new SplittableRandom(7);
+        int[] hits = new int[10];
+        for (int i = 0; i < 2000; i++) {
+            for (int index : QuestionSamplingService.floyd(10, 3, random)) {
+                hits[index]++;
+            }
+        }
+        // 600 expected per index; a stuck or skipped index would be far outside this band
+        for (int index = 0; index < hits.length; index++) {
+            assertTrue(hits[index] > 450 && hits[index] < 750, "index " + index + " drawn " + hits[index] + " times");
+        }
+    }
+
+    @Test
+    public void paperHasTheConfiguredCountPerCategory() {
+        List<QuizSamplingRule> rules = List.of(new QuizSamplingRule(quiz, algebra, 5),
+                new QuizSamplingRule(quiz, geometry.toUpperCase(), 3));
+
+        List<Long> paper = questionSamplingService.sample(rules, 123L);
+
+        assertEquals(8, paper.size());
+        assertEquals(8, new HashSet<>(paper).size());
+        assertEquals(5, paper.stream().filter(algebraIds::contains).count());
+        assertEquals(3, paper.stream().filter(geometryIds::contains).count());
+    }
+
+    @Test
+    public void categoryTooSmallForItsRuleIsRejected() {
+        List<QuizSamplingRule> rules = List.of(new QuizSamplingRule(quiz, geometry, 9));
+
+        assertThrows(IllegalStateException.class, () -> questionSamplingService.sample(rules, 1L));
+    }
+
+    @Test
+    public void seedReproducesThePaper() {
+        List<QuizSamplingRule> rules = List.of(new QuizSamplingRule(quiz, algebra, 6),
+                new QuizSamplingRule(quiz, geometry, 4));
+        long seed = QuestionSamplingService.seedFor(quiz.getId(), 99L);
+
+        List<Long> paper = questionSamplingService.sample(rules, seed);
+
+        assertEquals(paper, questionSamplingService.sample(rules, seed));
+        assertEquals(paper, QuestionSamplingService.decode(QuestionSamplingService.encode(paper)));
+        assertNotEquals(paper, questionSamplingService.sample(rules, QuestionSamplingService.seedFor(quiz.getId(), 100L)));
+    }
+
+    @Test
+    public void concurrentDeliveriesOpenOneAttempt() throws Exception {
+        quizSamplingRuleRepository.save(new QuizSamplingRule(quiz, algebra, 4));
+
+        int callers = 4;
+        CountDownLatch go = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(callers);
+        List<Set<Long>> papers = new ArrayList<>();
+        try {
+            List<Future<List<Question>>> results = new ArrayList<>();
+            for (int i = 0; i < callers; i++) {
+                results.add(pool.submit(() -> {
+                    go.await();
+                    return quizService.getQuizQuestions(quiz.getId(), student.getUsername());
+                }));
+            }
+            go.countDown();
+            for (Future<List<Question>> result : results) {
+                Set<Long> ids = new HashSet<>();
+                result.get(30, TimeUnit.SECONDS).forEach(question -> ids.add(question.getId()));
+                papers.add(ids);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        assertEquals(1, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM quiz_attempts WHERE quiz_id = ?", Integer.class, quiz.getId()));
+        assertEquals(4, papers.get(0).size());
+        papers.forEach(paper -> assertEquals(papers.get(0), paper));
+        // The lookup that used to fail once a second attempt existed
+        assertTrue(quizService.checkExistingAttempt(quiz.getId(), student.getUsername()).isPresent());
+    }
+
+    private Long question(String category, int number) {
+        Question question = new Question();
+        question.setText(category + " question " + number);
+        question.setType(EQuestionType.SINGLE_CHOICE);
+        question.setCategory(category);
+        question.setQuiz(quiz);
+        return questionRepository.save(question).getId();
+    }
+}
@@ -0,0 +1,157 @@
+package auca.ac.rw.Online.quiz.management.service;
+
+import auca.ac.rw.Online.quiz.management.StatementCounter;
+import auca.ac.rw.Online.quiz.management.model.EQuestionType;
+import auca.ac.rw.Online.quiz.management.model.Option;
+import auca.ac.rw.Online.quiz.management.model.Question;
+import auca.ac.rw.Online.quiz.management.model.Quiz;
+import auca.ac.rw.Online.quiz.management.model.QuizSamplingRule;
+import auca.ac.rw.Online.quiz.management.repository.OptionRepository;
+import auca.ac.rw.Online.quiz.management.repository.QuestionRepository;
+import auca.ac.rw.Online.quiz.management.repository.QuizRepository;
+import auca.ac.rw.Online.quiz.management.repository.QuizSamplingRuleRepository;
+import auca.ac.rw.Online.quiz.management.system.OnlineQuizManagementSystemApplication;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+
+import javax.sql.DataSource;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Cloning a quiz costs the same number of statements whatever its size, and maps every source
+ * question and option to a faithful copy.
+ */
+@SpringBootTest(classes = {OnlineQuizManagementSystemApplication.class, QuizCloneServiceTest.CountingDataSource.class})
+@TestPropertySource(locations = "classpath:application-test.properties")
+public class QuizCloneServiceTest {
+
+    /** Counts at the JDBC level, since the clone mostly bypasses Hibernate. */
+    @TestConfiguration
+    static class CountingDataSource {
+
+        @Bean
+        static BeanPostProcessor countingDataSourcePostProcessor() {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    return bean instanceof DataSource dataSource ? StatementCounter.counting(dataSource) : bean;
+                }
+            };
+        }
+    }
+
+    @Autowired
+    private QuizCloneService quizCloneService;
+
+    @Autowired
+    private QuizRepository quizRepository;
+
+    @Autowired
+    private QuestionRepository questionRepository;
+
+    @Autowired
+    private OptionRepository optionRepository;
+
+    @Autowired
+    private QuizSamplingRuleRepository quizSamplingRuleRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    public void statementCountDoesNotGrowWithTheQuiz() {
+        Quiz small = createQuiz(3);
+        Quiz large = createQuiz(30);
+
+        StatementCounter.start();
+        QuizCloneService.CloneResult smallCopy = quizCloneService.cloneQuiz(small.getId(), null, null).orElseThrow();
+        int smallStatements = StatementCounter.stop();
+        StatementCounter.start();
+        QuizCloneService.CloneResult largeCopy = quizCloneService.cloneQuiz(large.getId(), null, null).orElseThrow();
+        int largeStatements = StatementCounter.stop();
+
+        assertEquals(3, smallCopy.questionIds().size());
+        assertEquals(30, largeCopy.questionIds().size());
+        assertEquals(smallStatements, largeStatements);
+        // Quiz row, one SELECT, two batches and the rules: the counter must have seen at least those
+        assertTrue(smallStatements >= 5, smallStatements + " statements");
+    }
+
+    @Test
+    public void everyQuestionAndOptionMapsToAFaithfulCopy() {
+        Quiz source = createQuiz(30);
+
+        QuizCloneService.CloneResult copy = quizCloneService.cloneQuiz(source.getId(), "Copied", null).orElseThrow();
+
+        List<Long> sourceQuestions = jdbcTemplate.queryForList(
+                "SELECT id FROM questions WHERE quiz_id = ? ORDER BY id", Long.class, source.getId());
+        assertEquals(sourceQuestions, List.copyOf(copy.questionIds().keySet()));
+        for (Map.Entry<Long, Long> question : copy.questionIds().entrySet()) {
+            assertEquals(row("SELECT text, type, points, category FROM questions WHERE id = ?", question.getKey()),
+                    row("SELECT text, type, points, category FROM questions WHERE id = ?", question.getValue()));
+            assertEquals(copy.quizId(), jdbcTemplate.queryForObject(
+                    "SELECT quiz_id FROM questions WHERE id = ?", Long.class, question.getValue()));
+        }
+
+        List<Long> sourceOptions = jdbcTemplate.queryForList("SELECT o.id FROM options o JOIN questions q "
+                + "ON q.id = o.question_id WHERE q.quiz_id = ? ORDER BY o.id", Long.class, source.getId());
+        assertEquals(sourceOptions.size(), copy.optionIds().size());
+        for (Long optionId : sourceOptions) {
+            Long copyId = copy.optionIds().get(optionId);
+            assertNotNull(copyId, "option " + optionId + " not copied");
+            assertEquals(row("SELECT text, correct FROM options WHERE id = ?", optionId),
+                    row("SELECT text, correct FROM options WHERE id = ?", copyId));
+            // Under the copy of its own question
+            Long sourceQuestion = jdbcTemplate.queryForObject(
+                    "SELECT question_id FROM options WHERE id = ?", Long.class, optionId);
+            assertEquals(copy.questionIds().get(sourceQuestion), jdbcTemplate.queryForObject(
+                    "SELECT question_id FROM options WHERE id = ?", Long.class, copyId));
+        }
+
+        assertEquals(List.of(Map.of("CATEGORY", "algebra", "QUESTION_COUNT", 2),
+                        Map.of("CATEGORY", "geometry", "QUESTION_COUNT", 1)),
+                jdbcTemplate.queryForList("SELECT category, question_count FROM quiz_sampling_rules "
+                        + "WHERE quiz_id = ? ORDER BY id", copy.quizId()));
+        assertEquals("DRAFT", jdbcTemplate.queryForObject(
+                "SELECT status FROM quizzes WHERE id = ?", String.class, copy.quizId()));
+    }
+
+    /** A quiz whose questions have 0 to 3 options each, so option ids do not line up with question ids. */
+    private Quiz createQuiz(int questions) {
+        Quiz quiz = new Quiz();
+        quiz.setTitle("Clone source " + questions);
+        quiz = quizRepository.save(quiz);
+        for (int i = 0; i < questions; i++) {
+            Question question = new Question();
+            question.setText("Question " + i + " of " + questions);
+            question.setType(i % 4 == 0 ? EQuestionType.SHORT_ANSWER : EQuestionType.SINGLE_CHOICE);
+            question.setPoints(1 + i % 3);
+            question.setCategory(i % 2 == 0 ? "algebra" : "geometry");
+            question.setQuiz(quiz);
+            question = questionRepository.save(question);
+            for (int j = 0; j < i % 4; j++) {
+                Option option = new Option();
+                option.setText("Option " + j + " of question " + i);
+                option.setCorrect(j == i % 3);
+                option.setQuestion(question);
+                optionRepository.save(option);
+            }
+        }
+        quizSamplingRuleRepository.save(new QuizSamplingRule(quiz, "algebra", 2));
+        quizSamplingRuleRepository.save(new QuizSamplingRule(quiz, "geometry", 1));
+        return quiz;
+    }
+
+    private Map<String, Object> row(String sql, Long id) {
+        return jdbcTemplate.queryForMap(sql, id);
+    }
+}
@@ -0,0 +1,176 @@
+package auca.ac.rw.Online.quiz.management.service;
+
+import auca.ac.rw.Online.quiz.management.model.EQuizStatus;
+import auca.ac.rw.Online.quiz.management.model.EUserRole;
+import auca.ac.rw.Online.quiz.management.model.Location;
+import auca.ac.rw.Online.quiz.management.model.Quiz;
+import auca.ac.rw.Online.quiz.management.model.User;
+import auca.ac.rw.Online.quiz.management.repository.LocationRepository;
+import auca.ac.rw.Online.quiz.management.repository.QuizRepository;
+import auca.ac.rw.Online.quiz.management.repository.UserRepository;
+import auca.ac.rw.Online.quiz.management.system.OnlineQuizManagementSystemApplication;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Quizzes saved with a start or end time are opened and archived by the scheduler's queue,
+ * without waiting for the sweep.
+ */
+@SpringBootTest(classes = OnlineQuizManagementSystemApplication.class)
+@TestPropertySource(locations = "classpath:application-test.properties")
+public class QuizSchedulingServiceTest {
+
+    private static final AtomicInteger quizzes = new AtomicInteger();
+
+    @Autowired
+    private QuizRepository quizRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private LocationRepository locationRepository;
+
+    @Autowired
+    private JobLockProvider jobLockProvider;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final Set<User> students = new HashSet<>();
+
+    @BeforeEach
+    public void createStudents() {
+        students.clear();
+        for (String username : List.of("schedulestudent1", "schedulestudent2")) {
+            students.add(userRepository.findByUsernameIgnoreCase(username).orElseGet(() -> {
+                Location location = locationRepository.findAll(PageRequest.of(0, 1)).getContent().get(0);
+                User created = new User();
+                created.setUsername(username);
+                created.setEmail(username + "@example.com");
+                created.setPassword("not-a-real-hash");
+                created.setRole(EUserRole.STUDENT);
+                created.setLocation(location);
+                return userRepository.save(created);
+            }));
+        }
+    }
+
+    @Test
+    public void draftIsPublishedAtItsStartWithNotifications() throws InterruptedException {
+        OffsetDateTime start = OffsetDateTime.now().plusSeconds(1);
+        Quiz quiz = save(draft(start, start.plusHours(1)));
+
+        awaitStatus(quiz, EQuizStatus.PUBLISHED, Duration.ofSeconds(5));
+
+        // On time give or take the wheel's scheduling slack, not at the next sweep
+        assertTrue(OffsetDateTime.now().isBefore(start.plusSeconds(3)), "published late");
+        assertEquals(students.size(), notifications(quiz));
+    }
+
+    @Test
+    public void quizWhoseStartAndEndHavePassedEndsArchived() throws InterruptedException {
+        OffsetDateTime now = OffsetDateTime.now();
+        Quiz quiz = save(draft(now.minusHours(2), now.minusHours(1)));
+
+        awaitStatus(quiz, EQuizStatus.ARCHIVED, Duration.ofSeconds(5));
+
+        // Never open in between, so nobody is told it was published
+        assertEquals(0, notifications(quiz));
+    }
+
+    @Test
+    public void editingTheStartTimeMovesTheTransition() throws InterruptedException {
+        Quiz later = save(draft(OffsetDateTime.now().plusSeconds(2), null));
+        later.setStartTime(OffsetDateTime.now().plusHours(1));
+        later = save(later);
+        Quiz sooner = save(draft(OffsetDateTime.now().plusHours(1), null));
+        sooner.setStartTime(OffsetDateTime.now().plusSeconds(1));
+        sooner = save(sooner);
+
+        awaitStatus(sooner, EQuizStatus.PUBLISHED, Duration.ofSeconds(5));
+        // Past the original start of the other quiz, which was pushed back an hour
+        Thread.sleep(2000);
+        assertEquals(EQuizStatus.DRAFT.name(), status(later));
+        assertEquals(0, notifications(later));
+    }
+
+    @Test
+    public void transitionsWaitForTheLeaseAndAreRetried() throws InterruptedException {
+        JobLockProvider.Lease lease = jobLockProvider.tryLock("quiz-status-transitions", Duration.ofMinutes(1))
+                .orElseThrow();
+        Quiz quiz;
+        try {
+            quiz = save(draft(OffsetDateTime.now().minusSeconds(1), null));
+            // Another node holds the lease, so this one queues the transition for a retry
+            Thread.sleep(1500);
+            assertEquals(EQuizStatus.DRAFT.name(), status(quiz));
+        } finally {
+            lease.release(Duration.ZERO);
+        }
+
+        awaitStatus(quiz, EQuizStatus.PUBLISHED, Duration.ofSeconds(10));
+        assertEquals(students.size(), notifications(quiz));
+    }
+
+    private Quiz draft(OffsetDateTime start, OffsetDateTime end) {
+        Quiz quiz = new Quiz();
+        quiz.setTitle("Scheduled quiz " + quizzes.incrementAndGet());
+        quiz.setStatus(EQuizStatus.DRAFT);
+        quiz.setStartTime(start);
+        quiz.setEndTime(end);
+        return quiz;
+    }
+
+    private Quiz save(Quiz quiz) {
+        // Committed by the repository; the listener queues the transition after commit
+        boolean created = quiz.getId() == null;
+        Quiz saved = quizRepository.save(quiz);
+        if (created) {
+            // Enrolment is owned by User.quizzes; auto-commit is off, so commit it explicitly
+            new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+                for (User student : students) {
+                    jdbcTemplate.update("INSERT INTO quiz_student (quiz_id, student_id) VALUES (?, ?)", saved.getId(),
+                            student.getId());
+                }
+            });
+        }
+        return saved;
+    }
+
+    private void awaitStatus(Quiz quiz, EQuizStatus expected, Duration timeout) throws InterruptedException {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        while (!expected.name().equals(status(quiz))) {
+            assertTrue(System.nanoTime() < deadline, quiz.getTitle() + " still " + status(quiz));
+            Thread.sleep(50);
+        }
+    }
+
+    private String status(Quiz quiz) {
+        return jdbcTemplate.queryForObject("SELECT status FROM quizzes WHERE id = ?", String.class, quiz.getId());
+    }
+
+    private int notifications(Quiz quiz) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM notifications WHERE message LIKE ?", Integer.class,
+                "%'" + quiz.getTitle() + "'%");
+    }
+}
@@ -0,0 +1,134 @@
+package auca.ac.rw.Online.quiz.management.service;
+
+import auca.ac.rw.Online.quiz.management.service.SearchResultCache.CategoryResult;
+import auca.ac.rw.Online.quiz.management.service.SearchResultCache.Item;
+import auca.ac.rw.Online.quiz.management.util.TrigramIndex;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Answers built from a shorter cached query must equal a fresh search; stale and evicted
+ * entries must not be served.
+ */
+public class SearchResultCacheTest {
+
+    private static final int LIMIT = 20;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    /** The texts the index holds, by id; ids and texts chosen so ties need every rank key. */
+    private static final Map<Integer, String> QUESTIONS = Map.of(
+            1, "Algebra basics",
+            2, "linear algebra",
+            3, "xalgebr zzzzz",
+            4, "algeb xalgebr",
+            5, "geometry",
+            6, "pre-algebra",
+            7, "algebra",
+            8, "abstract algebra");
+
+    private final TrigramIndex index = new TrigramIndex();
+
+    {
+        QUESTIONS.forEach((id, text) -> index.put(id, text));
+    }
+
+    @Test
+    public void narrowedAnswerEqualsAFreshSearch() {
+        SearchResultCache cache = new SearchResultCache(meterRegistry, 60_000, 100);
+        cache.put("algeb", false, 1, search("algeb"));
+
+        Map<String, CategoryResult> narrowed = cache.get("algebr", false, 1);
+
+        assertEquals(search("algebr"), narrowed);
+        assertEquals(1.0, meterRegistry.counter("search.cache.requests", "outcome", "prefix").count());
+        // Cached under the longer query too
+        assertSame(narrowed, cache.get("algebr", false, 1));
+        assertEquals(1.0, meterRegistry.counter("search.cache.requests", "outcome", "hit").count());
+    }
+
+    @Test
+    public void unrankedCategoriesKeepTheirOrder() {
+        SearchResultCache cache = new SearchResultCache(meterRegistry, 60_000, 100);
+        // Database order, which ranking would change
+        List<Item> attempts = List.of(item(30, "zed\nalgebra"), item(31, "ann\nalgebra"), item(32, "bo\ngeometry"));
+        cache.put("alg", false, 1, Map.of("attempts", new CategoryResult(attempts, true, false)));
+
+        CategoryResult narrowed = cache.get("algebra", false, 1).get("attempts");
+
+        assertEquals(attempts.subList(0, 2), narrowed.items());
+        assertFalse(narrowed.ranked());
+    }
+
+    @Test
+    public void incompletePrefixIsNotNarrowed() {
+        SearchResultCache cache = new SearchResultCache(meterRegistry, 60_000, 100);
+        Map<String, CategoryResult> results = new LinkedHashMap<>(search("algeb"));
+        results.put("users", new CategoryResult(List.of(), false, true));
+        cache.put("algeb", false, 1, results);
+
+        assertNull(cache.get("algebr", false, 1));
+        // Nor is an entry cached for admins answered for everyone else
+        cache.put("geo", true, 1, search("geo"));
+        assertNull(cache.get("geom", false, 1));
+    }
+
+    @Test
+    public void newGenerationMakesEveryEntryStale() {
+        SearchResultCache cache = new SearchResultCache(meterRegistry, 60_000, 100);
+        cache.put("algeb", false, 1, search("algeb"));
+        assertNotNull(cache.get("algeb", false, 1));
+
+        assertNull(cache.get("algeb", false, 2));
+        assertNull(cache.get("algebr", false, 2));
+        // Dropped, not just hidden: the old generation is not served again either
+        assertNull(cache.get("algeb", false, 1));
+    }
+
+    @Test
+    public void expiredEntriesAreNotServed() {
+        SearchResultCache cache = new SearchResultCache(meterRegistry, 0, 100);
+        cache.put("algeb", false, 1, search("algeb"));
+
+        assertNull(cache.get("algeb", false, 1));
+        assertNull(cache.get("algebr", false, 1));
+    }
+
+    @Test
+    public void leastRecentlyUsedEntryIsEvicted() {
+        SearchResultCache cache = new SearchResultCache(meterRegistry, 60_000, 2);
+        cache.put("linear", false, 1, search("linear"));
+        cache.put("geometry", false, 1, search("geometry"));
+        assertNotNull(cache.get("linear", false, 1));
+
+        cache.put("abstract", false, 1, search("abstract"));
+
+        assertNull(cache.get("geometry", false, 1));
+        assertNotNull(cache.get("linear", false, 1));
+        assertNotNull(cache.get("abstract", false, 1));
+    }
+
+    /** What SearchController caches for a query answered by the index. */
+    private Map<String, CategoryResult> search(String query) {
+        int[] ids = index.search(query, LIMIT, id -> true);
+        List<Item> items = new ArrayList<>();
+        for (int id : ids) {
+            items.add(item(id, TrigramIndex.normalizeFields(QUESTIONS.get(id))));
+        }
+        Map<String, CategoryResult> results = new LinkedHashMap<>();
+        results.put("questions", new CategoryResult(items, ids.length < LIMIT, true));
+        return results;
+    }
+
+    private static Item item(long id, String matchText) {
+        return new Item(id, JsonNodeFactory.instance.objectNode().put("id", id), matchText);
+    }
+}
@@ -0,0 +1,145 @@
+package auca.ac.rw.Online.quiz.management.system;
+
+import auca.ac.rw.Online.quiz.management.model.EUserRole;
+import auca.ac.rw.Online.quiz.management.model.User;
+import auca.ac.rw.Online.quiz.management.repository.LocationRepository;
+import auca.ac.rw.Online.quiz.management.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Re-running the location seeder: an unchanged dataset version skips loading, and a changed one
+ * upserts the seeded rows in place and retires the rest, keeping rows that users still reference.
+ */
+@SpringBootTest(classes = OnlineQuizManagementSystemApplication.class)
+@TestPropertySource(locations = "classpath:application-test.properties")
+public class RwandaLocationSeederTest {
+
+    private static final String SEEDED_VILLAGE_SQL = "SELECT id, village_name FROM locations l "
+            + "WHERE seeded = TRUE AND village_id IS NOT NULL "
+            + "AND NOT EXISTS (SELECT 1 FROM users u WHERE u.location_id = l.id) ORDER BY id";
+
+    @Autowired
+    private RwandaLocationSeeder seeder;
+
+    @Autowired
+    private LocationRepository locationRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    public void unchangedVersionSkipsLoading() {
+        Map<String, Object> village = jdbcTemplate.queryForList(SEEDED_VILLAGE_SQL).get(0);
+        Long villageId = (Long) village.get("ID");
+        Map<String, Object> versionBefore = datasetVersion();
+        int rowsBefore = count("SELECT COUNT(*) FROM locations");
+        inTransaction(() -> jdbcTemplate.update("UPDATE locations SET village_name = 'Renamed' WHERE id = ?", villageId));
+
+        try {
+            seeder.run(null);
+
+            // Nothing was rewritten: the edit survives and the version row is untouched
+            assertEquals("Renamed", villageName(villageId));
+            assertEquals(rowsBefore, count("SELECT COUNT(*) FROM locations"));
+            assertEquals(versionBefore, datasetVersion());
+        } finally {
+            inTransaction(() -> jdbcTemplate.update("UPDATE locations SET village_name = ? WHERE id = ?",
+                    village.get("VILLAGE_NAME"), villageId));
+        }
+    }
+
+    @Test
+    public void changedVersionUpsertsSeededRowsAndRetiresTheRest() {
+        var villages = jdbcTemplate.queryForList(SEEDED_VILLAGE_SQL);
+        Long renamedId = (Long) villages.get(0).get("ID");
+        String renamedName = (String) villages.get(0).get("VILLAGE_NAME");
+        Long deletedId = (Long) villages.get(villages.size() - 1).get("ID");
+        Map<String, Object> deletedPath = jdbcTemplate.queryForMap("SELECT province_id, district_id, sector_id, "
+                + "cell_id, village_id, village_name FROM locations WHERE id = ?", deletedId);
+        Map<String, Object> versionBefore = datasetVersion();
+
+        inTransaction(() -> {
+            jdbcTemplate.update("UPDATE locations SET village_name = 'Renamed' WHERE id = ?", renamedId);
+            jdbcTemplate.update("DELETE FROM location_closure WHERE ancestor_id = ? OR descendant_id = ?", deletedId, deletedId);
+            jdbcTemplate.update("DELETE FROM locations WHERE id = ?", deletedId);
+            // Seeded rows from an older dataset that the current one no longer has
+            jdbcTemplate.update("INSERT INTO locations (province_id, province_name, location_type, seeded) "
+                    + "VALUES (98, 'Retired, referenced', 'PROVINCE', TRUE)");
+            jdbcTemplate.update("INSERT INTO locations (province_id, province_name, location_type, seeded) "
+                    + "VALUES (99, 'Retired, unreferenced', 'PROVINCE', TRUE)");
+            jdbcTemplate.update("UPDATE dataset_versions SET version = 'stale' WHERE name = 'rwanda-locations'");
+        });
+        Long referencedId = jdbcTemplate.queryForObject("SELECT id FROM locations WHERE province_id = 98", Long.class);
+        User user = new User();
+        user.setUsername("retiredlocationuser");
+        user.setEmail("retiredlocationuser@example.com");
+        user.setPassword("not-a-real-hash");
+        user.setRole(EUserRole.STUDENT);
+        user.setLocation(locationRepository.getReferenceById(referencedId));
+        user = userRepository.save(user);
+
+        try {
+            seeder.run(null);
+
+            // Upserted in place: same id, name restored
+            assertEquals(renamedName, villageName(renamedId));
+            Long reinserted = jdbcTemplate.queryForObject("SELECT id FROM locations WHERE seeded = TRUE "
+                    + "AND province_id = ? AND district_id = ? AND sector_id = ? AND cell_id = ? AND village_id = ?",
+                    Long.class, deletedPath.get("PROVINCE_ID"), deletedPath.get("DISTRICT_ID"),
+                    deletedPath.get("SECTOR_ID"), deletedPath.get("CELL_ID"), deletedPath.get("VILLAGE_ID"));
+            assertEquals(deletedPath.get("VILLAGE_NAME"), villageName(reinserted));
+
+            // Retired: unflagged while a user points at it, deleted otherwise
+            assertEquals(Boolean.FALSE, jdbcTemplate.queryForObject(
+                    "SELECT seeded FROM locations WHERE id = ?", Boolean.class, referencedId));
+            assertEquals(referencedId, jdbcTemplate.queryForObject(
+                    "SELECT location_id FROM users WHERE id = ?", Long.class, user.getId()));
+            assertEquals(0, count("SELECT COUNT(*) FROM locations WHERE province_id = 99"));
+
+            Map<String, Object> versionAfter = datasetVersion();
+            assertEquals(versionBefore.get("VERSION"), versionAfter.get("VERSION"));
+            assertEquals(versionAfter.get("ROW_COUNT"), count("SELECT COUNT(*) FROM locations WHERE seeded = TRUE"));
+            assertEquals(0, count("SELECT COUNT(*) FROM location_closure WHERE ancestor_id = " + referencedId));
+        } finally {
+            userRepository.delete(user);
+            inTransaction(() -> {
+                jdbcTemplate.update("DELETE FROM location_closure WHERE descendant_id = ?", referencedId);
+                jdbcTemplate.update("DELETE FROM locations WHERE id = ?", referencedId);
+            });
+        }
+    }
+
+    private void inTransaction(Runnable writes) {
+        // Auto-commit is off, so plain JdbcTemplate writes need a transaction to commit
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> writes.run());
+    }
+
+    private Map<String, Object> datasetVersion() {
+        return jdbcTemplate.queryForMap(
+                "SELECT version, row_count, applied_at FROM dataset_versions WHERE name = 'rwanda-locations'");
+    }
+
+    private String villageName(Long id) {
+        return jdbcTemplate.queryForObject("SELECT village_name FROM locations WHERE id = ?", String.class, id);
+    }
+
+    private int count(String sql) {
+        return jdbcTemplate.queryForObject(sql, Integer.class);
+    }
+}
@@ -0,0 +1,91 @@
+package auca.ac.rw.Online.quiz.management.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CsvReaderTest {
+
+    @Test
+    public void readsPlainAndQuotedFields() throws IOException {
+        CsvReader csv = reader("a,b,c\n\"x, y\",\"say \"\"hi\"\"\",\n");
+
+        assertEquals(List.of("a", "b", "c"), csv.next());
+        assertEquals(List.of("x, y", "say \"hi\"", ""), csv.next());
+        assertNull(csv.next());
+    }
+
+    @Test
+    public void quotedLineBreaksStayInTheFieldAndCountAsLines() throws IOException {
+        CsvReader csv = reader("h1,h2\n\"first\nsecond\",x\nlast,y");
+
+        assertEquals(List.of("h1", "h2"), csv.next());
+        assertEquals(1, csv.recordStartLine());
+        assertEquals(List.of("first\nsecond", "x"), csv.next());
+        assertEquals(2, csv.recordStartLine());
+        // No trailing newline on the last record
+        assertEquals(List.of("last", "y"), csv.next());
+        assertEquals(4, csv.recordStartLine());
+        assertNull(csv.next());
+    }
+
+    @Test
+    public void skipsBlankLinesAndCarriageReturns() throws IOException {
+        CsvReader csv = reader("a,b\r\n\r\n\nc,d\r\n");
+
+        assertEquals(List.of("a", "b"), csv.next());
+        assertEquals(List.of("c", "d"), csv.next());
+        assertEquals(4, csv.recordStartLine());
+        assertNull(csv.next());
+    }
+
+    @Test
+    public void emptyFieldsArePreserved() throws IOException {
+        assertEquals(List.of("", "", ""), reader(",,\n").next());
+        assertEquals(List.of(""), reader("\"\"\n").next());
+    }
+
+    @Test
+    public void overlongRecordIsReportedAndSkipped() throws IOException {
+        CsvReader csv = reader("short\n" + "x".repeat(30) + ",\"quoted\nstill long\"\nnext,row\n", 20);
+
+        assertEquals(List.of("short"), csv.next());
+        CsvReader.RecordTooLongException tooLong = assertThrows(CsvReader.RecordTooLongException.class, csv::next);
+        assertTrue(tooLong.getMessage().contains("line 2"), tooLong.getMessage());
+        // Reading resumes after the whole record, quoted line break included
+        assertEquals(List.of("next", "row"), csv.next());
+        assertEquals(4, csv.recordStartLine());
+    }
+
+    @Test
+    public void unterminatedQuoteFails() throws IOException {
+        CsvReader csv = reader("ok\n\"never closed,\nmore");
+
+        assertEquals(List.of("ok"), csv.next());
+        IOException failure = assertThrows(IOException.class, csv::next);
+        assertTrue(failure.getMessage().contains("line 2"), failure.getMessage());
+    }
+
+    @Test
+    public void escapedListsSplitBackIntoTheirValues() {
+        List<String> values = List.of("a|b", "C:\\temp\\", "", "plain");
+        String joined = CsvWriter.joinEscaped(values, '|');
+
+        assertEquals("a\\|b|C:\\\\temp\\\\||plain", joined);
+        assertEquals(values, CsvReader.splitEscaped(joined, '|'));
+        // A backslash before anything else is an ordinary character
+        assertEquals(List.of("C:\\temp", "x"), CsvReader.splitEscaped("C:\\temp|x", '|'));
+    }
+
+    private static CsvReader reader(String input) {
+        return reader(input, 1024);
+    }
+
+    private static CsvReader reader(String input, int maxRecordChars) {
+        return new CsvReader(new StringReader(input), maxRecordChars);
+    }
+}
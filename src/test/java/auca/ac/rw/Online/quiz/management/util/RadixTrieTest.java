@@ -0,0 +1,133 @@
+package auca.ac.rw.Online.quiz.management.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RadixTrieTest {
+
+    private static int[] all(RadixTrie trie, String prefix) {
+        return trie.prefixSearch(prefix, 100, id -> true);
+    }
+
+    @Test
+    public void prefixSearchReturnsIdsInKeyOrder() {
+        RadixTrie trie = new RadixTrie();
+        trie.add("carol", 3);
+        trie.add("alice", 1);
+        trie.add("alicia", 2);
+        trie.add("al", 4);
+        trie.add("bob", 5);
+
+        assertArrayEquals(new int[] {4, 1, 2}, all(trie, "al"));
+        assertArrayEquals(new int[] {1, 2}, all(trie, "alic"));
+        assertArrayEquals(new int[] {2}, all(trie, "alici"));
+        assertArrayEquals(new int[] {5}, all(trie, "bob"));
+        // Diverges inside an edge, runs past a leaf, or matches no first char
+        assertArrayEquals(new int[0], all(trie, "alx"));
+        assertArrayEquals(new int[0], all(trie, "bobby"));
+        assertArrayEquals(new int[0], all(trie, "z"));
+        assertArrayEquals(new int[0], all(trie, ""));
+    }
+
+    @Test
+    public void limitStopsTheWalkAndFilterSkipsIds() {
+        RadixTrie trie = new RadixTrie();
+        for (int i = 0; i < 10; i++) {
+            trie.add("user" + i, i);
+        }
+
+        assertArrayEquals(new int[] {0, 1, 2}, trie.prefixSearch("user", 3, id -> true));
+        assertArrayEquals(new int[] {1, 3, 5}, trie.prefixSearch("user", 3, id -> id % 2 == 1));
+        assertArrayEquals(new int[0], trie.prefixSearch("user", 0, id -> true));
+        assertEquals(10, trie.prefixSearch("user", 50, id -> true).length);
+    }
+
+    @Test
+    public void idUnderSeveralKeysIsReturnedOnce() {
+        RadixTrie trie = new RadixTrie();
+        // A user's username and email often share a prefix
+        trie.add("amy", 7);
+        trie.add("amy@example.com", 7);
+        trie.add("amos", 8);
+        trie.add("amy", 9);
+
+        assertArrayEquals(new int[] {8, 7, 9}, all(trie, "am"));
+        assertArrayEquals(new int[] {7, 9}, trie.prefixSearch("amy", 2, id -> true));
+    }
+
+    @Test
+    public void removeUnlinksOnlyThatIdAndKey() {
+        RadixTrie trie = new RadixTrie();
+        trie.add("team", 1);
+        trie.add("teacher", 2);
+        trie.add("tea", 3);
+        trie.add("tea", 4);
+
+        trie.remove("tea", 3);
+        assertArrayEquals(new int[] {4, 2, 1}, all(trie, "tea"));
+
+        // Removing the key in the middle merges its node back into the edge
+        trie.remove("tea", 4);
+        assertArrayEquals(new int[] {2, 1}, all(trie, "tea"));
+        assertArrayEquals(new int[] {2, 1}, all(trie, "te"));
+
+        trie.remove("teacher", 2);
+        assertArrayEquals(new int[] {1}, all(trie, "te"));
+        assertArrayEquals(new int[0], all(trie, "teac"));
+
+        // Unknown keys and ids are ignored
+        trie.remove("team", 99);
+        trie.remove("teams", 1);
+        trie.remove("x", 1);
+        assertArrayEquals(new int[] {1}, all(trie, "t"));
+
+        trie.remove("team", 1);
+        assertArrayEquals(new int[0], all(trie, "t"));
+        trie.add("tea", 5);
+        assertArrayEquals(new int[] {5}, all(trie, "t"));
+    }
+
+    @Test
+    public void matchesASortedMapUnderRandomAddsAndRemoves() {
+        RadixTrie trie = new RadixTrie();
+        TreeMap<String, Integer> expected = new TreeMap<>();
+        Map<String, Integer> ids = new HashMap<>();
+        Random random = new Random(42);
+        for (int step = 0; step < 5000; step++) {
+            String key = randomKey(random);
+            int id = ids.computeIfAbsent(key, k -> ids.size());
+            if (random.nextInt(3) == 0) {
+                trie.remove(key, id);
+                expected.remove(key);
+            } else {
+                trie.add(key, id);
+                expected.put(key, id);
+            }
+        }
+
+        for (String prefix : new String[] {"a", "b", "ab", "ba", "abc", "cab", "aaaa"}) {
+            Map<String, Integer> matching = expected.subMap(prefix, prefix + Character.MAX_VALUE);
+            int[] inKeyOrder = matching.values().stream().mapToInt(Integer::intValue).toArray();
+            assertArrayEquals(inKeyOrder, trie.prefixSearch(prefix, 10_000, id -> true), prefix);
+            int limit = Math.min(3, inKeyOrder.length);
+            assertArrayEquals(Arrays.copyOf(inKeyOrder, limit), trie.prefixSearch(prefix, 3, id -> true), prefix);
+        }
+    }
+
+    /** Short keys over a small alphabet, so they share prefixes and split and merge edges. */
+    private static String randomKey(Random random) {
+        StringBuilder key = new StringBuilder();
+        int length = 1 + random.nextInt(6);
+        for (int i = 0; i < length; i++) {
+            key.append((char) ('a' + random.nextInt(3)));
+        }
+        return key.toString();
+    }
+}
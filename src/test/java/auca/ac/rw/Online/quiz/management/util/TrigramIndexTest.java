@@ -0,0 +1,174 @@
+package auca.ac.rw.Online.quiz.management.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TrigramIndexTest {
+
+    private static int[] all(TrigramIndex index, String query) {
+        return index.search(query, 100, id -> true);
+    }
+
+    private static int[] sorted(int[] ids) {
+        int[] copy = ids.clone();
+        Arrays.sort(copy);
+        return copy;
+    }
+
+    @Test
+    public void findsSubstringsIgnoringCase() {
+        TrigramIndex index = new TrigramIndex();
+        index.put(1, "Linear Algebra");
+        index.put(2, "Geometry");
+        index.put(3, "Pre-ALGEBRA review");
+        index.put(4, "xyz yzw");
+
+        assertArrayEquals(new int[] {1, 3}, sorted(all(index, "algebra")));
+        assertArrayEquals(new int[] {1, 3}, sorted(all(index, "  GEBR ")));
+        assertArrayEquals(new int[] {2}, all(index, "eometr"));
+        assertArrayEquals(new int[0], all(index, "calculus"));
+        // Both trigrams are in document 4, but not next to each other
+        assertArrayEquals(new int[0], all(index, "xyzw"));
+        assertArrayEquals(new int[0], all(index, ""));
+        assertEquals(4, index.size());
+    }
+
+    @Test
+    public void queriesShorterThanATrigramScanTheTexts() {
+        TrigramIndex index = new TrigramIndex();
+        index.put(1, "ab");
+        index.put(2, "xaby");
+        index.put(3, "q");
+        index.put(4, "");
+
+        assertArrayEquals(new int[] {1, 2}, all(index, "ab"));
+        assertArrayEquals(new int[] {3}, all(index, "Q"));
+        assertArrayEquals(new int[] {2}, all(index, "y"));
+        assertArrayEquals(new int[0], all(index, "z"));
+    }
+
+    @Test
+    public void updateReplacesTheOldText() {
+        TrigramIndex index = new TrigramIndex();
+        index.put(1, "alice", "alice@example.com");
+        index.put(2, "bob", "bob@example.com");
+
+        index.put(1, "carol", "carol@example.com");
+
+        assertArrayEquals(new int[0], all(index, "alice"));
+        assertArrayEquals(new int[] {1}, all(index, "carol"));
+        // Trigrams both texts share still find it, and only once
+        assertArrayEquals(new int[] {1, 2}, sorted(all(index, "example")));
+        assertEquals(2, index.size());
+
+        // Same text again is a no-op
+        index.put(1, "carol", "carol@example.com");
+        assertArrayEquals(new int[] {1}, all(index, "carol"));
+    }
+
+    @Test
+    public void removeForgetsTheDocument() {
+        TrigramIndex index = new TrigramIndex();
+        index.put(1, "Triangles");
+        index.put(2, "Triangulation");
+
+        index.remove(1);
+        index.remove(99);
+
+        assertArrayEquals(new int[] {2}, all(index, "triang"));
+        assertArrayEquals(new int[0], all(index, "les"));
+        assertArrayEquals(new int[] {2}, all(index, "tr"));
+        assertEquals(1, index.size());
+
+        index.remove(2);
+        assertArrayEquals(new int[0], all(index, "triang"));
+        assertEquals(0, index.size());
+    }
+
+    @Test
+    public void fieldsAreMatchedSeparately() {
+        TrigramIndex index = new TrigramIndex();
+        // Username and email: a query must not span the field boundary
+        index.put(1, "ann", "mail@example.com");
+        index.put(2, null, "annmail@example.com");
+
+        assertArrayEquals(new int[] {2}, all(index, "annmail"));
+        assertArrayEquals(new int[] {1, 2}, sorted(all(index, "ann")));
+    }
+
+    @Test
+    public void ranksWholeFieldThenFieldPrefixThenWordPrefixThenInside() {
+        TrigramIndex index = new TrigramIndex();
+        index.put(1, "xalgebra");            // inside a word
+        index.put(2, "linear algebra");      // word prefix
+        index.put(3, "algebra basics");      // field prefix
+        index.put(4, "bob", "algebra");      // whole (second) field
+        index.put(5, "pre-algebra");         // word prefix, shorter than 2
+        index.put(6, "zalgebra");            // inside, same length as 1
+
+        assertArrayEquals(new int[] {4, 3, 5, 2, 1, 6}, all(index, "algebra"));
+        assertEquals(4, TrigramIndex.matchScore("bob\nalgebra", "algebra"));
+        assertEquals(3, TrigramIndex.matchScore("algebra basics", "algebra"));
+        assertEquals(2, TrigramIndex.matchScore("pre-algebra", "algebra"));
+        assertEquals(1, TrigramIndex.matchScore("xalgebra", "algebra"));
+        assertEquals(0, TrigramIndex.matchScore("geometry", "algebra"));
+        // The best occurrence counts
+        assertEquals(3, TrigramIndex.matchScore("xalgebra\nalgebra basics", "algebra"));
+    }
+
+    @Test
+    public void limitKeepsTheBestHitsAndFilterSkipsIds() {
+        TrigramIndex index = new TrigramIndex();
+        index.put(1, "xalgebra");
+        index.put(2, "linear algebra");
+        index.put(3, "algebra");
+        index.put(4, "algebra basics");
+
+        assertArrayEquals(new int[] {3, 4}, index.search("algebra", 2, id -> true));
+        assertArrayEquals(new int[] {4, 2}, index.search("algebra", 2, id -> id != 3));
+        assertArrayEquals(new int[0], index.search("algebra", 0, id -> true));
+    }
+
+    @Test
+    public void matchesAScanUnderRandomUpdates() {
+        TrigramIndex index = new TrigramIndex();
+        Map<Integer, String> texts = new HashMap<>();
+        Random random = new Random(7);
+        for (int step = 0; step < 3000; step++) {
+            int id = random.nextInt(200);
+            if (random.nextInt(4) == 0) {
+                index.remove(id);
+                texts.remove(id);
+            } else {
+                String text = randomText(random);
+                index.put(id, text);
+                texts.put(id, text);
+            }
+        }
+
+        for (String query : new String[] {"a", "ab", "abc", "bca", "cab a", "aaaa", "b c"}) {
+            int[] expected = texts.entrySet().stream()
+                    .filter(entry -> TrigramIndex.normalizeFields(entry.getValue()).contains(query))
+                    .mapToInt(Map.Entry::getKey)
+                    .sorted()
+                    .toArray();
+            assertArrayEquals(expected, sorted(index.search(query, 1000, id -> true)), query);
+        }
+    }
+
+    /** Lowercase text over a tiny alphabet, so trigrams are shared and postings grow and shrink. */
+    private static String randomText(Random random) {
+        StringBuilder text = new StringBuilder();
+        int length = random.nextInt(12);
+        for (int i = 0; i < length; i++) {
+            text.append("abc ".charAt(random.nextInt(4)));
+        }
+        return text.toString();
+    }
+}